@@ -2,6 +2,7 @@ package com.rasras.erp.approval;
 
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -10,6 +11,8 @@ import java.util.List;
 public interface ApprovalActionRepository extends JpaRepository<ApprovalAction, Integer> {
     List<ApprovalAction> findByRequestIdOrderByActionDateDesc(Integer requestId);
 
-    /** آخر الإجراءات للتقارير والتدقيق (سجل الاعتمادات) */
-    List<ApprovalAction> findAllByOrderByActionDateDesc(Pageable pageable);
+    /** آخر الإجراءات للتقارير والتدقيق (سجل الاعتمادات) مع الطلب وسير العمل والخطوة والمستخدم في استعلام واحد */
+    @Query("SELECT a FROM ApprovalAction a JOIN FETCH a.request r JOIN FETCH r.workflow JOIN FETCH a.step "
+            + "JOIN FETCH a.actionByUser ORDER BY a.actionDate DESC")
+    List<ApprovalAction> findRecentWithDetails(Pageable pageable);
 }
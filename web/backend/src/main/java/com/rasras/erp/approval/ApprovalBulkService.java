@@ -0,0 +1,96 @@
+package com.rasras.erp.approval;
+
+import com.rasras.erp.approval.dto.BulkApprovalActionRequest;
+import com.rasras.erp.approval.dto.BulkApprovalResultDto;
+import com.rasras.erp.shared.exception.BadRequestException;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutorService;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * الاعتماد الجماعي (إقفال نهاية الشهر): كل طلب يمر على ApprovalService.processAction في معاملته
+ * الخاصة، بعدد محدود من الخيوط المتوازية حتى لا تُستنزف اتصالات قاعدة البيانات.
+ */
+@Slf4j
+@Service
+public class ApprovalBulkService {
+
+    private final ApprovalService approvalService;
+    private final ExecutorService executor;
+    private final int maxItems;
+
+    public ApprovalBulkService(ApprovalService approvalService,
+            @Value("${app.approvals.bulk-parallelism:4}") int parallelism,
+            @Value("${app.approvals.bulk-max-items:500}") int maxItems) {
+        this.approvalService = approvalService;
+        this.maxItems = maxItems;
+        AtomicInteger counter = new AtomicInteger();
+        // سياق الأمان ينتقل لخيوط العمل كما في الطلب الفردي
+        this.executor = new DelegatingSecurityContextExecutorService(
+                Executors.newFixedThreadPool(Math.max(parallelism, 1), r -> {
+                    Thread t = new Thread(r, "approval-bulk-" + counter.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                }));
+    }
+
+    public BulkApprovalResultDto processBulk(BulkApprovalActionRequest request, Integer actionByUserId) {
+        List<Integer> ids = new ArrayList<>(new LinkedHashSet<>(request.getRequestIds()));
+        ids.removeIf(Objects::isNull);
+        if (ids.isEmpty()) {
+            throw new BadRequestException("لا توجد طلبات اعتماد للتنفيذ");
+        }
+        if (ids.size() > maxItems) {
+            throw new BadRequestException("الحد الأقصى للاعتماد الجماعي " + maxItems + " طلب في المرة الواحدة");
+        }
+
+        long started = System.currentTimeMillis();
+        List<CompletableFuture<BulkApprovalResultDto.Item>> futures = new ArrayList<>(ids.size());
+        for (Integer id : ids) {
+            futures.add(CompletableFuture.supplyAsync(() -> processOne(id, request, actionByUserId), executor));
+        }
+        List<BulkApprovalResultDto.Item> items = futures.stream().map(CompletableFuture::join).toList();
+
+        int succeeded = (int) items.stream().filter(BulkApprovalResultDto.Item::isSuccess).count();
+        log.info("اعتماد جماعي ({}) لـ {} طلب بواسطة المستخدم {}: نجح {} وفشل {} خلال {} ms", request.getAction(),
+                ids.size(), actionByUserId, succeeded, ids.size() - succeeded, System.currentTimeMillis() - started);
+        return BulkApprovalResultDto.builder()
+                .total(items.size())
+                .succeeded(succeeded)
+                .failed(items.size() - succeeded)
+                .items(items)
+                .build();
+    }
+
+    private BulkApprovalResultDto.Item processOne(Integer requestId, BulkApprovalActionRequest request,
+            Integer actionByUserId) {
+        try {
+            approvalService.processAction(requestId, actionByUserId, request.getAction(), request.getComments(),
+                    request.getWarehouseId(), request.getExchangeRate());
+            return BulkApprovalResultDto.Item.builder().requestId(requestId).success(true).build();
+        } catch (Exception e) {
+            log.warn("فشل الاعتماد الجماعي للطلب {}: {}", requestId, e.getMessage());
+            return BulkApprovalResultDto.Item.builder()
+                    .requestId(requestId)
+                    .success(false)
+                    .message(e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName())
+                    .build();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -1,14 +1,23 @@
 package com.rasras.erp.approval;
 
+import com.rasras.erp.approval.dto.ApprovalInboxDto;
+import com.rasras.erp.approval.dto.BulkApprovalActionRequest;
+import com.rasras.erp.approval.dto.BulkApprovalResultDto;
 import com.rasras.erp.shared.dto.ApiResponse;
 import com.rasras.erp.shared.security.SecurityConstants;
 import com.rasras.erp.shared.security.UserPrincipal;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.Collections;
 import java.util.List;
@@ -21,6 +30,9 @@ import org.springframework.beans.factory.annotation.Autowired;
 public class ApprovalController {
 
     private final ApprovalService approvalService;
+    private final ApprovalBulkService approvalBulkService;
+    private final ApprovalEventHub approvalEventHub;
+    private final ApprovalWorkflowRegistry workflowRegistry;
 
     /**
      * قائمة الاعتمادات المعلقة — حسب دور المستخدم المسجّل: الأدمن يرى الكل، غيره
@@ -44,6 +56,29 @@ public class ApprovalController {
         return ResponseEntity.ok(ApiResponse.success(approvalService.getPendingRequestsForUser(effectiveUserId)));
     }
 
+    /**
+     * صندوق اعتمادات المستخدم المسجّل مقسماً لصفحات (مع فلتر نوع المستند وعدد الطلبات لكل نوع)
+     */
+    @PreAuthorize(SecurityConstants.AUTHENTICATED)
+    @GetMapping("/inbox")
+    public ResponseEntity<ApiResponse<ApprovalInboxDto>> getInbox(
+            @RequestParam(required = false) String documentType,
+            @PageableDefault(size = 20, sort = "requestedDate", direction = Sort.Direction.DESC) Pageable pageable) {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth == null || !(auth.getPrincipal() instanceof UserPrincipal principal)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(ApiResponse.success(approvalService.getInbox(principal.getId(), documentType,
+                pageable)));
+    }
+
+    /** إعادة تحميل تعريفات سير العمل فوراً بعد تعديلها بسكربت SQL — للأدمن فقط */
+    @PreAuthorize(SecurityConstants.SYSTEM_ADMIN_ONLY)
+    @PostMapping("/workflows/reload")
+    public ResponseEntity<ApiResponse<Integer>> reloadWorkflows() {
+        return ResponseEntity.ok(ApiResponse.success("Approval workflows reloaded", workflowRegistry.reload()));
+    }
+
     /** سجل الاعتمادات — بيانات حساسة، يتطلب صلاحية SECTION_MAIN أو أدوار الإشراف */
     @PreAuthorize(SecurityConstants.APPROVAL_ACTION)
     @GetMapping("/audit")
@@ -79,4 +114,35 @@ public class ApprovalController {
         return ResponseEntity.ok(ApiResponse.success(null));
     }
 
+    /**
+     * اعتماد/رفض جماعي لعدة طلبات بإجراء وتعليق واحد — كل طلب في معاملة مستقلة، والنتيجة لكل طلب على حدة
+     */
+    @PreAuthorize(SecurityConstants.APPROVAL_ACTION)
+    @PostMapping("/bulk-action")
+    public ResponseEntity<ApiResponse<BulkApprovalResultDto>> takeBulkAction(
+            @Valid @RequestBody BulkApprovalActionRequest request) {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth == null || !(auth.getPrincipal() instanceof UserPrincipal principal)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(ApiResponse.success(approvalBulkService.processBulk(request, principal.getId())));
+    }
+
+    /**
+     * بث مباشر (SSE) لتغييرات صندوق الاعتمادات وحالات المستندات الخاصة بالمستخدم — بديل الاستطلاع الدوري.
+     * عند إعادة الاتصال يرسل المتصفح Last-Event-ID تلقائياً فتُعاد الأحداث الفائتة.
+     */
+    @PreAuthorize(SecurityConstants.AUTHENTICATED)
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> stream(
+            @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId,
+            @RequestParam(value = "lastEventId", required = false) Long lastEventIdParam) {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth == null || !(auth.getPrincipal() instanceof UserPrincipal principal)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok()
+                .header("X-Accel-Buffering", "no")
+                .body(approvalEventHub.subscribe(principal, lastEventId != null ? lastEventId : lastEventIdParam));
+    }
 }
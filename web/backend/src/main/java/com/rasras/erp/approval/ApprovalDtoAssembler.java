@@ -0,0 +1,145 @@
+package com.rasras.erp.approval;
+
+import com.rasras.erp.employee.EmployeeNameCache;
+import com.rasras.erp.procurement.QuotationComparisonRepository;
+import com.rasras.erp.user.User;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * تحويل صفحة كاملة من طلبات / إجراءات الاعتماد إلى DTO: تُجمع معرفات الموظفين والمقارنات في الصفحة
+ * وتُحل باستعلام IN واحد لكل نوع (أسماء الموظفين عبر EmployeeNameCache) بدلاً من استعلام لكل صف.
+ * الكيانات المرتبطة (سير العمل، الخطوة، المستخدم) يجب أن تكون محمّلة مسبقاً بـ JOIN FETCH.
+ */
+@Component
+@RequiredArgsConstructor
+public class ApprovalDtoAssembler {
+
+    private final EmployeeNameCache employeeNames;
+    private final QuotationComparisonRepository comparisonRepo;
+
+    public List<ApprovalRequestDto> toDtos(List<ApprovalRequest> requests) {
+        List<User> users = new ArrayList<>();
+        Set<Integer> comparisonIds = new LinkedHashSet<>();
+        for (ApprovalRequest req : requests) {
+            users.add(req.getRequestedByUser());
+            if (req.getCurrentStep() != null) {
+                users.add(req.getCurrentStep().getApproverUser());
+            }
+            if (needsComparisonTotal(req)) {
+                comparisonIds.add(req.getDocumentId());
+            }
+        }
+        Map<Integer, String> names = employeeNames.arabicNames(employeeIds(users));
+        Map<Integer, BigDecimal> comparisonTotals = new HashMap<>();
+        if (!comparisonIds.isEmpty()) {
+            for (Object[] row : comparisonRepo.findSelectedQuotationTotals(comparisonIds)) {
+                if (row[1] != null) {
+                    comparisonTotals.put((Integer) row[0], (BigDecimal) row[1]);
+                }
+            }
+        }
+
+        List<ApprovalRequestDto> result = new ArrayList<>(requests.size());
+        for (ApprovalRequest req : requests) {
+            result.add(toDto(req, names, comparisonTotals));
+        }
+        return result;
+    }
+
+    public List<ApprovalAuditDto> toAuditDtos(List<ApprovalAction> actions) {
+        List<User> users = new ArrayList<>(actions.size());
+        for (ApprovalAction action : actions) {
+            users.add(action.getActionByUser());
+        }
+        Map<Integer, String> names = employeeNames.arabicNames(employeeIds(users));
+
+        List<ApprovalAuditDto> result = new ArrayList<>(actions.size());
+        for (ApprovalAction action : actions) {
+            ApprovalRequest req = action.getRequest();
+            result.add(ApprovalAuditDto.builder()
+                    .actionId(action.getId())
+                    .requestId(req.getId())
+                    .documentType(req.getDocumentType())
+                    .documentId(req.getDocumentId())
+                    .documentNumber(req.getDocumentNumber())
+                    .workflowName(req.getWorkflow().getWorkflowName())
+                    .stepName(action.getStep().getStepName())
+                    .actionType(action.getActionType())
+                    .actionByUser(displayName(action.getActionByUser(), names))
+                    .actionDate(action.getActionDate())
+                    .comments(action.getComments())
+                    .totalAmount(req.getTotalAmount())
+                    .requestStatus(req.getStatus())
+                    .build());
+        }
+        return result;
+    }
+
+    private ApprovalRequestDto toDto(ApprovalRequest req, Map<Integer, String> names,
+            Map<Integer, BigDecimal> comparisonTotals) {
+        BigDecimal amount = req.getTotalAmount();
+        // إجمالي المقارنة من عرض السعر المختار عندما يكون مخزناً صفراً (بيانات قديمة)
+        if (needsComparisonTotal(req)) {
+            amount = comparisonTotals.getOrDefault(req.getDocumentId(), amount);
+        }
+        if (amount == null) {
+            amount = BigDecimal.ZERO;
+        }
+        String currentApproverName = "";
+        ApprovalWorkflowStep currentStep = req.getCurrentStep();
+        if (currentStep != null) {
+            if (currentStep.getApproverUser() != null) {
+                currentApproverName = "تم عن طريق " + displayName(currentStep.getApproverUser(), names);
+            } else if (currentStep.getApproverRole() != null) {
+                currentApproverName = "تم عن طريق " + currentStep.getApproverRole().getRoleNameAr();
+            }
+        }
+
+        return ApprovalRequestDto.builder()
+                .id(req.getId())
+                .workflowName(req.getWorkflow().getWorkflowName())
+                .documentType(req.getDocumentType())
+                .documentId(req.getDocumentId())
+                .documentNumber(req.getDocumentNumber())
+                .requestedByName(displayName(req.getRequestedByUser(), names))
+                .totalAmount(amount)
+                .status(req.getStatus())
+                .currentStepName(currentStep != null ? currentStep.getStepName() : "")
+                .currentApproverName(currentApproverName)
+                .requestedDate(req.getRequestedDate())
+                .completedDate(req.getCompletedDate())
+                .priority("Normal")
+                .build();
+    }
+
+    private static boolean needsComparisonTotal(ApprovalRequest req) {
+        return "QuotationComparison".equals(req.getDocumentType())
+                && (req.getTotalAmount() == null || req.getTotalAmount().compareTo(BigDecimal.ZERO) == 0);
+    }
+
+    private static Collection<Integer> employeeIds(List<User> users) {
+        Set<Integer> ids = new LinkedHashSet<>();
+        for (User user : users) {
+            if (user != null && user.getEmployeeId() != null) {
+                ids.add(user.getEmployeeId());
+            }
+        }
+        return ids;
+    }
+
+    /** اسم الموظف بالعربية إن وُجد، وإلا اسم المستخدم */
+    private static String displayName(User user, Map<Integer, String> names) {
+        String name = user.getEmployeeId() != null ? names.get(user.getEmployeeId()) : null;
+        return name != null ? name : user.getUsername();
+    }
+}
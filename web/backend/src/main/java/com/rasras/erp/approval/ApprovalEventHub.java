@@ -0,0 +1,246 @@
+package com.rasras.erp.approval;
+
+import com.rasras.erp.approval.dto.ApprovalEventDto;
+import com.rasras.erp.shared.security.UserPrincipal;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * قناة SSE لتغييرات الاعتمادات: كل حدث يُرسل بعد commit للمتصلين المعنيين فقط — معتمد الخطوة
+ * السابقة والحالية (بالدور أو المستخدم)، مقدم الطلب، ومن لديه صلاحية الاعتماد لأحداث حالة المستند.
+ * آخر الأحداث محفوظة في الذاكرة لإعادة إرسالها عند إعادة الاتصال بـ Last-Event-ID؛ إن كان المعرف أقدم
+ * من المخزن يُرسل حدث reset لتعيد الواجهة التحميل الكامل. الإرسال والإعادة على خيط واحد فلا تكرار ولا فجوات.
+ */
+@Component
+public class ApprovalEventHub {
+
+    public static final String INBOX_EVENT = "inbox";
+    public static final String DOCUMENT_STATUS_EVENT = "document-status";
+
+    private static final String APPROVAL_AUTHORITY = "SECTION_MAIN";
+
+    private final ApprovalWorkflowRegistry workflowRegistry;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    /** يُستخدم من خيط الإرسال فقط */
+    private final Deque<BufferedEvent> replay = new ArrayDeque<>();
+    private final ExecutorService sender = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "approval-sse");
+        t.setDaemon(true);
+        return t;
+    });
+    /** يبدأ من الوقت الحالي حتى تبقى المعرفات متزايدة بعد إعادة تشغيل الخادم */
+    private long sequence = System.currentTimeMillis();
+
+    @Value("${app.approvals.sse-replay-size:500}")
+    private int replaySize;
+
+    @Value("${app.approvals.sse-timeout-ms:1800000}")
+    private long timeoutMs;
+
+    public ApprovalEventHub(ApprovalWorkflowRegistry workflowRegistry) {
+        this.workflowRegistry = workflowRegistry;
+    }
+
+    public SseEmitter subscribe(UserPrincipal principal, Long lastEventId) {
+        SseEmitter emitter = createEmitter();
+        Subscriber subscriber = new Subscriber(principal, emitter);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+        sender.execute(() -> {
+            if (lastEventId != null && !replay(subscriber, lastEventId)) {
+                return;
+            }
+            subscribers.add(subscriber);
+        });
+        return emitter;
+    }
+
+    SseEmitter createEmitter() {
+        return new SseEmitter(timeoutMs);
+    }
+
+    /**
+     * تغير طلب اعتماد (إنشاء، انتقال خطوة، اعتماد نهائي، رفض). previousStepId = خطوة الطلب قبل التغيير.
+     */
+    public void requestChanged(ApprovalRequest request, Integer previousStepId) {
+        Integer currentStepId = request.getCurrentStep() != null ? request.getCurrentStep().getStepId() : null;
+        Audience audience = new Audience(false);
+        audience.addStep(previousStepId);
+        audience.addStep(currentStepId);
+        publishAfterCommit(INBOX_EVENT, event(request, request.getStatus(), currentStepId), audience);
+    }
+
+    /**
+     * تغير حالة المستند المرتبط بعد الاعتماد النهائي أو الرفض.
+     */
+    public void documentStatusChanged(ApprovalRequest request, String status) {
+        Audience audience = new Audience(true);
+        if (request.getRequestedByUser() != null) {
+            audience.userIds.add(request.getRequestedByUser().getUserId());
+        }
+        audience.addStep(request.getCurrentStep() != null ? request.getCurrentStep().getStepId() : null);
+        publishAfterCommit(DOCUMENT_STATUS_EVENT, event(request, status, null), audience);
+    }
+
+    private static ApprovalEventDto event(ApprovalRequest request, String status, Integer currentStepId) {
+        return ApprovalEventDto.builder()
+                .requestId(request.getId())
+                .documentType(request.getDocumentType())
+                .documentId(request.getDocumentId())
+                .documentNumber(request.getDocumentNumber())
+                .status(status)
+                .currentStepId(currentStepId)
+                .build();
+    }
+
+    private void publishAfterCommit(String name, ApprovalEventDto data, Audience audience) {
+        Runnable publish = () -> sender.execute(() -> deliver(name, data, audience));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publish.run();
+                }
+            });
+        } else {
+            publish.run();
+        }
+    }
+
+    private void deliver(String name, ApprovalEventDto data, Audience audience) {
+        BufferedEvent event = new BufferedEvent(++sequence, name, data, audience);
+        replay.addLast(event);
+        while (replay.size() > Math.max(replaySize, 1)) {
+            replay.removeFirst();
+        }
+        for (Subscriber subscriber : subscribers) {
+            if (audience.includes(subscriber)) {
+                send(subscriber, event);
+            }
+        }
+    }
+
+    /** @return false إذا انقطع الاتصال أثناء الإعادة */
+    private boolean replay(Subscriber subscriber, long lastEventId) {
+        BufferedEvent oldest = replay.peekFirst();
+        boolean missed = lastEventId > sequence
+                || (lastEventId < sequence && (oldest == null || oldest.id() > lastEventId + 1));
+        if (missed) {
+            return send(subscriber, SseEmitter.event().id(String.valueOf(sequence)).name("reset").data("{}"));
+        }
+        for (BufferedEvent event : replay) {
+            if (event.id() > lastEventId && event.audience().includes(subscriber) && !send(subscriber, event)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean send(Subscriber subscriber, BufferedEvent event) {
+        return send(subscriber, SseEmitter.event()
+                .id(String.valueOf(event.id()))
+                .name(event.name())
+                .data(event.data(), MediaType.APPLICATION_JSON));
+    }
+
+    private boolean send(Subscriber subscriber, SseEmitter.SseEventBuilder builder) {
+        try {
+            subscriber.emitter().send(builder);
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            subscribers.remove(subscriber);
+            subscriber.emitter().completeWithError(e);
+            return false;
+        }
+    }
+
+    /** تعليق دوري يبقي الاتصال مفتوحاً عبر الـ proxies ويكشف الاتصالات المنقطعة */
+    @Scheduled(fixedDelayString = "${app.approvals.sse-heartbeat-ms:25000}")
+    public void heartbeat() {
+        sender.execute(() -> {
+            for (Subscriber subscriber : subscribers) {
+                send(subscriber, SseEmitter.event().comment("ping"));
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sender.shutdownNow();
+        subscribers.forEach(s -> s.emitter().complete());
+    }
+
+    private final class Audience {
+        private final boolean approvers;
+        /** رموز الأدوار بحالة موحدة (CompiledWorkflow.roleKey) كما في رمز دور المشترك */
+        private final Set<String> roleCodes = new HashSet<>();
+        private final Set<Integer> userIds = new HashSet<>();
+
+        private Audience(boolean approvers) {
+            this.approvers = approvers;
+        }
+
+        private void addStep(Integer stepId) {
+            if (stepId == null) {
+                return;
+            }
+            workflowRegistry.findStep(stepId).ifPresent(step -> {
+                if ("ROLE".equals(step.approverType())) {
+                    if (step.roleCode() != null) {
+                        roleCodes.add(CompiledWorkflow.roleKey(step.roleCode()));
+                    }
+                } else if (step.approverUserId() != null) {
+                    userIds.add(step.approverUserId());
+                }
+            });
+        }
+
+        private boolean includes(Subscriber subscriber) {
+            return userIds.contains(subscriber.userId())
+                    || (subscriber.roleCode() != null && roleCodes.contains(subscriber.roleCode()))
+                    || (approvers && subscriber.authorities().contains(APPROVAL_AUTHORITY));
+        }
+    }
+
+    private record BufferedEvent(long id, String name, ApprovalEventDto data, Audience audience) {
+    }
+
+    private record Subscriber(Integer userId, String roleCode, Set<String> authorities, SseEmitter emitter) {
+
+        private Subscriber(UserPrincipal principal, SseEmitter emitter) {
+            this(principal.getId(), roleCode(principal), authorities(principal), emitter);
+        }
+
+        private static String roleCode(UserPrincipal principal) {
+            for (GrantedAuthority authority : principal.getAuthorities()) {
+                if (authority.getAuthority().startsWith("ROLE_")) {
+                    return CompiledWorkflow.roleKey(authority.getAuthority().substring(5));
+                }
+            }
+            return null;
+        }
+
+        private static Set<String> authorities(UserPrincipal principal) {
+            Set<String> result = new HashSet<>();
+            principal.getAuthorities().forEach(a -> result.add(a.getAuthority()));
+            return result;
+        }
+    }
+}
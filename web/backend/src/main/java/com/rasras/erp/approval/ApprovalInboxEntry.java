@@ -0,0 +1,50 @@
+package com.rasras.erp.approval;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * صندوق الاعتمادات المجهّز مسبقاً: صف لكل طلب اعتماد مفتوح (Pending / InProgress) مع معتمد خطوته الحالية
+ * (كود الدور لخطوات ROLE أو المستخدم لخطوات USER). يُحدّث مع كل تغيير في الخطوة (ApprovalInboxService).
+ */
+@Entity
+@Table(name = "approvalinbox",
+        indexes = {
+                @Index(name = "IX_ApprovalInbox_Role", columnList = "ApproverRoleCode, RequestedDate"),
+                @Index(name = "IX_ApprovalInbox_User", columnList = "ApproverUserID, RequestedDate")
+        })
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ApprovalInboxEntry {
+
+    @Id
+    @Column(name = "RequestID")
+    private Integer requestId;
+
+    @Column(name = "ApproverRoleCode", length = 50)
+    private String approverRoleCode;
+
+    @Column(name = "ApproverUserID")
+    private Integer approverUserId;
+
+    @Column(name = "DocumentType", nullable = false, length = 30)
+    private String documentType;
+
+    @Column(name = "StepID", nullable = false)
+    private Integer stepId;
+
+    @Column(name = "TotalAmount", precision = 18, scale = 2)
+    private BigDecimal totalAmount;
+
+    @Column(name = "RequestedDate")
+    private LocalDateTime requestedDate;
+
+    @Column(name = "UpdatedAt", nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,28 @@
+package com.rasras.erp.approval;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ApprovalInboxRepository extends JpaRepository<ApprovalInboxEntry, Integer> {
+
+    String FOR_APPROVER = "(e.approverRoleCode = :roleCode OR e.approverUserId = :userId)";
+
+    @Query(value = "SELECT e.requestId FROM ApprovalInboxEntry e WHERE " + FOR_APPROVER
+            + " AND (:documentType IS NULL OR e.documentType = :documentType)",
+            countQuery = "SELECT COUNT(e) FROM ApprovalInboxEntry e WHERE " + FOR_APPROVER
+                    + " AND (:documentType IS NULL OR e.documentType = :documentType)")
+    Page<Integer> findRequestIds(@Param("roleCode") String roleCode, @Param("userId") Integer userId,
+            @Param("documentType") String documentType, Pageable pageable);
+
+    /** [DocumentType, Count] */
+    @Query("SELECT e.documentType, COUNT(e) FROM ApprovalInboxEntry e WHERE " + FOR_APPROVER
+            + " GROUP BY e.documentType")
+    List<Object[]> countByDocumentType(@Param("roleCode") String roleCode, @Param("userId") Integer userId);
+}
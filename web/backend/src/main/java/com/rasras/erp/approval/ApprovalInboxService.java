@@ -0,0 +1,131 @@
+package com.rasras.erp.approval;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+/**
+ * يحافظ على جدول approvalinbox داخل نفس معاملة تغيير طلب الاعتماد: الطلب المفتوح له صف واحد
+ * بمعتمد خطوته الحالية، والطلب المغلق (معتمد / مرفوض) يُحذف صفه. بذلك يقرأ صندوق المستخدم
+ * صفوفه فقط عبر الفهرس بدلاً من فحص كل الطلبات المفتوحة.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ApprovalInboxService {
+
+    private static final String UPSERT_SQL = "INSERT INTO approvalinbox (RequestID, ApproverRoleCode, ApproverUserID, "
+            + "DocumentType, StepID, TotalAmount, RequestedDate, UpdatedAt) VALUES (?, ?, ?, ?, ?, ?, ?, ?) AS incoming "
+            + "ON DUPLICATE KEY UPDATE "
+            + "ApproverRoleCode = incoming.ApproverRoleCode, "
+            + "ApproverUserID = incoming.ApproverUserID, "
+            + "DocumentType = incoming.DocumentType, "
+            + "StepID = incoming.StepID, "
+            + "TotalAmount = incoming.TotalAmount, "
+            + "RequestedDate = incoming.RequestedDate, "
+            + "UpdatedAt = incoming.UpdatedAt";
+
+    /** upsert لكل الطلبات المفتوحة: آمن إذا شغّلته أكثر من نسخة أو تزامن مع sync */
+    static final String REBUILD_SQL = "INSERT INTO approvalinbox (RequestID, ApproverRoleCode, ApproverUserID, "
+            + "DocumentType, StepID, TotalAmount, RequestedDate, UpdatedAt) "
+            + "SELECT * FROM (SELECT r.RequestID, CASE WHEN s.ApproverType = 'ROLE' THEN ro.RoleCode END AS RoleCode, "
+            + "CASE WHEN s.ApproverType = 'ROLE' THEN NULL ELSE s.ApproverUserID END AS UserID, "
+            + "r.DocumentType, s.StepID, r.TotalAmount, r.RequestedDate, ? AS UpdatedAt "
+            + "FROM approvalrequests r JOIN approvalworkflowsteps s ON s.StepID = r.CurrentStepID "
+            + "LEFT JOIN roles ro ON ro.RoleID = s.ApproverRoleID "
+            + "WHERE r.Status IN ('Pending', 'InProgress')) AS incoming "
+            + "ON DUPLICATE KEY UPDATE "
+            + "ApproverRoleCode = incoming.RoleCode, "
+            + "ApproverUserID = incoming.UserID, "
+            + "DocumentType = incoming.DocumentType, "
+            + "StepID = incoming.StepID, "
+            + "TotalAmount = incoming.TotalAmount, "
+            + "RequestedDate = incoming.RequestedDate, "
+            + "UpdatedAt = incoming.UpdatedAt";
+
+    /** صفوف طلبات لم تعد مفتوحة (أُغلقت أو حُذفت خارج التطبيق) */
+    static final String DELETE_CLOSED_SQL = "DELETE i FROM approvalinbox i LEFT JOIN approvalrequests r "
+            + "ON r.RequestID = i.RequestID AND r.Status IN ('Pending', 'InProgress') WHERE r.RequestID IS NULL";
+
+    /** قفل على مستوى الخادم (MySQL GET_LOCK) حتى لا تعيد نسختان البناء في نفس الوقت */
+    static final String REBUILD_LOCK = "approvalinbox-rebuild";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApprovalWorkflowRegistry workflowRegistry;
+
+    /**
+     * يُستدعى بعد أي تغيير في حالة الطلب أو خطوته الحالية (إنشاء، انتقال لخطوة تالية، اعتماد نهائي، رفض).
+     */
+    public void sync(ApprovalRequest request) {
+        if (request.getId() == null) {
+            return;
+        }
+        ApprovalWorkflowStep step = request.getCurrentStep();
+        boolean open = "Pending".equals(request.getStatus()) || "InProgress".equals(request.getStatus());
+        if (!open || step == null) {
+            remove(request.getId());
+            return;
+        }
+        // معتمد الخطوة من التعريف المجمّع حتى لا يُحمّل كيان الخطوة (مرجع كسول) من القاعدة
+        CompiledWorkflow.Step compiled = workflowRegistry.findStep(step.getStepId()).orElse(null);
+        boolean byRole = "ROLE".equals(compiled != null ? compiled.approverType() : step.getApproverType());
+        String roleCode;
+        Integer userId;
+        if (compiled != null) {
+            roleCode = byRole ? compiled.roleCode() : null;
+            userId = byRole ? null : compiled.approverUserId();
+        } else {
+            roleCode = byRole && step.getApproverRole() != null ? step.getApproverRole().getRoleCode() : null;
+            userId = !byRole && step.getApproverUser() != null ? step.getApproverUser().getUserId() : null;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.update(UPSERT_SQL, request.getId(), roleCode, userId, request.getDocumentType(),
+                step.getStepId(), request.getTotalAmount(),
+                request.getRequestedDate() != null ? Timestamp.valueOf(request.getRequestedDate()) : now, now);
+    }
+
+    public void remove(Integer requestId) {
+        jdbcTemplate.update("DELETE FROM approvalinbox WHERE RequestID = ?", requestId);
+    }
+
+    /**
+     * مطابقة كاملة عند بدء التشغيل تلتقط أي تعديل على الطلبات تم خارج التطبيق: upsert للطلبات المفتوحة
+     * ثم حذف صفوف الطلبات المغلقة، بدون تفريغ الجدول. إذا كانت نسخة أخرى تطابق الآن يُتخطى التشغيل.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        try {
+            long started = System.currentTimeMillis();
+            int[] rows = transactionTemplate.execute(status -> {
+                // GET_LOCK مرتبط بالاتصال: داخل المعاملة يبقى نفس الاتصال حتى RELEASE_LOCK
+                Integer locked = jdbcTemplate.queryForObject("SELECT GET_LOCK(?, 0)", Integer.class, REBUILD_LOCK);
+                if (locked == null || locked != 1) {
+                    return null;
+                }
+                try {
+                    int upserted = jdbcTemplate.update(REBUILD_SQL, Timestamp.valueOf(LocalDateTime.now()));
+                    int removed = jdbcTemplate.update(DELETE_CLOSED_SQL);
+                    return new int[] { upserted, removed };
+                } finally {
+                    jdbcTemplate.queryForObject("SELECT RELEASE_LOCK(?)", Integer.class, REBUILD_LOCK);
+                }
+            });
+            if (rows == null) {
+                log.info("تخطي مطابقة صندوق الاعتمادات: نسخة أخرى تطابقه الآن");
+                return;
+            }
+            log.info("تمت مطابقة صندوق الاعتمادات ({} صف محدّث، {} صف محذوف) خلال {} ms", rows[0], rows[1],
+                    System.currentTimeMillis() - started);
+        } catch (Exception e) {
+            log.warn("تعذرت مطابقة صندوق الاعتمادات عند بدء التشغيل", e);
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.rasras.erp.approval;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import java.util.List;
 
@@ -11,4 +12,7 @@ public interface ApprovalLimitRepository extends JpaRepository<ApprovalLimit, In
     List<ApprovalLimit> findByRole_RoleId(Integer roleId);
     boolean existsByRole_RoleId(Integer roleId);
     boolean existsByRequiresReviewBy_RoleId(Integer roleId);
+
+    @Query("SELECT l FROM ApprovalLimit l JOIN FETCH l.role WHERE l.isActive = true")
+    List<ApprovalLimit> findActiveWithRole();
 }
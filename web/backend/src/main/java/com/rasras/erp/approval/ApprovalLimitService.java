@@ -13,6 +13,7 @@ import java.util.stream.Collectors;
 public class ApprovalLimitService {
 
     private final ApprovalLimitRepository limitRepo;
+    private final ApprovalWorkflowRegistry workflowRegistry;
 
     @Transactional(readOnly = true)
     public List<ApprovalLimitDto> getAllLimits(String activityType) {
@@ -50,7 +51,9 @@ public class ApprovalLimitService {
         }
         if (dto.getIsActive() != null) entity.setIsActive(dto.getIsActive());
 
-        return mapToDto(limitRepo.save(entity));
+        ApprovalLimit saved = limitRepo.save(entity);
+        workflowRegistry.invalidate();
+        return mapToDto(saved);
     }
 
     private ApprovalLimitDto mapToDto(ApprovalLimit e) {
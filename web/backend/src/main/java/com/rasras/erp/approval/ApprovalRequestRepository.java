@@ -18,7 +18,9 @@ public interface ApprovalRequestRepository extends JpaRepository<ApprovalRequest
 
     List<ApprovalRequest> findByStatusIn(List<String> statuses);
 
-    /** جلب الطلبات المعلقة مع الخطوة الحالية ودور المعتمد لضمان الفلترة حسب الدور دون Lazy load */
-    @Query("SELECT DISTINCT r FROM ApprovalRequest r LEFT JOIN FETCH r.currentStep s LEFT JOIN FETCH s.approverRole WHERE r.status IN :statuses")
-    List<ApprovalRequest> findByStatusInWithCurrentStepAndApproverRole(@Param("statuses") List<String> statuses);
+    /** تحميل صفحة الصندوق مع الخطوة الحالية وسير العمل ومقدم الطلب في استعلام واحد */
+    @Query("SELECT r FROM ApprovalRequest r JOIN FETCH r.workflow LEFT JOIN FETCH r.requestedByUser "
+            + "LEFT JOIN FETCH r.currentStep s LEFT JOIN FETCH s.approverRole LEFT JOIN FETCH s.approverUser "
+            + "WHERE r.id IN :ids")
+    List<ApprovalRequest> findAllByIdWithCurrentStep(@Param("ids") java.util.Collection<Integer> ids);
 }
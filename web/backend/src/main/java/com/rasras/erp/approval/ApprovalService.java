@@ -1,9 +1,12 @@
 package com.rasras.erp.approval;
 
+import com.rasras.erp.approval.dto.ApprovalInboxDto;
 import com.rasras.erp.inventory.GoodsReceiptNoteRepository;
 import com.rasras.erp.inventory.GoodsReceiptNote;
 import com.rasras.erp.inventory.GRNItem;
 import com.rasras.erp.inventory.InventoryService;
+import com.rasras.erp.inventory.StockPosting;
+import com.rasras.erp.inventory.StockReservationLine;
 import com.rasras.erp.inventory.Warehouse;
 import com.rasras.erp.procurement.PurchaseOrderRepository;
 import com.rasras.erp.procurement.PurchaseRequisitionRepository;
@@ -33,19 +36,27 @@ import com.rasras.erp.sales.CustomerRequestRepository;
 import com.rasras.erp.sales.CustomerRequest;
 import com.rasras.erp.sales.CustomerRequestDeliveryScheduleRepository;
 import com.rasras.erp.sales.CustomerRequestDeliverySchedule;
-import com.rasras.erp.employee.EmployeeRepository;
+import com.rasras.erp.shared.outbox.OutboxService;
+import com.rasras.erp.shared.service.DocumentSequenceService;
+import com.rasras.erp.shared.service.DocumentType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import org.springframework.context.annotation.Lazy;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
 
 @Service
@@ -57,7 +68,6 @@ public class ApprovalService {
     private final ApprovalRequestRepository requestRepo;
     private final ApprovalActionRepository actionRepo;
     private final UserRepository userRepo;
-    private final ApprovalLimitRepository limitRepo;
 
     private final PurchaseOrderRepository poRepo;
     private final SupplierRepository supplierRepo;
@@ -81,7 +91,6 @@ public class ApprovalService {
     private final com.rasras.erp.crm.CustomerRepository customerRepo;
     private final CustomerRequestDeliveryScheduleRepository scheduleRepo;
     private final CustomerRequestRepository customerRequestRepo;
-    private final EmployeeRepository employeeRepo;
 
     @Autowired
     @Lazy
@@ -92,20 +101,24 @@ public class ApprovalService {
     private com.rasras.erp.inventory.ItemService itemService;
 
     private final com.rasras.erp.finance.ExchangeRateService exchangeRateService;
+    private final DocumentSequenceService documentSequence;
+    private final ApprovalInboxService inbox;
+    private final ApprovalInboxRepository inboxRepo;
+    private final ApprovalDtoAssembler dtoAssembler;
+    private final ApprovalWorkflowRegistry workflowRegistry;
+    private final OutboxService outbox;
+    private final ApprovalEventHub approvalEvents;
 
     @Transactional
     public ApprovalRequest initiateApproval(String workflowCode, String docType, Integer docId,
             String docNumber, Integer requestedByUserId, BigDecimal amount) {
 
-        ApprovalWorkflow workflow = workflowRepo.findByWorkflowCode(workflowCode)
-                .orElseThrow(() -> new RuntimeException("Workflow not found: " + workflowCode));
+        CompiledWorkflow workflow = workflowRegistry.getByCode(workflowCode);
 
         User requester = userRepo.findById(requestedByUserId)
                 .orElseThrow(() -> new RuntimeException("User not found: " + requestedByUserId));
 
-        List<ApprovalWorkflowStep> steps = stepRepo
-                .findByWorkflowWorkflowIdOrderByStepNumberAsc(workflow.getWorkflowId());
-        if (steps.isEmpty()) {
+        if (workflow.getSteps().isEmpty()) {
             throw new RuntimeException("No steps defined for workflow: " + workflowCode);
         }
 
@@ -116,172 +129,73 @@ public class ApprovalService {
                 });
 
         ApprovalRequest request = ApprovalRequest.builder()
-                .workflow(workflow)
+                .workflow(workflowRepo.getReferenceById(workflow.getWorkflowId()))
                 .documentType(docType)
                 .documentId(docId)
                 .documentNumber(docNumber)
                 .requestedByUser(requester)
                 .totalAmount(amount)
                 .status("Pending")
-                .currentStep(resolveInitialStep(workflowCode, steps, amount)) // الخطوة الأولى وفق حدود الاعتماد
+                .currentStep(stepRepo.getReferenceById(workflow.initialStep(amount).stepId())) // الخطوة الأولى وفق حدود الاعتماد
                 .build();
 
-        return requestRepo.save(request);
-    }
-
-    /**
-     * يحدد أول خطوة اعتماد بناءً على حدود الموافقة (ApprovalLimit) والمبلغ الكلي.
-     * إذا لم توجد حدود أو لم تنطبق أي منها، يتم استخدام أول خطوة في سير العمل
-     * كافتراض.
-     */
-    private ApprovalWorkflowStep resolveInitialStep(String workflowCode, List<ApprovalWorkflowStep> steps,
-            BigDecimal amount) {
-        if (amount == null) {
-            return steps.get(0);
-        }
-
-        // نستخدم workflowCode كنشاط (ActivityType) في حدود الموافقة (مثل PO_APPROVAL)
-        List<ApprovalLimit> limits = limitRepo.findByActivityTypeAndIsActiveTrue(workflowCode);
-        if (limits == null || limits.isEmpty()) {
-            return steps.get(0);
-        }
-
-        for (ApprovalWorkflowStep step : steps) {
-            if (step.getApproverRole() == null) {
-                continue;
-            }
-            String roleCode = step.getApproverRole().getRoleCode();
-            boolean matches = limits.stream().anyMatch(limit -> {
-                if (limit.getRole() == null || roleCode == null || !roleCode.equalsIgnoreCase(limit.getRole().getRoleCode())) {
-                    return false;
-                }
-                BigDecimal min = limit.getMinAmount() != null ? limit.getMinAmount() : BigDecimal.ZERO;
-                BigDecimal max = limit.getMaxAmount();
-                boolean gteMin = amount.compareTo(min) >= 0;
-                boolean lteMax = (max == null) || amount.compareTo(max) <= 0;
-                return gteMin && lteMax;
-            });
-            if (matches) {
-                return step;
-            }
-        }
-
-        // إذا لم تنطبق أي حدود على أي خطوة، نعود لأول خطوة كافتراض
-        return steps.get(0);
+        ApprovalRequest saved = requestRepo.save(request);
+        requestChanged(saved, null);
+        return saved;
     }
 
     @Transactional(readOnly = true)
     public List<ApprovalRequestDto> getPendingRequestsForUser(Integer userId) {
         User user = userRepo.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
-
-        List<ApprovalRequest> requests = requestRepo
-                .findByStatusInWithCurrentStepAndApproverRole(List.of("Pending", "InProgress"));
-
-        // Filter requests: اعتماداً على كود الدور (roleCode) لتفادي اختلاف الـ ID بين الخطوة والمستخدم
-        String userRoleCode = user.getRole().getRoleCode();
-
-        List<ApprovalRequest> filteredRequests = requests.stream()
-                .filter(req -> {
-                    ApprovalWorkflowStep step = req.getCurrentStep();
-                    if (step == null)
-                        return false;
-                    if ("ROLE".equals(step.getApproverType())) {
-                        if (step.getApproverRole() == null)
-                            return false;
-                        // مقارنة بكود الدور حتى لو اختلف RoleID (مثلاً مدير المالي FM)
-                        return userRoleCode != null
-                                && userRoleCode.equalsIgnoreCase(step.getApproverRole().getRoleCode());
-                    } else {
-                        return step.getApproverUser() != null
-                                && user.getUserId().equals(step.getApproverUser().getUserId());
-                    }
-                })
-                .collect(Collectors.toList());
-
-        // Map to DTOs
-        return filteredRequests.stream().map(this::mapToDto).collect(Collectors.toList());
+        // المطابقة بكود الدور (وليس RoleID) لتفادي اختلاف الـ ID بين الخطوة والمستخدم، أو بالمستخدم لخطوات USER
+        List<Integer> ids = inboxRepo.findRequestIds(roleCodeOf(user), user.getUserId(), null,
+                Pageable.unpaged(Sort.by("requestId"))).getContent();
+        return loadInOrder(ids);
     }
 
-    /** سجل الاعتمادات — آخر الإجراءات (من اعتمد ومتى) للشفافية والتدقيق */
+    /**
+     * صندوق اعتمادات المستخدم مقسماً لصفحات من approvalinbox، مع عدد الطلبات لكل نوع مستند.
+     */
     @Transactional(readOnly = true)
-    public List<ApprovalAuditDto> getRecentApprovalActions(int limit) {
-        return actionRepo.findAllByOrderByActionDateDesc(PageRequest.of(0, Math.min(limit, 200)))
-                .stream()
-                .map(this::mapActionToAuditDto)
-                .collect(Collectors.toList());
-    }
+    public ApprovalInboxDto getInbox(Integer userId, String documentType, Pageable pageable) {
+        User user = userRepo.findById(userId)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+        String roleCode = roleCodeOf(user);
+        String type = documentType != null && !documentType.isBlank() ? documentType.trim() : null;
+        Page<Integer> ids = inboxRepo.findRequestIds(roleCode, user.getUserId(), type, pageable);
 
-    private ApprovalAuditDto mapActionToAuditDto(ApprovalAction action) {
-        ApprovalRequest req = action.getRequest();
-        return ApprovalAuditDto.builder()
-                .actionId(action.getId())
-                .requestId(req.getId())
-                .documentType(req.getDocumentType())
-                .documentId(req.getDocumentId())
-                .documentNumber(req.getDocumentNumber())
-                .workflowName(req.getWorkflow().getWorkflowName())
-                .stepName(action.getStep().getStepName())
-                .actionType(action.getActionType())
-                .actionByUser(getEmployeeArabicName(action.getActionByUser()))
-                .actionDate(action.getActionDate())
-                .comments(action.getComments())
-                .totalAmount(req.getTotalAmount())
-                .requestStatus(req.getStatus())
+        Map<String, Long> counts = new TreeMap<>();
+        for (Object[] row : inboxRepo.countByDocumentType(roleCode, user.getUserId())) {
+            counts.put((String) row[0], (Long) row[1]);
+        }
+        return ApprovalInboxDto.builder()
+                .requests(new PageImpl<>(loadInOrder(ids.getContent()), ids.getPageable(), ids.getTotalElements()))
+                .countsByDocumentType(counts)
+                .total(counts.values().stream().mapToLong(Long::longValue).sum())
                 .build();
     }
 
-    private ApprovalRequestDto mapToDto(ApprovalRequest req) {
-        BigDecimal amountToUse = req.getTotalAmount();
-        // Enrich total for QuotationComparison when stored as zero (e.g. legacy or fix
-        // display)
-        if ("QuotationComparison".equals(req.getDocumentType())
-                && (amountToUse == null || amountToUse.compareTo(BigDecimal.ZERO) == 0)) {
-            amountToUse = comparisonRepo.findById(req.getDocumentId())
-                    .map(qc -> qc.getSelectedQuotation() != null ? qc.getSelectedQuotation().getTotalAmount() : null)
-                    .filter(java.util.Objects::nonNull)
-                    .orElse(amountToUse);
-        }
-        if (amountToUse == null) {
-            amountToUse = BigDecimal.ZERO;
-        }
-        final BigDecimal finalAmount = amountToUse;
-        String currentApproverName = "";
-        ApprovalWorkflowStep currentStep = req.getCurrentStep();
-        if (currentStep != null) {
-            if (currentStep.getApproverUser() != null) {
-                currentApproverName = "تم عن طريق " + getEmployeeArabicName(currentStep.getApproverUser());
-            } else if (currentStep.getApproverRole() != null) {
-                // Return "تم عن طريق [Arabic Role Name]" as specifically requested by the user
-                currentApproverName = "تم عن طريق " + currentStep.getApproverRole().getRoleNameAr();
-            }
-        }
-
-        return ApprovalRequestDto.builder()
-                .id(req.getId())
-                .workflowName(req.getWorkflow().getWorkflowName())
-                .documentType(req.getDocumentType())
-                .documentId(req.getDocumentId())
-                .documentNumber(req.getDocumentNumber())
-                .requestedByName(getEmployeeArabicName(req.getRequestedByUser()))
-                .totalAmount(finalAmount)
-                .status(req.getStatus())
-                .currentStepName(currentStep != null ? currentStep.getStepName() : "")
-                .currentApproverName(currentApproverName)
-                .requestedDate(req.getRequestedDate())
-                .completedDate(req.getCompletedDate())
-                .priority("Normal")
-                .build();
+    private static String roleCodeOf(User user) {
+        return user.getRole() != null ? user.getRole().getRoleCode() : null;
     }
 
-    private String getEmployeeArabicName(User user) {
-        String name = user.getUsername();
-        if (user.getEmployeeId() != null) {
-            name = employeeRepo.findById(user.getEmployeeId())
-                    .map(emp -> emp.getFirstNameAr() + (emp.getLastNameAr() != null && !emp.getLastNameAr().trim().isEmpty() ? " " + emp.getLastNameAr() : ""))
-                    .orElse(name);
+    private List<ApprovalRequestDto> loadInOrder(List<Integer> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
         }
-        return name;
+        Map<Integer, ApprovalRequest> byId = requestRepo.findAllByIdWithCurrentStep(ids).stream()
+                .collect(Collectors.toMap(ApprovalRequest::getId, r -> r));
+        return dtoAssembler.toDtos(ids.stream()
+                .map(byId::get)
+                .filter(java.util.Objects::nonNull)
+                .collect(Collectors.toList()));
+    }
+
+    /** سجل الاعتمادات — آخر الإجراءات (من اعتمد ومتى) للشفافية والتدقيق */
+    @Transactional(readOnly = true)
+    public List<ApprovalAuditDto> getRecentApprovalActions(int limit) {
+        return dtoAssembler.toAuditDtos(actionRepo.findRecentWithDetails(PageRequest.of(0, Math.min(limit, 200))));
     }
 
     @Transactional
@@ -292,6 +206,7 @@ public class ApprovalService {
 
         User actor = userRepo.findById(actionByUserId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
+        ApprovalWorkflowStep previousStep = request.getCurrentStep();
 
         // عند اعتماد إذن الإضافة: تحديث المخزن المختار قبل تطبيق الاعتماد
         if ("GoodsReceiptNote".equalsIgnoreCase(request.getDocumentType()) && "Approved".equalsIgnoreCase(actionType)
@@ -337,12 +252,14 @@ public class ApprovalService {
         }
 
         requestRepo.save(request);
+        requestChanged(request, previousStep);
     }
 
     @Transactional
     public void syncAction(String docType, Integer docId, String actionType, Integer userId) {
         requestRepo.findByDocumentTypeAndDocumentIdAndStatus(docType, docId, "InProgress")
                 .ifPresent(request -> {
+                    ApprovalWorkflowStep previousStep = request.getCurrentStep();
                     // Similar logic to processAction but for sync
                     if ("Approved".equalsIgnoreCase(actionType)) {
                         handleIntermediateDocumentStatus(request, userId);
@@ -355,11 +272,13 @@ public class ApprovalService {
                         updateLinkedDocumentStatus(request, "Rejected", userId, null);
                     }
                     requestRepo.save(request);
+                    requestChanged(request, previousStep);
                 });
 
         // Also check "Pending" status
         requestRepo.findByDocumentTypeAndDocumentIdAndStatus(docType, docId, "Pending")
                 .ifPresent(request -> {
+                    ApprovalWorkflowStep previousStep = request.getCurrentStep();
                     if ("Approved".equalsIgnoreCase(actionType)) {
                         handleIntermediateDocumentStatus(request, userId);
                         moveToNextStep(request, userId, null);
@@ -371,9 +290,16 @@ public class ApprovalService {
                         updateLinkedDocumentStatus(request, "Rejected", userId, null);
                     }
                     requestRepo.save(request);
+                    requestChanged(request, previousStep);
                 });
     }
 
+    /** صندوق الاعتمادات المادي + حدث SSE لمعتمدي الخطوة السابقة والحالية */
+    private void requestChanged(ApprovalRequest request, ApprovalWorkflowStep previousStep) {
+        inbox.sync(request);
+        approvalEvents.requestChanged(request, previousStep != null ? previousStep.getStepId() : null);
+    }
+
     private void handleIntermediateDocumentStatus(ApprovalRequest request, Integer userId) {
         String type = request.getDocumentType();
         Integer id = request.getDocumentId();
@@ -401,32 +327,25 @@ public class ApprovalService {
                 if (currentStep != null && currentStep.getStepNumber() == 1) {
                     // Step 1 (Sales Manager) Approved -> Reserve Stock
                     if (note.getItems() != null) {
-                        for (com.rasras.erp.sales.StockIssueNoteItem item : note.getItems()) {
-                            inventoryService.reserveStock(item.getItem(), note.getWarehouse(), item.getIssuedQty());
-                        }
+                        inventoryService.reserveForDocument("StockIssueNote", note.getId(),
+                                note.getWarehouse().getId(), reservationLines(note), userId);
                     }
                 }
             });
         }
     }
 
+    private static List<StockReservationLine> reservationLines(StockIssueNote note) {
+        return note.getItems().stream()
+                .map(item -> StockReservationLine.of(item.getItem().getId(), item.getIssuedQty()))
+                .collect(Collectors.toList());
+    }
+
     private void moveToNextStep(ApprovalRequest request, Integer userId, BigDecimal exchangeRate) {
         if (request.getWorkflow() == null) {
             return;
         }
-        List<ApprovalWorkflowStep> steps = stepRepo
-                .findByWorkflowWorkflowIdOrderByStepNumberAsc(request.getWorkflow().getWorkflowId());
-
-        int currentIdx = -1;
         ApprovalWorkflowStep currentStep = request.getCurrentStep();
-        if (currentStep != null) {
-            for (int i = 0; i < steps.size(); i++) {
-                if (steps.get(i).getStepId().equals(currentStep.getStepId())) {
-                    currentIdx = i;
-                    break;
-                }
-            }
-        }
 
         // سند الصرف: بعد اعتماد المدير العام (الخطوة 2) نكمل الاعتماد وننفّذ الصرف
         // تلقائياً دون خطوة "صرف الدفعة"
@@ -439,39 +358,18 @@ public class ApprovalService {
             return;
         }
 
-        BigDecimal amount = request.getTotalAmount();
-        List<ApprovalLimit> limits = null;
-        if (amount != null) {
-            limits = limitRepo.findByActivityTypeAndIsActiveTrue(request.getWorkflow().getWorkflowCode());
-        }
-
-        // ابحث عن أول خطوة تالية تنطبق عليها حدود الموافقة للمبلغ الحالي
-        if (currentIdx != -1) {
-            for (int i = currentIdx + 1; i < steps.size(); i++) {
-                ApprovalWorkflowStep candidate = steps.get(i);
-                if (amount != null && limits != null && !limits.isEmpty() && candidate.getApproverRole() != null) {
-                    String roleCode = candidate.getApproverRole().getRoleCode();
-                    boolean matches = limits.stream().anyMatch(limit -> {
-                        if (limit.getRole() == null || roleCode == null || !roleCode.equalsIgnoreCase(limit.getRole().getRoleCode())) {
-                            return false;
-                        }
-                        BigDecimal min = limit.getMinAmount() != null ? limit.getMinAmount() : BigDecimal.ZERO;
-                        BigDecimal max = limit.getMaxAmount();
-                        boolean gteMin = amount.compareTo(min) >= 0;
-                        boolean lteMax = (max == null) || amount.compareTo(max) <= 0;
-                        return gteMin && lteMax;
-                    });
-                    if (!matches) {
-                        // هذه الخطوة ليست ضمن حدود المبلغ — يتم تجاوزها
-                        continue;
-                    }
-                }
-
-                // وجدنا خطوة مناسبة تالية
-                request.setCurrentStep(candidate);
-                request.setStatus("InProgress");
-                return;
-            }
+        // أول خطوة تالية تنطبق عليها حدود الموافقة للمبلغ الحالي (الخطوات خارج الحدود يتم تجاوزها)
+        // سير عمل غير موجود في التعريفات لا يعني انتهاء الخطوات: نرفض بدل اعتماد الطلب بالكامل
+        Integer workflowId = request.getWorkflow().getWorkflowId();
+        CompiledWorkflow workflow = workflowRegistry.findById(workflowId)
+                .orElseThrow(() -> new IllegalStateException("Approval workflow " + workflowId
+                        + " is not loaded; request " + request.getId() + " cannot advance"));
+        CompiledWorkflow.Step next = workflow.nextStep(currentStep != null ? currentStep.getStepId() : null,
+                request.getTotalAmount());
+        if (next != null) {
+            request.setCurrentStep(stepRepo.getReferenceById(next.stepId()));
+            request.setStatus("InProgress");
+            return;
         }
 
         // لا مزيد من الخطوات المطلوبة، الطلب معتمد بالكامل
@@ -484,6 +382,7 @@ public class ApprovalService {
             BigDecimal userExchangeRate) {
         String type = request.getDocumentType();
         Integer id = request.getDocumentId();
+        approvalEvents.documentStatusChanged(request, status);
 
         if ("PurchaseOrder".equalsIgnoreCase(type)) {
             poRepo.findById(id).ifPresent(po -> {
@@ -529,52 +428,9 @@ public class ApprovalService {
                         finalRate = exchangeRateService.getCurrentRate();
                     }
 
-                    // تحديث أرصدة المخزون تلقائياً عند الاعتماد (أولاً لضمان ظهور الأصناف)
-                    if (grn.getItems() != null && grn.getWarehouseId() != null) {
-                        for (GRNItem item : grn.getItems()) {
-                            BigDecimal qtyToRecord = item.getAcceptedQty() != null ? item.getAcceptedQty()
-                                    : item.getReceivedQty();
-                            if (qtyToRecord != null && qtyToRecord.compareTo(BigDecimal.ZERO) > 0) {
-                                inventoryService.updateStock(
-                                        item.getItem().getId(),
-                                        grn.getWarehouseId(),
-                                        qtyToRecord,
-                                        "IN",
-                                        "GRN",
-                                        "GoodsReceiptNote",
-                                        grn.getId(),
-                                        grn.getGrnNumber(),
-                                        item.getUnitCost() != null ? item.getUnitCost() : BigDecimal.ZERO,
-                                        userId);
-
-                                // Automated Pricing Update based on frontend rate via approval
-                                BigDecimal unitCostUsd;
-                                boolean isUsd = "USD".equalsIgnoreCase(
-                                        grn.getPurchaseOrder() != null ? grn.getPurchaseOrder().getCurrency() : "EGP");
-                                if (isUsd) {
-                                    unitCostUsd = item.getUnitCost() != null ? item.getUnitCost() : BigDecimal.ZERO;
-                                } else {
-                                    BigDecimal egpCost = item.getUnitCost() != null ? item.getUnitCost()
-                                            : BigDecimal.ZERO;
-                                    unitCostUsd = egpCost.divide(finalRate, 4, java.math.RoundingMode.HALF_UP);
-                                }
-
-                                // Record purchase price using actual conversion rate
-                                itemService.updatePricingFromPurchase(item.getItem().getId(), unitCostUsd, qtyToRecord,
-                                        finalRate);
-                            }
-                        }
-                        grn.setStatus("Completed");
-                        grn.setUpdatedBy(userId);
-                        grn.setUpdatedAt(LocalDateTime.now());
-                    }
-
-                    try {
-                        supplierInvoiceService.createInvoiceFromGRN(grn.getId(), finalRate);
-                    } catch (Exception e) {
-                        System.err.println("Error creating automatic invoice from GRN: " + e.getMessage());
-                        e.printStackTrace();
-                    }
+                    // الترحيل المخزني والتسعير وفاتورة المورد تُنفذ في الخلفية بعد commit (GrnApprovedHandler)
+                    outbox.enqueue(GrnApprovedHandler.EVENT_TYPE, GrnApprovedHandler.EVENT_TYPE + ":" + grn.getId(),
+                            new GrnApprovedHandler.Event(grn.getId(), userId, finalRate));
                 }
                 grnRepo.save(grn);
             });
@@ -629,19 +485,22 @@ public class ApprovalService {
                             ret.getReturnReason().contains("Rejected during Quality Inspection");
 
                     if (!isRejectionReturn) {
+                        List<StockPosting> postings = new java.util.ArrayList<>();
                         for (com.rasras.erp.procurement.PurchaseReturnItem item : ret.getItems()) {
-                            inventoryService.updateStock(
-                                    item.getItem().getId(),
-                                    ret.getWarehouse().getId(),
-                                    item.getReturnedQty(),
-                                    "OUT",
-                                    "RETURN",
-                                    "PurchaseReturn",
-                                    ret.getId(),
-                                    ret.getReturnNumber(),
-                                    item.getUnitPrice(),
-                                    userId);
+                            postings.add(StockPosting.builder()
+                                    .itemId(item.getItem().getId())
+                                    .warehouseId(ret.getWarehouse().getId())
+                                    .quantity(item.getReturnedQty())
+                                    .direction("OUT")
+                                    .movementType("RETURN")
+                                    .referenceType("PurchaseReturn")
+                                    .referenceId(ret.getId())
+                                    .referenceNumber(ret.getReturnNumber())
+                                    .unitCost(item.getUnitPrice())
+                                    .userId(userId)
+                                    .build());
                         }
+                        inventoryService.postMovements(postings);
                     }
 
                     // 2. Update Supplier Balance (Decrease) & Total Returned (Increase)
@@ -744,6 +603,7 @@ public class ApprovalService {
                             }
                         }
 
+                        List<StockPosting> postings = new java.util.ArrayList<>();
                         for (com.rasras.erp.sales.StockIssueNoteItem item : note.getItems()) {
                             BigDecimal qty = item.getIssuedQty();
 
@@ -760,21 +620,23 @@ public class ApprovalService {
 
                             BigDecimal unitCost = item.getUnitCost() != null ? item.getUnitCost() : BigDecimal.ZERO;
 
-                            // 1. Release reservation
-                            inventoryService.releaseReservation(item.getItem(), warehouse, qty);
-
-                            // 2. Actual stock reduction (Deduct from QuantityOnHand)
-                            inventoryService.updateStock(
-                                    item.getItem().getId(),
-                                    warehouse.getId(),
-                                    qty,
-                                    "OUT",
-                                    "ISSUE",
-                                    "DeliveryOrder",
-                                    order.getId(),
-                                    order.getDeliveryOrderNumber(),
-                                    unitCost,
-                                    approverId);
+                            // 1. Consume the SIN reservation for the delivered quantity
+                            inventoryService.consumeReservation("StockIssueNote", note.getId(),
+                                    item.getItem().getId(), warehouse.getId(), qty);
+
+                            // 2. Actual stock reduction (Deduct from QuantityOnHand) — posted in one batch below
+                            postings.add(StockPosting.builder()
+                                    .itemId(item.getItem().getId())
+                                    .warehouseId(warehouse.getId())
+                                    .quantity(qty)
+                                    .direction("OUT")
+                                    .movementType("ISSUE")
+                                    .referenceType("DeliveryOrder")
+                                    .referenceId(order.getId())
+                                    .referenceNumber(order.getDeliveryOrderNumber())
+                                    .unitCost(unitCost)
+                                    .userId(approverId)
+                                    .build());
 
                             // 3. Update Sales Order delivered quantity if applicable
                             SalesOrderItem soItem = item.getSalesOrderItem();
@@ -784,6 +646,7 @@ public class ApprovalService {
                                 soItem.setDeliveredQty(newDelivered);
                             }
                         }
+                        inventoryService.postMovements(postings);
 
                         // NEW: Automatically create Sales Invoice upon delivery approval
                         try {
@@ -797,10 +660,8 @@ public class ApprovalService {
                     // Release reservation if the delivery is cancelled
                     StockIssueNote note = order.getStockIssueNote();
                     if (note != null && note.getItems() != null) {
-                        for (com.rasras.erp.sales.StockIssueNoteItem item : note.getItems()) {
-                            inventoryService.releaseReservation(item.getItem(), note.getWarehouse(),
-                                    item.getIssuedQty());
-                        }
+                        inventoryService.releaseForDocument("StockIssueNote", note.getId(),
+                                note.getWarehouse().getId(), reservationLines(note));
                     }
                 }
                 deliveryOrderRepo.save(order);
@@ -873,10 +734,8 @@ public class ApprovalService {
                     note.setApprovedByUserId(userId);
                 } else if ("Rejected".equals(status)) {
                     if (note.getItems() != null) {
-                        for (StockIssueNoteItem item : note.getItems()) {
-                            inventoryService.releaseReservation(item.getItem(), note.getWarehouse(),
-                                    item.getIssuedQty());
-                        }
+                        inventoryService.releaseForDocument("StockIssueNote", note.getId(),
+                                note.getWarehouse().getId(), reservationLines(note));
                     }
                 }
                 stockIssueNoteRepo.save(note);
@@ -887,7 +746,7 @@ public class ApprovalService {
     private void createGRNFromPO(PurchaseOrder po, Integer userId) {
         // Create GRN with status "Pending Inspection"
         GoodsReceiptNote grn = new GoodsReceiptNote();
-        grn.setGrnNumber("GRN-" + (grnRepo.count() + 1));
+        grn.setGrnNumber(documentSequence.next(DocumentType.GOODS_RECEIPT));
         grn.setGrnDate(LocalDateTime.now());
         grn.setPurchaseOrder(po);
         grn.setSupplier(po.getSupplier());
@@ -996,7 +855,6 @@ public class ApprovalService {
     }
 
     private String generatePONumber() {
-        long count = poRepo.count() + 1;
-        return String.format("PO-%d", count);
+        return documentSequence.next(DocumentType.PURCHASE_ORDER);
     }
 }
\ No newline at end of file
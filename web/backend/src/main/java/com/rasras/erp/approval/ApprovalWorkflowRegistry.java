@@ -0,0 +1,140 @@
+package com.rasras.erp.approval;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * تعريفات سير العمل المجمّعة (CompiledWorkflow) تُحمّل مرة واحدة بثلاثة استعلامات (سير العمل، الخطوات،
+ * الحدود النشطة) وتُعاد تحميلها عند أول استخدام بعد invalidate — الذي يُستدعى بعد commit أي تعديل
+ * على سير العمل أو خطواته أو حدود الموافقة أو كود الدور من التطبيق.
+ * <p>
+ * التعديلات التي تتم بسكربتات SQL مباشرة (web/backend/migrations) لا تمر بـ invalidate: لذلك تنتهي صلاحية
+ * التعريفات بعد app.approvals.workflow-cache-ttl-seconds، ويمكن للأدمن فرض إعادة التحميل فوراً عبر reload.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ApprovalWorkflowRegistry {
+
+    private final ApprovalWorkflowRepository workflowRepo;
+    private final ApprovalWorkflowStepRepository stepRepo;
+    private final ApprovalLimitRepository limitRepo;
+
+    private final AtomicLong version = new AtomicLong();
+    private volatile Definitions definitions;
+
+    /** عمر التعريفات المحمّلة قبل إعادة قراءتها من القاعدة (0 = بدون انتهاء) */
+    @Value("${app.approvals.workflow-cache-ttl-seconds:300}")
+    private long ttlSeconds;
+
+    public CompiledWorkflow getByCode(String workflowCode) {
+        CompiledWorkflow workflow = definitions().byCode.get(workflowCode);
+        if (workflow == null) {
+            throw new RuntimeException("Workflow not found: " + workflowCode);
+        }
+        return workflow;
+    }
+
+    public Optional<CompiledWorkflow> findById(Integer workflowId) {
+        return Optional.ofNullable(definitions().byId.get(workflowId));
+    }
+
+    public Optional<CompiledWorkflow.Step> findStep(Integer stepId) {
+        return Optional.ofNullable(definitions().stepsById.get(stepId));
+    }
+
+    /**
+     * يُسقط التعريفات بعد نجاح المعاملة الحالية (أو فوراً خارج المعاملات).
+     */
+    public void invalidate() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    drop();
+                }
+            });
+        } else {
+            drop();
+        }
+    }
+
+    /**
+     * يعيد التحميل فوراً (بعد تعديل سير العمل بسكربت SQL) ويرجع عدد سير العمل المحمّلة.
+     */
+    public int reload() {
+        drop();
+        return definitions().byId.size();
+    }
+
+    private void drop() {
+        version.incrementAndGet();
+        definitions = null;
+    }
+
+    private Definitions definitions() {
+        Definitions current = definitions;
+        if (current != null && !expired(current)) {
+            return current;
+        }
+        synchronized (this) {
+            current = definitions;
+            if (current == null || expired(current)) {
+                long loadedVersion = version.get();
+                current = load();
+                // invalidate أثناء التحميل: نستخدم النتيجة لهذا الطلب فقط ونعيد التحميل لاحقاً
+                if (version.get() == loadedVersion) {
+                    definitions = current;
+                }
+            }
+            return current;
+        }
+    }
+
+    private boolean expired(Definitions current) {
+        return ttlSeconds > 0 && System.nanoTime() - current.loadedAt >= ttlSeconds * 1_000_000_000L;
+    }
+
+    private Definitions load() {
+        long started = System.currentTimeMillis();
+        Map<Integer, List<ApprovalWorkflowStep>> stepsByWorkflow = new HashMap<>();
+        for (ApprovalWorkflowStep step : stepRepo.findAllWithApprovers()) {
+            stepsByWorkflow.computeIfAbsent(step.getWorkflow().getWorkflowId(), k -> new ArrayList<>()).add(step);
+        }
+        Map<String, List<ApprovalLimit>> limitsByActivity = new HashMap<>();
+        for (ApprovalLimit limit : limitRepo.findActiveWithRole()) {
+            limitsByActivity.computeIfAbsent(limit.getActivityType(), k -> new ArrayList<>()).add(limit);
+        }
+
+        Map<String, CompiledWorkflow> byCode = new HashMap<>();
+        Map<Integer, CompiledWorkflow> byId = new HashMap<>();
+        Map<Integer, CompiledWorkflow.Step> stepsById = new HashMap<>();
+        for (ApprovalWorkflow workflow : workflowRepo.findAll()) {
+            CompiledWorkflow compiled = new CompiledWorkflow(workflow,
+                    stepsByWorkflow.getOrDefault(workflow.getWorkflowId(), List.of()),
+                    limitsByActivity.getOrDefault(workflow.getWorkflowCode(), List.of()));
+            byCode.put(workflow.getWorkflowCode(), compiled);
+            byId.put(workflow.getWorkflowId(), compiled);
+            compiled.getSteps().forEach(step -> stepsById.put(step.stepId(), step));
+        }
+        log.info("تم تحميل {} سير عمل للاعتماد خلال {} ms", byId.size(), System.currentTimeMillis() - started);
+        return new Definitions(Collections.unmodifiableMap(byCode), Collections.unmodifiableMap(byId),
+                Collections.unmodifiableMap(stepsById), System.nanoTime());
+    }
+
+    private record Definitions(Map<String, CompiledWorkflow> byCode, Map<Integer, CompiledWorkflow> byId,
+            Map<Integer, CompiledWorkflow.Step> stepsById, long loadedAt) {
+    }
+}
@@ -1,6 +1,7 @@
 package com.rasras.erp.approval;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import java.util.List;
 
@@ -8,4 +9,8 @@ import java.util.List;
 public interface ApprovalWorkflowStepRepository extends JpaRepository<ApprovalWorkflowStep, Integer> {
     List<ApprovalWorkflowStep> findByWorkflowWorkflowIdOrderByStepNumberAsc(Integer workflowId);
     boolean existsByApproverRole_RoleId(Integer roleId);
+
+    @Query("SELECT s FROM ApprovalWorkflowStep s JOIN FETCH s.workflow LEFT JOIN FETCH s.approverRole "
+            + "LEFT JOIN FETCH s.approverUser ORDER BY s.workflow.workflowId, s.stepNumber")
+    List<ApprovalWorkflowStep> findAllWithApprovers();
 }
@@ -0,0 +1,159 @@
+package com.rasras.erp.approval;
+
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * نسخة مجمّعة غير قابلة للتعديل من سير عمل: خطواته مرتبة بالرقم، وفهرس فترات المبالغ لكل دور
+ * من حدود الموافقة النشطة (ActivityType = WorkflowCode). تحديد الخطوة الأولى والتالية يتم في الذاكرة.
+ */
+@Getter
+public final class CompiledWorkflow {
+
+    private final Integer workflowId;
+    private final String workflowCode;
+    private final List<Step> steps;
+    private final Map<Integer, Integer> indexByStepId;
+    private final Map<String, AmountRanges> rangesByRole;
+
+    CompiledWorkflow(ApprovalWorkflow workflow, List<ApprovalWorkflowStep> orderedSteps,
+            List<ApprovalLimit> activeLimits) {
+        this.workflowId = workflow.getWorkflowId();
+        this.workflowCode = workflow.getWorkflowCode();
+
+        List<Step> compiledSteps = new ArrayList<>(orderedSteps.size());
+        Map<Integer, Integer> index = new HashMap<>();
+        for (ApprovalWorkflowStep s : orderedSteps) {
+            index.put(s.getStepId(), compiledSteps.size());
+            compiledSteps.add(new Step(s.getStepId(), s.getStepNumber(), s.getApproverType(),
+                    s.getApproverRole() != null,
+                    s.getApproverRole() != null ? s.getApproverRole().getRoleCode() : null,
+                    s.getApproverUser() != null ? s.getApproverUser().getUserId() : null));
+        }
+        this.steps = Collections.unmodifiableList(compiledSteps);
+        this.indexByStepId = Collections.unmodifiableMap(index);
+
+        Map<String, List<BigDecimal[]>> byRole = new HashMap<>();
+        for (ApprovalLimit limit : activeLimits) {
+            if (limit.getRole() == null || limit.getRole().getRoleCode() == null) {
+                continue;
+            }
+            BigDecimal min = limit.getMinAmount() != null ? limit.getMinAmount() : BigDecimal.ZERO;
+            byRole.computeIfAbsent(roleKey(limit.getRole().getRoleCode()), k -> new ArrayList<>())
+                    .add(new BigDecimal[] { min, limit.getMaxAmount() });
+        }
+        Map<String, AmountRanges> ranges = new HashMap<>();
+        byRole.forEach((role, list) -> ranges.put(role, new AmountRanges(list)));
+        this.rangesByRole = Collections.unmodifiableMap(ranges);
+    }
+
+    /**
+     * أول خطوة دورها له حد موافقة يشمل المبلغ؛ وإلا (مبلغ فارغ، لا حدود، لا تطابق) أول خطوة.
+     */
+    public Step initialStep(BigDecimal amount) {
+        if (steps.isEmpty()) {
+            return null;
+        }
+        if (amount == null || rangesByRole.isEmpty()) {
+            return steps.get(0);
+        }
+        for (Step step : steps) {
+            if (step.hasRole() && withinLimits(step, amount)) {
+                return step;
+            }
+        }
+        return steps.get(0);
+    }
+
+    /**
+     * الخطوة التالية بعد الخطوة الحالية: تُتجاوز الخطوات ذات الدور التي لا يشمل حدها المبلغ.
+     * null يعني لا خطوات متبقية (أو الخطوة الحالية غير معروفة) فيُعتمد الطلب نهائياً.
+     */
+    public Step nextStep(Integer currentStepId, BigDecimal amount) {
+        Integer current = currentStepId != null ? indexByStepId.get(currentStepId) : null;
+        if (current == null) {
+            return null;
+        }
+        boolean checkLimits = amount != null && !rangesByRole.isEmpty();
+        for (int i = current + 1; i < steps.size(); i++) {
+            Step candidate = steps.get(i);
+            if (checkLimits && candidate.hasRole() && !withinLimits(candidate, amount)) {
+                continue;
+            }
+            return candidate;
+        }
+        return null;
+    }
+
+    private boolean withinLimits(Step step, BigDecimal amount) {
+        if (step.roleCode() == null) {
+            return false;
+        }
+        AmountRanges ranges = rangesByRole.get(roleKey(step.roleCode()));
+        return ranges != null && ranges.contains(amount);
+    }
+
+    /** مفتاح مقارنة رمز الدور: الأساس يقارن الأدوار بـ equalsIgnoreCase */
+    static String roleKey(String roleCode) {
+        return roleCode.toUpperCase(Locale.ROOT);
+    }
+
+    public record Step(Integer stepId, Integer stepNumber, String approverType, boolean hasRole, String roleCode,
+            Integer approverUserId) {
+    }
+
+    /**
+     * فترات [min, max] مدموجة ومرتبة بالبداية (max = null بلا حد)، والبحث عنها ثنائي.
+     */
+    static final class AmountRanges {
+
+        private final BigDecimal[] mins;
+        private final BigDecimal[] maxes;
+
+        AmountRanges(List<BigDecimal[]> ranges) {
+            List<BigDecimal[]> sorted = new ArrayList<>(ranges);
+            sorted.sort(Comparator.comparing(r -> r[0]));
+            List<BigDecimal[]> merged = new ArrayList<>();
+            for (BigDecimal[] r : sorted) {
+                BigDecimal[] last = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+                if (last != null && (last[1] == null || r[0].compareTo(last[1]) <= 0)) {
+                    if (last[1] != null && (r[1] == null || r[1].compareTo(last[1]) > 0)) {
+                        last[1] = r[1];
+                    }
+                } else {
+                    merged.add(new BigDecimal[] { r[0], r[1] });
+                }
+            }
+            this.mins = new BigDecimal[merged.size()];
+            this.maxes = new BigDecimal[merged.size()];
+            for (int i = 0; i < merged.size(); i++) {
+                mins[i] = merged.get(i)[0];
+                maxes[i] = merged.get(i)[1];
+            }
+        }
+
+        boolean contains(BigDecimal amount) {
+            int lo = 0;
+            int hi = mins.length - 1;
+            int found = -1;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                if (mins[mid].compareTo(amount) <= 0) {
+                    found = mid;
+                    lo = mid + 1;
+                } else {
+                    hi = mid - 1;
+                }
+            }
+            return found >= 0 && (maxes[found] == null || amount.compareTo(maxes[found]) <= 0);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.rasras.erp.approval;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.rasras.erp.inventory.GRNItem;
+import com.rasras.erp.inventory.GoodsReceiptNote;
+import com.rasras.erp.inventory.GoodsReceiptNoteRepository;
+import com.rasras.erp.inventory.InventoryService;
+import com.rasras.erp.inventory.ItemService;
+import com.rasras.erp.inventory.StockPosting;
+import com.rasras.erp.shared.outbox.OutboxHandler;
+import com.rasras.erp.shared.outbox.OutboxService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * آثار اعتماد إذن الإضافة بعد commit الاعتماد: ترحيل الكميات المقبولة للمخزون، تحديث تسعير الأصناف
+ * (سجل سعر الصرف وقوائم الأسعار) ثم إكمال الإذن، وأخيراً جدولة فاتورة المورد كحدث مستقل.
+ * الإذن المكتمل لا يُرحّل مرة أخرى.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class GrnApprovedHandler implements OutboxHandler {
+
+    public static final String EVENT_TYPE = "GRN_APPROVED";
+
+    private final GoodsReceiptNoteRepository grnRepo;
+    private final InventoryService inventoryService;
+    private final ItemService itemService;
+    private final OutboxService outbox;
+
+    @Override
+    public String eventType() {
+        return EVENT_TYPE;
+    }
+
+    @Override
+    public void handle(JsonNode payload) {
+        Integer grnId = payload.path("grnId").asInt();
+        Integer userId = payload.hasNonNull("userId") ? payload.get("userId").asInt() : null;
+        BigDecimal finalRate = payload.path("exchangeRate").decimalValue();
+
+        GoodsReceiptNote grn = grnRepo.findByIdWithItems(grnId).orElse(null);
+        if (grn == null) {
+            log.warn("إذن الإضافة {} غير موجود — تم تجاهل آثار الاعتماد", grnId);
+            return;
+        }
+        if (!"Approved".equals(grn.getStatus())) {
+            // مكتمل مسبقاً (تنفيذ مكرر) أو تغيرت حالته بعد الاعتماد
+            log.info("إذن الإضافة {} في حالة {} — لا ترحيل", grn.getGrnNumber(), grn.getStatus());
+        } else if (grn.getItems() != null && grn.getWarehouseId() != null) {
+            post(grn, userId, finalRate);
+            grn.setStatus("Completed");
+            grn.setUpdatedBy(userId);
+            grn.setUpdatedAt(LocalDateTime.now());
+            grnRepo.save(grn);
+        }
+
+        outbox.enqueue(GrnSupplierInvoiceHandler.EVENT_TYPE, GrnSupplierInvoiceHandler.EVENT_TYPE + ":" + grnId,
+                new GrnApprovedHandler.Event(grnId, userId, finalRate));
+    }
+
+    private void post(GoodsReceiptNote grn, Integer userId, BigDecimal finalRate) {
+        List<StockPosting> postings = new ArrayList<>();
+        for (GRNItem item : grn.getItems()) {
+            BigDecimal qtyToRecord = acceptedQty(item);
+            if (qtyToRecord != null && qtyToRecord.compareTo(BigDecimal.ZERO) > 0) {
+                postings.add(StockPosting.builder()
+                        .itemId(item.getItem().getId())
+                        .warehouseId(grn.getWarehouseId())
+                        .quantity(qtyToRecord)
+                        .direction("IN")
+                        .movementType("GRN")
+                        .referenceType("GoodsReceiptNote")
+                        .referenceId(grn.getId())
+                        .referenceNumber(grn.getGrnNumber())
+                        .unitCost(item.getUnitCost() != null ? item.getUnitCost() : BigDecimal.ZERO)
+                        .userId(userId)
+                        .lotNumber(item.getLotNumber())
+                        .build());
+            }
+        }
+        inventoryService.postMovements(postings);
+
+        boolean isUsd = "USD".equalsIgnoreCase(
+                grn.getPurchaseOrder() != null ? grn.getPurchaseOrder().getCurrency() : "EGP");
+        for (GRNItem item : grn.getItems()) {
+            BigDecimal qtyToRecord = acceptedQty(item);
+            if (qtyToRecord != null && qtyToRecord.compareTo(BigDecimal.ZERO) > 0) {
+                BigDecimal unitCost = item.getUnitCost() != null ? item.getUnitCost() : BigDecimal.ZERO;
+                BigDecimal unitCostUsd = isUsd ? unitCost : unitCost.divide(finalRate, 4, RoundingMode.HALF_UP);
+                // Record purchase price using actual conversion rate
+                itemService.updatePricingFromPurchase(item.getItem().getId(), unitCostUsd, qtyToRecord, finalRate);
+            }
+        }
+    }
+
+    private static BigDecimal acceptedQty(GRNItem item) {
+        return item.getAcceptedQty() != null ? item.getAcceptedQty() : item.getReceivedQty();
+    }
+
+    /** بيانات الحدث: سعر الصرف يُثبت لحظة الاعتماد */
+    public record Event(Integer grnId, Integer userId, BigDecimal exchangeRate) {
+    }
+}
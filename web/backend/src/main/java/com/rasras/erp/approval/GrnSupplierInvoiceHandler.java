@@ -0,0 +1,41 @@
+package com.rasras.erp.approval;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.rasras.erp.inventory.GoodsReceiptNoteRepository;
+import com.rasras.erp.shared.outbox.OutboxHandler;
+import com.rasras.erp.supplier.SupplierInvoiceService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * إنشاء فاتورة المورد من إذن الإضافة المعتمد (createInvoiceFromGRN يتجاهل الإذن المفوتر مسبقاً).
+ * حدث مستقل عن الترحيل المخزني حتى لا يعيد فشلُ الفاتورة الترحيلَ.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class GrnSupplierInvoiceHandler implements OutboxHandler {
+
+    public static final String EVENT_TYPE = "GRN_SUPPLIER_INVOICE";
+
+    private final GoodsReceiptNoteRepository grnRepo;
+    private final SupplierInvoiceService supplierInvoiceService;
+
+    @Override
+    public String eventType() {
+        return EVENT_TYPE;
+    }
+
+    @Override
+    public void handle(JsonNode payload) {
+        Integer grnId = payload.path("grnId").asInt();
+        boolean hasPurchaseOrder = grnRepo.findById(grnId).map(grn -> grn.getPurchaseOrder() != null).orElse(false);
+        if (!hasPurchaseOrder) {
+            log.info("إذن الإضافة {} بدون أمر شراء — لا فاتورة مورد تلقائية", grnId);
+            return;
+        }
+        supplierInvoiceService.createInvoiceFromGRN(grnId,
+                payload.hasNonNull("exchangeRate") ? payload.get("exchangeRate").decimalValue() : null);
+    }
+}
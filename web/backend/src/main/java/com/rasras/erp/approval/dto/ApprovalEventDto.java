@@ -0,0 +1,23 @@
+package com.rasras.erp.approval.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * حدث دفع مباشر (SSE): تغير في صندوق الاعتمادات أو في حالة المستند المرتبط. الواجهة تعيد تحميل
+ * الصندوق / المستند عند استلامه بدلاً من الاستطلاع الدوري.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ApprovalEventDto {
+    private Integer requestId;
+    private String documentType;
+    private Integer documentId;
+    private String documentNumber;
+    private String status;
+    private Integer currentStepId;
+}
@@ -0,0 +1,23 @@
+package com.rasras.erp.approval.dto;
+
+import com.rasras.erp.approval.ApprovalRequestDto;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Page;
+
+import java.util.Map;
+
+/**
+ * صفحة من صندوق اعتمادات المستخدم مع عدد الطلبات لكل نوع مستند (لكل الصندوق وليس للصفحة فقط)
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ApprovalInboxDto {
+    private Page<ApprovalRequestDto> requests;
+    private Map<String, Long> countsByDocumentType;
+    private long total;
+}
@@ -0,0 +1,32 @@
+package com.rasras.erp.approval.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * إجراء واحد (اعتماد / رفض) على عدة طلبات اعتماد. المخزن وسعر الصرف يُطبقان كما في الإجراء الفردي
+ * (المخزن لأذون الإضافة، وسعر الصرف للمستندات بالعملة الأجنبية).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkApprovalActionRequest {
+
+    @NotEmpty(message = "Request IDs are required")
+    private List<Integer> requestIds;
+
+    @NotBlank(message = "Action is required")
+    private String action;
+
+    private String comments;
+
+    private Integer warehouseId;
+
+    private BigDecimal exchangeRate;
+}
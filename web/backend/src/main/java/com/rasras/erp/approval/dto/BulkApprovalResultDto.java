@@ -0,0 +1,32 @@
+package com.rasras.erp.approval.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * نتيجة الإجراء الجماعي: كل طلب نُفذ في معاملة مستقلة، فنجاح أو فشل أحدها لا يؤثر على الباقي
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkApprovalResultDto {
+    private int total;
+    private int succeeded;
+    private int failed;
+    private List<Item> items;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Item {
+        private Integer requestId;
+        private boolean success;
+        private String message;
+    }
+}
@@ -8,11 +8,13 @@ import com.rasras.erp.auth.dto.RefreshTokenRequest;
 import com.rasras.erp.shared.exception.BadRequestException;
 import com.rasras.erp.shared.exception.ResourceNotFoundException;
 import com.rasras.erp.shared.security.JwtTokenProvider;
+import com.rasras.erp.shared.security.PrincipalCache;
 import com.rasras.erp.shared.security.UserPrincipal;
 import com.rasras.erp.user.User;
 import com.rasras.erp.user.UserRepository;
 import com.rasras.erp.employee.EmployeeRepository;
 import com.rasras.erp.employee.Employee;
+import io.jsonwebtoken.Claims;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
@@ -37,6 +39,7 @@ public class AuthService {
     private final UserRepository userRepository;
     private final EmployeeRepository employeeRepository;
     private final PasswordEncoder passwordEncoder;
+    private final PrincipalCache principalCache;
 
     @Transactional
     public LoginResponse login(LoginRequest request) {
@@ -51,6 +54,7 @@ public class AuthService {
                 // Lock account if failed attempts > 5 (simple logic for now)
                 if (user.getFailedLoginAttempts() >= 5) {
                     user.setIsLocked(true);
+                    principalCache.evict(user.getUsername());
                 }
                 userRepository.save(user);
             });
@@ -97,14 +101,15 @@ public class AuthService {
 
     public LoginResponse refreshToken(RefreshTokenRequest request) {
         String refreshToken = request.getRefreshToken();
-        String username = jwtTokenProvider.extractUsername(refreshToken);
+        Claims claims = jwtTokenProvider.parseVerified(refreshToken);
+        String username = claims.getSubject();
 
         User user = userRepository.findByUsernameWithPermissions(username)
                 .orElseThrow(() -> new ResourceNotFoundException("User", "username", username));
 
         UserPrincipal userPrincipal = UserPrincipal.create(user);
 
-        if (!jwtTokenProvider.isTokenValid(refreshToken, userPrincipal)) {
+        if (!jwtTokenProvider.isTokenValid(claims, userPrincipal)) {
             throw new BadRequestException("Invalid refresh token");
         }
 
@@ -174,5 +179,6 @@ public class AuthService {
 
         user.setPasswordHash(passwordEncoder.encode(request.getNewPassword()));
         userRepository.save(user);
+        principalCache.evict(user.getUsername());
     }
 }
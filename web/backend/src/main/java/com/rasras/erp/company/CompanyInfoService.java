@@ -1,6 +1,7 @@
 package com.rasras.erp.company;
 
 import com.rasras.erp.shared.exception.ResourceNotFoundException;
+import com.rasras.erp.shared.pdf.PdfRenderCache;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -10,6 +11,7 @@ import org.springframework.transaction.annotation.Transactional;
 public class CompanyInfoService {
 
     private final CompanyInfoRepository companyInfoRepository;
+    private final PdfRenderCache pdfRenderCache;
 
     public CompanyInfoDto getCompanyInfo() {
         return companyInfoRepository.findTopByOrderByIdAsc()
@@ -68,6 +70,8 @@ public class CompanyInfoService {
         companyInfo.setStatsCustomerSatisfaction(companyInfoDto.getStatsCustomerSatisfaction());
 
         CompanyInfo saved = companyInfoRepository.save(companyInfo);
+        // مفاتيح PDF تتغير مع بيانات الشركة؛ هنا نحذف الملفات القديمة فقط لتحرير القرص
+        pdfRenderCache.invalidateAll();
         return mapToDto(saved);
     }
 
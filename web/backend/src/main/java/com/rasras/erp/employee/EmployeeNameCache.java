@@ -0,0 +1,84 @@
+package com.rasras.erp.employee;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * أسماء الموظفين بالعربية للعرض (سجل الاعتمادات، صندوق الاعتمادات...): تُحمّل الأسماء الناقصة
+ * لصفحة كاملة باستعلام IN واحد، وتُحذف من الذاكرة بعد commit أي تعديل أو حذف للموظف.
+ */
+@Component
+@RequiredArgsConstructor
+public class EmployeeNameCache {
+
+    /** حد بسيط للحجم: عند تجاوزه تُفرغ الذاكرة ويُعاد التحميل تدريجياً */
+    private static final int MAX_ENTRIES = 10_000;
+
+    private final EmployeeRepository employeeRepository;
+
+    /** الاسم الكامل، أو "" لموظف غير موجود (حتى لا يُعاد الاستعلام عنه) */
+    private final Map<Integer, String> names = new ConcurrentHashMap<>();
+
+    /**
+     * @return EmployeeID ← الاسم العربي الكامل؛ الموظف غير الموجود أو بلا اسم لا يظهر في النتيجة
+     */
+    public Map<Integer, String> arabicNames(Collection<Integer> employeeIds) {
+        Set<Integer> missing = new LinkedHashSet<>();
+        for (Integer id : employeeIds) {
+            if (id != null && !names.containsKey(id)) {
+                missing.add(id);
+            }
+        }
+        if (!missing.isEmpty()) {
+            if (names.size() + missing.size() > MAX_ENTRIES) {
+                names.clear();
+            }
+            Map<Integer, String> loaded = new HashMap<>();
+            for (Object[] row : employeeRepository.findArabicNames(missing)) {
+                loaded.put((Integer) row[0], fullName((String) row[1], (String) row[2]));
+            }
+            for (Integer id : missing) {
+                names.put(id, loaded.getOrDefault(id, ""));
+            }
+        }
+
+        Map<Integer, String> result = new HashMap<>();
+        for (Integer id : employeeIds) {
+            String name = id != null ? names.get(id) : null;
+            if (name != null && !name.isEmpty()) {
+                result.put(id, name);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * يُستدعى عند تعديل أو حذف موظف؛ الحذف الفعلي بعد نجاح المعاملة حتى لا يُعاد تحميل الاسم القديم قبلها.
+     */
+    public void evict(Integer employeeId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    names.remove(employeeId);
+                }
+            });
+        } else {
+            names.remove(employeeId);
+        }
+    }
+
+    private static String fullName(String firstNameAr, String lastNameAr) {
+        String first = firstNameAr != null ? firstNameAr : "";
+        return lastNameAr != null && !lastNameAr.trim().isEmpty() ? first + " " + lastNameAr : first;
+    }
+}
@@ -4,8 +4,10 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -26,4 +28,8 @@ public interface EmployeeRepository extends JpaRepository<Employee, Integer> {
     boolean existsByEmployeeCode(String employeeCode);
 
     List<Employee> findByIsActiveTrue();
+
+    /** [EmployeeID, FirstNameAr, LastNameAr] لمجموعة موظفين في استعلام واحد */
+    @Query("SELECT e.employeeId, e.firstNameAr, e.lastNameAr FROM Employee e WHERE e.employeeId IN :ids")
+    List<Object[]> findArabicNames(@Param("ids") Collection<Integer> ids);
 }
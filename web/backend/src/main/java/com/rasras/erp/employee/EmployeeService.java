@@ -20,6 +20,7 @@ public class EmployeeService {
     private final EmployeeRepository employeeRepository;
     private final DepartmentRepository departmentRepository;
     private final UserRepository userRepository;
+    private final EmployeeNameCache nameCache;
 
     @Transactional(readOnly = true)
     public Page<EmployeeDto> getAllEmployees(Pageable pageable) {
@@ -110,6 +111,7 @@ public class EmployeeService {
             employee.setDepartment(department);
         }
 
+        nameCache.evict(id);
         return mapToDto(employeeRepository.save(employee));
     }
 
@@ -119,6 +121,7 @@ public class EmployeeService {
                 .orElseThrow(() -> new ResourceNotFoundException("Employee", "id", employeeId));
         if (request.getFirstNameAr() != null) employee.setFirstNameAr(request.getFirstNameAr());
         if (request.getLastNameAr() != null) employee.setLastNameAr(request.getLastNameAr());
+        nameCache.evict(employeeId);
         return mapToDto(employeeRepository.save(employee));
     }
 
@@ -130,6 +133,7 @@ public class EmployeeService {
             throw new BadRequestException("لا يمكن حذف الموظف لأنه مرتبط بمستخدم في النظام. قم بفك ربط المستخدم أو حذفه أولاً.");
         }
         employeeRepository.delete(employee);
+        nameCache.evict(id);
     }
 
     public List<EmployeeDto> getEmployeesByDepartment(String deptName) {
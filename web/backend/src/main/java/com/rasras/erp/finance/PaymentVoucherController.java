@@ -4,13 +4,14 @@ import com.rasras.erp.finance.dto.InvoiceComparisonData;
 import com.rasras.erp.finance.dto.PaymentVoucherDto;
 import com.rasras.erp.finance.dto.SupplierWithInvoices;
 import com.rasras.erp.shared.dto.ApiResponse;
+import com.rasras.erp.shared.pdf.PdfRenderCache;
 import com.rasras.erp.shared.security.SecurityConstants;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -22,6 +23,7 @@ public class PaymentVoucherController {
 
     private final PaymentVoucherService voucherService;
     private final PaymentVoucherPdfService pdfService;
+    private final PdfRenderCache pdfRenderCache;
 
     @GetMapping
     public ResponseEntity<ApiResponse<List<PaymentVoucherDto>>> getAllVouchers() {
@@ -100,15 +102,10 @@ public class PaymentVoucherController {
     }
 
     @GetMapping("/{id}/pdf")
-    public ResponseEntity<byte[]> downloadVoucherPdf(@PathVariable Integer id) {
+    public ResponseEntity<StreamingResponseBody> downloadVoucherPdf(@PathVariable Integer id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         PaymentVoucherDto voucher = voucherService.getVoucherById(id);
-        byte[] pdfContents = pdfService.generateVoucherPdf(voucher);
-
         String fileName = "PaymentVoucher_" + voucher.getVoucherNumber() + ".pdf";
-
-        return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
-                .contentType(MediaType.APPLICATION_PDF)
-                .body(pdfContents);
+        return pdfRenderCache.serve("PAYMENT_VOUCHER", id, voucher, fileName, ifNoneMatch, () -> pdfService.generateVoucherPdf(voucher));
     }
 }
@@ -0,0 +1,43 @@
+package com.rasras.erp.finance;
+
+import com.rasras.erp.finance.dto.PaymentVoucherDto;
+import com.rasras.erp.shared.pdf.PdfExportDocument;
+import com.rasras.erp.shared.pdf.PdfExportFilter;
+import com.rasras.erp.shared.pdf.PdfExportSource;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Set;
+
+@Component
+@RequiredArgsConstructor
+public class PaymentVoucherPdfExportSource implements PdfExportSource {
+
+    private final PaymentVoucherRepository voucherRepository;
+    private final PaymentVoucherService voucherService;
+    private final PaymentVoucherPdfService pdfService;
+
+    @Override
+    public String documentType() {
+        return "PAYMENT_VOUCHER";
+    }
+
+    @Override
+    public Set<String> requiredAuthorities() {
+        return Set.of("SECTION_FINANCE");
+    }
+
+    @Override
+    public List<Integer> findIds(PdfExportFilter filter) {
+        return voucherRepository.findIdsForExport(filter.startDate(), filter.endDate(), filter.supplierId(),
+                filter.status());
+    }
+
+    @Override
+    public PdfExportDocument render(Integer id) {
+        PaymentVoucherDto voucher = voucherService.getVoucherById(id);
+        return new PdfExportDocument("PaymentVoucher_" + voucher.getVoucherNumber() + ".pdf",
+                pdfService.generateVoucherPdf(voucher));
+    }
+}
@@ -1,8 +1,11 @@
 package com.rasras.erp.finance;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
@@ -12,4 +15,11 @@ public interface PaymentVoucherRepository extends JpaRepository<PaymentVoucher,
     List<PaymentVoucher> findBySupplierInvoiceId(Integer supplierInvoiceId);
     List<PaymentVoucher> findByStatus(String status);
     List<PaymentVoucher> findByApprovalStatus(String approvalStatus);
+
+    /** معرفات السندات للتصدير المجمع (الفترة شاملة الطرفين) */
+    @Query("SELECT v.id FROM PaymentVoucher v WHERE v.voucherDate BETWEEN :from AND :to"
+            + " AND (:supplierId IS NULL OR v.supplier.id = :supplierId) AND (:status IS NULL OR v.status = :status)"
+            + " ORDER BY v.voucherDate, v.id")
+    List<Integer> findIdsForExport(@Param("from") LocalDate from, @Param("to") LocalDate to,
+            @Param("supplierId") Integer supplierId, @Param("status") String status);
 }
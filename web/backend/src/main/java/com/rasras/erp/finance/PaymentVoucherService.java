@@ -21,6 +21,8 @@ import com.rasras.erp.shared.exception.BadRequestException;
 import com.rasras.erp.approval.ApprovalService;
 import com.rasras.erp.user.UserRepository;
 import com.rasras.erp.user.User;
+import com.rasras.erp.shared.service.DocumentSequenceService;
+import com.rasras.erp.shared.service.DocumentType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -49,6 +51,7 @@ public class PaymentVoucherService {
         private final ApprovalService approvalService;
         private final UserRepository userRepo;
         private final SupplierInvoiceService supplierInvoiceService;
+        private final DocumentSequenceService documentSequence;
 
         @Transactional(readOnly = true)
         public List<PaymentVoucherDto> getAllVouchers() {
@@ -223,8 +226,7 @@ public class PaymentVoucherService {
         }
 
         private String generateVoucherNumber() {
-                long count = voucherRepo.count() + 1;
-                return "PV-" + count;
+                return documentSequence.next(DocumentType.PAYMENT_VOUCHER);
         }
 
         @Transactional(readOnly = true)
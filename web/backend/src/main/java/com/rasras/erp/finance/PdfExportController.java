@@ -0,0 +1,107 @@
+package com.rasras.erp.finance;
+
+import com.rasras.erp.shared.dto.ApiResponse;
+import com.rasras.erp.shared.dto.PdfExportJobDto;
+import com.rasras.erp.shared.pdf.PdfBulkExportService;
+import com.rasras.erp.shared.pdf.PdfExportFilter;
+import com.rasras.erp.shared.security.SecurityConstants;
+import com.rasras.erp.shared.security.UserPrincipal;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * تصدير مجمع لمستندات فترة (أوامر شراء، فواتير موردين، سندات صرف) في ملف ZIP للمراجعة.
+ * صلاحية كل نوع تُفحص في PdfBulkExportService بنفس صلاحيات عرض المستند في وحدته.
+ */
+@RestController
+@RequestMapping("/finance/pdf-export")
+@RequiredArgsConstructor
+@PreAuthorize(SecurityConstants.AUTHENTICATED)
+public class PdfExportController {
+
+    private static final MediaType APPLICATION_ZIP = MediaType.parseMediaType("application/zip");
+
+    private final PdfBulkExportService exportService;
+
+    @GetMapping("/types")
+    public ResponseEntity<ApiResponse<Set<String>>> getDocumentTypes(
+            @AuthenticationPrincipal UserPrincipal currentUser) {
+        return ResponseEntity.ok(ApiResponse.success(exportService.documentTypes(currentUser.getAuthorities())));
+    }
+
+    /**
+     * تصدير مباشر: الـ ZIP يُبث أثناء الرسم على خيط الطلب نفسه (لا مهلة async تقطع تصديراً طويلاً)،
+     * ومكان التصدير المباشر محجوز طوال الكتابة داخل writeZip.
+     */
+    @GetMapping
+    public void export(
+            @RequestParam String type,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) Integer supplierId,
+            @RequestParam(required = false) String status,
+            @AuthenticationPrincipal UserPrincipal currentUser,
+            HttpServletResponse response) throws IOException {
+        PdfExportFilter filter = new PdfExportFilter(startDate, endDate, supplierId, status);
+        List<Integer> ids = exportService.findForDirectExport(type, filter, currentUser.getAuthorities());
+        String fileName = type.trim().toUpperCase() + "_" + startDate + "_" + endDate + ".zip";
+        exportService.writeZip(type, ids, () -> {
+            response.setContentType(APPLICATION_ZIP.toString());
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"");
+            return response.getOutputStream();
+        });
+    }
+
+    /** مهمة خلفية للفترات الكبيرة: تُتابع بـ GET /jobs/{jobId} ثم تُحمّل من /jobs/{jobId}/download */
+    @PostMapping("/jobs")
+    public ResponseEntity<ApiResponse<PdfExportJobDto>> startJob(
+            @RequestParam String type,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) Integer supplierId,
+            @RequestParam(required = false) String status,
+            @AuthenticationPrincipal UserPrincipal currentUser) {
+        PdfExportFilter filter = new PdfExportFilter(startDate, endDate, supplierId, status);
+        return ResponseEntity.ok(ApiResponse.success(
+                exportService.startJob(type, filter, currentUser.getUsername(), currentUser.getAuthorities())));
+    }
+
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<ApiResponse<PdfExportJobDto>> getJob(@PathVariable String jobId,
+            @AuthenticationPrincipal UserPrincipal currentUser) {
+        return ResponseEntity.ok(ApiResponse.success(exportService.getJob(jobId, currentUser.getUsername())));
+    }
+
+    @GetMapping("/jobs/{jobId}/download")
+    public ResponseEntity<Resource> downloadJob(@PathVariable String jobId,
+            @AuthenticationPrincipal UserPrincipal currentUser) throws IOException {
+        PdfExportJobDto job = exportService.getJob(jobId, currentUser.getUsername());
+        Path file = exportService.getJobFile(jobId, currentUser.getUsername());
+        // Resource يُكتب على خيط الطلب، فلا تقطعه مهلة async كما مع StreamingResponseBody
+        return zip(job.getDocumentType() + "_" + jobId + ".zip")
+                .contentLength(Files.size(file))
+                .body(new FileSystemResource(file));
+    }
+
+    private static ResponseEntity.BodyBuilder zip(String fileName) {
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+                .contentType(APPLICATION_ZIP);
+    }
+}
@@ -0,0 +1,56 @@
+package com.rasras.erp.inventory;
+
+import java.util.Arrays;
+
+/**
+ * توحيد النص العربي للبحث: حذف التشكيل والتطويل، توحيد الألف (أ إ آ ٱ ← ا) والياء (ى ئ ← ي)
+ * والتاء المربوطة (ة ← ه) والواو المهموزة (ؤ ← و)، وتحويل الأرقام العربية إلى لاتينية والحروف إلى صغيرة.
+ */
+final class ArabicText {
+
+    private ArabicText() {
+    }
+
+    static String normalize(String text) {
+        if (text == null || text.isEmpty()) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            // التشكيل (U+064B..U+065F)، الألف الخنجرية، التطويل
+            if ((c >= '\u064B' && c <= '\u065F') || c == '\u0670' || c == '\u0640') {
+                continue;
+            }
+            switch (c) {
+                case 'أ', 'إ', 'آ', 'ٱ' -> sb.append('ا');
+                case 'ى', 'ئ' -> sb.append('ي');
+                case 'ة' -> sb.append('ه');
+                case 'ؤ' -> sb.append('و');
+                default -> {
+                    if (c >= '٠' && c <= '٩') {
+                        sb.append((char) ('0' + (c - '٠')));
+                    } else if (c >= '۰' && c <= '۹') {
+                        sb.append((char) ('0' + (c - '۰')));
+                    } else {
+                        sb.append(Character.toLowerCase(c));
+                    }
+                }
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * يقسم النص الموحّد إلى كلمات (الفواصل: أي حرف ليس حرفاً أو رقماً)، بدون كلمات فارغة.
+     */
+    static String[] tokens(String text) {
+        String normalized = normalize(text);
+        if (normalized.isEmpty()) {
+            return new String[0];
+        }
+        return Arrays.stream(normalized.split("[^\\p{L}\\p{Nd}]+"))
+                .filter(token -> !token.isEmpty())
+                .toArray(String[]::new);
+    }
+}
@@ -1,17 +1,29 @@
 package com.rasras.erp.inventory;
 
+import com.rasras.erp.inventory.dto.AvgConsumptionRefreshResult;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Collectors;
 
 /**
  * مهمة مجدولة لتحديث حقل متوسط الاستهلاك الشهري لجميع الأصناف من حركات الصرف (OUT).
- * تُشغّل في أول يوم من كل شهر عند منتصف الليل.
+ * تُشغّل في أول يوم من كل شهر عند منتصف الليل، ويمكن تشغيلها عند الطلب لمجموعة فئات.
+ * <p>
+ * استعلام تجميعي واحد (GROUP BY ItemID) ثم تحديث على دفعات، كل دفعة في معاملة قصيرة
+ * مستقلة حتى لا يُحجز اتصال من الـ pool طوال التشغيل.
  */
 @Slf4j
 @Component
@@ -20,25 +32,84 @@ public class AvgMonthlyConsumptionScheduler {
 
     private static final int MONTHS_FOR_AVG = 3;
 
-    private final ItemRepository itemRepository;
-    private final StockMovementService stockMovementService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.scheduler.avg-consumption.chunk-size:500}")
+    private int chunkSize;
 
     @Scheduled(cron = "${app.scheduler.avg-consumption.cron:0 0 0 1 * *}")
-    @Transactional
     public void updateAvgMonthlyConsumptionForAllItems() {
-        log.info("بدء مهمة تحديث متوسط الاستهلاك الشهري لجميع الأصناف");
-        List<Item> items = itemRepository.findAll();
+        refresh(null);
+    }
+
+    /**
+     * يعيد حساب المتوسط لأصناف الفئات المحددة، أو لكل الأصناف إذا كانت القائمة فارغة/null.
+     */
+    public AvgConsumptionRefreshResult refresh(Collection<Integer> categoryIds) {
+        boolean filtered = categoryIds != null && !categoryIds.isEmpty();
+        long started = System.nanoTime();
+        log.info("بدء مهمة تحديث متوسط الاستهلاك الشهري{}", filtered ? " للفئات " + categoryIds : " لجميع الأصناف");
+
+        LocalDateTime to = LocalDateTime.now();
+        LocalDateTime from = to.minusMonths(MONTHS_FOR_AVG);
+        List<Object[]> updates = aggregate(filtered ? categoryIds : null, from, to);
+        long aggregateMillis = (System.nanoTime() - started) / 1_000_000;
+
         int updated = 0;
-        for (Item item : items) {
+        int chunks = 0;
+        int failedChunks = 0;
+        for (int start = 0; start < updates.size(); start += chunkSize) {
+            List<Object[]> chunk = updates.subList(start, Math.min(start + chunkSize, updates.size()));
+            chunks++;
             try {
-                BigDecimal avg = stockMovementService.getAverageMonthlyConsumption(item.getId(), MONTHS_FOR_AVG);
-                item.setAvgMonthlyConsumption(avg);
-                itemRepository.save(item);
-                updated++;
+                transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(
+                        "UPDATE items SET AvgMonthlyConsumption = ? WHERE ItemID = ?", chunk));
+                updated += chunk.size();
             } catch (Exception e) {
-                log.warn("فشل تحديث متوسط الاستهلاك للصنف id={} ({})", item.getId(), item.getItemCode(), e);
+                failedChunks++;
+                log.warn("فشل تحديث دفعة متوسط الاستهلاك ({} صنف بدءاً من id={})", chunk.size(), chunk.get(0)[1], e);
             }
+            log.debug("تقدم تحديث متوسط الاستهلاك: {}/{}", start + chunk.size(), updates.size());
+        }
+
+        long durationMillis = (System.nanoTime() - started) / 1_000_000;
+        log.info("انتهت مهمة تحديث متوسط الاستهلاك الشهري: تم تحديث {} من {} صنف في {} دفعة ({} فاشلة) خلال {} ms "
+                + "(التجميع {} ms)", updated, updates.size(), chunks, failedChunks, durationMillis, aggregateMillis);
+        return AvgConsumptionRefreshResult.builder()
+                .categoryIds(filtered ? new ArrayList<>(categoryIds) : null)
+                .monthsUsed(MONTHS_FOR_AVG)
+                .itemsScanned(updates.size())
+                .itemsUpdated(updated)
+                .chunks(chunks)
+                .failedChunks(failedChunks)
+                .aggregateMillis(aggregateMillis)
+                .durationMillis(durationMillis)
+                .build();
+    }
+
+    /**
+     * مجموع الصرف لكل صنف خلال النافذة؛ الأصناف بلا حركات صرف تُرجع صفراً حتى يُصفّر متوسطها.
+     *
+     * @return صفوف [المتوسط، ItemID] بترتيب معاملات جملة التحديث
+     */
+    private List<Object[]> aggregate(Collection<Integer> categoryIds, LocalDateTime from, LocalDateTime to) {
+        List<Object> args = new ArrayList<>();
+        args.add(Timestamp.valueOf(from));
+        args.add(Timestamp.valueOf(to));
+        String categoryFilter = "";
+        if (categoryIds != null) {
+            categoryFilter = " WHERE i.CategoryID IN ("
+                    + categoryIds.stream().map(id -> "?").collect(Collectors.joining(", ")) + ")";
+            args.addAll(categoryIds);
         }
-        log.info("انتهت مهمة تحديث متوسط الاستهلاك الشهري: تم تحديث {} من {} صنف", updated, items.size());
+        BigDecimal months = BigDecimal.valueOf(MONTHS_FOR_AVG);
+        return jdbcTemplate.query("SELECT i.ItemID, COALESCE(SUM(m.Quantity), 0) AS TotalOut FROM items i "
+                + "LEFT JOIN stockmovements m ON m.ItemID = i.ItemID AND m.Direction = 'OUT' "
+                + "AND m.MovementDate >= ? AND m.MovementDate < ?" + categoryFilter + " GROUP BY i.ItemID",
+                (rs, rowNum) -> new Object[] {
+                        rs.getBigDecimal("TotalOut").divide(months, 3, RoundingMode.HALF_UP),
+                        rs.getInt("ItemID") },
+                args.toArray());
     }
 }
@@ -9,12 +9,15 @@ import com.rasras.erp.supplier.Supplier;
 import com.rasras.erp.supplier.SupplierRepository;
 import com.rasras.erp.supplier.SupplierInvoiceRepository;
 import com.rasras.erp.finance.ExchangeRateService;
+import com.rasras.erp.shared.service.DocumentSequenceService;
+import com.rasras.erp.shared.service.DocumentType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -32,6 +35,7 @@ public class GRNService {
     private final SupplierInvoiceRepository supplierInvoiceRepo;
     private final ItemService itemService;
     private final ExchangeRateService exchangeRateService;
+    private final DocumentSequenceService documentSequence;
 
     @Transactional(readOnly = true)
     public List<GoodsReceiptNoteDto> getAllGRNs() {
@@ -376,20 +380,23 @@ public class GRNService {
                         ? po.getExchangeRate()
                         : (isUsd ? BigDecimal.ONE : exchangeRateService.getCurrentRate());
 
+        List<StockPosting> postings = new ArrayList<>();
         for (GRNItem item : grn.getItems()) {
             BigDecimal qtyToRecord = item.getAcceptedQty() != null ? item.getAcceptedQty() : item.getReceivedQty();
             if (qtyToRecord.compareTo(BigDecimal.ZERO) > 0) {
-                inventoryService.updateStock(
-                        item.getItem().getId(),
-                        grn.getWarehouseId(),
-                        qtyToRecord,
-                        "IN",
-                        "GRN",
-                        "GoodsReceiptNote",
-                        grn.getId(),
-                        grn.getGrnNumber(),
-                        item.getUnitCost(),
-                        grn.getCreatedBy());
+                postings.add(StockPosting.builder()
+                        .itemId(item.getItem().getId())
+                        .warehouseId(grn.getWarehouseId())
+                        .quantity(qtyToRecord)
+                        .direction("IN")
+                        .movementType("GRN")
+                        .referenceType("GoodsReceiptNote")
+                        .referenceId(grn.getId())
+                        .referenceNumber(grn.getGrnNumber())
+                        .unitCost(item.getUnitCost())
+                        .userId(grn.getCreatedBy())
+                        .lotNumber(item.getLotNumber())
+                        .build());
 
                 // Automated Pricing Update
                 BigDecimal unitCostUsd;
@@ -403,11 +410,11 @@ public class GRNService {
                 itemService.updatePricingFromPurchase(item.getItem().getId(), unitCostUsd, qtyToRecord, poRate);
             }
         }
+        inventoryService.postMovements(postings);
     }
 
     private String generateGRNNumber() {
-        long count = grnRepo.count() + 1;
-        return "#GRN-" + count;
+        return documentSequence.next(DocumentType.GOODS_RECEIPT);
     }
 
     private GRNItem mapToItemEntity(GoodsReceiptNote grn, GRNItemDto dto) {
@@ -5,116 +5,83 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class InventoryService {
 
-    private final StockBalanceRepository balanceRepo;
-    private final StockMovementRepository movementRepo;
-    private final ItemRepository itemRepo;
-    private final WarehouseRepository warehouseRepo;
+    private final StockPostingEngine postingEngine;
+    private final LowStockWatchService lowStockWatch;
+    private final StockReservationService reservationService;
+    private final StockCostLayerLedger costLayers;
 
+    /**
+     * ترحيل حركة مخزون واحدة؛ قفل صف الصنف أولاً (يسلسل إجمالي الصنف عبر المخازن)، ثم التسلسل لكل
+     * (صنف، مخزن) وكشف التعارض في StockPostingEngine، ثم تحديث طبقات تكلفة FIFO في نفس المعاملة.
+     */
     @Transactional
     public void updateStock(Integer itemId, Integer warehouseId, BigDecimal quantity, String direction,
             String moveType, String refType, Integer refId, String refNumber,
             BigDecimal unitCost, Integer userId) {
-
-        Item item = itemRepo.findById(itemId).orElseThrow();
-        Warehouse warehouse = warehouseRepo.findById(warehouseId).orElseThrow();
-
-        StockBalance balance = balanceRepo.findByItemIdAndWarehouseId(itemId, warehouseId)
-                .orElse(StockBalance.builder()
-                        .item(item)
-                        .warehouse(warehouse)
-                        .quantityOnHand(BigDecimal.ZERO)
-                        .quantityReserved(BigDecimal.ZERO)
-                        .build());
-
-        BigDecimal balanceBefore = balance.getQuantityOnHand() != null ? balance.getQuantityOnHand() : BigDecimal.ZERO;
-        BigDecimal newQuantity;
-
-        if ("IN".equalsIgnoreCase(direction)) {
-            newQuantity = balanceBefore.add(quantity);
-            // تحديث التكلفة المتوسطة المرجحة عند حركة الإدخال
-            BigDecimal currentAvgCost = balance.getAverageCost() != null ? balance.getAverageCost() : BigDecimal.ZERO;
-            BigDecimal incomingCost = unitCost != null ? unitCost : BigDecimal.ZERO;
-            if (newQuantity.compareTo(BigDecimal.ZERO) > 0) {
-                BigDecimal valueBefore = balanceBefore.multiply(currentAvgCost);
-                BigDecimal valueIncoming = quantity.multiply(incomingCost);
-                BigDecimal newAverageCost = valueBefore.add(valueIncoming).divide(newQuantity, 4, RoundingMode.HALF_UP);
-                balance.setAverageCost(newAverageCost);
-            }
-        } else {
-            newQuantity = balanceBefore.subtract(quantity);
-            // عند OUT: التكلفة المتوسطة للرصيد المتبقي لا تتغير
-        }
-
-        balance.setQuantityOnHand(newQuantity);
-        balance.setLastMovementDate(LocalDateTime.now());
-        balance.setUpdatedAt(LocalDateTime.now());
-        balanceRepo.save(balance);
-
-        StockMovement movement = StockMovement.builder()
-                .item(item)
-                .warehouse(warehouse)
+        StockPosting posting = StockPosting.builder()
+                .itemId(itemId)
+                .warehouseId(warehouseId)
                 .quantity(quantity)
-                .direction(direction.toUpperCase())
+                .direction(direction)
                 .movementType(moveType)
                 .referenceType(refType)
                 .referenceId(refId)
                 .referenceNumber(refNumber)
                 .unitCost(unitCost)
-                .totalCost(unitCost != null ? unitCost.multiply(quantity) : BigDecimal.ZERO)
-                .balanceBefore(balanceBefore)
-                .balanceAfter(newQuantity)
-                .createdBy(userId)
+                .userId(userId)
                 .build();
-        movementRepo.save(movement);
+        lowStockWatch.lockItems(List.of(itemId));
+        postingEngine.post(posting);
+        costLayers.apply(List.of(posting), LocalDateTime.now());
+        lowStockWatch.evaluate(List.of(itemId));
     }
 
+    /**
+     * ترحيل مجمع لأسطر مستند كامل (إذن إضافة، جرد، تحويل، صرف): استعلام واحد للأرصدة
+     * وكتابة مجمعة للحركات بدلاً من عدة استعلامات لكل سطر.
+     */
     @Transactional
-    public void reserveStock(Item item, Warehouse warehouse, BigDecimal quantity) {
-        if (quantity == null || quantity.compareTo(BigDecimal.ZERO) <= 0)
-            return;
-
-        StockBalance balance = balanceRepo.findByItemIdAndWarehouseId(item.getId(), warehouse.getId())
-                .orElse(StockBalance.builder()
-                        .item(item)
-                        .warehouse(warehouse)
-                        .quantityOnHand(BigDecimal.ZERO)
-                        .quantityReserved(BigDecimal.ZERO)
-                        .build());
-
-        BigDecimal currentOnHand = balance.getQuantityOnHand() != null ? balance.getQuantityOnHand() : BigDecimal.ZERO;
-        BigDecimal currentReserved = balance.getQuantityReserved() != null ? balance.getQuantityReserved()
-                : BigDecimal.ZERO;
-
-        BigDecimal available = currentOnHand.subtract(currentReserved);
-        if (available.compareTo(quantity) < 0) {
-            throw new com.rasras.erp.shared.exception.BadRequestException(
-                    "عجز في المخزون للصنف: " + item.getItemNameAr() +
-                            " (" + item.getItemCode() + "). المتاح: " + available + "، المطلوب: " + quantity);
-        }
+    public void postMovements(List<StockPosting> postings) {
+        Set<Integer> itemIds = postings.stream().map(StockPosting::getItemId).collect(Collectors.toSet());
+        lowStockWatch.lockItems(itemIds);
+        postingEngine.postAll(postings);
+        costLayers.apply(postings, LocalDateTime.now());
+        lowStockWatch.evaluate(itemIds);
+    }
 
-        balance.setQuantityReserved(currentReserved.add(quantity));
-        balance.setUpdatedAt(LocalDateTime.now());
-        balanceRepo.save(balance);
+    /**
+     * حجز كل أسطر مستند (كلها أو لا شيء) عبر سجل الحجوزات؛ يرمي BadRequestException عند العجز.
+     */
+    @Transactional
+    public void reserveForDocument(String referenceType, Integer referenceId, Integer warehouseId,
+            List<StockReservationLine> lines, Integer userId) {
+        reservationService.reserve(referenceType, referenceId, warehouseId, lines, userId);
     }
 
+    /**
+     * إلغاء حجز المستند بالكامل (رفض/حذف).
+     */
     @Transactional
-    public void releaseReservation(Item item, Warehouse warehouse, BigDecimal quantity) {
-        if (quantity == null || quantity.compareTo(BigDecimal.ZERO) <= 0)
-            return;
+    public void releaseForDocument(String referenceType, Integer referenceId, Integer warehouseId,
+            List<StockReservationLine> lines) {
+        reservationService.release(referenceType, referenceId, warehouseId, lines);
+    }
 
-        balanceRepo.findByItemIdAndWarehouseId(item.getId(), warehouse.getId()).ifPresent(balance -> {
-            BigDecimal currentReserved = balance.getQuantityReserved() != null ? balance.getQuantityReserved()
-                    : BigDecimal.ZERO;
-            balance.setQuantityReserved(currentReserved.subtract(quantity).max(BigDecimal.ZERO));
-            balance.setUpdatedAt(LocalDateTime.now());
-            balanceRepo.save(balance);
-        });
+    /**
+     * خصم كمية منفذة من حجز المستند لصنف واحد (عند الصرف الفعلي).
+     */
+    @Transactional
+    public BigDecimal consumeReservation(String referenceType, Integer referenceId, Integer itemId,
+            Integer warehouseId, BigDecimal quantity) {
+        return reservationService.consume(referenceType, referenceId, itemId, warehouseId, quantity);
     }
 }
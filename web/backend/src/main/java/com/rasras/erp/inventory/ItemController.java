@@ -1,10 +1,15 @@
 package com.rasras.erp.inventory;
 
+import com.rasras.erp.inventory.dto.AvgConsumptionRefreshResult;
+import com.rasras.erp.inventory.dto.ItemSearchResultDto;
 import com.rasras.erp.shared.dto.ApiResponse;
 import com.rasras.erp.shared.security.SecurityConstants;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableDefault;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
@@ -19,6 +24,8 @@ import java.util.List;
 public class ItemController {
 
     private final ItemService itemService;
+    private final AvgMonthlyConsumptionScheduler avgConsumptionScheduler;
+    private final ItemSearchIndex searchIndex;
 
     @GetMapping
     @Operation(summary = "Get all items", description = "Returns all items in inventory")
@@ -32,6 +39,15 @@ public class ItemController {
         return ResponseEntity.ok(ApiResponse.success(itemService.getActiveItems()));
     }
 
+    @GetMapping("/search")
+    @Operation(summary = "Search items", description = "Prefix and fuzzy typeahead over code, Arabic/English name, grade and barcode")
+    public ResponseEntity<ApiResponse<Page<ItemSearchResultDto>>> searchItems(
+            @RequestParam(required = false) String q,
+            @RequestParam(defaultValue = "true") boolean activeOnly,
+            @PageableDefault(size = 20) Pageable pageable) {
+        return ResponseEntity.ok(ApiResponse.success(searchIndex.search(q, activeOnly, pageable)));
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<ApiResponse<ItemDto>> getItemById(@PathVariable Integer id) {
         return ResponseEntity.ok(ApiResponse.success(itemService.getItemById(id)));
@@ -53,6 +69,14 @@ public class ItemController {
         return ResponseEntity.ok(ApiResponse.success(null));
     }
 
+    @PostMapping("/avg-consumption/refresh")
+    @PreAuthorize(SecurityConstants.WAREHOUSE_SECTION)
+    @Operation(summary = "Recompute average monthly consumption", description = "Recomputes AvgMonthlyConsumption for the given categories, or for all items when none are given")
+    public ResponseEntity<ApiResponse<AvgConsumptionRefreshResult>> refreshAvgMonthlyConsumption(
+            @RequestParam(required = false) List<Integer> categoryIds) {
+        return ResponseEntity.ok(ApiResponse.success(avgConsumptionScheduler.refresh(categoryIds)));
+    }
+
     @GetMapping("/{id}/pricing-info")
     @Operation(summary = "Get item pricing info", description = "Returns exchange rate history and buffer calculations for an item")
     public ResponseEntity<java.util.Map<String, Object>> getItemPricingInfo(@PathVariable Integer id) {
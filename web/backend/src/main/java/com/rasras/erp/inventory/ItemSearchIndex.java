@@ -0,0 +1,305 @@
+package com.rasras.erp.inventory;
+
+import com.rasras.erp.inventory.dto.ItemSearchResultDto;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Consumer;
+
+/**
+ * فهرس بحث في الذاكرة لأصناف المخزون (كود، اسم عربي موحّد، اسم إنجليزي، الدرجة، اسم الدرجة، الباركود):
+ * كل كلمة تشير لمجموعة أصناف، والبحث بالبادئة عبر خريطة مرتبة، مع بحث تقريبي (مسافة تحرير)
+ * عندما لا تطابق البادئة شيئاً. يُبنى عند بدء التشغيل ويُحدّث بعد commit إنشاء/تعديل/حذف الصنف.
+ * إعادة البناء تجهّز فهرساً جديداً جانبياً ثم تبدّله دفعة واحدة، فلا يرى القرّاء فهرساً فارغاً
+ * ولا تضيع تحديثات وصلت أثناء البناء.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ItemSearchIndex {
+
+    private static final int EXACT = 4;
+    private static final int PREFIX = 2;
+    private static final int FUZZY = 1;
+    private static final int CODE_MATCH = 100;
+
+    private static final Comparator<Entry> BY_CODE = Comparator.comparing(e -> e.code);
+
+    private final ItemRepository itemRepository;
+
+    private final Object rebuildLock = new Object();
+
+    private volatile Index index = new Index();
+    /** التحديثات المطبقة أثناء إعادة بناء جارية؛ تُعاد على الفهرس الجديد قبل تبديله (محمية بـ this) */
+    private List<Consumer<Index>> changesDuringRebuild;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        synchronized (rebuildLock) {
+            synchronized (this) {
+                changesDuringRebuild = new ArrayList<>();
+            }
+            try {
+                long started = System.currentTimeMillis();
+                List<Item> items = itemRepository.findAll();
+                Index fresh = new Index();
+                items.forEach(item -> fresh.put(new Entry(item)));
+                synchronized (this) {
+                    changesDuringRebuild.forEach(change -> change.accept(fresh));
+                    index = fresh;
+                }
+                log.info("تم بناء فهرس بحث الأصناف ({} صنف) خلال {} ms", items.size(),
+                        System.currentTimeMillis() - started);
+            } catch (Exception e) {
+                log.warn("تعذر بناء فهرس بحث الأصناف", e);
+            } finally {
+                synchronized (this) {
+                    changesDuringRebuild = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * يحدّث الصنف في الفهرس بعد نجاح المعاملة الحالية (أو فوراً خارج المعاملات).
+     */
+    public void index(Item item) {
+        Entry entry = new Entry(item);
+        afterCommit(() -> apply(target -> target.put(entry)));
+    }
+
+    public void remove(Integer itemId) {
+        afterCommit(() -> apply(target -> target.remove(itemId)));
+    }
+
+    private synchronized void apply(Consumer<Index> change) {
+        change.accept(index);
+        if (changesDuringRebuild != null) {
+            changesDuringRebuild.add(change);
+        }
+    }
+
+    /**
+     * بحث typeahead: كل كلمة في الاستعلام يجب أن تطابق (تماماً، أو كبادئة، أو تقريبياً) كلمة في الصنف.
+     * الترتيب: تطابق الكود/الباركود، ثم مجموع درجات الكلمات، ثم الكود. استعلام فارغ يعيد الأصناف مرتبة بالكود.
+     */
+    public Page<ItemSearchResultDto> search(String query, boolean activeOnly, Pageable pageable) {
+        Index current = index;
+        String[] terms = ArabicText.tokens(query);
+        if (terms.length == 0) {
+            List<Entry> all = current.entries.values().stream()
+                    .filter(e -> !activeOnly || e.active)
+                    .sorted(BY_CODE)
+                    .toList();
+            return page(all, pageable);
+        }
+
+        Map<Integer, Integer> scores = null;
+        for (String term : terms) {
+            Map<Integer, Integer> termScores = match(current.postings, term);
+            if (scores == null) {
+                scores = termScores;
+            } else {
+                Map<Integer, Integer> joined = new HashMap<>();
+                for (Map.Entry<Integer, Integer> s : scores.entrySet()) {
+                    Integer score = termScores.get(s.getKey());
+                    if (score != null) {
+                        joined.put(s.getKey(), s.getValue() + score);
+                    }
+                }
+                scores = joined;
+            }
+            if (scores.isEmpty()) {
+                break;
+            }
+        }
+
+        String whole = ArabicText.normalize(query).trim();
+        Map<Integer, Integer> finalScores = scores;
+        List<Entry> hits = new ArrayList<>(finalScores.size());
+        for (Integer id : finalScores.keySet()) {
+            Entry e = current.entries.get(id);
+            if (e != null && (!activeOnly || e.active)) {
+                if (whole.equals(e.code) || whole.equals(e.barcode)) {
+                    finalScores.merge(id, CODE_MATCH, Integer::sum);
+                }
+                hits.add(e);
+            }
+        }
+        hits.sort(Comparator.<Entry>comparingInt(e -> -finalScores.get(e.dto.getId())).thenComparing(BY_CODE));
+        return page(hits, pageable);
+    }
+
+    private static Map<Integer, Integer> match(NavigableMap<String, Set<Integer>> postings, String term) {
+        Map<Integer, Integer> scores = new HashMap<>();
+        for (Map.Entry<String, Set<Integer>> p : postings.subMap(term, true, term + Character.MAX_VALUE, false)
+                .entrySet()) {
+            int score = p.getKey().length() == term.length() ? EXACT : PREFIX;
+            for (Integer id : p.getValue()) {
+                scores.merge(id, score, Math::max);
+            }
+        }
+        if (!scores.isEmpty() || term.length() < 3) {
+            return scores;
+        }
+        int maxDistance = term.length() < 6 ? 1 : 2;
+        for (Map.Entry<String, Set<Integer>> p : postings.entrySet()) {
+            String token = p.getKey();
+            if (token.length() + maxDistance < term.length()) {
+                continue;
+            }
+            // مقارنة مع بداية الكلمة بنفس الطول تقريباً حتى تعمل الأخطاء أثناء الكتابة
+            String head = token.length() > term.length() + maxDistance
+                    ? token.substring(0, term.length())
+                    : token;
+            if (withinDistance(term, head, maxDistance)) {
+                for (Integer id : p.getValue()) {
+                    scores.merge(id, FUZZY, Math::max);
+                }
+            }
+        }
+        return scores;
+    }
+
+    /** مسافة Levenshtein مع توقف مبكر عند تجاوز الحد */
+    static boolean withinDistance(String a, String b, int max) {
+        if (Math.abs(a.length() - b.length()) > max) {
+            return false;
+        }
+        int[] prev = new int[b.length() + 1];
+        int[] cur = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            prev[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            cur[0] = i;
+            int rowMin = cur[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                cur[j] = Math.min(Math.min(cur[j - 1] + 1, prev[j] + 1), prev[j - 1] + cost);
+                rowMin = Math.min(rowMin, cur[j]);
+            }
+            if (rowMin > max) {
+                return false;
+            }
+            int[] tmp = prev;
+            prev = cur;
+            cur = tmp;
+        }
+        return prev[b.length()] <= max;
+    }
+
+    private static Page<ItemSearchResultDto> page(List<Entry> hits, Pageable pageable) {
+        if (pageable.isUnpaged()) {
+            return new PageImpl<>(hits.stream().map(e -> e.dto).toList());
+        }
+        int from = (int) Math.min(pageable.getOffset(), hits.size());
+        int to = Math.min(from + pageable.getPageSize(), hits.size());
+        return new PageImpl<>(hits.subList(from, to).stream().map(e -> e.dto).toList(), pageable, hits.size());
+    }
+
+    /**
+     * الأصناف وقوائم الكلمات؛ التعديل عبر apply فقط، والقراءة متزامنة بلا قفل.
+     */
+    private static final class Index {
+        private final Map<Integer, Entry> entries = new ConcurrentHashMap<>();
+        private final ConcurrentNavigableMap<String, Set<Integer>> postings = new ConcurrentSkipListMap<>();
+
+        void put(Entry entry) {
+            remove(entry.dto.getId());
+            entries.put(entry.dto.getId(), entry);
+            for (String token : entry.tokens) {
+                postings.computeIfAbsent(token, k -> ConcurrentHashMap.newKeySet()).add(entry.dto.getId());
+            }
+        }
+
+        void remove(Integer itemId) {
+            Entry old = entries.remove(itemId);
+            if (old == null) {
+                return;
+            }
+            for (String token : old.tokens) {
+                Set<Integer> ids = postings.get(token);
+                if (ids != null) {
+                    ids.remove(itemId);
+                    if (ids.isEmpty()) {
+                        postings.remove(token);
+                    }
+                }
+            }
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private static final class Entry {
+        private final ItemSearchResultDto dto;
+        private final String code;
+        private final String barcode;
+        private final boolean active;
+        private final Set<String> tokens = new LinkedHashSet<>();
+
+        Entry(Item item) {
+            this.dto = ItemSearchResultDto.builder()
+                    .id(item.getId())
+                    .itemCode(item.getItemCode())
+                    .itemNameAr(item.getItemNameAr())
+                    .itemNameEn(item.getItemNameEn())
+                    .grade(item.getGrade())
+                    .gradeName(item.getGradeName())
+                    .barcode(item.getBarcode())
+                    .categoryId(item.getCategoryId())
+                    .unitId(item.getUnitId())
+                    .isActive(item.getIsActive())
+                    .build();
+            this.code = ArabicText.normalize(item.getItemCode());
+            this.barcode = ArabicText.normalize(item.getBarcode());
+            this.active = !Boolean.FALSE.equals(item.getIsActive());
+            for (String field : new String[] { item.getItemCode(), item.getItemNameAr(), item.getItemNameEn(),
+                    item.getGrade(), item.getGradeName(), item.getBarcode() }) {
+                for (String token : ArabicText.tokens(field)) {
+                    if (!token.isEmpty()) {
+                        tokens.add(token);
+                    }
+                }
+            }
+            // الكود والباركود كاملين أيضاً (مثل ITEM-00012) حتى تعمل البادئة عبر الفواصل
+            if (!code.isEmpty()) {
+                tokens.add(code);
+            }
+            if (!barcode.isEmpty()) {
+                tokens.add(barcode);
+            }
+        }
+    }
+}
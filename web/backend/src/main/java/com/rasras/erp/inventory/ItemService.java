@@ -15,6 +15,8 @@ import java.util.stream.Collectors;
 
 import com.rasras.erp.procurement.PurchaseReturnItem;
 import com.rasras.erp.procurement.PurchaseReturnItemRepository;
+import com.rasras.erp.shared.service.DocumentSequenceService;
+import com.rasras.erp.shared.service.DocumentType;
 
 @Service
 @RequiredArgsConstructor
@@ -30,6 +32,9 @@ public class ItemService {
         private final com.rasras.erp.finance.ExchangeRateService exchangeRateService;
         private final PriceListService priceListService;
         private final ItemExchangeRateHistoryRepository itemRateHistoryRepo;
+        private final LowStockWatchService lowStockWatch;
+        private final ItemSearchIndex searchIndex;
+        private final DocumentSequenceService documentSequence;
 
         public List<ItemDto> getAllItems() {
                 List<Item> items = itemRepository.findAll();
@@ -58,14 +63,7 @@ public class ItemService {
         }
 
         private String generateItemCode() {
-                try {
-                        Integer maxSeq = itemRepository.findMaxItemCodeSequence();
-                        int next = (maxSeq != null ? maxSeq : 0) + 1;
-                        return String.format("ITEM-%05d", next);
-                } catch (Exception e) {
-                        long n = itemRepository.count() + 1;
-                        return String.format("ITEM-%05d", n);
-                }
+                return documentSequence.next(DocumentType.ITEM);
         }
 
         @Transactional
@@ -118,7 +116,11 @@ public class ItemService {
                                 .createdAt(java.time.LocalDateTime.now())
                                 .build();
                 try {
-                        return mapToDto(itemRepository.save(item));
+                        Item saved = itemRepository.save(item);
+                        ItemDto savedDto = mapToDto(saved);
+                        lowStockWatch.evaluate(List.of(savedDto.getId()));
+                        searchIndex.index(saved);
+                        return savedDto;
                 } catch (DataIntegrityViolationException e) {
                         throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
                                         "البيانات المرتبطة غير صحيحة - تحقق من الحقول المرتبطة (مندوب المبيعات، قائمة الأسعار، التصنيف، أو وحدة القياس)");
@@ -163,9 +165,12 @@ public class ItemService {
                 item.setIsPurchasable(dto.getIsPurchasable());
 
                 try {
-                        ItemDto savedDto = mapToDto(itemRepository.save(item));
+                        Item saved = itemRepository.save(item);
+                        ItemDto savedDto = mapToDto(saved);
+                        searchIndex.index(saved);
                         priceListService.syncPriceListsForItem(id, item.getLastSalePrice(),
                                         item.getLastPurchasePrice());
+                        lowStockWatch.evaluate(List.of(id));
                         return savedDto;
                 } catch (DataIntegrityViolationException e) {
                         throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
@@ -234,6 +239,7 @@ public class ItemService {
                         stockMovementRepository.deleteAll(movements);
                         stockBalanceRepository.deleteAll(balances);
                         itemRepository.delete(item);
+                        searchIndex.remove(id);
                 } catch (DataIntegrityViolationException e) {
                         throw new ResponseStatusException(HttpStatus.CONFLICT,
                                         "لا يمكن حذف الصنف لوجود استخدامات له في مستندات أخرى (مثل عروض الأسعار، أوامر الشراء/البيع، قوائم الأسعار، ...). يرجى مراجعة المستندات المرتبطة أولاً.");
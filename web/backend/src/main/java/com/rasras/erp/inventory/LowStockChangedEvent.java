@@ -0,0 +1,23 @@
+package com.rasras.erp.inventory;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * عبور صنف لحد الحد الأدنى أو حد إعادة الطلب في أي اتجاه.
+ * status = null يعني أن الصنف خرج من قائمة المتابعة.
+ */
+@Getter
+@AllArgsConstructor
+public class LowStockChangedEvent {
+    private final Integer itemId;
+    private final String previousStatus;
+    private final String status;
+    private final BigDecimal totalOnHand;
+    private final BigDecimal minStockLevel;
+    private final BigDecimal reorderLevel;
+    private final LocalDateTime changedAt;
+}
@@ -0,0 +1,67 @@
+package com.rasras.erp.inventory;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * بث تغييرات قائمة الأصناف تحت الحد (Server-Sent Events) للوحة التحكم وقسم المشتريات.
+ * الأحداث تُرسل بعد commit معاملة الترحيل فقط، على خيط إرسال مستقل فلا ينتظر خيط الترحيل
+ * مشتركاً بطيئاً.
+ */
+@Slf4j
+@Component
+public class LowStockFeed {
+
+    private static final long EMITTER_TIMEOUT_MS = 30L * 60 * 1000;
+
+    private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+    private final ExecutorService sender = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "low-stock-sse");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public SseEmitter subscribe() {
+        SseEmitter emitter = new SseEmitter(EMITTER_TIMEOUT_MS);
+        emitters.add(emitter);
+        emitter.onCompletion(() -> emitters.remove(emitter));
+        emitter.onTimeout(() -> {
+            emitters.remove(emitter);
+            emitter.complete();
+        });
+        emitter.onError(e -> emitters.remove(emitter));
+        return emitter;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onLowStockChanged(LowStockChangedEvent event) {
+        sender.execute(() -> deliver(event));
+    }
+
+    private void deliver(LowStockChangedEvent event) {
+        for (SseEmitter emitter : emitters) {
+            try {
+                emitter.send(SseEmitter.event().name("low-stock").data(event));
+            } catch (IOException | IllegalStateException e) {
+                log.debug("إزالة مشترك SSE منقطع من بث الأصناف تحت الحد: {}", e.getMessage());
+                emitters.remove(emitter);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sender.shutdownNow();
+        emitters.forEach(SseEmitter::complete);
+    }
+}
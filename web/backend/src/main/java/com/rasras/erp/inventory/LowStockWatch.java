@@ -0,0 +1,66 @@
+package com.rasras.erp.inventory;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * قائمة متابعة الأصناف تحت الحد الأدنى / حد إعادة الطلب (الرصيد المجمع لكل المخازن).
+ * يوجد صف فقط للصنف الذي تحت أحد الحدين، ويُحدّث مع كل ترحيل مخزني (LowStockWatchService).
+ */
+@Entity
+@Table(name = "lowstockwatch",
+        uniqueConstraints = @UniqueConstraint(name = "UQ_LowStockWatch_Item", columnNames = "ItemID"),
+        indexes = @Index(name = "IX_LowStockWatch_Status", columnList = "Status, CrossedAt"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LowStockWatch {
+
+    public static final String BELOW_MIN = "BELOW_MIN";
+    public static final String BELOW_REORDER = "BELOW_REORDER";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "LowStockWatchID")
+    private Long id;
+
+    @Column(name = "ItemID", nullable = false)
+    private Integer itemId;
+
+    @Column(name = "Status", nullable = false, length = 20)
+    private String status; // BELOW_MIN, BELOW_REORDER
+
+    @Column(name = "TotalOnHand", precision = 18, scale = 3, nullable = false)
+    private BigDecimal totalOnHand;
+
+    @Column(name = "MinStockLevel", precision = 18, scale = 3)
+    private BigDecimal minStockLevel;
+
+    @Column(name = "ReorderLevel", precision = 18, scale = 3)
+    private BigDecimal reorderLevel;
+
+    /** وقت دخول الصنف في الحالة الحالية */
+    @Column(name = "CrossedAt", nullable = false)
+    private LocalDateTime crossedAt;
+
+    @Column(name = "UpdatedAt")
+    private LocalDateTime updatedAt;
+
+    /**
+     * حالة الصنف حسب رصيده المجمع: تحت الحد الأدنى أولاً ثم تحت حد إعادة الطلب، وإلا null.
+     */
+    public static String statusOf(BigDecimal totalOnHand, BigDecimal minStockLevel, BigDecimal reorderLevel) {
+        if (minStockLevel != null && minStockLevel.signum() > 0 && totalOnHand.compareTo(minStockLevel) < 0) {
+            return BELOW_MIN;
+        }
+        if (reorderLevel != null && reorderLevel.signum() > 0 && totalOnHand.compareTo(reorderLevel) < 0) {
+            return BELOW_REORDER;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,25 @@
+package com.rasras.erp.inventory;
+
+import com.rasras.erp.inventory.dto.LowStockWatchDto;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface LowStockWatchRepository extends JpaRepository<LowStockWatch, Long> {
+
+    List<LowStockWatch> findByStatus(String status);
+
+    @Query(value = "SELECT new com.rasras.erp.inventory.dto.LowStockWatchDto(w.itemId, i.itemCode, i.itemNameAr, "
+            + "i.grade, w.status, w.totalOnHand, w.minStockLevel, w.reorderLevel, w.crossedAt) "
+            + "FROM LowStockWatch w JOIN Item i ON i.id = w.itemId WHERE w.status IN :statuses "
+            + "ORDER BY w.status, w.crossedAt",
+            countQuery = "SELECT COUNT(w) FROM LowStockWatch w WHERE w.status IN :statuses")
+    Page<LowStockWatchDto> findPage(@Param("statuses") Collection<String> statuses, Pageable pageable);
+}
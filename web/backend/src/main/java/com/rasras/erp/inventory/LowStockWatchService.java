@@ -0,0 +1,170 @@
+package com.rasras.erp.inventory;
+
+import com.rasras.erp.inventory.dto.LowStockWatchDto;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * يحافظ على قائمة متابعة الأصناف تحت الحد الأدنى / حد إعادة الطلب داخل نفس معاملة الترحيل،
+ * وينشر LowStockChangedEvent عند عبور أي حد في أي اتجاه (يُبث بعد الـ commit عبر LowStockFeed).
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class LowStockWatchService {
+
+    private static final int EVALUATE_CHUNK = 1000;
+
+    private static final String UPSERT_SQL = "INSERT INTO lowstockwatch (ItemID, Status, TotalOnHand, MinStockLevel, "
+            + "ReorderLevel, CrossedAt, UpdatedAt) VALUES (?, ?, ?, ?, ?, ?, ?) AS incoming "
+            + "ON DUPLICATE KEY UPDATE "
+            // CrossedAt قبل Status: MySQL يقيّم الإسنادات بالترتيب
+            + "CrossedAt = IF(lowstockwatch.Status = incoming.Status, lowstockwatch.CrossedAt, incoming.CrossedAt), "
+            + "Status = incoming.Status, "
+            + "TotalOnHand = incoming.TotalOnHand, "
+            + "MinStockLevel = incoming.MinStockLevel, "
+            + "ReorderLevel = incoming.ReorderLevel, "
+            + "UpdatedAt = incoming.UpdatedAt";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final LowStockWatchRepository watchRepo;
+    private final EntityManager entityManager;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * يعيد تقييم الأصناف المحددة بعد تغيّر أرصدتها أو حدودها: استعلام تجميعي واحد ثم upsert/حذف
+     * لما تغيّر فقط.
+     */
+    @Transactional
+    public void evaluate(Collection<Integer> itemIds) {
+        if (itemIds == null || itemIds.isEmpty()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            // JDBC يقرأ من قاعدة البيانات مباشرة: تعديلات JPA المعلقة يجب أن تُكتب أولاً
+            entityManager.flush();
+        }
+        List<Integer> ids = new ArrayList<>(new LinkedHashSet<>(itemIds));
+        for (int start = 0; start < ids.size(); start += EVALUATE_CHUNK) {
+            evaluateChunk(ids.subList(start, Math.min(start + EVALUATE_CHUNK, ids.size())));
+        }
+    }
+
+    /**
+     * يقفل صفوف الأصناف بترتيب ItemID حتى نهاية المعاملة. يُستدعى قبل أي قفل على stockbalances
+     * (انظر InventoryService) فيتسلسل كل ترحيلين على نفس الصنف ولو في مخزنين مختلفين، ويرى التقييم
+     * اللاحق مجموع الأرصدة بعد آخر commit بدلاً من لقطة قديمة.
+     */
+    @Transactional
+    public void lockItems(Collection<Integer> itemIds) {
+        if (itemIds == null || itemIds.isEmpty()) {
+            return;
+        }
+        List<Integer> ids = itemIds.stream().filter(Objects::nonNull).distinct().sorted().toList();
+        for (int start = 0; start < ids.size(); start += EVALUATE_CHUNK) {
+            List<Integer> chunk = ids.subList(start, Math.min(start + EVALUATE_CHUNK, ids.size()));
+            jdbcTemplate.queryForList("SELECT ItemID FROM items WHERE ItemID IN (" + placeholders(chunk)
+                    + ") ORDER BY ItemID FOR UPDATE", Integer.class, chunk.toArray());
+        }
+    }
+
+    private static String placeholders(List<Integer> ids) {
+        return ids.stream().map(id -> "?").collect(Collectors.joining(", "));
+    }
+
+    private void evaluateChunk(List<Integer> itemIds) {
+        // القفل مأخوذ مسبقاً في مسار الترحيل؛ هنا يغطي تعديل الحدود من ItemService
+        lockItems(itemIds);
+        String placeholders = placeholders(itemIds);
+        LocalDateTime now = LocalDateTime.now();
+        Timestamp ts = Timestamp.valueOf(now);
+        List<Object[]> upserts = new ArrayList<>();
+        List<Object[]> deletes = new ArrayList<>();
+        List<LowStockChangedEvent> events = new ArrayList<>();
+
+        // قراءات قافلة: القراءة العادية تحت REPEATABLE READ قد تعيد لقطة أقدم من آخر ترحيل مُلتزم
+        jdbcTemplate.query("SELECT i.ItemID, i.MinStockLevel, i.ReorderLevel, w.Status, "
+                + "(SELECT COALESCE(SUM(b.QuantityOnHand), 0) FROM stockbalances b WHERE b.ItemID = i.ItemID "
+                + "FOR SHARE) AS Total "
+                + "FROM items i LEFT JOIN lowstockwatch w ON w.ItemID = i.ItemID "
+                + "WHERE i.ItemID IN (" + placeholders + ") FOR UPDATE", rs -> {
+                    int itemId = rs.getInt("ItemID");
+                    BigDecimal min = rs.getBigDecimal("MinStockLevel");
+                    BigDecimal reorder = rs.getBigDecimal("ReorderLevel");
+                    BigDecimal total = rs.getBigDecimal("Total");
+                    String previous = rs.getString("Status");
+                    String status = LowStockWatch.statusOf(total, min, reorder);
+
+                    if (status != null) {
+                        upserts.add(new Object[] { itemId, status, total, min, reorder, ts, ts });
+                    } else if (previous != null) {
+                        deletes.add(new Object[] { itemId });
+                    }
+                    if (!Objects.equals(previous, status)) {
+                        events.add(new LowStockChangedEvent(itemId, previous, status, total, min, reorder, now));
+                    }
+                }, itemIds.toArray());
+
+        if (!upserts.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPSERT_SQL, upserts);
+        }
+        if (!deletes.isEmpty()) {
+            jdbcTemplate.batchUpdate("DELETE FROM lowstockwatch WHERE ItemID = ?", deletes);
+        }
+        events.forEach(eventPublisher::publishEvent);
+    }
+
+    @Transactional(readOnly = true)
+    public Page<LowStockWatchDto> getWatchList(String status, Pageable pageable) {
+        Set<String> statuses = status != null && !status.isBlank()
+                ? Set.of(status.trim().toUpperCase())
+                : Set.of(LowStockWatch.BELOW_MIN, LowStockWatch.BELOW_REORDER);
+        return watchRepo.findPage(statuses, pageable);
+    }
+
+    @Transactional(readOnly = true)
+    public List<LowStockWatch> getBelowMin() {
+        return watchRepo.findByStatus(LowStockWatch.BELOW_MIN);
+    }
+
+    /**
+     * مزامنة كاملة عند بدء التشغيل: تلتقط أي تغيير في الحدود أو الأرصدة تم خارج التطبيق.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        try {
+            long started = System.currentTimeMillis();
+            List<Integer> ids = jdbcTemplate.queryForList("SELECT ItemID FROM items "
+                    + "WHERE MinStockLevel > 0 OR ReorderLevel > 0 UNION SELECT ItemID FROM lowstockwatch",
+                    Integer.class);
+            transactionTemplate.executeWithoutResult(status -> evaluate(ids));
+            log.info("تمت مزامنة قائمة متابعة الأصناف تحت الحد ({} صنف) خلال {} ms", ids.size(),
+                    System.currentTimeMillis() - started);
+        } catch (Exception e) {
+            log.warn("تعذرت مزامنة قائمة متابعة الأصناف تحت الحد عند بدء التشغيل", e);
+        }
+    }
+}
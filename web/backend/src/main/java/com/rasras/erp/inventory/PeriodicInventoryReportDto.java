@@ -28,4 +28,6 @@ public class PeriodicInventoryReportDto {
     private BigDecimal issuesValue;
     private BigDecimal closingValue;
     private BigDecimal minStockLevel;
+    /** فترة سابقة بلا لقطة لهذا (الصنف، المخزن): الأرصدة المعروضة تقديرية وليست أرصدة تلك الفترة */
+    private boolean snapshotMissing;
 }
@@ -1,5 +1,7 @@
 package com.rasras.erp.inventory;
 
+import com.rasras.erp.shared.service.DocumentSequenceService;
+import com.rasras.erp.shared.service.DocumentType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -14,6 +16,7 @@ public class PriceListService {
     private final PriceListItemRepository itemRepository;
     private final ItemRepository inventoryItemRepository;
     private final UnitRepository unitRepository;
+    private final DocumentSequenceService documentSequence;
 
     @Transactional(readOnly = true)
     public List<PriceListDto> getAll() {
@@ -141,7 +144,8 @@ public class PriceListService {
     private PriceList mapToEntity(PriceListDto dto) {
         return PriceList.builder()
                 .priceListCode(
-                        dto.getPriceListCode() != null ? dto.getPriceListCode() : "PL-" + (repository.count() + 1))
+                        dto.getPriceListCode() != null ? dto.getPriceListCode()
+                                : documentSequence.next(DocumentType.PRICE_LIST))
                 .priceListName(dto.getPriceListName())
                 .legacyListNameAr(dto.getPriceListName()) // Populate legacy field
                 .listType(dto.getListType())
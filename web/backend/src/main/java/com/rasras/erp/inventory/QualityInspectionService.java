@@ -1,5 +1,7 @@
 package com.rasras.erp.inventory;
 
+import com.rasras.erp.shared.service.DocumentSequenceService;
+import com.rasras.erp.shared.service.DocumentType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -18,6 +20,7 @@ public class QualityInspectionService {
         private final QualityParameterRepository parameterRepo;
         private final GRNService grnService;
         private final com.rasras.erp.procurement.PurchaseReturnService returnService;
+        private final DocumentSequenceService documentSequence;
 
         @Transactional
         public void recordBulkInspection(Integer grnId, QualityInspectionRequestDto bulkRequest) {
@@ -30,7 +33,7 @@ public class QualityInspectionService {
                                                         "Item not found: " + itemReq.getItemId()));
 
                         QualityInspection inspection = new QualityInspection();
-                        inspection.setInspectionNumber("QI-" + (inspectionRepo.count() + 1));
+                        inspection.setInspectionNumber(documentSequence.next(DocumentType.QUALITY_INSPECTION));
                         inspection.setInspectionDate(LocalDateTime.now());
                         inspection.setInspectionType("Incoming");
                         inspection.setReferenceId(grnId);
@@ -1,5 +1,7 @@
 package com.rasras.erp.inventory;
 
+import com.rasras.erp.shared.service.DocumentSequenceService;
+import com.rasras.erp.shared.service.DocumentType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -21,6 +23,7 @@ public class StockAdjustmentService {
     private final ItemRepository itemRepo;
     private final UnitRepository unitRepo;
     private final InventoryService inventoryService;
+    private final DocumentSequenceService documentSequence;
 
     @Transactional(readOnly = true)
     public List<StockAdjustmentDto> getAll() {
@@ -134,6 +137,7 @@ public class StockAdjustmentService {
         int uid = userId != null ? userId : 1;
         Integer warehouseId = adj.getWarehouse().getId();
 
+        List<StockPosting> postings = new ArrayList<>();
         for (StockAdjustmentItem ai : adj.getItems()) {
             BigDecimal diff = (ai.getActualQty() != null ? ai.getActualQty() : BigDecimal.ZERO)
                     .subtract(ai.getSystemQty() != null ? ai.getSystemQty() : BigDecimal.ZERO);
@@ -143,19 +147,20 @@ public class StockAdjustmentService {
             BigDecimal qty = diff.abs();
             BigDecimal unitCost = ai.getUnitCost() != null ? ai.getUnitCost() : BigDecimal.ZERO;
 
-            inventoryService.updateStock(
-                    ai.getItem().getId(),
-                    warehouseId,
-                    qty,
-                    direction,
-                    "ADJUSTMENT",
-                    "StockAdjustment",
-                    adj.getId(),
-                    adj.getAdjustmentNumber(),
-                    unitCost,
-                    uid
-            );
+            postings.add(StockPosting.builder()
+                    .itemId(ai.getItem().getId())
+                    .warehouseId(warehouseId)
+                    .quantity(qty)
+                    .direction(direction)
+                    .movementType("ADJUSTMENT")
+                    .referenceType("StockAdjustment")
+                    .referenceId(adj.getId())
+                    .referenceNumber(adj.getAdjustmentNumber())
+                    .unitCost(unitCost)
+                    .userId(uid)
+                    .build());
         }
+        inventoryService.postMovements(postings);
 
         adj.setStatus("Approved");
         adj.setApprovedByUserId(uid);
@@ -170,9 +175,7 @@ public class StockAdjustmentService {
     }
 
     private String generateAdjustmentNumber() {
-        long c = adjustmentRepo.count() + 1;
-        LocalDateTime n = LocalDateTime.now();
-        return String.format("ADJ-%d%02d-%03d", n.getYear(), n.getMonthValue(), c);
+        return documentSequence.next(DocumentType.STOCK_ADJUSTMENT);
     }
 
     private StockAdjustmentDto mapToDto(StockAdjustment a) {
@@ -47,4 +47,11 @@ public class StockBalance {
     @Column(name = "UpdatedAt")
     @Builder.Default
     private LocalDateTime updatedAt = LocalDateTime.now();
+
+    /**
+     * رقم النسخة للقفل المتفائل: يزيد مع كل تعديل على الرصيد (انظر StockPostingEngine)
+     */
+    @Version
+    @Column(name = "Version", nullable = false, columnDefinition = "BIGINT NOT NULL DEFAULT 0")
+    private Long version;
 }
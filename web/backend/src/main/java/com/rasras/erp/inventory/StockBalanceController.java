@@ -1,13 +1,23 @@
 package com.rasras.erp.inventory;
 
+import com.rasras.erp.inventory.dto.FifoCostDto;
 import com.rasras.erp.inventory.dto.ItemBelowMinDto;
+import com.rasras.erp.inventory.dto.LowStockWatchDto;
 import com.rasras.erp.shared.dto.ApiResponse;
 import com.rasras.erp.shared.security.SecurityConstants;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.List;
 
 @RestController
@@ -18,6 +28,9 @@ import java.util.List;
 public class StockBalanceController {
 
     private final StockBalanceService stockService;
+    private final StockPeriodCloseService periodCloseService;
+    private final LowStockWatchService lowStockWatchService;
+    private final LowStockFeed lowStockFeed;
 
     @GetMapping
     public ResponseEntity<ApiResponse<List<StockBalanceDto>>> getAllBalances(
@@ -58,9 +71,56 @@ public class StockBalanceController {
         return ResponseEntity.ok(ApiResponse.success(stockService.getPeriodicReport(month, year, warehouseId)));
     }
 
+    @GetMapping("/reports/valuation")
+    public ResponseEntity<ApiResponse<List<PeriodicInventoryReportDto>>> getValuationAsOf(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate asOf,
+            @RequestParam(required = false) Integer warehouseId) {
+        return ResponseEntity.ok(ApiResponse.success(stockService.getValuationAsOf(asOf, warehouseId)));
+    }
+
+    @GetMapping("/reports/fifo-valuation")
+    public ResponseEntity<ApiResponse<List<FifoCostDto>>> getFifoValuation(
+            @RequestParam(required = false) Integer warehouseId,
+            @RequestParam(required = false) Integer itemId) {
+        return ResponseEntity.ok(ApiResponse.success(stockService.getFifoValuation(warehouseId, itemId)));
+    }
+
+    @GetMapping("/reports/cogs")
+    public ResponseEntity<ApiResponse<List<FifoCostDto>>> getCostOfGoods(@RequestParam String referenceType,
+            @RequestParam Integer referenceId) {
+        return ResponseEntity.ok(ApiResponse.success(stockService.getCostOfGoods(referenceType, referenceId)));
+    }
+
+    @PostMapping("/periods/close")
+    @PreAuthorize(SecurityConstants.SYSTEM_ADMIN_ONLY)
+    public ResponseEntity<ApiResponse<Integer>> closePeriod(@RequestParam int month, @RequestParam int year) {
+        return ResponseEntity.ok(ApiResponse.success(periodCloseService.sealMonth(YearMonth.of(year, month))));
+    }
+
+    @PostMapping("/periods/rebuild")
+    @PreAuthorize(SecurityConstants.SYSTEM_ADMIN_ONLY)
+    public ResponseEntity<ApiResponse<Integer>> rebuildPeriods(@RequestParam int month, @RequestParam int year) {
+        return ResponseEntity.ok(ApiResponse.success(periodCloseService.rebuildFrom(YearMonth.of(year, month))));
+    }
+
     @GetMapping("/reports/below-min")
     public ResponseEntity<ApiResponse<List<ItemBelowMinDto>>> getItemsBelowMin(
             @RequestParam(required = false) Integer warehouseId) {
         return ResponseEntity.ok(ApiResponse.success(stockService.getItemsBelowMin(warehouseId)));
     }
+
+    /**
+     * قائمة متابعة الأصناف تحت الحد الأدنى / حد إعادة الطلب (status = BELOW_MIN أو BELOW_REORDER).
+     */
+    @GetMapping("/low-stock")
+    public ResponseEntity<ApiResponse<Page<LowStockWatchDto>>> getLowStockWatchList(
+            @RequestParam(required = false) String status,
+            @PageableDefault(size = 50) Pageable pageable) {
+        return ResponseEntity.ok(ApiResponse.success(lowStockWatchService.getWatchList(status, pageable)));
+    }
+
+    @GetMapping(value = "/low-stock/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamLowStockChanges() {
+        return lowStockFeed.subscribe();
+    }
 }
@@ -0,0 +1,31 @@
+package com.rasras.erp.inventory;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+import java.util.Comparator;
+
+/**
+ * مفتاح رصيد المخزون (صنف، مخزن). الترتيب الطبيعي ثابت ويُستخدم لحجز الأقفال
+ * بنفس الترتيب دائماً.
+ */
+@Getter
+@EqualsAndHashCode
+@ToString
+@RequiredArgsConstructor(staticName = "of")
+public class StockBalanceKey implements Comparable<StockBalanceKey> {
+
+    private static final Comparator<StockBalanceKey> ORDER = Comparator
+            .comparing(StockBalanceKey::getItemId)
+            .thenComparing(StockBalanceKey::getWarehouseId);
+
+    private final Integer itemId;
+    private final Integer warehouseId;
+
+    @Override
+    public int compareTo(StockBalanceKey other) {
+        return ORDER.compare(this, other);
+    }
+}
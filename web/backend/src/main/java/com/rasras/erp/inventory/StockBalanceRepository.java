@@ -1,10 +1,13 @@
 package com.rasras.erp.inventory;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -23,4 +26,41 @@ public interface StockBalanceRepository extends JpaRepository<StockBalance, Inte
 
     @Query("SELECT b FROM StockBalance b JOIN FETCH b.item JOIN FETCH b.warehouse WHERE b.warehouse.id = :warehouseId")
     List<StockBalance> findByWarehouseId(@Param("warehouseId") Integer warehouseId);
+
+    /**
+     * تحديث مشروط بالنسخة (compare-and-set): يرجع 0 إذا عدّل طرف آخر الرصيد منذ قراءته.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE StockBalance b SET b.quantityOnHand = :quantityOnHand, b.averageCost = :averageCost, "
+            + "b.lastMovementDate = :now, b.updatedAt = :now, b.version = b.version + 1 "
+            + "WHERE b.id = :id AND b.version = :version")
+    int compareAndSetOnHand(@Param("id") Integer id,
+            @Param("version") Long version,
+            @Param("quantityOnHand") BigDecimal quantityOnHand,
+            @Param("averageCost") BigDecimal averageCost,
+            @Param("now") LocalDateTime now);
+
+    /**
+     * حجز ذري: يزيد المحجوز فقط إذا كان المتاح (الرصيد - المحجوز) يكفي.
+     *
+     * @return 1 عند النجاح، 0 عند عدم كفاية المتاح أو عدم وجود رصيد
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE StockBalance b SET b.quantityReserved = b.quantityReserved + :qty, b.updatedAt = :now, "
+            + "b.version = b.version + 1 "
+            + "WHERE b.item.id = :itemId AND b.warehouse.id = :warehouseId "
+            + "AND b.quantityOnHand - b.quantityReserved >= :qty")
+    int reserveIfAvailable(@Param("itemId") Integer itemId,
+            @Param("warehouseId") Integer warehouseId,
+            @Param("qty") BigDecimal qty,
+            @Param("now") LocalDateTime now);
+
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE StockBalance b SET b.quantityReserved = CASE WHEN b.quantityReserved > :qty "
+            + "THEN b.quantityReserved - :qty ELSE 0 END, b.updatedAt = :now, b.version = b.version + 1 "
+            + "WHERE b.item.id = :itemId AND b.warehouse.id = :warehouseId")
+    int releaseReserved(@Param("itemId") Integer itemId,
+            @Param("warehouseId") Integer warehouseId,
+            @Param("qty") BigDecimal qty,
+            @Param("now") LocalDateTime now);
 }
@@ -1,14 +1,17 @@
 package com.rasras.erp.inventory;
 
+import com.rasras.erp.inventory.dto.FifoCostDto;
 import com.rasras.erp.inventory.dto.ItemBelowMinDto;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.time.YearMonth;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -21,6 +24,10 @@ public class StockBalanceService {
     private final ItemRepository itemRepo;
     private final WarehouseRepository warehouseRepo;
     private final UnitRepository unitRepo;
+    private final StockPeriodBalanceRepository periodRepo;
+    private final LowStockWatchService lowStockWatch;
+    private final StockCostLayerRepository costLayerRepo;
+    private final StockCostConsumptionRepository costConsumptionRepo;
 
     @Transactional(readOnly = true)
     public List<StockBalanceDto> getAllBalances() {
@@ -90,78 +97,192 @@ public class StockBalanceService {
     }
 
     /**
-     * تقرير المخزون الدوري: رصيد أول المدة، إضافات، مصروفات، رصيد آخر المدة
+     * تقرير المخزون الدوري: رصيد أول المدة، إضافات، مصروفات، رصيد آخر المدة.
+     * يُقرأ من لقطات الفترات (stockperiodbalances)؛ الصنف الذي لم يتحرك خلال الشهر يأخذ
+     * رصيد آخر لقطة سابقة، والصنف الذي لا يملك أي لقطة يظهر برصيده الحالي؛ في شهر سابق يُعلَّم الصف
+     * snapshotMissing لأن الرصيد الحالي ليس رصيد ذلك الشهر (يلزم إعادة بناء اللقطات).
      */
     @Transactional(readOnly = true)
     public List<PeriodicInventoryReportDto> getPeriodicReport(int month, int year, Integer warehouseId) {
-        LocalDateTime periodStart = LocalDateTime.of(year, month, 1, 0, 0);
-        LocalDateTime periodEnd = periodStart.plusMonths(1);
-        List<StockMovement> movements = warehouseId != null
-                ? movementRepo.findByWarehouseAndDateRange(warehouseId, periodStart, periodEnd)
-                : movementRepo.findByDateRange(periodStart, periodEnd);
-
-        List<StockBalance> balances = warehouseId != null
-                ? balanceRepo.findByWarehouseId(warehouseId)
-                : balanceRepo.findAllActive();
-
-        Map<String, BigDecimal> additionsMap = new HashMap<>();
-        Map<String, BigDecimal> issuesMap = new HashMap<>();
-        for (StockMovement m : movements) {
-            String key = m.getItem().getId() + "|" + m.getWarehouse().getId();
-            BigDecimal qty = m.getQuantity() != null ? m.getQuantity() : BigDecimal.ZERO;
-            if ("IN".equals(m.getDirection())) {
-                additionsMap.merge(key, qty, BigDecimal::add);
+        int period = StockPeriodBalance.periodOf(year, month);
+        Map<StockBalanceKey, StockPeriodBalance> snapshots = indexByKey(warehouseId != null
+                ? periodRepo.findByPeriodAndWarehouseId(period, warehouseId)
+                : periodRepo.findByPeriod(period));
+        Map<StockBalanceKey, StockPeriodBalance> previous = latestBefore(period, warehouseId);
+        boolean past = period < currentPeriod();
+
+        List<PeriodicInventoryReportDto> result = new ArrayList<>();
+        for (StockBalance b : balancesFor(warehouseId)) {
+            StockBalanceKey key = StockBalanceKey.of(b.getItem().getId(), b.getWarehouse().getId());
+            StockPeriodBalance s = snapshots.get(key);
+            if (s != null) {
+                result.add(toReportRow(b, s.getOpeningQty(), s.getOpeningValue(), s.getInQty(), s.getInValue(),
+                        s.getOutQty(), s.getOutValue(), s.getClosingQty(), s.getClosingValue(), s.getAverageCost()));
+            } else {
+                PeriodicInventoryReportDto row = flatReportRow(b, previous.get(key));
+                row.setSnapshotMissing(past && previous.get(key) == null);
+                result.add(row);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * تقييم المخزون الحالي بطريقة FIFO من الطبقات المفتوحة، مجمعاً حسب (صنف، مخزن، لوط).
+     */
+    @Transactional(readOnly = true)
+    public List<FifoCostDto> getFifoValuation(Integer warehouseId, Integer itemId) {
+        return costLayerRepo.sumOpenLayers(warehouseId, itemId);
+    }
+
+    /**
+     * تكلفة البضاعة المنصرفة لمستند (إذن صرف، تحويل...) من الطبقات التي استهلكها فعلاً.
+     */
+    @Transactional(readOnly = true)
+    public List<FifoCostDto> getCostOfGoods(String referenceType, Integer referenceId) {
+        return costConsumptionRepo.sumByReference(referenceType, referenceId);
+    }
+
+    /**
+     * تقييم المخزون في تاريخ محدد: رصيد أول الشهر من اللقطات + حركات الشهر حتى نهاية ذلك اليوم
+     * (استعلام تجميعي واحد على شهر جزئي واحد على الأكثر). في شهر سابق بلا أي لقطة للصنف يُعلَّم الصف
+     * snapshotMissing كما في getPeriodicReport.
+     */
+    @Transactional(readOnly = true)
+    public List<PeriodicInventoryReportDto> getValuationAsOf(LocalDate date, Integer warehouseId) {
+        int period = StockPeriodBalance.periodOf(date.getYear(), date.getMonthValue());
+        Map<StockBalanceKey, StockPeriodBalance> snapshots = indexByKey(warehouseId != null
+                ? periodRepo.findByPeriodAndWarehouseId(period, warehouseId)
+                : periodRepo.findByPeriod(period));
+        Map<StockBalanceKey, StockPeriodBalance> previous = latestBefore(period, warehouseId);
+        boolean past = period < currentPeriod();
+
+        Map<StockBalanceKey, BigDecimal[]> partial = new HashMap<>();
+        for (Object[] r : movementRepo.sumByKeyAndDirection(date.withDayOfMonth(1).atStartOfDay(),
+                date.plusDays(1).atStartOfDay(), warehouseId)) {
+            BigDecimal[] totals = partial.computeIfAbsent(StockBalanceKey.of((Integer) r[0], (Integer) r[1]),
+                    k -> new BigDecimal[] { BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO });
+            if ("IN".equals(r[2])) {
+                totals[0] = totals[0].add((BigDecimal) r[3]);
+                totals[1] = totals[1].add((BigDecimal) r[4]);
             } else {
-                issuesMap.merge(key, qty, BigDecimal::add);
+                totals[2] = totals[2].add((BigDecimal) r[3]);
             }
         }
 
         List<PeriodicInventoryReportDto> result = new ArrayList<>();
-        for (StockBalance b : balances) {
-            if (warehouseId != null && !b.getWarehouse().getId().equals(warehouseId))
+        for (StockBalance b : balancesFor(warehouseId)) {
+            StockBalanceKey key = StockBalanceKey.of(b.getItem().getId(), b.getWarehouse().getId());
+            StockPeriodBalance s = snapshots.get(key);
+            StockPeriodBalance prev = previous.get(key);
+            BigDecimal[] totals = partial.get(key);
+            boolean snapshotMissing = past && s == null && prev == null;
+            if (totals == null) {
+                PeriodicInventoryReportDto row = s != null
+                        ? flatReportRow(b, s.getOpeningQty(), s.getOpeningValue(), s.getAverageCost())
+                        : flatReportRow(b, prev);
+                row.setSnapshotMissing(snapshotMissing);
+                result.add(row);
                 continue;
-            int itemId = b.getItem().getId();
-            int whId = b.getWarehouse().getId();
-            String key = itemId + "|" + whId;
-            BigDecimal closing = b.getQuantityOnHand() != null ? b.getQuantityOnHand() : BigDecimal.ZERO;
-            BigDecimal addQty = additionsMap.getOrDefault(key, BigDecimal.ZERO);
-            BigDecimal issQty = issuesMap.getOrDefault(key, BigDecimal.ZERO);
-            BigDecimal opening = closing.subtract(addQty).add(issQty);
-
-            BigDecimal avgCost = b.getAverageCost() != null ? b.getAverageCost() : BigDecimal.ZERO;
-            Item item = b.getItem();
-
-            result.add(PeriodicInventoryReportDto.builder()
-                    .itemId(itemId)
-                    .itemCode(item.getItemCode())
-                    .itemNameAr(item.getItemNameAr())
-                    .grade(item.getGrade())
-                    .warehouseId(whId)
-                    .warehouseNameAr(b.getWarehouse().getWarehouseNameAr())
-                    .openingQty(opening.max(BigDecimal.ZERO))
-                    .additionsQty(addQty)
-                    .issuesQty(issQty)
-                    .closingQty(closing)
-                    .averageCost(avgCost)
-                    .openingValue(opening.max(BigDecimal.ZERO).multiply(avgCost))
-                    .additionsValue(addQty.multiply(avgCost))
-                    .issuesValue(issQty.multiply(avgCost))
-                    .closingValue(closing.multiply(avgCost))
-                    .minStockLevel(item.getMinStockLevel())
-                    .build());
+            }
+            // بدون أي لقطة: الصنف بدأ الحركة في هذا الشهر، فرصيد أول المدة صفر
+            BigDecimal openingQty = s != null ? s.getOpeningQty() : prev != null ? prev.getClosingQty() : BigDecimal.ZERO;
+            BigDecimal openingValue = s != null ? s.getOpeningValue()
+                    : prev != null ? prev.getClosingValue() : BigDecimal.ZERO;
+            BigDecimal openingAvg = openingQty.signum() > 0
+                    ? openingValue.divide(openingQty, 4, RoundingMode.HALF_UP)
+                    : nz(s != null ? s.getAverageCost() : prev != null ? prev.getAverageCost() : b.getAverageCost());
+            BigDecimal outValue = totals[2].multiply(openingAvg);
+            BigDecimal closingQty = openingQty.add(totals[0]).subtract(totals[2]);
+            BigDecimal closingValue = openingValue.add(totals[1]).subtract(outValue);
+            BigDecimal avg = closingQty.signum() > 0
+                    ? closingValue.divide(closingQty, 4, RoundingMode.HALF_UP)
+                    : openingAvg;
+            PeriodicInventoryReportDto row = toReportRow(b, openingQty, openingValue, totals[0], totals[1],
+                    totals[2], outValue, closingQty, closingValue, avg);
+            row.setSnapshotMissing(snapshotMissing);
+            result.add(row);
         }
         return result;
     }
 
+    private static int currentPeriod() {
+        YearMonth now = YearMonth.now();
+        return StockPeriodBalance.periodOf(now.getYear(), now.getMonthValue());
+    }
+
+    private List<StockBalance> balancesFor(Integer warehouseId) {
+        return warehouseId != null ? balanceRepo.findByWarehouseId(warehouseId) : balanceRepo.findAllActive();
+    }
+
+    private Map<StockBalanceKey, StockPeriodBalance> latestBefore(int period, Integer warehouseId) {
+        return indexByKey(warehouseId != null
+                ? periodRepo.findLatestBeforeByWarehouse(period, warehouseId)
+                : periodRepo.findLatestBefore(period));
+    }
+
+    private static Map<StockBalanceKey, StockPeriodBalance> indexByKey(List<StockPeriodBalance> rows) {
+        Map<StockBalanceKey, StockPeriodBalance> map = new HashMap<>();
+        for (StockPeriodBalance p : rows) {
+            map.put(StockBalanceKey.of(p.getItemId(), p.getWarehouseId()), p);
+        }
+        return map;
+    }
+
+    /** صف بدون حركة: آخر لقطة سابقة إن وجدت، وإلا الرصيد الحالي (صنف لم يُرحّل له أي لقطة) */
+    private PeriodicInventoryReportDto flatReportRow(StockBalance b, StockPeriodBalance previous) {
+        if (previous != null) {
+            return flatReportRow(b, previous.getClosingQty(), previous.getClosingValue(), previous.getAverageCost());
+        }
+        BigDecimal qty = nz(b.getQuantityOnHand());
+        BigDecimal avgCost = nz(b.getAverageCost());
+        return flatReportRow(b, qty, qty.multiply(avgCost), avgCost);
+    }
+
+    private PeriodicInventoryReportDto flatReportRow(StockBalance b, BigDecimal qty, BigDecimal value,
+            BigDecimal averageCost) {
+        return toReportRow(b, qty, value, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, qty,
+                value, averageCost);
+    }
+
+    private PeriodicInventoryReportDto toReportRow(StockBalance b, BigDecimal openingQty, BigDecimal openingValue,
+            BigDecimal addQty, BigDecimal addValue, BigDecimal issQty, BigDecimal issValue, BigDecimal closingQty,
+            BigDecimal closingValue, BigDecimal averageCost) {
+        Item item = b.getItem();
+        return PeriodicInventoryReportDto.builder()
+                .itemId(item.getId())
+                .itemCode(item.getItemCode())
+                .itemNameAr(item.getItemNameAr())
+                .grade(item.getGrade())
+                .warehouseId(b.getWarehouse().getId())
+                .warehouseNameAr(b.getWarehouse().getWarehouseNameAr())
+                .openingQty(openingQty)
+                .additionsQty(addQty)
+                .issuesQty(issQty)
+                .closingQty(closingQty)
+                .averageCost(nz(averageCost))
+                .openingValue(openingValue)
+                .additionsValue(addValue)
+                .issuesValue(issValue)
+                .closingValue(closingValue)
+                .minStockLevel(item.getMinStockLevel())
+                .build();
+    }
+
+    private static BigDecimal nz(BigDecimal value) {
+        return value != null ? value : BigDecimal.ZERO;
+    }
+
     /**
      * تقرير الأصناف تحت الحد الأدنى: أصناف لها حد أدنى مُعرّف والرصيد المجمع أقل
-     * منه
+     * منه. بدون مخزن يُقرأ من قائمة المتابعة المحدّثة مع كل ترحيل (LowStockWatchService).
      */
     @Transactional(readOnly = true)
     public List<ItemBelowMinDto> getItemsBelowMin(Integer warehouseId) {
-        List<StockBalance> balances = warehouseId != null
-                ? balanceRepo.findByWarehouseId(warehouseId)
-                : balanceRepo.findAllActive();
+        if (warehouseId == null) {
+            return getItemsBelowMinFromWatchList();
+        }
+        List<StockBalance> balances = balanceRepo.findByWarehouseId(warehouseId);
 
         Map<Integer, BigDecimal> totalByItem = new HashMap<>();
         for (StockBalance b : balances) {
@@ -182,29 +303,51 @@ public class StockBalanceService {
             BigDecimal total = totalByItem.getOrDefault(item.getId(), BigDecimal.ZERO);
             if (total.compareTo(item.getMinStockLevel()) >= 0)
                 continue;
+            result.add(toBelowMinDto(item, total, unitNames));
+        }
+        result.sort(Comparator.comparing(ItemBelowMinDto::getDiff).reversed());
+        return result;
+    }
+
+    private List<ItemBelowMinDto> getItemsBelowMinFromWatchList() {
+        Map<Integer, BigDecimal> totalByItem = new HashMap<>();
+        lowStockWatch.getBelowMin().forEach(w -> totalByItem.put(w.getItemId(), w.getTotalOnHand()));
+        if (totalByItem.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Item> items = itemRepo.findAllById(totalByItem.keySet());
 
-            BigDecimal min = item.getMinStockLevel();
-            BigDecimal diff = min.subtract(total);
-            String unitName = unitNames.getOrDefault(item.getUnitId(), "");
-
-            result.add(ItemBelowMinDto.builder()
-                    .itemId(item.getId())
-                    .itemCode(item.getItemCode())
-                    .itemNameAr(item.getItemNameAr())
-                    .grade(item.getGrade())
-                    .unitId(item.getUnitId())
-                    .unitName(unitName)
-                    .totalQuantityOnHand(total)
-                    .minStockLevel(min)
-                    .reorderLevel(item.getReorderLevel())
-                    .maxStockLevel(item.getMaxStockLevel())
-                    .diff(diff)
-                    .build());
+        Map<Integer, String> unitNames = new HashMap<>();
+        unitRepo.findAllById(items.stream().map(Item::getUnitId).filter(Objects::nonNull).collect(Collectors.toSet()))
+                .forEach(u -> unitNames.put(u.getId(), u.getUnitNameAr()));
+
+        List<ItemBelowMinDto> result = new ArrayList<>();
+        for (Item item : items) {
+            if (item.getMinStockLevel() == null)
+                continue;
+            result.add(toBelowMinDto(item, totalByItem.get(item.getId()), unitNames));
         }
         result.sort(Comparator.comparing(ItemBelowMinDto::getDiff).reversed());
         return result;
     }
 
+    private static ItemBelowMinDto toBelowMinDto(Item item, BigDecimal total, Map<Integer, String> unitNames) {
+        BigDecimal min = item.getMinStockLevel();
+        return ItemBelowMinDto.builder()
+                .itemId(item.getId())
+                .itemCode(item.getItemCode())
+                .itemNameAr(item.getItemNameAr())
+                .grade(item.getGrade())
+                .unitId(item.getUnitId())
+                .unitName(unitNames.getOrDefault(item.getUnitId(), ""))
+                .totalQuantityOnHand(total)
+                .minStockLevel(min)
+                .reorderLevel(item.getReorderLevel())
+                .maxStockLevel(item.getMaxStockLevel())
+                .diff(min.subtract(total))
+                .build();
+    }
+
     private StockBalanceDto mapToDto(StockBalance balance) {
         if (balance == null || balance.getItem() == null || balance.getWarehouse() == null) {
             return null;
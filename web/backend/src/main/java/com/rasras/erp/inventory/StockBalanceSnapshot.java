@@ -0,0 +1,31 @@
+package com.rasras.erp.inventory;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+
+/**
+ * قراءة حديثة لرصيد صنف/مخزن من قاعدة البيانات (خارج سياق الـ persistence)
+ * تُستخدم مع التحديث المشروط بالنسخة في StockPostingEngine.
+ */
+@Getter
+@AllArgsConstructor
+public class StockBalanceSnapshot {
+
+    private final Integer id;
+    private final Integer itemId;
+    private final Integer warehouseId;
+    private final BigDecimal quantityOnHand;
+    private final BigDecimal averageCost;
+    private final Long version;
+
+    public StockBalanceKey getKey() {
+        return StockBalanceKey.of(itemId, warehouseId);
+    }
+
+    /** نسخة بالكمية والتكلفة الجديدتين بعد الترحيل */
+    public StockBalanceSnapshot withValues(BigDecimal newQuantityOnHand, BigDecimal newAverageCost) {
+        return new StockBalanceSnapshot(id, itemId, warehouseId, newQuantityOnHand, newAverageCost, version);
+    }
+}
@@ -0,0 +1,56 @@
+package com.rasras.erp.inventory;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * استهلاك من طبقة تكلفة لحركة صرف؛ مجموع (الكمية × التكلفة) لمستند = تكلفة البضاعة المباعة له.
+ * layerId = null عند الصرف بأكثر من الطبقات المفتوحة (بالتكلفة المتوسطة للحركة).
+ */
+@Entity
+@Table(name = "stockcostconsumptions",
+        indexes = {
+                @Index(name = "IX_StockCostConsumptions_Reference", columnList = "ReferenceType, ReferenceID"),
+                @Index(name = "IX_StockCostConsumptions_Item_Date", columnList = "ItemID, ConsumedAt") })
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StockCostConsumption {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "ConsumptionID")
+    private Long id;
+
+    @Column(name = "LayerID")
+    private Long layerId;
+
+    @Column(name = "ItemID", nullable = false)
+    private Integer itemId;
+
+    @Column(name = "WarehouseID", nullable = false)
+    private Integer warehouseId;
+
+    @Column(name = "LotNumber", length = 50)
+    private String lotNumber;
+
+    @Column(name = "Quantity", precision = 18, scale = 3, nullable = false)
+    private BigDecimal quantity;
+
+    @Column(name = "UnitCost", precision = 18, scale = 4, nullable = false)
+    private BigDecimal unitCost;
+
+    @Column(name = "ReferenceType", length = 30)
+    private String referenceType;
+
+    @Column(name = "ReferenceID")
+    private Integer referenceId;
+
+    @Column(name = "ConsumedAt", nullable = false)
+    private LocalDateTime consumedAt;
+}
@@ -0,0 +1,22 @@
+package com.rasras.erp.inventory;
+
+import com.rasras.erp.inventory.dto.FifoCostDto;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface StockCostConsumptionRepository extends JpaRepository<StockCostConsumption, Long> {
+
+    @Query("SELECT new com.rasras.erp.inventory.dto.FifoCostDto(c.itemId, i.itemCode, i.itemNameAr, c.warehouseId, "
+            + "w.warehouseNameAr, c.lotNumber, SUM(c.quantity), SUM(c.quantity * c.unitCost)) "
+            + "FROM StockCostConsumption c JOIN Item i ON i.id = c.itemId JOIN Warehouse w ON w.id = c.warehouseId "
+            + "WHERE c.referenceType = :referenceType AND c.referenceId = :referenceId "
+            + "GROUP BY c.itemId, i.itemCode, i.itemNameAr, c.warehouseId, w.warehouseNameAr, c.lotNumber "
+            + "ORDER BY i.itemCode, c.lotNumber")
+    List<FifoCostDto> sumByReference(@Param("referenceType") String referenceType,
+            @Param("referenceId") Integer referenceId);
+}
@@ -0,0 +1,60 @@
+package com.rasras.erp.inventory;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * طبقة تكلفة FIFO: كمية واردة (إذن إضافة، تحويل، تسوية...) بتكلفتها ورقم اللوط،
+ * تُستهلك الأقدم أولاً عند الصرف (StockCostLayerLedger).
+ */
+@Entity
+@Table(name = "stockcostlayers",
+        indexes = {
+                @Index(name = "IX_StockCostLayers_Open", columnList = "ItemID, WarehouseID, IsOpen, ReceivedAt"),
+                @Index(name = "IX_StockCostLayers_Lot",
+                        columnList = "ItemID, WarehouseID, LotNumber, IsOpen, ReceivedAt") })
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StockCostLayer {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "LayerID")
+    private Long id;
+
+    @Column(name = "ItemID", nullable = false)
+    private Integer itemId;
+
+    @Column(name = "WarehouseID", nullable = false)
+    private Integer warehouseId;
+
+    @Column(name = "LotNumber", length = 50)
+    private String lotNumber;
+
+    @Column(name = "ReceivedAt", nullable = false)
+    private LocalDateTime receivedAt;
+
+    @Column(name = "ReferenceType", length = 30)
+    private String referenceType;
+
+    @Column(name = "ReferenceID")
+    private Integer referenceId;
+
+    @Column(name = "OriginalQty", precision = 18, scale = 3, nullable = false)
+    private BigDecimal originalQty;
+
+    @Column(name = "RemainingQty", precision = 18, scale = 3, nullable = false)
+    private BigDecimal remainingQty;
+
+    @Column(name = "UnitCost", precision = 18, scale = 4, nullable = false)
+    private BigDecimal unitCost;
+
+    @Column(name = "IsOpen", nullable = false)
+    private Boolean isOpen;
+}
@@ -0,0 +1,172 @@
+package com.rasras.erp.inventory;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * طبقات تكلفة FIFO داخل نفس معاملة الترحيل: كل سطر IN يضيف طبقة (لوط، كمية، تكلفة)،
+ * وكل سطر OUT يستهلك أقدم الطبقات المفتوحة عبر الفهرس (ItemID, WarehouseID, IsOpen, ReceivedAt)
+ * بدفعات صغيرة مقفلة (FOR UPDATE)، فلا تزيد كلفة الصرف بزيادة عدد الطبقات.
+ * <p>
+ * التحويل بين مخزنين (OUT + IN لنفس المستند والصنف في نفس الدفعة) ينقل الطبقات المستهلكة
+ * بلوطها وتكلفتها إلى المخزن الهدف بدلاً من طبقة واحدة بالتكلفة المتوسطة. المفتاح يشمل اللوط، وكل سطر إضافة
+ * يأخذ من الأجزاء المستهلكة بقدر كميته فقط، فسطران لنفس الصنف في نفس التحويل لا يتبادلان الطبقات.
+ */
+@Component
+@RequiredArgsConstructor
+public class StockCostLayerLedger {
+
+    private static final int SEEK_BATCH = 16;
+
+    private static final String OPEN_LAYERS_SQL = "SELECT LayerID, RemainingQty, UnitCost, LotNumber "
+            + "FROM stockcostlayers WHERE ItemID = ? AND WarehouseID = ? AND IsOpen = 1 "
+            + "ORDER BY ReceivedAt, LayerID LIMIT ? FOR UPDATE";
+
+    private static final String OPEN_LOT_LAYERS_SQL = "SELECT LayerID, RemainingQty, UnitCost, LotNumber "
+            + "FROM stockcostlayers WHERE ItemID = ? AND WarehouseID = ? AND LotNumber = ? AND IsOpen = 1 "
+            + "ORDER BY ReceivedAt, LayerID LIMIT ? FOR UPDATE";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void apply(List<StockPosting> postings, LocalDateTime now) {
+        if (postings.isEmpty()) {
+            return;
+        }
+        Set<String> inboundTransfers = new HashSet<>();
+        for (StockPosting p : postings) {
+            if (p.isInbound()) {
+                inboundTransfers.add(transferKey(p));
+            }
+        }
+
+        // الصرف المقابل لتحويل داخل نفس الدفعة أولاً حتى تتوفر طبقاته عند تطبيق سطر الإضافة
+        Map<String, Deque<Slice>> transferred = new HashMap<>();
+        List<StockPosting> rest = new ArrayList<>(postings.size());
+        for (StockPosting p : postings) {
+            if (!p.isInbound() && inboundTransfers.contains(transferKey(p))) {
+                transferred.computeIfAbsent(transferKey(p), k -> new ArrayDeque<>()).addAll(consume(p, now));
+            } else {
+                rest.add(p);
+            }
+        }
+        for (StockPosting p : rest) {
+            if (!p.isInbound()) {
+                consume(p, now);
+                continue;
+            }
+            Deque<Slice> slices = transferred.get(transferKey(p));
+            BigDecimal remaining = p.getQuantity();
+            while (slices != null && !slices.isEmpty() && remaining.signum() > 0) {
+                Slice slice = slices.poll();
+                BigDecimal take = remaining.min(slice.quantity);
+                insertLayer(p, slice.lotNumber, take, slice.unitCost, now);
+                if (take.compareTo(slice.quantity) < 0) {
+                    slices.addFirst(new Slice(slice.lotNumber, slice.quantity.subtract(take), slice.unitCost));
+                }
+                remaining = remaining.subtract(take);
+            }
+            if (remaining.signum() > 0) {
+                insertLayer(p, p.getLotNumber(), remaining,
+                        Objects.requireNonNullElse(p.getUnitCost(), BigDecimal.ZERO), now);
+            }
+        }
+    }
+
+    private List<Slice> consume(StockPosting p, LocalDateTime now) {
+        List<Slice> slices = new ArrayList<>();
+        BigDecimal remaining = p.getQuantity();
+        if (p.getLotNumber() != null && !p.getLotNumber().isBlank()) {
+            remaining = consumeFrom(OPEN_LOT_LAYERS_SQL, p, remaining, slices, now, p.getItemId(),
+                    p.getWarehouseId(), p.getLotNumber());
+        }
+        remaining = consumeFrom(OPEN_LAYERS_SQL, p, remaining, slices, now, p.getItemId(), p.getWarehouseId());
+        if (remaining.signum() > 0) {
+            // صرف بأكثر من الطبقات المفتوحة: يُسجل بتكلفة الحركة حتى تبقى التكلفة المستهلكة كاملة
+            BigDecimal cost = Objects.requireNonNullElse(p.getUnitCost(), BigDecimal.ZERO);
+            insertConsumption(null, p, null, remaining, cost, now);
+            slices.add(new Slice(p.getLotNumber(), remaining, cost));
+        }
+        return slices;
+    }
+
+    private BigDecimal consumeFrom(String sql, StockPosting p, BigDecimal remaining, List<Slice> slices,
+            LocalDateTime now, Object... keyArgs) {
+        while (remaining.signum() > 0) {
+            Object[] args = new Object[keyArgs.length + 1];
+            System.arraycopy(keyArgs, 0, args, 0, keyArgs.length);
+            args[keyArgs.length] = SEEK_BATCH;
+            List<Slice> layers = jdbcTemplate.query(sql, (rs, rowNum) -> new Slice(rs.getLong("LayerID"),
+                    rs.getString("LotNumber"), rs.getBigDecimal("RemainingQty"), rs.getBigDecimal("UnitCost")), args);
+            for (Slice layer : layers) {
+                BigDecimal take = remaining.min(layer.quantity);
+                BigDecimal left = layer.quantity.subtract(take);
+                jdbcTemplate.update("UPDATE stockcostlayers SET RemainingQty = ?, IsOpen = ? WHERE LayerID = ?",
+                        left, left.signum() > 0, layer.layerId);
+                insertConsumption(layer.layerId, p, layer.lotNumber, take, layer.unitCost, now);
+                slices.add(new Slice(layer.lotNumber, take, layer.unitCost));
+                remaining = remaining.subtract(take);
+                if (remaining.signum() == 0) {
+                    break;
+                }
+            }
+            if (layers.size() < SEEK_BATCH) {
+                break;
+            }
+        }
+        return remaining;
+    }
+
+    private void insertLayer(StockPosting p, String lotNumber, BigDecimal quantity, BigDecimal unitCost,
+            LocalDateTime now) {
+        jdbcTemplate.update("INSERT INTO stockcostlayers (ItemID, WarehouseID, LotNumber, ReceivedAt, ReferenceType, "
+                + "ReferenceID, OriginalQty, RemainingQty, UnitCost, IsOpen) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, 1)",
+                p.getItemId(), p.getWarehouseId(), lotNumber, Timestamp.valueOf(now), p.getReferenceType(),
+                p.getReferenceId(), quantity, quantity, unitCost);
+    }
+
+    private void insertConsumption(Long layerId, StockPosting p, String lotNumber, BigDecimal quantity,
+            BigDecimal unitCost, LocalDateTime now) {
+        jdbcTemplate.update("INSERT INTO stockcostconsumptions (LayerID, ItemID, WarehouseID, LotNumber, Quantity, "
+                + "UnitCost, ReferenceType, ReferenceID, ConsumedAt) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                layerId, p.getItemId(), p.getWarehouseId(), lotNumber, quantity, unitCost, p.getReferenceType(),
+                p.getReferenceId(), Timestamp.valueOf(now));
+    }
+
+    private static String transferKey(StockPosting p) {
+        return p.getReferenceType() + "|" + p.getReferenceId() + "|" + p.getItemId() + "|"
+                + Objects.requireNonNullElse(p.getLotNumber(), "");
+    }
+
+    /** جزء مستهلك من طبقة (أو طبقة مفتوحة عند القراءة) */
+    private static final class Slice {
+        private final Long layerId;
+        private final String lotNumber;
+        private final BigDecimal quantity;
+        private final BigDecimal unitCost;
+
+        Slice(Long layerId, String lotNumber, BigDecimal quantity, BigDecimal unitCost) {
+            this.layerId = layerId;
+            this.lotNumber = lotNumber;
+            this.quantity = quantity;
+            this.unitCost = unitCost;
+        }
+
+        Slice(String lotNumber, BigDecimal quantity, BigDecimal unitCost) {
+            this(null, lotNumber, quantity, unitCost);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.rasras.erp.inventory;
+
+import com.rasras.erp.inventory.dto.FifoCostDto;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface StockCostLayerRepository extends JpaRepository<StockCostLayer, Long> {
+
+    @Query("SELECT new com.rasras.erp.inventory.dto.FifoCostDto(l.itemId, i.itemCode, i.itemNameAr, l.warehouseId, "
+            + "w.warehouseNameAr, l.lotNumber, SUM(l.remainingQty), SUM(l.remainingQty * l.unitCost)) "
+            + "FROM StockCostLayer l JOIN Item i ON i.id = l.itemId JOIN Warehouse w ON w.id = l.warehouseId "
+            + "WHERE l.isOpen = true AND (:warehouseId IS NULL OR l.warehouseId = :warehouseId) "
+            + "AND (:itemId IS NULL OR l.itemId = :itemId) "
+            + "GROUP BY l.itemId, i.itemCode, i.itemNameAr, l.warehouseId, w.warehouseNameAr, l.lotNumber "
+            + "ORDER BY i.itemCode, l.warehouseId, l.lotNumber")
+    List<FifoCostDto> sumOpenLayers(@Param("warehouseId") Integer warehouseId, @Param("itemId") Integer itemId);
+}
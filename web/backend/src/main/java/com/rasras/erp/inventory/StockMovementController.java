@@ -2,12 +2,10 @@ package com.rasras.erp.inventory;
 
 import com.rasras.erp.inventory.dto.StockMovementItemDto;
 import com.rasras.erp.shared.dto.ApiResponse;
+import com.rasras.erp.shared.dto.CursorPage;
 import com.rasras.erp.shared.security.SecurityConstants;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
-import org.apache.poi.ss.usermodel.Row;
-import org.apache.poi.ss.usermodel.Sheet;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
@@ -18,7 +16,6 @@ import org.springframework.web.bind.annotation.*;
 
 import java.io.IOException;
 import java.time.LocalDate;
-import java.util.List;
 
 @RestController
 @RequestMapping("/stock-movements")
@@ -28,6 +25,7 @@ import java.util.List;
 public class StockMovementController {
 
     private final StockMovementService stockMovementService;
+    private final StockMovementExportService exportService;
 
     /**
      * JSON endpoint مع فلترة وترقيم صفحات.
@@ -46,7 +44,23 @@ public class StockMovementController {
     }
 
     /**
-     * Excel حقيقي (.xlsx) لنفس الفلاتر.
+     * سجل الحركات بترقيم مؤشر: يُمرر nextCursor من الاستجابة السابقة للحصول على الصفحة التالية.
+     */
+    @GetMapping("/history")
+    public ResponseEntity<ApiResponse<CursorPage<StockMovementItemDto>>> getMovementHistory(
+            @RequestParam(required = false) Integer itemId,
+            @RequestParam(required = false) Integer warehouseId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fromDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate toDate,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size) {
+        return ResponseEntity.ok(ApiResponse.success(stockMovementService.getMovementHistory(
+                itemId, warehouseId, fromDate, toDate, cursor, size)));
+    }
+
+    /**
+     * تصدير حركات الصنف لنفس الفلاتر: format=xlsx (افتراضي) أو csv.
+     * الصفوف تُبث مباشرة إلى الاستجابة بذاكرة ثابتة مهما كان عددها.
      */
     @GetMapping("/export")
     public void exportMovementsToExcel(
@@ -54,37 +68,17 @@ public class StockMovementController {
             @RequestParam(required = false) Integer warehouseId,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fromDate,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate toDate,
+            @RequestParam(defaultValue = "xlsx") String format,
             HttpServletResponse response) throws IOException {
 
-        Page<StockMovementItemDto> page = stockMovementService.getMovementsByItem(
-                itemId, warehouseId, fromDate, toDate, Pageable.unpaged());
-        List<StockMovementItemDto> movements = page.getContent();
-
-        try (XSSFWorkbook workbook = new XSSFWorkbook()) {
-            Sheet sheet = workbook.createSheet("Item Movements");
-
-            // Header
-            Row header = sheet.createRow(0);
-            header.createCell(0).setCellValue("Date");
-            header.createCell(1).setCellValue("Type");
-            header.createCell(2).setCellValue("Qty");
-            header.createCell(3).setCellValue("Balance");
-            header.createCell(4).setCellValue("Ref");
-
-            int rowIdx = 1;
-            for (StockMovementItemDto m : movements) {
-                Row row = sheet.createRow(rowIdx++);
-                row.createCell(0).setCellValue(m.getDate() != null ? m.getDate().toString() : "");
-                row.createCell(1).setCellValue(m.getType() != null ? m.getType() : "");
-                row.createCell(2).setCellValue(m.getQty() != null ? m.getQty().doubleValue() : 0d);
-                row.createCell(3).setCellValue(m.getBalance() != null ? m.getBalance().doubleValue() : 0d);
-                row.createCell(4).setCellValue(m.getRef() != null ? m.getRef() : "");
-            }
-
-            response.setContentType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
-            response.setHeader("Content-Disposition", "attachment; filename=\"item-movements.xlsx\"");
-
-            workbook.write(response.getOutputStream());
+        if ("csv".equalsIgnoreCase(format)) {
+            response.setContentType("text/csv; charset=UTF-8");
+            response.setHeader("Content-Disposition", "attachment; filename=\"item-movements.csv\"");
+            exportService.writeCsv(itemId, warehouseId, fromDate, toDate, response.getOutputStream());
+            return;
         }
+        response.setContentType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
+        response.setHeader("Content-Disposition", "attachment; filename=\"item-movements.xlsx\"");
+        exportService.writeXlsx(itemId, warehouseId, fromDate, toDate, response.getOutputStream());
     }
 }
@@ -0,0 +1,41 @@
+package com.rasras.erp.inventory;
+
+import com.rasras.erp.shared.exception.BadRequestException;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * مؤشر سجل الحركات: آخر (movementDate, id) تم إرجاعه، يُرمَّز كنص معتم (Base64 URL-safe).
+ */
+@Getter
+@RequiredArgsConstructor
+final class StockMovementCursor {
+
+    private final LocalDateTime movementDate;
+    private final long id;
+
+    static StockMovementCursor after(StockMovement last) {
+        return new StockMovementCursor(last.getMovementDate(), last.getId());
+    }
+
+    String encode() {
+        String raw = movementDate + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static StockMovementCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int sep = raw.indexOf('|');
+            return new StockMovementCursor(LocalDateTime.parse(raw.substring(0, sep)),
+                    Long.parseLong(raw.substring(sep + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new BadRequestException("مؤشر الصفحة غير صالح");
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.rasras.erp.inventory;
+
+import com.rasras.erp.inventory.dto.StockMovementItemDto;
+import lombok.RequiredArgsConstructor;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+/**
+ * تصدير حركات الصنف بالبث (streaming): الصفوف تُقرأ بصفحات keyset وتُكتب مباشرة
+ * دون تحميل التقرير كاملاً في الذاكرة.
+ */
+@Service
+@RequiredArgsConstructor
+public class StockMovementExportService {
+
+    /** عدد الصفوف التي يحتفظ بها SXSSF في الذاكرة؛ الباقي يُكتب لملف مؤقت */
+    private static final int XLSX_ROW_WINDOW = 200;
+
+    private static final String[] HEADERS = { "Date", "Type", "Qty", "Balance", "Ref" };
+
+    private final StockMovementService stockMovementService;
+
+    public void writeXlsx(Integer itemId, Integer warehouseId, LocalDate fromDate, LocalDate toDate,
+            OutputStream out) throws IOException {
+        SXSSFWorkbook workbook = new SXSSFWorkbook(XLSX_ROW_WINDOW);
+        workbook.setCompressTempFiles(true);
+        try {
+            Sheet sheet = workbook.createSheet("Item Movements");
+            Row header = sheet.createRow(0);
+            for (int i = 0; i < HEADERS.length; i++) {
+                header.createCell(i).setCellValue(HEADERS[i]);
+            }
+
+            int[] rowIdx = { 1 };
+            stockMovementService.forEachMovementOfItem(itemId, warehouseId, fromDate, toDate, m -> {
+                Row row = sheet.createRow(rowIdx[0]++);
+                row.createCell(0).setCellValue(m.getDate() != null ? m.getDate().toString() : "");
+                row.createCell(1).setCellValue(m.getType() != null ? m.getType() : "");
+                row.createCell(2).setCellValue(m.getQty() != null ? m.getQty().doubleValue() : 0d);
+                row.createCell(3).setCellValue(m.getBalance() != null ? m.getBalance().doubleValue() : 0d);
+                row.createCell(4).setCellValue(m.getRef() != null ? m.getRef() : "");
+            });
+            workbook.write(out);
+        } finally {
+            workbook.dispose();
+            workbook.close();
+        }
+    }
+
+    /**
+     * CSV بترميز UTF-8 مع BOM حتى يفتح Excel النصوص العربية بشكل صحيح.
+     */
+    public void writeCsv(Integer itemId, Integer warehouseId, LocalDate fromDate, LocalDate toDate,
+            OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write('\uFEFF');
+        writer.write(String.join(",", HEADERS));
+        writer.write("\r\n");
+        try {
+            stockMovementService.forEachMovementOfItem(itemId, warehouseId, fromDate, toDate,
+                    m -> writeCsvRow(writer, m));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+    }
+
+    private static void writeCsvRow(Writer writer, StockMovementItemDto m) {
+        try {
+            writer.write(m.getDate() != null ? m.getDate().toString() : "");
+            writer.write(',');
+            writer.write(csv(m.getType()));
+            writer.write(',');
+            writer.write(m.getQty() != null ? m.getQty().toPlainString() : "0");
+            writer.write(',');
+            writer.write(m.getBalance() != null ? m.getBalance().toPlainString() : "0");
+            writer.write(',');
+            writer.write(csv(m.getRef()));
+            writer.write("\r\n");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -32,6 +32,50 @@ public interface StockMovementRepository extends JpaRepository<StockMovement, Lo
             @Param("to") LocalDateTime to,
             Pageable pageable);
 
+    /**
+     * شرط seek مشترك لسجل الحركات: نطاق تاريخ مغلق من الطرفين + الحركات الأقدم من المؤشر
+     * (afterDate, afterId) بترتيب تنازلي ثابت، حتى تكلف الصفحة العميقة مثل الأولى.
+     */
+    String SEEK_PAGE = "AND m.movementDate >= :from AND m.movementDate < :to " +
+            "AND (m.movementDate < :afterDate OR (m.movementDate = :afterDate AND m.id < :afterId)) " +
+            "ORDER BY m.movementDate DESC, m.id DESC";
+
+    @Query("SELECT m FROM StockMovement m WHERE m.item.id = :itemId AND m.warehouse.id = :warehouseId " + SEEK_PAGE)
+    List<StockMovement> seekByItemAndWarehouse(
+            @Param("itemId") Integer itemId,
+            @Param("warehouseId") Integer warehouseId,
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to,
+            @Param("afterDate") LocalDateTime afterDate,
+            @Param("afterId") Long afterId,
+            Pageable limit);
+
+    @Query("SELECT m FROM StockMovement m WHERE m.item.id = :itemId " + SEEK_PAGE)
+    List<StockMovement> seekByItem(
+            @Param("itemId") Integer itemId,
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to,
+            @Param("afterDate") LocalDateTime afterDate,
+            @Param("afterId") Long afterId,
+            Pageable limit);
+
+    @Query("SELECT m FROM StockMovement m WHERE m.warehouse.id = :warehouseId " + SEEK_PAGE)
+    List<StockMovement> seekByWarehouse(
+            @Param("warehouseId") Integer warehouseId,
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to,
+            @Param("afterDate") LocalDateTime afterDate,
+            @Param("afterId") Long afterId,
+            Pageable limit);
+
+    @Query("SELECT m FROM StockMovement m WHERE 1 = 1 " + SEEK_PAGE)
+    List<StockMovement> seekAll(
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to,
+            @Param("afterDate") LocalDateTime afterDate,
+            @Param("afterId") Long afterId,
+            Pageable limit);
+
     @Query("SELECT m FROM StockMovement m WHERE m.warehouse.id = :warehouseId " +
             "AND m.movementDate >= :from AND m.movementDate < :to ORDER BY m.movementDate")
     List<StockMovement> findByWarehouseAndDateRange(
@@ -49,4 +93,16 @@ public interface StockMovementRepository extends JpaRepository<StockMovement, Lo
             @Param("itemId") Integer itemId,
             @Param("from") LocalDateTime from,
             @Param("to") LocalDateTime to);
+
+    /**
+     * مجاميع الحركات لكل (صنف، مخزن، اتجاه) خلال فترة: [itemId, warehouseId, direction, quantity, totalCost]
+     */
+    @Query("SELECT m.item.id, m.warehouse.id, m.direction, COALESCE(SUM(m.quantity), 0), COALESCE(SUM(m.totalCost), 0) "
+            + "FROM StockMovement m WHERE m.movementDate >= :from AND m.movementDate < :to "
+            + "AND (:warehouseId IS NULL OR m.warehouse.id = :warehouseId) "
+            + "GROUP BY m.item.id, m.warehouse.id, m.direction")
+    List<Object[]> sumByKeyAndDirection(
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to,
+            @Param("warehouseId") Integer warehouseId);
 }
@@ -1,24 +1,38 @@
 package com.rasras.erp.inventory;
 
 import com.rasras.erp.inventory.dto.StockMovementItemDto;
+import com.rasras.erp.shared.dto.CursorPage;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class StockMovementService {
 
+    static final int EXPORT_PAGE_SIZE = 1000;
+    private static final int MAX_HISTORY_PAGE_SIZE = 500;
+    private static final LocalDateTime MIN_MOVEMENT_DATE = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime MAX_MOVEMENT_DATE = LocalDateTime.of(9999, 1, 1, 0, 0);
+
     private final StockMovementRepository stockMovementRepository;
+    private final EntityManager entityManager;
+    private final PlatformTransactionManager transactionManager;
 
     /**
      * Simple helper used where full filtering/pagination is not needed.
@@ -73,16 +87,100 @@ public class StockMovementService {
             page = stockMovementRepository.findByItemAndFilters(
                     itemId, warehouseId, from, to, pageable);
         } else {
-            // Global movements if itemId is null
-            page = stockMovementRepository.findAll(pageable);
+            // Global movements if itemId is null — ترتيب ثابت حتى لا تتكرر الصفوف بين الصفحات
+            page = stockMovementRepository.findAll(withDefaultSort(pageable));
         }
 
         return page.map(this::toItemDto);
     }
 
+    /**
+     * سجل الحركات بترقيم مؤشر (seek على movementDate, id): الصفحة العميقة بنفس كلفة الأولى.
+     * cursor هو nextCursor من الصفحة السابقة أو null للصفحة الأولى.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<StockMovementItemDto> getMovementHistory(
+            Integer itemId,
+            Integer warehouseId,
+            LocalDate fromDate,
+            LocalDate toDate,
+            String cursor,
+            int size) {
+
+        int pageSize = Math.min(Math.max(size, 1), MAX_HISTORY_PAGE_SIZE);
+        StockMovementCursor after = cursor != null && !cursor.isBlank() ? StockMovementCursor.decode(cursor) : null;
+        List<StockMovement> rows = seek(itemId, warehouseId, fromDate, toDate, after, pageSize + 1);
+
+        boolean hasMore = rows.size() > pageSize;
+        List<StockMovement> content = hasMore ? rows.subList(0, pageSize) : rows;
+        String nextCursor = hasMore ? StockMovementCursor.after(content.get(pageSize - 1)).encode() : null;
+        return CursorPage.of(content.stream().map(this::toItemDto).collect(Collectors.toList()), pageSize,
+                nextCursor);
+    }
+
+    /**
+     * يمر على حركات الصنف صفحة بعد صفحة (seek على movementDate, id) ويمرر كل صف للمستهلك.
+     * كل صفحة تُقرأ في معاملة قراءة قصيرة وتُحوّل إلى DTO ثم يُحرر الاتصال قبل تمريرها للمستهلك، فالتحميل
+     * البطيء لا يحجز اتصالاً من المجمع طوال التصدير، والذاكرة محدودة بصفحة واحدة مهما كان عدد الحركات.
+     */
+    public void forEachMovementOfItem(
+            Integer itemId,
+            Integer warehouseId,
+            LocalDate fromDate,
+            LocalDate toDate,
+            Consumer<StockMovementItemDto> consumer) {
+
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        StockMovementCursor[] after = { null };
+        List<StockMovementItemDto> page;
+        do {
+            page = readOnly.execute(status -> {
+                List<StockMovement> rows = seek(itemId, warehouseId, fromDate, toDate, after[0], EXPORT_PAGE_SIZE);
+                if (!rows.isEmpty()) {
+                    after[0] = StockMovementCursor.after(rows.get(rows.size() - 1));
+                }
+                List<StockMovementItemDto> dtos = rows.stream().map(this::toItemDto).collect(Collectors.toList());
+                entityManager.clear();
+                return dtos;
+            });
+            page.forEach(consumer);
+        } while (page.size() == EXPORT_PAGE_SIZE);
+    }
+
+    private List<StockMovement> seek(Integer itemId, Integer warehouseId, LocalDate fromDate, LocalDate toDate,
+            StockMovementCursor after, int limit) {
+        // حدود صريحة بدل (:param IS NULL OR ...) حتى يستخدم MySQL الفهرس المركب كنطاق
+        LocalDateTime from = fromDate != null ? fromDate.atStartOfDay() : MIN_MOVEMENT_DATE;
+        LocalDateTime to = toDate != null ? toDate.plusDays(1).atStartOfDay() : MAX_MOVEMENT_DATE;
+        LocalDateTime afterDate = after != null ? after.getMovementDate() : to;
+        Long afterId = after != null ? after.getId() : Long.MAX_VALUE;
+        Pageable page = PageRequest.ofSize(limit);
+
+        if (itemId != null && warehouseId != null) {
+            return stockMovementRepository.seekByItemAndWarehouse(itemId, warehouseId, from, to, afterDate, afterId,
+                    page);
+        }
+        if (itemId != null) {
+            return stockMovementRepository.seekByItem(itemId, from, to, afterDate, afterId, page);
+        }
+        if (warehouseId != null) {
+            return stockMovementRepository.seekByWarehouse(warehouseId, from, to, afterDate, afterId, page);
+        }
+        return stockMovementRepository.seekAll(from, to, afterDate, afterId, page);
+    }
+
     @Transactional(readOnly = true)
     public Page<StockMovementItemDto> getAllMovements(Pageable pageable) {
-        return stockMovementRepository.findAll(pageable).map(this::toItemDto);
+        return stockMovementRepository.findAll(withDefaultSort(pageable)).map(this::toItemDto);
+    }
+
+    private static Pageable withDefaultSort(Pageable pageable) {
+        if (pageable.isUnpaged() || pageable.getSort().isSorted()) {
+            return pageable;
+        }
+        return PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(),
+                Sort.by(Sort.Order.desc("movementDate"), Sort.Order.desc("id")));
     }
 
     private StockMovementItemDto toItemDto(StockMovement m) {
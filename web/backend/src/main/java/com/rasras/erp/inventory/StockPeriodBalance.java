@@ -0,0 +1,88 @@
+package com.rasras.erp.inventory;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * لقطة رصيد شهرية لكل (صنف، مخزن): رصيد أول المدة، الإضافات، المصروفات، رصيد آخر المدة.
+ * تُحدّث تراكمياً مع كل ترحيل مخزني (StockPeriodLedger) وتُقفل في نهاية الشهر (StockPeriodCloseService).
+ */
+@Entity
+@Table(name = "stockperiodbalances",
+        uniqueConstraints = @UniqueConstraint(name = "UQ_StockPeriodBalances_Key",
+                columnNames = { "ItemID", "WarehouseID", "Period" }),
+        indexes = {
+                @Index(name = "IX_StockPeriodBalances_Period", columnList = "Period, WarehouseID"),
+                @Index(name = "IX_StockPeriodBalances_Closed", columnList = "Period, IsClosed") })
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StockPeriodBalance {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "PeriodBalanceID")
+    private Long id;
+
+    @Column(name = "ItemID", nullable = false)
+    private Integer itemId;
+
+    @Column(name = "WarehouseID", nullable = false)
+    private Integer warehouseId;
+
+    /** الفترة بصيغة yyyyMM (مثال 202610) لتسهيل المقارنة والفهرسة */
+    @Column(name = "Period", nullable = false)
+    private Integer period;
+
+    @Column(name = "PeriodYear", nullable = false)
+    private Integer periodYear;
+
+    @Column(name = "PeriodMonth", nullable = false)
+    private Integer periodMonth;
+
+    @Column(name = "OpeningQty", precision = 18, scale = 3, nullable = false)
+    private BigDecimal openingQty;
+
+    @Column(name = "OpeningValue", precision = 18, scale = 2, nullable = false)
+    private BigDecimal openingValue;
+
+    @Column(name = "InQty", precision = 18, scale = 3, nullable = false)
+    private BigDecimal inQty;
+
+    @Column(name = "InValue", precision = 18, scale = 2, nullable = false)
+    private BigDecimal inValue;
+
+    @Column(name = "OutQty", precision = 18, scale = 3, nullable = false)
+    private BigDecimal outQty;
+
+    @Column(name = "OutValue", precision = 18, scale = 2, nullable = false)
+    private BigDecimal outValue;
+
+    @Column(name = "ClosingQty", precision = 18, scale = 3, nullable = false)
+    private BigDecimal closingQty;
+
+    @Column(name = "ClosingValue", precision = 18, scale = 2, nullable = false)
+    private BigDecimal closingValue;
+
+    @Column(name = "AverageCost", precision = 18, scale = 4)
+    private BigDecimal averageCost;
+
+    @Column(name = "IsClosed", nullable = false)
+    @Builder.Default
+    private Boolean isClosed = false;
+
+    @Column(name = "ClosedAt")
+    private LocalDateTime closedAt;
+
+    @Column(name = "UpdatedAt")
+    private LocalDateTime updatedAt;
+
+    public static int periodOf(int year, int month) {
+        return year * 100 + month;
+    }
+}
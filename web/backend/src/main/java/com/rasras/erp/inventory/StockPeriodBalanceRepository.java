@@ -0,0 +1,27 @@
+package com.rasras.erp.inventory;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface StockPeriodBalanceRepository extends JpaRepository<StockPeriodBalance, Long> {
+
+    List<StockPeriodBalance> findByPeriod(Integer period);
+
+    List<StockPeriodBalance> findByPeriodAndWarehouseId(Integer period, Integer warehouseId);
+
+    /** آخر لقطة لكل (صنف، مخزن) قبل الفترة المحددة — رصيد أول المدة للمفاتيح التي لم تتحرك خلالها */
+    @Query("SELECT p FROM StockPeriodBalance p WHERE p.period = (SELECT MAX(p2.period) FROM StockPeriodBalance p2 "
+            + "WHERE p2.itemId = p.itemId AND p2.warehouseId = p.warehouseId AND p2.period < :period)")
+    List<StockPeriodBalance> findLatestBefore(@Param("period") Integer period);
+
+    @Query("SELECT p FROM StockPeriodBalance p WHERE p.warehouseId = :warehouseId AND p.period = (SELECT MAX(p2.period) "
+            + "FROM StockPeriodBalance p2 WHERE p2.itemId = p.itemId AND p2.warehouseId = p.warehouseId "
+            + "AND p2.period < :period)")
+    List<StockPeriodBalance> findLatestBeforeByWarehouse(@Param("period") Integer period,
+            @Param("warehouseId") Integer warehouseId);
+}
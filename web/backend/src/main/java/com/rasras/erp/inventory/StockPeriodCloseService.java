@@ -0,0 +1,179 @@
+package com.rasras.erp.inventory;
+
+import com.rasras.erp.shared.exception.BadRequestException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * إقفال الفترات الشهرية للمخزون: ترحيل رصيد آخر المدة للأصناف التي لم تتحرك خلال الشهر
+ * ثم تجميد لقطات الشهر، وإعادة بناء اللقطات من سجل الحركات عند الحاجة (أول تشغيل أو تصحيح).
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StockPeriodCloseService {
+
+    private static final String CARRY_FORWARD_SQL = "INSERT INTO stockperiodbalances (ItemID, WarehouseID, Period, "
+            + "PeriodYear, PeriodMonth, OpeningQty, OpeningValue, InQty, InValue, OutQty, OutValue, ClosingQty, "
+            + "ClosingValue, AverageCost, IsClosed, UpdatedAt) "
+            + "SELECT p.ItemID, p.WarehouseID, ?, ?, ?, p.ClosingQty, p.ClosingValue, 0, 0, 0, 0, p.ClosingQty, "
+            + "p.ClosingValue, p.AverageCost, 0, ? FROM stockperiodbalances p "
+            + "WHERE p.Period = (SELECT MAX(p2.Period) FROM stockperiodbalances p2 WHERE p2.ItemID = p.ItemID "
+            + "AND p2.WarehouseID = p.WarehouseID AND p2.Period < ?) "
+            + "AND NOT EXISTS (SELECT 1 FROM stockperiodbalances c WHERE c.ItemID = p.ItemID "
+            + "AND c.WarehouseID = p.WarehouseID AND c.Period = ?)";
+
+    private static final String INSERT_SQL = "INSERT INTO stockperiodbalances (ItemID, WarehouseID, Period, "
+            + "PeriodYear, PeriodMonth, OpeningQty, OpeningValue, InQty, InValue, OutQty, OutValue, ClosingQty, "
+            + "ClosingValue, AverageCost, IsClosed, ClosedAt, UpdatedAt) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * يُشغّل في أول يوم من كل شهر لإقفال الشهر السابق.
+     */
+    @Scheduled(cron = "${app.scheduler.period-close.cron:0 30 0 1 * *}")
+    @Transactional
+    public void closePreviousMonth() {
+        YearMonth previous = YearMonth.now().minusMonths(1);
+        int sealed = sealMonth(previous);
+        log.info("تم إقفال فترة المخزون {}: {} لقطة", previous, sealed);
+    }
+
+    /**
+     * يرحّل رصيد آخر لقطة سابقة لكل (صنف، مخزن) لا يملك لقطة في الشهر، ثم يجمّد لقطات الشهر.
+     *
+     * @return عدد اللقطات التي تم إقفالها
+     */
+    @Transactional
+    public int sealMonth(YearMonth month) {
+        int period = StockPeriodBalance.periodOf(month.getYear(), month.getMonthValue());
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.update(CARRY_FORWARD_SQL, period, month.getYear(), month.getMonthValue(), now, period, period);
+        return jdbcTemplate.update(
+                "UPDATE stockperiodbalances SET IsClosed = 1, ClosedAt = ? WHERE Period = ? AND IsClosed = 0",
+                now, period);
+    }
+
+    /**
+     * يعيد بناء لقطات الفترات من شهر البداية حتى الشهر الحالي من سجل الحركات:
+     * رصيد أول المدة = الرصيد الحالي - صافي الحركات منذ بداية الشهر، ثم تراكم شهراً بشهر.
+     * الأشهر السابقة للشهر الحالي تُقفل بعد البناء. لا يُسمح بالبدء من فترة مقفلة أو قبلها: أرصدتها معتمدة
+     * وإعادة كتابتها تغيّر تقارير سبق إصدارها.
+     *
+     * @return عدد اللقطات المكتوبة
+     * @throws BadRequestException إذا كان شهر البداية ضمن الفترات المقفلة
+     */
+    @Transactional
+    public int rebuildFrom(YearMonth from) {
+        YearMonth current = YearMonth.now();
+        if (from.isAfter(current)) {
+            from = current;
+        }
+        int fromPeriod = StockPeriodBalance.periodOf(from.getYear(), from.getMonthValue());
+        Integer lastClosed = jdbcTemplate.queryForObject(
+                "SELECT MAX(Period) FROM stockperiodbalances WHERE IsClosed = 1", Integer.class);
+        if (lastClosed != null && fromPeriod <= lastClosed) {
+            throw new BadRequestException("فترة المخزون " + lastClosed / 100 + "/" + lastClosed % 100
+                    + " مقفلة؛ إعادة البناء تبدأ من الشهر التالي لآخر فترة مقفلة");
+        }
+        int currentPeriod = StockPeriodBalance.periodOf(current.getYear(), current.getMonthValue());
+        LocalDateTime fromDate = from.atDay(1).atStartOfDay();
+
+        Map<StockBalanceKey, List<MonthTotals>> monthsByKey = new HashMap<>();
+        jdbcTemplate.query("SELECT ItemID, WarehouseID, YEAR(MovementDate) * 100 + MONTH(MovementDate) AS Period, "
+                + "SUM(CASE WHEN Direction = 'IN' THEN Quantity ELSE 0 END) AS InQty, "
+                + "SUM(CASE WHEN Direction = 'IN' THEN TotalCost ELSE 0 END) AS InValue, "
+                + "SUM(CASE WHEN Direction = 'OUT' THEN Quantity ELSE 0 END) AS OutQty "
+                + "FROM stockmovements WHERE MovementDate >= ? "
+                + "GROUP BY ItemID, WarehouseID, YEAR(MovementDate) * 100 + MONTH(MovementDate) "
+                + "ORDER BY ItemID, WarehouseID, Period", rs -> {
+                    monthsByKey.computeIfAbsent(StockBalanceKey.of(rs.getInt("ItemID"), rs.getInt("WarehouseID")),
+                            k -> new ArrayList<>()).add(new MonthTotals(rs.getInt("Period"),
+                                    nz(rs.getBigDecimal("InQty")), nz(rs.getBigDecimal("InValue")),
+                                    nz(rs.getBigDecimal("OutQty"))));
+                }, Timestamp.valueOf(fromDate));
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>();
+        jdbcTemplate.query("SELECT ItemID, WarehouseID, QuantityOnHand, AverageCost FROM stockbalances", rs -> {
+            StockBalanceKey key = StockBalanceKey.of(rs.getInt("ItemID"), rs.getInt("WarehouseID"));
+            BigDecimal onHand = nz(rs.getBigDecimal("QuantityOnHand"));
+            BigDecimal averageCost = nz(rs.getBigDecimal("AverageCost"));
+            List<MonthTotals> months = monthsByKey.getOrDefault(key, List.of());
+
+            BigDecimal qty = onHand;
+            for (MonthTotals m : months) {
+                qty = qty.subtract(m.inQty).add(m.outQty);
+            }
+            BigDecimal value = qty.multiply(averageCost);
+            if (months.isEmpty() || months.get(0).period != fromPeriod) {
+                // الصنف لم يتحرك في شهر البداية: لقطة ثابتة تكون أساس الترحيل للأشهر التالية
+                rows.add(row(key, fromPeriod, qty, value, MonthTotals.none(fromPeriod), BigDecimal.ZERO, qty,
+                        value, averageCost, fromPeriod < currentPeriod, now));
+            }
+            for (MonthTotals m : months) {
+                BigDecimal avg = qty.signum() > 0 ? value.divide(qty, 4, RoundingMode.HALF_UP) : averageCost;
+                BigDecimal closingQty = qty.add(m.inQty).subtract(m.outQty);
+                BigDecimal outValue = m.outQty.multiply(avg);
+                BigDecimal closingValue = value.add(m.inValue).subtract(outValue);
+                if (m.inQty.signum() > 0 && closingQty.signum() > 0) {
+                    avg = closingValue.divide(closingQty, 4, RoundingMode.HALF_UP);
+                }
+                rows.add(row(key, m.period, qty, value, m, outValue, closingQty, closingValue, avg,
+                        m.period < currentPeriod, now));
+                qty = closingQty;
+                value = closingValue;
+            }
+        });
+
+        jdbcTemplate.update("DELETE FROM stockperiodbalances WHERE Period >= ?", fromPeriod);
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+        log.info("إعادة بناء لقطات المخزون من {}: {} لقطة", from, rows.size());
+        return rows.size();
+    }
+
+    private static Object[] row(StockBalanceKey key, int period, BigDecimal openingQty, BigDecimal openingValue,
+            MonthTotals m, BigDecimal outValue, BigDecimal closingQty, BigDecimal closingValue,
+            BigDecimal averageCost, boolean closed, Timestamp now) {
+        return new Object[] { key.getItemId(), key.getWarehouseId(), period, period / 100, period % 100,
+                openingQty, openingValue, m.inQty, m.inValue, m.outQty, outValue, closingQty, closingValue, averageCost, closed, closed ? now : null, now };
+    }
+
+    private static BigDecimal nz(BigDecimal value) {
+        return value != null ? value : BigDecimal.ZERO;
+    }
+
+    private static final class MonthTotals {
+        private final int period;
+        private final BigDecimal inQty;
+        private final BigDecimal inValue;
+        private final BigDecimal outQty;
+
+        MonthTotals(int period, BigDecimal inQty, BigDecimal inValue, BigDecimal outQty) {
+            this.period = period;
+            this.inQty = inQty;
+            this.inValue = inValue;
+            this.outQty = outQty;
+        }
+
+        static MonthTotals none(int period) {
+            return new MonthTotals(period, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.rasras.erp.inventory;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+
+/**
+ * أثر حركة مخزون واحدة على لقطة الفترة الشهرية لمفتاحها.
+ */
+@Getter
+@AllArgsConstructor
+public class StockPeriodDelta {
+
+    private final Integer itemId;
+    private final Integer warehouseId;
+    private final int period;
+    private final BigDecimal openingQty;
+    private final BigDecimal openingValue;
+    private final BigDecimal inQty;
+    private final BigDecimal inValue;
+    private final BigDecimal outQty;
+    private final BigDecimal outValue;
+    private final BigDecimal closingQty;
+    private final BigDecimal closingValue;
+    private final BigDecimal averageCost;
+
+    /** دمج حركة لاحقة لنفس المفتاح والفترة: يبقى رصيد أول المدة ويُؤخذ آخر رصيد */
+    StockPeriodDelta merge(StockPeriodDelta next) {
+        return new StockPeriodDelta(itemId, warehouseId, period, openingQty, openingValue,
+                inQty.add(next.inQty), inValue.add(next.inValue),
+                outQty.add(next.outQty), outValue.add(next.outValue),
+                next.closingQty, next.closingValue, next.averageCost);
+    }
+}
@@ -0,0 +1,84 @@
+package com.rasras.erp.inventory;
+
+import com.rasras.erp.shared.exception.BadRequestException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * يحدّث لقطات الفترات الشهرية (stockperiodbalances) داخل نفس معاملة الترحيل:
+ * upsert واحد لكل (صنف، مخزن، فترة) يضيف الإضافات/المصروفات ويضبط رصيد آخر المدة.
+ * الترحيل في فترة مقفلة مرفوض حتى لا تتغير لقطاتها بعد الإقفال.
+ */
+@Component
+@RequiredArgsConstructor
+public class StockPeriodLedger {
+
+    private static final String UPSERT_SQL = "INSERT INTO stockperiodbalances (ItemID, WarehouseID, Period, PeriodYear, "
+            + "PeriodMonth, OpeningQty, OpeningValue, InQty, InValue, OutQty, OutValue, ClosingQty, ClosingValue, "
+            + "AverageCost, IsClosed, UpdatedAt) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0, ?) AS incoming "
+            + "ON DUPLICATE KEY UPDATE "
+            + "InQty = stockperiodbalances.InQty + incoming.InQty, "
+            + "InValue = stockperiodbalances.InValue + incoming.InValue, "
+            + "OutQty = stockperiodbalances.OutQty + incoming.OutQty, "
+            + "OutValue = stockperiodbalances.OutValue + incoming.OutValue, "
+            + "ClosingQty = incoming.ClosingQty, "
+            + "ClosingValue = incoming.ClosingValue, "
+            + "AverageCost = incoming.AverageCost, "
+            + "UpdatedAt = incoming.UpdatedAt";
+
+    private static final String CLOSED_SQL =
+            "SELECT EXISTS (SELECT 1 FROM stockperiodbalances WHERE Period = ? AND IsClosed = 1)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * الحركات يجب أن تكون بترتيبها الزمني داخل كل مفتاح (كما يطبقها StockPostingEngine).
+     */
+    public void record(List<StockPeriodDelta> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        Map<List<Object>, StockPeriodDelta> merged = new LinkedHashMap<>();
+        for (StockPeriodDelta delta : deltas) {
+            merged.merge(List.of(delta.getItemId(), delta.getWarehouseId(), delta.getPeriod()), delta,
+                    StockPeriodDelta::merge);
+        }
+        List<StockPeriodDelta> rows = new ArrayList<>(merged.values());
+        rows.stream().map(StockPeriodDelta::getPeriod).distinct().forEach(this::requireOpen);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(UPSERT_SQL, rows, rows.size(), (ps, d) -> {
+            ps.setInt(1, d.getItemId());
+            ps.setInt(2, d.getWarehouseId());
+            ps.setInt(3, d.getPeriod());
+            ps.setInt(4, d.getPeriod() / 100);
+            ps.setInt(5, d.getPeriod() % 100);
+            ps.setBigDecimal(6, d.getOpeningQty());
+            ps.setBigDecimal(7, d.getOpeningValue());
+            ps.setBigDecimal(8, d.getInQty());
+            ps.setBigDecimal(9, d.getInValue());
+            ps.setBigDecimal(10, d.getOutQty());
+            ps.setBigDecimal(11, d.getOutValue());
+            ps.setBigDecimal(12, d.getClosingQty());
+            ps.setBigDecimal(13, d.getClosingValue());
+            ps.setBigDecimal(14, Objects.requireNonNullElse(d.getAverageCost(), BigDecimal.ZERO));
+            ps.setTimestamp(15, now);
+        });
+    }
+
+    private void requireOpen(Integer period) {
+        if (Boolean.TRUE.equals(jdbcTemplate.queryForObject(CLOSED_SQL, Boolean.class, period))) {
+            throw new BadRequestException("فترة المخزون " + period / 100 + "/" + period % 100
+                    + " مقفلة ولا يمكن الترحيل فيها");
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.rasras.erp.inventory;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+
+/**
+ * سطر ترحيل مخزني واحد: كمية داخلة أو خارجة لصنف في مخزن مع مرجع المستند.
+ */
+@Getter
+@Builder
+@AllArgsConstructor
+public class StockPosting {
+
+    private final Integer itemId;
+    private final Integer warehouseId;
+    private final BigDecimal quantity;
+    private final String direction; // IN, OUT
+    private final String movementType;
+    private final String referenceType;
+    private final Integer referenceId;
+    private final String referenceNumber;
+    private final BigDecimal unitCost;
+    private final Integer userId;
+    private final String lotNumber;
+
+    public boolean isInbound() {
+        return "IN".equalsIgnoreCase(direction);
+    }
+}
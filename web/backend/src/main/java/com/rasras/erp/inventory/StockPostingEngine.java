@@ -0,0 +1,352 @@
+package com.rasras.erp.inventory;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * محرك ترحيل المخزون: يسلسل التعديلات على كل مفتاح (صنف، مخزن) بحيث لا تضيع حركة
+ * ولا تنكسر سلسلة BalanceBefore/BalanceAfter.
+ * <ul>
+ * <li>قفل مُقسّم (striped) داخل العقدة لكل مفتاح، يبقى محجوزاً حتى انتهاء المعاملة
+ * الحالية، فتتوازى الترحيلات على المفاتيح المختلفة دون قفل عام.</li>
+ * <li>قراءة الرصيد بـ SELECT ... FOR UPDATE: ترى آخر قيمة ملتزمة (لا لقطة REPEATABLE READ
+ * القديمة) وتسلسل العقد الأخرى على نفس الصف حتى نهاية المعاملة.</li>
+ * <li>تحديث مشروط بعمود Version كحارس إضافي، مع إعادة محاولة محدودة.</li>
+ * <li>الترحيل المجمع (postAll) يقفل صفوف الأرصدة بـ SELECT ... FOR UPDATE بترتيب المفتاح
+ * ويكتب النتائج كـ JDBC batch.</li>
+ * </ul>
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StockPostingEngine {
+
+    private final StockBalanceRepository balanceRepo;
+    private final StockMovementRepository movementRepo;
+    private final ItemRepository itemRepo;
+    private final WarehouseRepository warehouseRepo;
+    private final StockPostingJdbcRepository jdbcRepo;
+    private final StockPeriodLedger periodLedger;
+    private final EntityManager entityManager;
+
+    @Value("${app.inventory.posting.lock-stripes:64}")
+    private int lockStripes = 64;
+
+    @Value("${app.inventory.posting.max-attempts:5}")
+    private int maxAttempts = 5;
+
+    @Value("${app.inventory.posting.lock-timeout-ms:10000}")
+    private long lockTimeoutMs = 10000;
+
+    private ReentrantLock[] stripes;
+
+    @PostConstruct
+    void initStripes() {
+        int size = Math.max(1, lockStripes);
+        stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * يرحّل سطراً واحداً: يحدّث الرصيد ويسجل حركة المخزون المقابلة.
+     */
+    public StockMovement post(StockPosting posting) {
+        Item item = itemRepo.findById(posting.getItemId()).orElseThrow();
+        Warehouse warehouse = warehouseRepo.findById(posting.getWarehouseId()).orElseThrow();
+
+        ReentrantLock lock = lockFor(posting.getItemId(), posting.getWarehouseId());
+        boolean heldByTransaction = acquire(lock);
+        try {
+            return applyWithRetry(posting, item, warehouse);
+        } finally {
+            if (!heldByTransaction) {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * يرحّل مجموعة أسطر دفعة واحدة: قراءة وقفل كل الأرصدة المتأثرة باستعلام واحد،
+     * تطبيق الأسطر بترتيب ثابت حسب (صنف، مخزن) مع الحفاظ على ترتيبها داخل المفتاح،
+     * ثم كتابة الأرصدة والحركات كـ JDBC batch.
+     */
+    public void postAll(List<StockPosting> postings) {
+        if (postings == null || postings.isEmpty()) {
+            return;
+        }
+        Map<StockBalanceKey, List<StockPosting>> byKey = new TreeMap<>();
+        for (StockPosting posting : postings) {
+            byKey.computeIfAbsent(StockBalanceKey.of(posting.getItemId(), posting.getWarehouseId()),
+                    k -> new ArrayList<>()).add(posting);
+        }
+
+        List<ReentrantLock> acquiredOutsideTransaction = new ArrayList<>();
+        try {
+            byKey.keySet().stream()
+                    .mapToInt(k -> stripeIndex(k.getItemId(), k.getWarehouseId()))
+                    .distinct()
+                    .sorted()
+                    .forEach(i -> {
+                        if (!acquire(stripes[i])) {
+                            acquiredOutsideTransaction.add(stripes[i]);
+                        }
+                    });
+            applyBatch(byKey);
+        } finally {
+            acquiredOutsideTransaction.forEach(ReentrantLock::unlock);
+        }
+    }
+
+    private void applyBatch(Map<StockBalanceKey, List<StockPosting>> byKey) {
+        // JDBC يتجاوز Hibernate: نكتب أي تعديلات معلقة أولاً حتى لا تتعارض مع ما سنكتبه
+        entityManager.flush();
+        LocalDateTime now = LocalDateTime.now();
+
+        Map<StockBalanceKey, StockBalanceSnapshot> balances = new HashMap<>();
+        jdbcRepo.lockBalances(byKey.keySet()).forEach(b -> balances.putIfAbsent(b.getKey(), b));
+        List<StockBalanceKey> missing = byKey.keySet().stream()
+                .filter(k -> !balances.containsKey(k))
+                .collect(Collectors.toList());
+        if (!missing.isEmpty()) {
+            jdbcRepo.insertEmptyBalances(missing, now);
+            jdbcRepo.lockBalances(missing).forEach(b -> balances.putIfAbsent(b.getKey(), b));
+        }
+
+        List<StockBalanceSnapshot> updatedBalances = new ArrayList<>(byKey.size());
+        List<StockMovement> movements = new ArrayList<>();
+        List<StockPeriodDelta> periodDeltas = new ArrayList<>();
+        for (Map.Entry<StockBalanceKey, List<StockPosting>> entry : byKey.entrySet()) {
+            StockBalanceKey key = entry.getKey();
+            StockBalanceSnapshot snapshot = balances.get(key);
+            Item item = entityManager.getReference(Item.class, key.getItemId());
+            Warehouse warehouse = entityManager.getReference(Warehouse.class, key.getWarehouseId());
+
+            RunningBalance running = new RunningBalance(quantityOf(snapshot), snapshot.getAverageCost());
+            for (StockPosting posting : entry.getValue()) {
+                BigDecimal balanceBefore = running.quantity;
+                periodDeltas.add(running.apply(posting, now));
+                StockMovement movement = buildMovement(posting, item, warehouse, balanceBefore, running.quantity);
+                movement.setMovementDate(now);
+                movement.setCreatedAt(now);
+                movements.add(movement);
+            }
+            updatedBalances.add(snapshot.withValues(running.quantity, running.averageCost));
+        }
+
+        jdbcRepo.updateBalances(updatedBalances, now);
+        jdbcRepo.insertMovements(movements);
+        periodLedger.record(periodDeltas);
+        updatedBalances.forEach(b -> evictManagedBalance(b.getId()));
+    }
+
+    private StockMovement applyWithRetry(StockPosting posting, Item item, Warehouse warehouse) {
+        // JDBC يتجاوز Hibernate: نكتب أي تعديلات معلقة قبل القراءة القافلة
+        entityManager.flush();
+        for (int attempt = 1;; attempt++) {
+            // قراءة قافلة لا عادية: القراءة العادية تعيد نفس لقطة المعاملة فتفشل كل المحاولات التالية
+            StockBalanceSnapshot snapshot = jdbcRepo.lockBalance(posting.getItemId(), posting.getWarehouseId())
+                    .orElseGet(() -> createEmptyBalance(item, warehouse));
+
+            LocalDateTime now = LocalDateTime.now();
+            BigDecimal balanceBefore = quantityOf(snapshot);
+            RunningBalance running = new RunningBalance(balanceBefore, snapshot.getAverageCost());
+            StockPeriodDelta delta = running.apply(posting, now);
+
+            int updated = balanceRepo.compareAndSetOnHand(snapshot.getId(), snapshot.getVersion(),
+                    running.quantity, running.averageCost, now);
+            if (updated == 1) {
+                evictManagedBalance(snapshot.getId());
+                periodLedger.record(List.of(delta));
+                StockMovement movement = buildMovement(posting, item, warehouse, balanceBefore, running.quantity);
+                movement.setMovementDate(now);
+                movement.setCreatedAt(now);
+                return movementRepo.save(movement);
+            }
+
+            if (attempt >= maxAttempts) {
+                throw new OptimisticLockingFailureException("تعذر ترحيل حركة المخزون للصنف " + posting.getItemId()
+                        + " في المخزن " + posting.getWarehouseId() + " بعد " + attempt + " محاولات بسبب تعديل متزامن");
+            }
+            log.debug("تعارض نسخة على رصيد الصنف {} / المخزن {} — إعادة المحاولة {}", posting.getItemId(),
+                    posting.getWarehouseId(), attempt);
+            backoff(attempt);
+        }
+    }
+
+    private StockBalanceSnapshot createEmptyBalance(Item item, Warehouse warehouse) {
+        StockBalance created = balanceRepo.saveAndFlush(StockBalance.builder()
+                .item(item)
+                .warehouse(warehouse)
+                .quantityOnHand(BigDecimal.ZERO)
+                .quantityReserved(BigDecimal.ZERO)
+                .build());
+        entityManager.detach(created);
+        return new StockBalanceSnapshot(created.getId(), item.getId(), warehouse.getId(), BigDecimal.ZERO,
+                created.getAverageCost(), created.getVersion() != null ? created.getVersion() : 0L);
+    }
+
+    private static BigDecimal quantityOf(StockBalanceSnapshot snapshot) {
+        return snapshot.getQuantityOnHand() != null ? snapshot.getQuantityOnHand() : BigDecimal.ZERO;
+    }
+
+    /**
+     * الرصيد الجاري لمفتاح واحد أثناء تطبيق الأسطر بالتتابع.
+     */
+    private static final class RunningBalance {
+        private BigDecimal quantity;
+        private BigDecimal averageCost;
+
+        RunningBalance(BigDecimal quantity, BigDecimal averageCost) {
+            this.quantity = quantity;
+            this.averageCost = averageCost;
+        }
+
+        /**
+         * يطبق السطر على الرصيد الجاري ويرجع أثره على لقطة الفترة الشهرية.
+         */
+        StockPeriodDelta apply(StockPosting posting, LocalDateTime postedAt) {
+            BigDecimal before = quantity;
+            BigDecimal avgBefore = averageCost != null ? averageCost : BigDecimal.ZERO;
+            BigDecimal qty = posting.getQuantity();
+            BigDecimal inQty = BigDecimal.ZERO;
+            BigDecimal inValue = BigDecimal.ZERO;
+            BigDecimal outQty = BigDecimal.ZERO;
+            BigDecimal outValue = BigDecimal.ZERO;
+            if (posting.isInbound()) {
+                quantity = before.add(qty);
+                // تحديث التكلفة المتوسطة المرجحة عند حركة الإدخال
+                BigDecimal incomingCost = posting.getUnitCost() != null ? posting.getUnitCost() : BigDecimal.ZERO;
+                if (quantity.compareTo(BigDecimal.ZERO) > 0) {
+                    BigDecimal valueBefore = before.multiply(avgBefore);
+                    BigDecimal valueIncoming = qty.multiply(incomingCost);
+                    averageCost = valueBefore.add(valueIncoming).divide(quantity, 4, RoundingMode.HALF_UP);
+                }
+                inQty = qty;
+                inValue = qty.multiply(incomingCost);
+            } else {
+                // عند OUT: التكلفة المتوسطة للرصيد المتبقي لا تتغير
+                quantity = before.subtract(qty);
+                outQty = qty;
+                outValue = qty.multiply(avgBefore);
+            }
+            BigDecimal avgAfter = averageCost != null ? averageCost : BigDecimal.ZERO;
+            return new StockPeriodDelta(posting.getItemId(), posting.getWarehouseId(),
+                    StockPeriodBalance.periodOf(postedAt.getYear(), postedAt.getMonthValue()),
+                    before, before.multiply(avgBefore), inQty, inValue, outQty, outValue,
+                    quantity, quantity.multiply(avgAfter), averageCost);
+        }
+    }
+
+    /**
+     * التحديث المشروط يتجاوز سياق الـ persistence؛ نفصل أي نسخة مُدارة قديمة من الرصيد
+     * حتى لا تُكتب قيمها القديمة لاحقاً ولا تُقرأ في نفس المعاملة.
+     */
+    private void evictManagedBalance(Integer balanceId) {
+        entityManager.detach(entityManager.getReference(StockBalance.class, balanceId));
+    }
+
+    private StockMovement buildMovement(StockPosting posting, Item item, Warehouse warehouse,
+            BigDecimal balanceBefore, BigDecimal balanceAfter) {
+        BigDecimal unitCost = posting.getUnitCost();
+        return StockMovement.builder()
+                .item(item)
+                .warehouse(warehouse)
+                .quantity(posting.getQuantity())
+                .direction(posting.getDirection().toUpperCase())
+                .movementType(posting.getMovementType())
+                .referenceType(posting.getReferenceType())
+                .referenceId(posting.getReferenceId())
+                .referenceNumber(posting.getReferenceNumber())
+                .unitCost(unitCost)
+                .totalCost(unitCost != null ? unitCost.multiply(posting.getQuantity()) : BigDecimal.ZERO)
+                .balanceBefore(balanceBefore)
+                .balanceAfter(balanceAfter)
+                .createdBy(posting.getUserId())
+                .build();
+    }
+
+    ReentrantLock lockFor(Integer itemId, Integer warehouseId) {
+        return stripes[stripeIndex(itemId, warehouseId)];
+    }
+
+    private int stripeIndex(Integer itemId, Integer warehouseId) {
+        int hash = 31 * itemId.hashCode() + warehouseId.hashCode();
+        hash ^= (hash >>> 16);
+        return Math.floorMod(hash, stripes.length);
+    }
+
+    /**
+     * يحجز قفل المفتاح. داخل معاملة يبقى القفل محجوزاً حتى اكتمالها (commit/rollback)
+     * ويُحجز مرة واحدة فقط لكل معاملة؛ يرجع true في هذه الحالة.
+     */
+    @SuppressWarnings("unchecked")
+    private boolean acquire(ReentrantLock lock) {
+        boolean inTransaction = TransactionSynchronizationManager.isSynchronizationActive();
+        Set<ReentrantLock> held = inTransaction
+                ? (Set<ReentrantLock>) TransactionSynchronizationManager.getResource(this)
+                : null;
+        if (held != null && held.contains(lock)) {
+            return true;
+        }
+
+        try {
+            if (!lock.tryLock(lockTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new CannotAcquireLockException("انتهت مهلة انتظار قفل ترحيل المخزون");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CannotAcquireLockException("تمت مقاطعة انتظار قفل ترحيل المخزون", e);
+        }
+
+        if (!inTransaction) {
+            return false;
+        }
+        if (held == null) {
+            Set<ReentrantLock> locks = new LinkedHashSet<>();
+            TransactionSynchronizationManager.bindResource(this, locks);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(StockPostingEngine.this);
+                    locks.forEach(ReentrantLock::unlock);
+                }
+            });
+            held = locks;
+        }
+        held.add(lock);
+        return true;
+    }
+
+    private void backoff(int attempt) {
+        try {
+            Thread.sleep(Math.min(50L, 5L * attempt));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CannotAcquireLockException("تمت مقاطعة إعادة محاولة ترحيل المخزون", e);
+        }
+    }
+}
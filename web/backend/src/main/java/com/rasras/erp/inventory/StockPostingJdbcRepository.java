@@ -0,0 +1,126 @@
+package com.rasras.erp.inventory;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * عمليات JDBC لترحيل المخزون (StockPostingEngine): قراءة الأرصدة
+ * مع قفل الصفوف باستعلام واحد، وكتابة الأرصدة والحركات كـ batch.
+ * تعمل داخل نفس معاملة JPA (نفس الاتصال).
+ */
+@Repository
+@RequiredArgsConstructor
+public class StockPostingJdbcRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * يقرأ أرصدة المفاتيح المطلوبة ويقفل صفوفها (FOR UPDATE) بترتيب ثابت (صنف، مخزن)
+     * حتى تُحجز الأقفال في قاعدة البيانات بنفس الترتيب دائماً فلا يحدث deadlock.
+     */
+    public List<StockBalanceSnapshot> lockBalances(Collection<StockBalanceKey> keys) {
+        if (keys.isEmpty()) {
+            return List.of();
+        }
+        String tuples = keys.stream().map(k -> "(?, ?)").collect(Collectors.joining(", "));
+        List<Object> args = new ArrayList<>(keys.size() * 2);
+        for (StockBalanceKey key : keys) {
+            args.add(key.getItemId());
+            args.add(key.getWarehouseId());
+        }
+        String sql = "SELECT StockBalanceID, ItemID, WarehouseID, QuantityOnHand, AverageCost, Version "
+                + "FROM stockbalances WHERE (ItemID, WarehouseID) IN (" + tuples + ") "
+                + "ORDER BY ItemID, WarehouseID FOR UPDATE";
+        return jdbcTemplate.query(sql, (rs, rowNum) -> new StockBalanceSnapshot(
+                rs.getInt("StockBalanceID"),
+                rs.getInt("ItemID"),
+                rs.getInt("WarehouseID"),
+                rs.getBigDecimal("QuantityOnHand"),
+                rs.getBigDecimal("AverageCost"),
+                rs.getLong("Version")), args.toArray());
+    }
+
+    /**
+     * يقرأ رصيد مفتاح واحد ويقفل صفه حتى نهاية المعاملة (StockPostingEngine.post).
+     */
+    public Optional<StockBalanceSnapshot> lockBalance(Integer itemId, Integer warehouseId) {
+        return lockBalances(List.of(StockBalanceKey.of(itemId, warehouseId))).stream().findFirst();
+    }
+
+    /**
+     * ينشئ أرصدة صفرية للمفاتيح الناقصة. UQ_StockBalance (V16) يجعل إدراجين متزامنين لنفس المفتاح يتتابعان،
+     * والثاني لا يفعل شيئاً ثم يقفل الصف الموجود في lockBalances.
+     */
+    public void insertEmptyBalances(List<StockBalanceKey> keys, LocalDateTime now) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        Timestamp ts = Timestamp.valueOf(now);
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO stockbalances (ItemID, WarehouseID, QuantityOnHand, QuantityReserved, UpdatedAt, Version) "
+                        + "VALUES (?, ?, 0, 0, ?, 0) ON DUPLICATE KEY UPDATE StockBalanceID = StockBalanceID",
+                keys, keys.size(), (ps, key) -> {
+                    ps.setInt(1, key.getItemId());
+                    ps.setInt(2, key.getWarehouseId());
+                    ps.setTimestamp(3, ts);
+                });
+    }
+
+    /**
+     * يكتب الأرصدة الجديدة للصفوف المقفلة مسبقاً عبر lockBalances ويزيد رقم النسخة.
+     */
+    public void updateBalances(List<StockBalanceSnapshot> balances, LocalDateTime now) {
+        if (balances.isEmpty()) {
+            return;
+        }
+        Timestamp ts = Timestamp.valueOf(now);
+        jdbcTemplate.batchUpdate(
+                "UPDATE stockbalances SET QuantityOnHand = ?, AverageCost = ?, LastMovementDate = ?, UpdatedAt = ?, "
+                        + "Version = Version + 1 WHERE StockBalanceID = ?",
+                balances, balances.size(), (ps, b) -> {
+                    ps.setBigDecimal(1, b.getQuantityOnHand());
+                    ps.setBigDecimal(2, b.getAverageCost());
+                    ps.setTimestamp(3, ts);
+                    ps.setTimestamp(4, ts);
+                    ps.setInt(5, b.getId());
+                });
+    }
+
+    public void insertMovements(List<StockMovement> movements) {
+        if (movements.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO stockmovements (MovementDate, MovementType, ReferenceType, ReferenceID, ReferenceNumber, "
+                        + "ItemID, WarehouseID, Quantity, Direction, UnitCost, TotalCost, BalanceBefore, BalanceAfter, "
+                        + "Notes, CreatedAt, CreatedBy) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                movements, movements.size(), (ps, m) -> {
+                    ps.setTimestamp(1, Timestamp.valueOf(m.getMovementDate()));
+                    ps.setString(2, m.getMovementType());
+                    ps.setString(3, m.getReferenceType());
+                    ps.setObject(4, m.getReferenceId());
+                    ps.setString(5, m.getReferenceNumber());
+                    ps.setInt(6, m.getItem().getId());
+                    ps.setInt(7, m.getWarehouse().getId());
+                    ps.setBigDecimal(8, m.getQuantity());
+                    ps.setString(9, m.getDirection());
+                    ps.setBigDecimal(10, m.getUnitCost());
+                    ps.setBigDecimal(11, m.getTotalCost() != null ? m.getTotalCost() : BigDecimal.ZERO);
+                    ps.setBigDecimal(12, m.getBalanceBefore());
+                    ps.setBigDecimal(13, m.getBalanceAfter());
+                    ps.setString(14, m.getNotes());
+                    ps.setTimestamp(15, Timestamp.valueOf(m.getCreatedAt()));
+                    ps.setObject(16, m.getCreatedBy());
+                });
+    }
+}
@@ -0,0 +1,65 @@
+package com.rasras.erp.inventory;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * سطر في سجل حجوزات المخزون: حجز كمية صنف في مخزن لمستند (إذن صرف...).
+ * مجموع الحجوزات النشطة لكل (صنف، مخزن) يساوي stockbalances.QuantityReserved.
+ */
+@Entity
+@Table(name = "stockreservations")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StockReservation {
+
+    public static final String ACTIVE = "Active";
+    public static final String RELEASED = "Released";
+    public static final String CONSUMED = "Consumed";
+    public static final String EXPIRED = "Expired";
+
+    /** حجوزات سابقة لسجل الحجوزات (تم ترحيلها من QuantityReserved) */
+    public static final String LEGACY_REFERENCE = "Legacy";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "ReservationID")
+    private Integer id;
+
+    @Column(name = "ItemID", nullable = false)
+    private Integer itemId;
+
+    @Column(name = "WarehouseID", nullable = false)
+    private Integer warehouseId;
+
+    @Column(name = "ReservedQty", precision = 18, scale = 3, nullable = false)
+    private BigDecimal reservedQty;
+
+    @Column(name = "ReferenceType", nullable = false, length = 20)
+    private String referenceType;
+
+    @Column(name = "ReferenceID", nullable = false)
+    private Integer referenceId;
+
+    @Column(name = "ReservedByUserID", nullable = false)
+    private Integer reservedByUserId;
+
+    @Column(name = "ReservedDate")
+    private LocalDateTime reservedDate;
+
+    @Column(name = "ExpiryDate")
+    private LocalDateTime expiryDate;
+
+    @Column(name = "Status", length = 20)
+    @Builder.Default
+    private String status = ACTIVE; // Active, Released, Consumed, Expired
+
+    @Column(name = "Notes", length = 500)
+    private String notes;
+}
@@ -0,0 +1,16 @@
+package com.rasras.erp.inventory;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+
+/**
+ * سطر طلب حجز: صنف وكمية (المخزن على مستوى المستند).
+ */
+@Getter
+@AllArgsConstructor(staticName = "of")
+public class StockReservationLine {
+    private final Integer itemId;
+    private final BigDecimal quantity;
+}
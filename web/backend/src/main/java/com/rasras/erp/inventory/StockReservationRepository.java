@@ -0,0 +1,34 @@
+package com.rasras.erp.inventory;
+
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface StockReservationRepository extends JpaRepository<StockReservation, Integer> {
+
+    boolean existsByReferenceTypeAndReferenceId(String referenceType, Integer referenceId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<StockReservation> findByReferenceTypeAndReferenceIdAndStatus(String referenceType, Integer referenceId,
+            String status);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM StockReservation r WHERE r.referenceType = :referenceType AND r.referenceId = :referenceId "
+            + "AND r.itemId = :itemId AND r.warehouseId = :warehouseId AND r.status = 'Active' ORDER BY r.id")
+    List<StockReservation> findActiveLines(@Param("referenceType") String referenceType,
+            @Param("referenceId") Integer referenceId,
+            @Param("itemId") Integer itemId,
+            @Param("warehouseId") Integer warehouseId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM StockReservation r WHERE r.status = 'Active' AND r.expiryDate < :now ORDER BY r.expiryDate")
+    List<StockReservation> findExpired(@Param("now") LocalDateTime now, Pageable limit);
+}
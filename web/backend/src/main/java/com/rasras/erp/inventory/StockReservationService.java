@@ -0,0 +1,238 @@
+package com.rasras.erp.inventory;
+
+import com.rasras.erp.shared.exception.BadRequestException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * سجل حجوزات المخزون لكل مستند: الحجز بتحديث مشروط واحد على صف الرصيد
+ * (المحجوز += الكمية فقط إذا كان المتاح يكفي)، فلا يمكن لموافقتين متزامنتين تجاوز المتاح.
+ * الحجز متعدد الأسطر كله أو لا شيء (داخل معاملة واحدة)، مع انتهاء صلاحية الحجوزات القديمة
+ * ومهمة مطابقة تعيد بناء QuantityReserved من السجل.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StockReservationService {
+
+    private static final int EXPIRY_BATCH = 500;
+
+    private final StockReservationRepository reservationRepo;
+    private final StockBalanceRepository balanceRepo;
+    private final ItemRepository itemRepo;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    /** مدة صلاحية الحجز بالأيام؛ 0 = بدون انتهاء */
+    @Value("${app.inventory.reservations.ttl-days:14}")
+    private int ttlDays;
+
+    /**
+     * يحجز كل أسطر المستند أو لا شيء: أي سطر لا يكفي متاحه يرمي BadRequestException
+     * وتُلغى المعاملة بما حجزته الأسطر السابقة. إعادة الاستدعاء لمستند محجوز لا تفعل شيئاً.
+     * <p>
+     * صف المستند في stockreservationclaims يُكتب أولاً (INSERT ... ON DUPLICATE KEY) فيُقفل حتى commit،
+     * فاستدعاءان متزامنان لنفس المستند يتتابعان والثاني يرى حجوزات الأول في قراءة قافلة.
+     */
+    @Transactional
+    public void reserve(String referenceType, Integer referenceId, Integer warehouseId,
+            List<StockReservationLine> lines, Integer userId) {
+        jdbcTemplate.update("INSERT INTO stockreservationclaims (ReferenceType, ReferenceID, ClaimedAt) "
+                + "VALUES (?, ?, ?) AS incoming ON DUPLICATE KEY UPDATE ClaimedAt = incoming.ClaimedAt",
+                referenceType, referenceId, Timestamp.valueOf(LocalDateTime.now()));
+        // قراءة قافلة: القراءة العادية في REPEATABLE READ قد ترى لقطة أقدم من commit المعاملة السابقة
+        Integer active = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM stockreservations "
+                + "WHERE ReferenceType = ? AND ReferenceID = ? AND Status = 'Active' FOR SHARE", Integer.class,
+                referenceType, referenceId);
+        if (active != null && active > 0) {
+            return;
+        }
+        // ترتيب ثابت للأصناف حتى تُقفل صفوف الأرصدة بنفس الترتيب في كل المعاملات
+        Map<Integer, BigDecimal> byItem = new TreeMap<>();
+        for (StockReservationLine line : lines) {
+            if (line.getQuantity() != null && line.getQuantity().signum() > 0) {
+                byItem.merge(line.getItemId(), line.getQuantity(), BigDecimal::add);
+            }
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<StockReservation> rows = new ArrayList<>(byItem.size());
+        for (Map.Entry<Integer, BigDecimal> e : byItem.entrySet()) {
+            if (balanceRepo.reserveIfAvailable(e.getKey(), warehouseId, e.getValue(), now) == 0) {
+                throw shortage(e.getKey(), warehouseId, e.getValue());
+            }
+            rows.add(StockReservation.builder()
+                    .itemId(e.getKey())
+                    .warehouseId(warehouseId)
+                    .reservedQty(e.getValue())
+                    .referenceType(referenceType)
+                    .referenceId(referenceId)
+                    .reservedByUserId(userId)
+                    .reservedDate(now)
+                    .expiryDate(ttlDays > 0 ? now.plusDays(ttlDays) : null)
+                    .build());
+        }
+        reservationRepo.saveAll(rows);
+    }
+
+    /**
+     * يلغي كل حجوزات المستند النشطة. الأسطر تُستخدم فقط لمستندات حُجزت قبل سجل الحجوزات
+     * (تُخصم من الحجوزات المرحّلة Legacy).
+     */
+    @Transactional
+    public void release(String referenceType, Integer referenceId, Integer warehouseId,
+            List<StockReservationLine> lines) {
+        List<StockReservation> active = reservationRepo.findByReferenceTypeAndReferenceIdAndStatus(referenceType,
+                referenceId, StockReservation.ACTIVE);
+        LocalDateTime now = LocalDateTime.now();
+        if (!active.isEmpty()) {
+            for (StockReservation r : active) {
+                close(r, StockReservation.RELEASED, now);
+            }
+            return;
+        }
+        if (!reservationRepo.existsByReferenceTypeAndReferenceId(referenceType, referenceId)) {
+            for (StockReservationLine line : lines) {
+                consumeLines(reservationRepo.findActiveLines(StockReservation.LEGACY_REFERENCE, 0,
+                        line.getItemId(), warehouseId), line.getQuantity(), now);
+            }
+        }
+    }
+
+    /**
+     * يخصم كمية منفذة (صرف فعلي) من حجز المستند لصنف واحد، ويحرر نفس الكمية من المحجوز في الرصيد.
+     *
+     * @return الكمية التي خُصمت فعلاً من الحجز
+     */
+    @Transactional
+    public BigDecimal consume(String referenceType, Integer referenceId, Integer itemId, Integer warehouseId,
+            BigDecimal quantity) {
+        if (quantity == null || quantity.signum() <= 0) {
+            return BigDecimal.ZERO;
+        }
+        List<StockReservation> lines = reservationRepo.existsByReferenceTypeAndReferenceId(referenceType, referenceId)
+                ? reservationRepo.findActiveLines(referenceType, referenceId, itemId, warehouseId)
+                : reservationRepo.findActiveLines(StockReservation.LEGACY_REFERENCE, 0, itemId, warehouseId);
+        return consumeLines(lines, quantity, LocalDateTime.now());
+    }
+
+    private BigDecimal consumeLines(List<StockReservation> lines, BigDecimal quantity, LocalDateTime now) {
+        if (quantity == null || quantity.signum() <= 0) {
+            return BigDecimal.ZERO;
+        }
+        BigDecimal remaining = quantity;
+        for (StockReservation r : lines) {
+            if (remaining.signum() <= 0) {
+                break;
+            }
+            BigDecimal take = remaining.min(r.getReservedQty());
+            if (take.compareTo(r.getReservedQty()) == 0) {
+                close(r, StockReservation.CONSUMED, now);
+            } else {
+                r.setReservedQty(r.getReservedQty().subtract(take));
+                balanceRepo.releaseReserved(r.getItemId(), r.getWarehouseId(), take, now);
+            }
+            remaining = remaining.subtract(take);
+        }
+        return quantity.subtract(remaining);
+    }
+
+    private void close(StockReservation r, String status, LocalDateTime now) {
+        r.setStatus(status);
+        balanceRepo.releaseReserved(r.getItemId(), r.getWarehouseId(), r.getReservedQty(), now);
+    }
+
+    /**
+     * يحرر الحجوزات التي تجاوزت تاريخ انتهائها (دفعة واحدة في كل تشغيل).
+     */
+    @Scheduled(cron = "${app.inventory.reservations.expiry-cron:0 15 * * * *}")
+    @Transactional
+    public int expireStale() {
+        LocalDateTime now = LocalDateTime.now();
+        List<StockReservation> expired = reservationRepo.findExpired(now, PageRequest.ofSize(EXPIRY_BATCH));
+        for (StockReservation r : expired) {
+            close(r, StockReservation.EXPIRED, now);
+        }
+        if (!expired.isEmpty()) {
+            log.info("تم تحرير {} حجز مخزون منتهي الصلاحية", expired.size());
+        }
+        return expired.size();
+    }
+
+    /**
+     * يعيد بناء QuantityReserved من مجموع الحجوزات النشطة. المرشحون يُحددون بقراءة عادية،
+     * ثم كل مفتاح يُصحح في معاملة قصيرة بعد قفل صف الرصيد وإعادة الجمع (حتى لا يُكتب مجموع قديم
+     * فوق حجز تم بالتوازي).
+     *
+     * @return عدد الأرصدة التي صُححت
+     */
+    @Scheduled(cron = "${app.inventory.reservations.reconcile-cron:0 45 2 * * *}")
+    public int reconcile() {
+        List<StockBalanceKey> drifted = jdbcTemplate.query("SELECT b.ItemID, b.WarehouseID FROM stockbalances b "
+                + "LEFT JOIN (SELECT ItemID, WarehouseID, SUM(ReservedQty) AS Qty FROM stockreservations "
+                + "WHERE Status = 'Active' GROUP BY ItemID, WarehouseID) r "
+                + "ON r.ItemID = b.ItemID AND r.WarehouseID = b.WarehouseID "
+                + "WHERE b.QuantityReserved <> COALESCE(r.Qty, 0)",
+                (rs, rowNum) -> StockBalanceKey.of(rs.getInt("ItemID"), rs.getInt("WarehouseID")));
+
+        int fixed = 0;
+        for (StockBalanceKey key : drifted) {
+            Boolean changed = transactionTemplate.execute(status -> reconcileKey(key));
+            if (Boolean.TRUE.equals(changed)) {
+                fixed++;
+            }
+        }
+        if (fixed > 0) {
+            log.warn("مطابقة الحجوزات: تم تصحيح المحجوز في {} رصيد", fixed);
+        }
+        return fixed;
+    }
+
+    private boolean reconcileKey(StockBalanceKey key) {
+        List<BigDecimal> current = jdbcTemplate.queryForList("SELECT QuantityReserved FROM stockbalances "
+                + "WHERE ItemID = ? AND WarehouseID = ? FOR UPDATE", BigDecimal.class,
+                key.getItemId(), key.getWarehouseId());
+        if (current.isEmpty()) {
+            return false;
+        }
+        BigDecimal ledger = jdbcTemplate.queryForObject("SELECT COALESCE(SUM(ReservedQty), 0) FROM stockreservations "
+                + "WHERE ItemID = ? AND WarehouseID = ? AND Status = 'Active' FOR SHARE", BigDecimal.class,
+                key.getItemId(), key.getWarehouseId());
+        BigDecimal reserved = current.get(0) != null ? current.get(0) : BigDecimal.ZERO;
+        if (reserved.compareTo(ledger) == 0) {
+            return false;
+        }
+        log.warn("مطابقة الحجوزات: الصنف {} / المخزن {} محجوز {} والسجل {}", key.getItemId(), key.getWarehouseId(),
+                reserved, ledger);
+        jdbcTemplate.update("UPDATE stockbalances SET QuantityReserved = ?, UpdatedAt = ?, Version = Version + 1 "
+                + "WHERE ItemID = ? AND WarehouseID = ?", ledger, Timestamp.valueOf(LocalDateTime.now()),
+                key.getItemId(), key.getWarehouseId());
+        return true;
+    }
+
+    private BadRequestException shortage(Integer itemId, Integer warehouseId, BigDecimal requested) {
+        BigDecimal available = balanceRepo.findByItemIdAndWarehouseId(itemId, warehouseId)
+                .map(b -> b.getQuantityOnHand().subtract(b.getQuantityReserved()))
+                .orElse(BigDecimal.ZERO);
+        String itemLabel = itemRepo.findById(itemId)
+                .map(i -> i.getItemNameAr() + " (" + i.getItemCode() + ")")
+                .orElse(String.valueOf(itemId));
+        return new BadRequestException("عجز في المخزون للصنف: " + itemLabel + ". المتاح: " + available
+                + "، المطلوب: " + requested);
+    }
+}
@@ -1,5 +1,7 @@
 package com.rasras.erp.inventory;
 
+import com.rasras.erp.shared.service.DocumentSequenceService;
+import com.rasras.erp.shared.service.DocumentType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -20,6 +22,7 @@ public class StockTransferService {
     private final UnitRepository unitRepo;
     private final InventoryService inventoryService;
     private final StockBalanceRepository stockBalanceRepository;
+    private final DocumentSequenceService documentSequence;
 
     @Transactional(readOnly = true)
     public List<StockTransferDto> getAll() {
@@ -133,7 +136,8 @@ public class StockTransferService {
 
     /**
      * إتمام التحويل: خصم من المخزن المصدر وإضافة إلى المخزن الهدف.
-     * تطبيق FIFO عبر استخدام InventoryService الذي يحدث الأرصدة والحركات.
+     * الصرف يستهلك طبقات FIFO للمخزن المصدر (لوط السطر أولاً إن وُجد) وتنتقل الطبقات المستهلكة
+     * بلوطها وتكلفتها إلى المخزن الهدف (StockCostLayerLedger).
      */
     @Transactional
     public StockTransferDto finalizeTransfer(Integer id, Integer userId) {
@@ -148,6 +152,7 @@ public class StockTransferService {
         Integer toWarehouseId = transfer.getToWarehouse().getId();
         int effectiveUserId = userId != null ? userId : transfer.getRequestedByUserId();
 
+        List<StockPosting> postings = new ArrayList<>();
         for (StockTransferItem item : transfer.getItems()) {
             BigDecimal qty = item.getRequestedQty();
             if (qty == null || qty.compareTo(BigDecimal.ZERO) <= 0) {
@@ -161,22 +166,17 @@ public class StockTransferService {
             ensureStockAvailable(itemId, fromWarehouseId, qty, transfer.getTransferNumber());
 
             // خصم من المخزن المصدر (OUT)
-            inventoryService.updateStock(
-                    itemId, fromWarehouseId, qty, "OUT",
-                    "TRANSFER_OUT", "StockTransfer", transfer.getId(), transfer.getTransferNumber(),
-                    unitCost, effectiveUserId
-            );
+            postings.add(transferPosting(transfer, itemId, fromWarehouseId, qty, "OUT", "TRANSFER_OUT", unitCost,
+                    item.getLotNumber(), effectiveUserId));
 
             // إضافة إلى المخزن الهدف (IN)
-            inventoryService.updateStock(
-                    itemId, toWarehouseId, qty, "IN",
-                    "TRANSFER_IN", "StockTransfer", transfer.getId(), transfer.getTransferNumber(),
-                    unitCost, effectiveUserId
-            );
+            postings.add(transferPosting(transfer, itemId, toWarehouseId, qty, "IN", "TRANSFER_IN", unitCost,
+                    item.getLotNumber(), effectiveUserId));
 
             item.setTransferredQty(qty);
             item.setReceivedQty(qty);
         }
+        inventoryService.postMovements(postings);
 
         transfer.setStatus("Completed");
         transfer.setTransferredByUserId(effectiveUserId);
@@ -187,6 +187,23 @@ public class StockTransferService {
         return mapToDto(transferRepo.save(transfer));
     }
 
+    private StockPosting transferPosting(StockTransfer transfer, Integer itemId, Integer warehouseId, BigDecimal qty,
+            String direction, String moveType, BigDecimal unitCost, String lotNumber, Integer userId) {
+        return StockPosting.builder()
+                .itemId(itemId)
+                .warehouseId(warehouseId)
+                .quantity(qty)
+                .direction(direction)
+                .movementType(moveType)
+                .referenceType("StockTransfer")
+                .referenceId(transfer.getId())
+                .referenceNumber(transfer.getTransferNumber())
+                .unitCost(unitCost)
+                .userId(userId)
+                .lotNumber(lotNumber)
+                .build();
+    }
+
     private void ensureStockAvailable(Integer itemId, Integer warehouseId, BigDecimal required, String ref) {
         BigDecimal available = stockBalanceRepository
                 .findByItemIdAndWarehouseId(itemId, warehouseId)
@@ -209,9 +226,7 @@ public class StockTransferService {
     }
 
     private String generateTransferNumber() {
-        long count = transferRepo.count() + 1;
-        LocalDateTime now = LocalDateTime.now();
-        return String.format("TRF-%d%02d-%03d", now.getYear(), now.getMonthValue(), count);
+        return documentSequence.next(DocumentType.STOCK_TRANSFER);
     }
 
     private StockTransferDto mapToDto(StockTransfer entity) {
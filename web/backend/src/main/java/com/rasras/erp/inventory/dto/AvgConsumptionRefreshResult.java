@@ -0,0 +1,26 @@
+package com.rasras.erp.inventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * نتيجة تشغيل إعادة حساب متوسط الاستهلاك الشهري: عدد الأصناف والدفعات والمدة.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AvgConsumptionRefreshResult {
+    private List<Integer> categoryIds;
+    private int monthsUsed;
+    private int itemsScanned;
+    private int itemsUpdated;
+    private int chunks;
+    private int failedChunks;
+    private long aggregateMillis;
+    private long durationMillis;
+}
@@ -0,0 +1,26 @@
+package com.rasras.erp.inventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * مجموع طبقات FIFO لصنف/مخزن/لوط: الكمية المتبقية وقيمتها (تقييم)، أو الكمية المستهلكة وتكلفتها (تكلفة المبيعات)
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FifoCostDto {
+    private Integer itemId;
+    private String itemCode;
+    private String itemNameAr;
+    private Integer warehouseId;
+    private String warehouseNameAr;
+    private String lotNumber;
+    private BigDecimal quantity;
+    private BigDecimal totalCost;
+}
@@ -0,0 +1,26 @@
+package com.rasras.erp.inventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * نتيجة بحث خفيفة لقوائم اختيار الأصناف (بدلاً من ItemDto الكامل)
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ItemSearchResultDto {
+    private Integer id;
+    private String itemCode;
+    private String itemNameAr;
+    private String itemNameEn;
+    private String grade;
+    private String gradeName;
+    private String barcode;
+    private Integer categoryId;
+    private Integer unitId;
+    private Boolean isActive;
+}
@@ -0,0 +1,30 @@
+package com.rasras.erp.inventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * سطر في قائمة متابعة الأصناف تحت الحد الأدنى / حد إعادة الطلب
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LowStockWatchDto {
+    private Integer itemId;
+    private String itemCode;
+    private String itemNameAr;
+    private String grade;
+    /** BELOW_MIN أو BELOW_REORDER */
+    private String status;
+    private BigDecimal totalOnHand;
+    private BigDecimal minStockLevel;
+    private BigDecimal reorderLevel;
+    /** منذ متى الصنف في هذه الحالة */
+    private LocalDateTime since;
+}
@@ -13,12 +13,12 @@ import com.lowagie.text.pdf.PdfPTable;
 import com.lowagie.text.pdf.PdfWriter;
 import com.rasras.erp.company.CompanyInfo;
 import com.rasras.erp.company.CompanyInfoRepository;
+import com.rasras.erp.shared.pdf.PdfFontRegistry;
 import org.springframework.core.io.ClassPathResource;
 
 import java.awt.Color;
 import java.io.File;
-import java.io.InputStream;
-import java.time.LocalDateTime;
+import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.HashMap;
 import java.util.Map;
@@ -43,12 +43,38 @@ public final class ProcurementPdfStyleSupport {
     private static final Map<String, String> ENGLISH_TO_ARABIC_MAP = buildEnglishToArabicMap();
     private static final Pattern LTR_VALUE_PATTERN = Pattern.compile("^[\\p{Alnum}#:/+\\-.,_%()\\s]+$");
 
+    /**
+     * خطوط تقارير المشتريات، تُبنى مرة واحدة في PdfFontRegistry وتُشارك بين كل المستندات (لا تُعدّل).
+     */
+    public record Fonts(Font section, Font normal, Font small,
+                        Font headerTitle, Font headerDocumentNo, Font headerMuted, Font headerEnLabel, Font headerEnBrand,
+                        Font footerNote, Font footerSite, Font extraction) {
+
+        private static Fonts of(PdfFontRegistry registry) {
+            BaseFont baseFont = registry.regular();
+            return new Fonts(
+                    new Font(baseFont, 11, Font.BOLD),
+                    new Font(baseFont, 10, Font.NORMAL),
+                    new Font(baseFont, 9, Font.NORMAL),
+                    new Font(baseFont, 18, Font.BOLD, BRAND_SECONDARY),
+                    new Font(baseFont, 10, Font.BOLD, BRAND_PRIMARY),
+                    new Font(baseFont, 10, Font.NORMAL, SLATE_500),
+                    new Font(baseFont, 9, Font.NORMAL, SLATE_500),
+                    new Font(baseFont, 13, Font.BOLD, BRAND_PRIMARY),
+                    new Font(baseFont, 8, Font.NORMAL, SLATE_500),
+                    new Font(baseFont, 7, Font.NORMAL, SLATE_500),
+                    new Font(baseFont, 8, Font.NORMAL, SLATE_500));
+        }
+    }
+
+    public static Fonts fonts(PdfFontRegistry registry) {
+        return registry.fontSet("procurement", Fonts::of);
+    }
+
     public static void addHeader(
             Document document,
             CompanyInfoRepository companyInfoRepository,
-            Font titleFont,
-            Font normalFont,
-            Font smallFont,
+            Fonts fonts,
             String arabicTitle,
             String documentLabel,
             String documentNumber
@@ -88,7 +114,7 @@ public final class ProcurementPdfStyleSupport {
 
         PdfPCell t = new PdfPCell(new Phrase(
                 arabicTitle,
-                new Font(titleFont.getBaseFont(), 18, Font.BOLD, BRAND_SECONDARY)
+                fonts.headerTitle()
         ));
         t.setBorder(Rectangle.NO_BORDER);
         t.setRunDirection(PdfWriter.RUN_DIRECTION_RTL);
@@ -104,7 +130,7 @@ public final class ProcurementPdfStyleSupport {
 
         PdfPCell labelCell = new PdfPCell(new Phrase(
                 documentLabel + ":",
-                new Font(normalFont.getBaseFont(), 10, Font.BOLD, BRAND_PRIMARY)
+                fonts.headerDocumentNo()
         ));
         labelCell.setBorder(Rectangle.NO_BORDER);
         labelCell.setRunDirection(PdfWriter.RUN_DIRECTION_RTL);
@@ -114,7 +140,7 @@ public final class ProcurementPdfStyleSupport {
 
         PdfPCell valueCell = new PdfPCell(new Phrase(
                 documentNumber != null ? documentNumber : "—",
-                new Font(normalFont.getBaseFont(), 10, Font.BOLD, BRAND_PRIMARY)
+                fonts.headerDocumentNo()
         ));
         valueCell.setBorder(Rectangle.NO_BORDER);
         valueCell.setRunDirection(PdfWriter.RUN_DIRECTION_LTR);
@@ -135,7 +161,7 @@ public final class ProcurementPdfStyleSupport {
 
         PdfPCell c = new PdfPCell(new Phrase(
                 companyAr,
-                new Font(normalFont.getBaseFont(), 10, Font.NORMAL, SLATE_500)
+                fonts.headerMuted()
         ));
         c.setBorder(Rectangle.NO_BORDER);
         c.setRunDirection(PdfWriter.RUN_DIRECTION_RTL);
@@ -169,11 +195,11 @@ public final class ProcurementPdfStyleSupport {
         left.setVerticalAlignment(Element.ALIGN_MIDDLE);
         left.setPadding(8f);
 
-        Paragraph enLabel = new Paragraph("PROCUREMENT REPORT", new Font(normalFont.getBaseFont(), 9, Font.NORMAL, SLATE_500));
+        Paragraph enLabel = new Paragraph("PROCUREMENT REPORT", fonts.headerEnLabel());
         enLabel.setAlignment(Element.ALIGN_LEFT);
         left.addElement(enLabel);
 
-        Paragraph enBrand = new Paragraph(companyEn, new Font(titleFont.getBaseFont(), 13, Font.BOLD, BRAND_PRIMARY));
+        Paragraph enBrand = new Paragraph(companyEn, fonts.headerEnBrand());
         enBrand.setSpacingBefore(3f);
         enBrand.setAlignment(Element.ALIGN_LEFT);
         left.addElement(enBrand);
@@ -193,7 +219,7 @@ public final class ProcurementPdfStyleSupport {
         bar.addCell(barCell);
         document.add(bar);
 
-        addExtractionDate(document, smallFont);
+        addExtractionDate(document, fonts);
     }
 
     public static void addSectionTitle(Document document, String title, Font sectionFont) throws Exception {
@@ -261,7 +287,7 @@ public final class ProcurementPdfStyleSupport {
         cell.setVerticalAlignment(Element.ALIGN_MIDDLE);
     }
 
-    public static void addFooter(Document document, Font smallFont) throws Exception {
+    public static void addFooter(Document document, Fonts fonts) throws Exception {
         PdfPTable sep = new PdfPTable(1);
         sep.setWidthPercentage(100);
 
@@ -284,14 +310,14 @@ public final class ProcurementPdfStyleSupport {
 
         Paragraph p1 = new Paragraph(
                 "تم إنشاء هذا التقرير آلياً من نظام رصرص لإدارة الموارد",
-                new Font(smallFont.getBaseFont(), 8, Font.NORMAL, SLATE_500)
+                fonts.footerNote()
         );
         p1.setAlignment(Element.ALIGN_RIGHT);
         footerCell.addElement(p1);
 
         Paragraph p2 = new Paragraph(
                 "تم الإنشاء بواسطة نظام رصرص ERP  •  www.rasrasplastic.com",
-                new Font(smallFont.getBaseFont(), 7, Font.NORMAL, SLATE_500)
+                fonts.footerSite()
         );
         p2.setAlignment(Element.ALIGN_RIGHT);
         footerCell.addElement(p2);
@@ -323,18 +349,6 @@ public final class ProcurementPdfStyleSupport {
         return lowerTranslated != null ? lowerTranslated : trimmed;
     }
 
-    public static BaseFont loadArabicBaseFont() {
-        try {
-            ClassPathResource res = new ClassPathResource("fonts/arial.ttf");
-            try (InputStream is = res.getInputStream()) {
-                byte[] bytes = is.readAllBytes();
-                return BaseFont.createFont("fonts/arial.ttf", BaseFont.IDENTITY_H, BaseFont.EMBEDDED, true, bytes, null);
-            }
-        } catch (Exception e) {
-            throw new RuntimeException("Arabic font not found: fonts/arial.ttf", e);
-        }
-    }
-
     public static boolean shouldUseLtrDirection(String value) {
         if (value == null || value.isBlank()) {
             return false;
@@ -419,10 +433,11 @@ public final class ProcurementPdfStyleSupport {
         document.add(wrapper);
     }
 
-    private static void addExtractionDate(Document document, Font smallFont) throws Exception {
-        String ts = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy/MM/dd HH:mm:ss"));
-        Font labelFont = new Font(smallFont.getBaseFont(), 8, Font.NORMAL, SLATE_500);
-        Font valueFont = new Font(smallFont.getBaseFont(), 8, Font.NORMAL, SLATE_500);
+    /** تاريخ فقط بلا وقت: الملف يُخدم من PdfRenderCache طوال اليوم (المفتاح يتغير يومياً) */
+    private static void addExtractionDate(Document document, Fonts fonts) throws Exception {
+        String ts = LocalDate.now().format(DateTimeFormatter.ofPattern("yyyy/MM/dd"));
+        Font labelFont = fonts.extraction();
+        Font valueFont = fonts.extraction();
 
         PdfPTable table = new PdfPTable(2);
         table.setWidthPercentage(100);
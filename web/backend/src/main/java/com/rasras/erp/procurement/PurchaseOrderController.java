@@ -1,12 +1,13 @@
 package com.rasras.erp.procurement;
 
+import com.rasras.erp.shared.pdf.PdfRenderCache;
 import com.rasras.erp.shared.security.SecurityConstants;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 import java.util.Map;
@@ -20,6 +21,7 @@ public class PurchaseOrderController {
 
     private final PurchaseOrderService poService;
     private final PurchaseOrderPdfService poPdfService;
+    private final PdfRenderCache pdfRenderCache;
 
     @PreAuthorize(SecurityConstants.PROCUREMENT_SECTION + " or " + SecurityConstants.SUPPLIER_INVOICE_VIEW + " or hasAuthority('SECTION_WAREHOUSE') or hasAuthority('SECTION_OPERATIONS') or hasAuthority('INVENTORY_VIEW')")
     @GetMapping
@@ -47,14 +49,11 @@ public class PurchaseOrderController {
 
     @PreAuthorize(SecurityConstants.PROCUREMENT_SECTION + " or " + SecurityConstants.SUPPLIER_INVOICE_VIEW + " or hasAuthority('SECTION_WAREHOUSE') or hasAuthority('SECTION_OPERATIONS') or hasAuthority('INVENTORY_VIEW')")
     @GetMapping("/{id}/pdf")
-    public ResponseEntity<byte[]> downloadPOPdf(@PathVariable Integer id) {
+    public ResponseEntity<StreamingResponseBody> downloadPOPdf(@PathVariable Integer id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         PurchaseOrderDto po = poService.getPOById(id);
-        byte[] pdf = poPdfService.generatePdf(po);
         String fileName = "PurchaseOrder_" + (po.getPoNumber() != null ? po.getPoNumber() : id) + ".pdf";
-        return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
-                .contentType(MediaType.APPLICATION_PDF)
-                .body(pdf);
+        return pdfRenderCache.serve("PURCHASE_ORDER", id, po, fileName, ifNoneMatch, () -> poPdfService.generatePdf(po));
     }
 
     @PreAuthorize(SecurityConstants.PROCUREMENT_SECTION)
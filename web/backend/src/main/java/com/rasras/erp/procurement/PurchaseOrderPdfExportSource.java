@@ -0,0 +1,44 @@
+package com.rasras.erp.procurement;
+
+import com.rasras.erp.shared.pdf.PdfExportDocument;
+import com.rasras.erp.shared.pdf.PdfExportFilter;
+import com.rasras.erp.shared.pdf.PdfExportSource;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Set;
+
+@Component
+@RequiredArgsConstructor
+public class PurchaseOrderPdfExportSource implements PdfExportSource {
+
+    private final PurchaseOrderRepository poRepository;
+    private final PurchaseOrderService poService;
+    private final PurchaseOrderPdfService poPdfService;
+
+    @Override
+    public String documentType() {
+        return "PURCHASE_ORDER";
+    }
+
+    /** مثل قائمة أوامر الشراء في PurchaseOrderController */
+    @Override
+    public Set<String> requiredAuthorities() {
+        return Set.of("SECTION_PROCUREMENT", "SECTION_SALES", "SUPPLIER_INVOICE_VIEW", "SECTION_WAREHOUSE",
+                "SECTION_OPERATIONS", "INVENTORY_VIEW");
+    }
+
+    @Override
+    public List<Integer> findIds(PdfExportFilter filter) {
+        return poRepository.findIdsForExport(filter.startDate().atStartOfDay(),
+                filter.endDate().plusDays(1).atStartOfDay(), filter.supplierId(), filter.status());
+    }
+
+    @Override
+    public PdfExportDocument render(Integer id) {
+        PurchaseOrderDto po = poService.getPOById(id);
+        String fileName = "PurchaseOrder_" + (po.getPoNumber() != null ? po.getPoNumber() : id) + ".pdf";
+        return new PdfExportDocument(fileName, poPdfService.generatePdf(po));
+    }
+}
@@ -1,8 +1,11 @@
 package com.rasras.erp.procurement;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,4 +17,11 @@ public interface PurchaseOrderRepository extends JpaRepository<PurchaseOrder, In
 
     // ✅ للحماية من إنشاء PO مزدوج من نفس العرض
     Optional<PurchaseOrder> findByQuotationId(Integer quotationId);
+
+    /** معرفات أوامر الشراء للتصدير المجمع: from شامل، to غير شامل */
+    @Query("SELECT p.id FROM PurchaseOrder p WHERE p.poDate >= :from AND p.poDate < :to"
+            + " AND (:supplierId IS NULL OR p.supplier.id = :supplierId) AND (:status IS NULL OR p.status = :status)"
+            + " ORDER BY p.poDate, p.id")
+    List<Integer> findIdsForExport(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to,
+            @Param("supplierId") Integer supplierId, @Param("status") String status);
 }
@@ -8,6 +8,8 @@ import com.rasras.erp.inventory.GoodsReceiptNoteDto;
 import com.rasras.erp.inventory.GRNItemDto;
 import com.rasras.erp.supplier.Supplier;
 import com.rasras.erp.supplier.SupplierRepository;
+import com.rasras.erp.shared.service.DocumentSequenceService;
+import com.rasras.erp.shared.service.DocumentType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -29,6 +31,7 @@ public class PurchaseOrderService {
         private final GRNService grnService;
         private final com.rasras.erp.approval.ApprovalService approvalService;
         private final com.rasras.erp.supplier.SupplierInvoiceRepository invoiceRepo;
+        private final DocumentSequenceService documentSequence;
 
         @Transactional(readOnly = true)
         public List<PurchaseOrderDto> getAllPOs() {
@@ -199,8 +202,7 @@ public class PurchaseOrderService {
         }
 
         private String generatePONumber() {
-                long count = poRepo.count() + 1;
-                return String.format("PO-%d", count);
+                return documentSequence.next(DocumentType.PURCHASE_ORDER);
         }
 
         private PurchaseOrderItem mapToItemEntity(PurchaseOrder po, PurchaseOrderItemDto dto) {
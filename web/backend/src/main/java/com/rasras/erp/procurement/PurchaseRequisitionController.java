@@ -1,16 +1,17 @@
 package com.rasras.erp.procurement;
 
 import com.rasras.erp.shared.dto.ApiResponse;
+import com.rasras.erp.shared.pdf.PdfRenderCache;
 import com.rasras.erp.shared.security.SecurityConstants;
 import com.rasras.erp.shared.security.UserPrincipal;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -23,6 +24,7 @@ public class PurchaseRequisitionController {
 
     private final PurchaseRequisitionService prService;
     private final PurchaseRequisitionPdfService prPdfService;
+    private final PdfRenderCache pdfRenderCache;
 
     @GetMapping
     public ResponseEntity<ApiResponse<List<PurchaseRequisitionDto>>> getAllPurchaseRequisitions() {
@@ -50,15 +52,11 @@ public class PurchaseRequisitionController {
     }
 
     @GetMapping("/{id}/pdf")
-    public ResponseEntity<byte[]> downloadPurchaseRequisitionPdf(@PathVariable Integer id) {
+    public ResponseEntity<StreamingResponseBody> downloadPurchaseRequisitionPdf(@PathVariable Integer id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         PurchaseRequisitionDto pr = prService.getPurchaseRequisitionById(id);
-        byte[] pdf = prPdfService.generatePdf(pr);
         String fileName = "PurchaseRequisition_" + (pr.getPrNumber() != null ? pr.getPrNumber() : id) + ".pdf";
-
-        return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
-                .contentType(MediaType.APPLICATION_PDF)
-                .body(pdf);
+        return pdfRenderCache.serve("PURCHASE_REQUISITION", id, pr, fileName, ifNoneMatch, () -> prPdfService.generatePdf(pr));
     }
 
     @PostMapping
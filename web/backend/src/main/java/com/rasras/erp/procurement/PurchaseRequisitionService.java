@@ -10,9 +10,12 @@ import com.rasras.erp.inventory.ItemRepository;
 import com.rasras.erp.inventory.UnitRepository;
 import com.rasras.erp.approval.ApprovalService;
 import com.rasras.erp.approval.ApprovalRequest;
+import com.rasras.erp.approval.ApprovalInboxService;
 import com.rasras.erp.approval.ApprovalRequestRepository;
 import com.rasras.erp.approval.ApprovalActionRepository;
 import com.rasras.erp.approval.ApprovalWorkflowStep;
+import com.rasras.erp.shared.service.DocumentSequenceService;
+import com.rasras.erp.shared.service.DocumentType;
 import org.springframework.http.HttpStatus;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
@@ -42,6 +45,8 @@ public class PurchaseRequisitionService {
         private final SupplierQuotationRepository supplierQuotationRepository;
         private final ApprovalRequestRepository approvalRequestRepository;
         private final ApprovalActionRepository approvalActionRepository;
+        private final ApprovalInboxService approvalInbox;
+        private final DocumentSequenceService documentSequence;
 
         @Transactional(readOnly = true)
         public List<PurchaseRequisitionDto> getAllPurchaseRequisitions() {
@@ -177,6 +182,7 @@ public class PurchaseRequisitionService {
                 for (var ar : approvalRequests) {
                         approvalActionRepository.findByRequestIdOrderByActionDateDesc(ar.getId())
                                         .forEach(approvalActionRepository::delete);
+                        approvalInbox.remove(ar.getId());
                         approvalRequestRepository.delete(ar);
                 }
                 prRepository.delete(pr);
@@ -306,8 +312,7 @@ public class PurchaseRequisitionService {
         }
 
         private String generatePrNumber() {
-                long n = prRepository.count() + 1;
-                return "#PR-" + n;
+                return documentSequence.next(DocumentType.PURCHASE_REQUISITION);
         }
 
         private PurchaseRequisitionDto mapToDto(PurchaseRequisition pr) {
@@ -2,13 +2,14 @@ package com.rasras.erp.procurement;
 
 import com.rasras.erp.procurement.dto.PurchaseReturnDto;
 import com.rasras.erp.shared.dto.ApiResponse;
+import com.rasras.erp.shared.pdf.PdfRenderCache;
 import com.rasras.erp.shared.security.SecurityConstants;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -20,6 +21,7 @@ public class PurchaseReturnController {
 
     private final PurchaseReturnService returnService;
     private final PurchaseReturnPdfService returnPdfService;
+    private final PdfRenderCache pdfRenderCache;
 
     @GetMapping
     public ResponseEntity<ApiResponse<List<PurchaseReturnDto>>> getAllReturns() {
@@ -32,14 +34,11 @@ public class PurchaseReturnController {
     }
 
     @GetMapping("/{id}/pdf")
-    public ResponseEntity<byte[]> downloadReturnPdf(@PathVariable Integer id) {
+    public ResponseEntity<StreamingResponseBody> downloadReturnPdf(@PathVariable Integer id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         PurchaseReturnDto purchaseReturn = returnService.getReturnById(id);
-        byte[] pdf = returnPdfService.generatePdf(purchaseReturn);
         String fileName = "PurchaseReturn_" + (purchaseReturn.getReturnNumber() != null ? purchaseReturn.getReturnNumber() : id) + ".pdf";
-        return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
-                .contentType(MediaType.APPLICATION_PDF)
-                .body(pdf);
+        return pdfRenderCache.serve("PURCHASE_RETURN", id, purchaseReturn, fileName, ifNoneMatch, () -> returnPdfService.generatePdf(purchaseReturn));
     }
 
     @PostMapping
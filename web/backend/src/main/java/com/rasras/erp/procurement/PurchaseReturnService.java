@@ -5,6 +5,7 @@ import com.rasras.erp.inventory.UnitRepository;
 import com.rasras.erp.inventory.WarehouseRepository;
 import com.rasras.erp.inventory.GoodsReceiptNoteRepository;
 import com.rasras.erp.inventory.GoodsReceiptNote;
+import com.rasras.erp.inventory.StockPosting;
 import com.rasras.erp.procurement.dto.PurchaseReturnDto;
 import com.rasras.erp.procurement.dto.PurchaseReturnItemDto;
 import com.rasras.erp.shared.exception.BadRequestException;
@@ -127,19 +128,20 @@ public class PurchaseReturnService {
                 entity.getReturnReason().contains("Rejected during Quality Inspection");
 
         if (!isRejectionReturn) {
-            for (PurchaseReturnItem item : entity.getItems()) {
-                inventoryService.updateStock(
-                        item.getItem().getId(),
-                        entity.getWarehouse().getId(),
-                        item.getReturnedQty(),
-                        "OUT",
-                        "RETURN",
-                        "PurchaseReturn",
-                        entity.getId(),
-                        entity.getReturnNumber(),
-                        item.getUnitPrice(),
-                        userId);
-            }
+            inventoryService.postMovements(entity.getItems().stream()
+                    .map(item -> StockPosting.builder()
+                            .itemId(item.getItem().getId())
+                            .warehouseId(entity.getWarehouse().getId())
+                            .quantity(item.getReturnedQty())
+                            .direction("OUT")
+                            .movementType("RETURN")
+                            .referenceType("PurchaseReturn")
+                            .referenceId(entity.getId())
+                            .referenceNumber(entity.getReturnNumber())
+                            .unitCost(item.getUnitPrice())
+                            .userId(userId)
+                            .build())
+                    .collect(Collectors.toList()));
         }
 
         // 2. Update Supplier Balance (Decrease) & Total Returned (Increase)
@@ -1,13 +1,14 @@
 package com.rasras.erp.procurement;
 
 import com.rasras.erp.shared.dto.ApiResponse;
+import com.rasras.erp.shared.pdf.PdfRenderCache;
 import com.rasras.erp.shared.security.SecurityConstants;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -19,6 +20,7 @@ public class QuotationComparisonController {
 
     private final QuotationComparisonService comparisonService;
     private final QuotationComparisonPdfService comparisonPdfService;
+    private final PdfRenderCache pdfRenderCache;
 
     @GetMapping
     public ResponseEntity<ApiResponse<List<QuotationComparisonDto>>> getAllComparisons() {
@@ -31,14 +33,11 @@ public class QuotationComparisonController {
     }
 
     @GetMapping("/{id}/pdf")
-    public ResponseEntity<byte[]> downloadComparisonPdf(@PathVariable Integer id) {
+    public ResponseEntity<StreamingResponseBody> downloadComparisonPdf(@PathVariable Integer id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         QuotationComparisonDto comparison = comparisonService.getComparisonById(id);
-        byte[] pdf = comparisonPdfService.generatePdf(comparison);
         String fileName = "QuotationComparison_" + (comparison.getComparisonNumber() != null ? comparison.getComparisonNumber() : id) + ".pdf";
-        return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
-                .contentType(MediaType.APPLICATION_PDF)
-                .body(pdf);
+        return pdfRenderCache.serve("QUOTATION_COMPARISON", id, comparison, fileName, ifNoneMatch, () -> comparisonPdfService.generatePdf(comparison));
     }
 
     @PostMapping
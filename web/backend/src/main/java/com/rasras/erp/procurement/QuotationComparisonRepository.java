@@ -1,8 +1,11 @@
 package com.rasras.erp.procurement;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -11,4 +14,8 @@ public interface QuotationComparisonRepository extends JpaRepository<QuotationCo
     Optional<QuotationComparison> findByPurchaseRequisitionIdAndItemId(Integer prId, Integer itemId);
 
     List<QuotationComparison> findByPurchaseRequisitionId(Integer prId);
+
+    /** [ComparisonID, إجمالي عرض السعر المختار] لمجموعة مقارنات في استعلام واحد */
+    @Query("SELECT qc.id, q.totalAmount FROM QuotationComparison qc JOIN qc.selectedQuotation q WHERE qc.id IN :ids")
+    List<Object[]> findSelectedQuotationTotals(@Param("ids") Collection<Integer> ids);
 }
@@ -3,6 +3,8 @@ package com.rasras.erp.procurement;
 import com.rasras.erp.inventory.ItemRepository;
 import com.rasras.erp.supplier.SupplierRepository;
 import com.rasras.erp.approval.ApprovalService;
+import com.rasras.erp.shared.service.DocumentSequenceService;
+import com.rasras.erp.shared.service.DocumentType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -23,6 +25,7 @@ public class QuotationComparisonService {
         private final ItemRepository itemRepository;
         private final SupplierQuotationRepository quotationRepository;
         private final ApprovalService approvalService;
+        private final DocumentSequenceService documentSequence;
 
         @Transactional(readOnly = true)
         public List<QuotationComparisonDto> getAllComparisons() {
@@ -128,8 +131,7 @@ public class QuotationComparisonService {
         }
 
         private String generateComparisonNumber() {
-                long count = comparisonRepository.count() + 1;
-                return "#COMP-" + count;
+                return documentSequence.next(DocumentType.QUOTATION_COMPARISON);
         }
 
         private QuotationComparisonDto mapToDto(QuotationComparison comparison) {
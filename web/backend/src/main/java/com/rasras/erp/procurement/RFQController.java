@@ -1,13 +1,14 @@
 package com.rasras.erp.procurement;
 
 import com.rasras.erp.shared.dto.ApiResponse;
+import com.rasras.erp.shared.pdf.PdfRenderCache;
 import com.rasras.erp.shared.security.SecurityConstants;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -19,6 +20,7 @@ public class RFQController {
 
     private final RFQService rfqService;
     private final RFQPdfService rfqPdfService;
+    private final PdfRenderCache pdfRenderCache;
 
     @GetMapping
     public ResponseEntity<ApiResponse<List<RFQDto>>> getAllRFQs() {
@@ -31,14 +33,11 @@ public class RFQController {
     }
 
     @GetMapping("/{id}/pdf")
-    public ResponseEntity<byte[]> downloadRFQPdf(@PathVariable Integer id) {
+    public ResponseEntity<StreamingResponseBody> downloadRFQPdf(@PathVariable Integer id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         RFQDto rfq = rfqService.getRFQById(id);
-        byte[] pdf = rfqPdfService.generatePdf(rfq);
         String fileName = "RFQ_" + (rfq.getRfqNumber() != null ? rfq.getRfqNumber() : id) + ".pdf";
-        return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
-                .contentType(MediaType.APPLICATION_PDF)
-                .body(pdf);
+        return pdfRenderCache.serve("RFQ", id, rfq, fileName, ifNoneMatch, () -> rfqPdfService.generatePdf(rfq));
     }
 
     @PostMapping
@@ -5,11 +5,11 @@ import com.lowagie.text.Element;
 import com.lowagie.text.Font;
 import com.lowagie.text.PageSize;
 import com.lowagie.text.Phrase;
-import com.lowagie.text.pdf.BaseFont;
 import com.lowagie.text.pdf.PdfPCell;
 import com.lowagie.text.pdf.PdfPTable;
 import com.lowagie.text.pdf.PdfWriter;
 import com.rasras.erp.company.CompanyInfoRepository;
+import com.rasras.erp.shared.pdf.PdfFontRegistry;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
@@ -22,14 +22,14 @@ import java.util.List;
 public class RFQPdfService {
 
     private final CompanyInfoRepository companyInfoRepository;
+    private final PdfFontRegistry fontRegistry;
 
     public byte[] generatePdf(RFQDto rfq) {
         try (ByteArrayOutputStream out = new ByteArrayOutputStream()) {
-            BaseFont baseFont = ProcurementPdfStyleSupport.loadArabicBaseFont();
-            Font titleFont = new Font(baseFont, 16, Font.BOLD);
-            Font sectionFont = new Font(baseFont, 11, Font.BOLD);
-            Font normalFont = new Font(baseFont, 10, Font.NORMAL);
-            Font smallFont = new Font(baseFont, 9, Font.NORMAL);
+            ProcurementPdfStyleSupport.Fonts fonts = ProcurementPdfStyleSupport.fonts(fontRegistry);
+            Font sectionFont = fonts.section();
+            Font normalFont = fonts.normal();
+            Font smallFont = fonts.small();
 
             Document document = new Document(PageSize.A4, 28, 28, 24, 24);
             PdfWriter.getInstance(document, out);
@@ -38,9 +38,7 @@ public class RFQPdfService {
             ProcurementPdfStyleSupport.addHeader(
                     document,
                     companyInfoRepository,
-                    titleFont,
-                    normalFont,
-                    smallFont,
+                    fonts,
                     "تقرير طلب عرض سعر",
                     "رقم الطلب",
                     safe(rfq.getRfqNumber())
@@ -98,7 +96,7 @@ public class RFQPdfService {
             }
 
             document.add(items);
-            ProcurementPdfStyleSupport.addFooter(document, smallFont);
+            ProcurementPdfStyleSupport.addFooter(document, fonts);
             document.close();
             return out.toByteArray();
         } catch (Exception ex) {
@@ -3,6 +3,8 @@ package com.rasras.erp.procurement;
 import com.rasras.erp.inventory.ItemRepository;
 import com.rasras.erp.inventory.UnitRepository;
 import com.rasras.erp.supplier.SupplierRepository;
+import com.rasras.erp.shared.service.DocumentSequenceService;
+import com.rasras.erp.shared.service.DocumentType;
 // Already existing imports
 // Need to ensure SupplierQuotationRepository is available if not already in package or imported
 // Since it's in the same package, explicit import might not be needed, BUT if it was used without being available it would fail.
@@ -27,6 +29,7 @@ public class RFQService {
         private final UnitRepository unitRepository;
         private final PurchaseOrderRepository purchaseOrderRepository;
         private final SupplierQuotationRepository supplierQuotationRepository;
+        private final DocumentSequenceService documentSequence;
 
         @Transactional(readOnly = true)
         public List<RFQDto> getAllRFQs() {
@@ -127,8 +130,7 @@ public class RFQService {
         }
 
         private String generateRFQNumber() {
-                long n = rfqRepository.count() + 1;
-                return "#RFQ-" + n;
+                return documentSequence.next(DocumentType.RFQ);
         }
 
         private RFQDto mapToDto(RequestForQuotation rfq) {
@@ -1,13 +1,14 @@
 package com.rasras.erp.procurement;
 
 import com.rasras.erp.shared.dto.ApiResponse;
+import com.rasras.erp.shared.pdf.PdfRenderCache;
 import com.rasras.erp.shared.security.SecurityConstants;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -19,6 +20,7 @@ public class SupplierQuotationController {
 
     private final SupplierQuotationService quotationService;
     private final SupplierQuotationPdfService quotationPdfService;
+    private final PdfRenderCache pdfRenderCache;
 
     @GetMapping
     public ResponseEntity<ApiResponse<List<SupplierQuotationDto>>> getAllQuotations() {
@@ -31,14 +33,11 @@ public class SupplierQuotationController {
     }
 
     @GetMapping("/{id}/pdf")
-    public ResponseEntity<byte[]> downloadQuotationPdf(@PathVariable Integer id) {
+    public ResponseEntity<StreamingResponseBody> downloadQuotationPdf(@PathVariable Integer id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         SupplierQuotationDto quotation = quotationService.getQuotationById(id);
-        byte[] pdf = quotationPdfService.generatePdf(quotation);
         String fileName = "SupplierQuotation_" + (quotation.getQuotationNumber() != null ? quotation.getQuotationNumber() : id) + ".pdf";
-        return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
-                .contentType(MediaType.APPLICATION_PDF)
-                .body(pdf);
+        return pdfRenderCache.serve("SUPPLIER_QUOTATION", id, quotation, fileName, ifNoneMatch, () -> quotationPdfService.generatePdf(quotation));
     }
 
     @PostMapping
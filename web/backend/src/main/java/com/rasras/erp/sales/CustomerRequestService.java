@@ -13,6 +13,8 @@ import java.util.stream.Collectors;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import com.rasras.erp.shared.security.UserPrincipal;
+import com.rasras.erp.shared.service.DocumentSequenceService;
+import com.rasras.erp.shared.service.DocumentType;
 
 @Service
 @RequiredArgsConstructor
@@ -20,6 +22,7 @@ public class CustomerRequestService {
 
     private final CustomerRequestRepository requestRepository;
     private final com.rasras.erp.approval.ApprovalService approvalService;
+    private final DocumentSequenceService documentSequence;
 
     @Transactional
     public CustomerRequestDto createRequest(CustomerRequestDto dto) {
@@ -226,8 +229,6 @@ public class CustomerRequestService {
     }
 
     private String generateRequestNumber() {
-        // Simple generation logic, ideal implementation handles sequence table
-        long count = requestRepository.count();
-        return "CR-" + (count + 1);
+        return documentSequence.next(DocumentType.CUSTOMER_REQUEST);
     }
 }
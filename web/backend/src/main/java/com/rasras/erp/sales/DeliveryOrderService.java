@@ -3,6 +3,8 @@ package com.rasras.erp.sales;
 import com.rasras.erp.crm.Customer;
 import com.rasras.erp.crm.CustomerRepository;
 import com.rasras.erp.approval.ApprovalService;
+import com.rasras.erp.shared.service.DocumentSequenceService;
+import com.rasras.erp.shared.service.DocumentType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -23,6 +25,7 @@ public class DeliveryOrderService {
         private final SalesQuotationRepository salesQuotationRepository;
         private final CustomerRequestDeliveryScheduleRepository scheduleRepository;
         private final ApprovalService approvalService;
+        private final DocumentSequenceService documentSequence;
 
         @Transactional(readOnly = true)
         public List<DeliveryOrderDto> getAll() {
@@ -298,7 +301,7 @@ public class DeliveryOrderService {
         }
 
         private String generateDeliveryOrderNumber() {
-                return "DO-" + (deliveryOrderRepository.count() + 1);
+                return documentSequence.next(DocumentType.DELIVERY_ORDER);
         }
 
         private DeliveryOrderDto mapToDto(DeliveryOrder order) {
@@ -3,6 +3,8 @@ package com.rasras.erp.sales;
 import com.rasras.erp.crm.Customer;
 import com.rasras.erp.crm.CustomerRepository;
 import com.rasras.erp.approval.ApprovalService;
+import com.rasras.erp.shared.service.DocumentSequenceService;
+import com.rasras.erp.shared.service.DocumentType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -21,6 +23,7 @@ public class PaymentReceiptService {
     private final SalesInvoiceRepository invoiceRepository;
     private final CustomerRepository customerRepository;
     private final ApprovalService approvalService;
+    private final DocumentSequenceService documentSequence;
 
     @Transactional(readOnly = true)
     public List<PaymentReceiptDto> getAllReceipts() {
@@ -163,7 +166,7 @@ public class PaymentReceiptService {
     }
 
     private String generateVoucherNumber() {
-        return "RCP-" + (receiptRepository.count() + 1);
+        return documentSequence.next(DocumentType.PAYMENT_RECEIPT);
     }
 
     private PaymentReceiptDto mapToDto(PaymentReceipt receipt) {
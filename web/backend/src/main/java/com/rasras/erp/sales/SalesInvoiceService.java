@@ -9,6 +9,8 @@ import com.rasras.erp.inventory.UnitRepository;
 import com.rasras.erp.approval.ApprovalService;
 import com.rasras.erp.sales.CustomerRequestDeliveryScheduleRepository;
 import com.rasras.erp.sales.CustomerRequestDeliverySchedule;
+import com.rasras.erp.shared.service.DocumentSequenceService;
+import com.rasras.erp.shared.service.DocumentType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -32,6 +34,7 @@ public class SalesInvoiceService {
     private final ApprovalService approvalService;
     private final DeliveryOrderRepository deliveryOrderRepository;
     private final CustomerRequestDeliveryScheduleRepository scheduleRepo;
+    private final DocumentSequenceService documentSequence;
 
     @Transactional(readOnly = true)
     public List<SalesInvoiceDto> getAllInvoices() {
@@ -305,7 +308,7 @@ public class SalesInvoiceService {
     }
 
     private String generateInvoiceNumber() {
-        return "INV-" + (invoiceRepository.count() + 1);
+        return documentSequence.next(DocumentType.SALES_INVOICE);
     }
 
     private SalesInvoiceDto mapToDto(SalesInvoice invoice) {
@@ -11,6 +11,8 @@ import com.rasras.erp.inventory.UnitRepository;
 import com.rasras.erp.inventory.Warehouse;
 import com.rasras.erp.inventory.WarehouseRepository;
 import com.rasras.erp.approval.ApprovalService;
+import com.rasras.erp.shared.service.DocumentSequenceService;
+import com.rasras.erp.shared.service.DocumentType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -33,6 +35,7 @@ public class SalesOrderService {
     private final PriceListRepository priceListRepository;
     private final WarehouseRepository warehouseRepository;
     private final ApprovalService approvalService;
+    private final DocumentSequenceService documentSequence;
 
     @Transactional(readOnly = true)
     public List<SalesOrderDto> getAllOrders() {
@@ -259,7 +262,7 @@ public class SalesOrderService {
     }
 
     private String generateOrderNumber() {
-        return "SO-" + (orderRepository.count() + 1);
+        return documentSequence.next(DocumentType.SALES_ORDER);
     }
 
     private SalesOrderDto mapToDto(SalesOrder order) {
@@ -9,6 +9,8 @@ import com.rasras.erp.inventory.PriceListRepository;
 import com.rasras.erp.inventory.UnitOfMeasure;
 import com.rasras.erp.inventory.UnitRepository;
 import com.rasras.erp.approval.ApprovalService;
+import com.rasras.erp.shared.service.DocumentSequenceService;
+import com.rasras.erp.shared.service.DocumentType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -31,6 +33,7 @@ public class SalesQuotationService {
     private final PriceListRepository priceListRepository;
     private final CustomerRequestRepository requestRepository;
     private final ApprovalService approvalService;
+    private final DocumentSequenceService documentSequence;
 
     @Transactional(readOnly = true)
     public List<SalesQuotationDto> getAllQuotations() {
@@ -224,7 +227,7 @@ public class SalesQuotationService {
     }
 
     private String generateQuotationNumber() {
-        return "SQ-" + (quotationRepository.count() + 1);
+        return documentSequence.next(DocumentType.SALES_QUOTATION);
     }
 
     private SalesQuotationDto mapToDto(SalesQuotation quotation) {
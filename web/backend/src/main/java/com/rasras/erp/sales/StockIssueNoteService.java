@@ -16,6 +16,8 @@ import java.util.Optional;
 import java.util.stream.Collectors;
 
 import com.rasras.erp.sales.CustomerRequestDeliveryScheduleRepository;
+import com.rasras.erp.shared.service.DocumentSequenceService;
+import com.rasras.erp.shared.service.DocumentType;
 
 @Service
 @RequiredArgsConstructor
@@ -32,6 +34,7 @@ public class StockIssueNoteService {
     private final StockBalanceRepository stockBalanceRepository;
     private final ApprovalService approvalService;
     private final CustomerRequestDeliveryScheduleRepository scheduleRepository;
+    private final DocumentSequenceService documentSequence;
 
     @Transactional(readOnly = true)
     public List<StockIssueNoteDto> getAll() {
@@ -453,7 +456,7 @@ public class StockIssueNoteService {
     }
 
     private String generateIssueNoteNumber() {
-        return "SIN-" + (issueNoteRepository.count() + 1);
+        return documentSequence.next(DocumentType.STOCK_ISSUE_NOTE);
     }
 
     private StockIssueNoteDto mapToDto(StockIssueNote note) {
@@ -522,16 +525,20 @@ public class StockIssueNoteService {
     private void reserveStock(StockIssueNote note) {
         if (note.getItems() == null)
             return;
-        for (StockIssueNoteItem item : note.getItems()) {
-            inventoryService.reserveStock(item.getItem(), note.getWarehouse(), item.getIssuedQty());
-        }
+        inventoryService.reserveForDocument("StockIssueNote", note.getId(), note.getWarehouse().getId(),
+                reservationLines(note), note.getIssuedByUserId());
     }
 
     private void releaseReservation(StockIssueNote note) {
         if (note.getItems() == null)
             return;
-        for (StockIssueNoteItem item : note.getItems()) {
-            inventoryService.releaseReservation(item.getItem(), note.getWarehouse(), item.getIssuedQty());
-        }
+        inventoryService.releaseForDocument("StockIssueNote", note.getId(), note.getWarehouse().getId(),
+                reservationLines(note));
+    }
+
+    private static List<StockReservationLine> reservationLines(StockIssueNote note) {
+        return note.getItems().stream()
+                .map(item -> StockReservationLine.of(item.getItem().getId(), item.getIssuedQty()))
+                .collect(Collectors.toList());
     }
 }
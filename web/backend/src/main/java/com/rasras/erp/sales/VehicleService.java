@@ -1,5 +1,7 @@
 package com.rasras.erp.sales;
 
+import com.rasras.erp.shared.service.DocumentSequenceService;
+import com.rasras.erp.shared.service.DocumentType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -13,6 +15,7 @@ import java.util.stream.Collectors;
 public class VehicleService {
 
     private final VehicleRepository vehicleRepository;
+    private final DocumentSequenceService documentSequence;
 
     @Transactional(readOnly = true)
     public List<VehicleDto> getAll() {
@@ -123,7 +126,7 @@ public class VehicleService {
     }
 
     private String generateVehicleCode() {
-        return "V-" + (vehicleRepository.count() + 1);
+        return documentSequence.next(DocumentType.VEHICLE);
     }
 
     private VehicleDto mapToDto(Vehicle vehicle) {
@@ -0,0 +1,8 @@
+package com.rasras.erp.shared.accesslog;
+
+/**
+ * سطر واحد في سجل الوصول. route = قالب المسار (/approvals/{id}) أو المسار الفعلي إن لم يُطابق أي Controller.
+ */
+public record AccessLogRecord(long timestamp, String method, String route, int status, long latencyMs,
+        Integer userId, long bytes) {
+}
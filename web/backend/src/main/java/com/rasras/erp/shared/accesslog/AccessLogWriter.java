@@ -0,0 +1,196 @@
+package com.rasras.erp.shared.accesslog;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * سجل الوصول (access log) منفصل عن application.log: record على خيط الطلب يقرر العينة ويضيف السطر لمخزن محدود
+ * فقط، وخيط خلفي واحد يكتب الأسطر (JSON لكل طلب) إلى ملف يُدوّر حسب الحجم.
+ * الأخطاء (غير 2xx) والطلبات البطيئة تُسجل دائماً؛ 2xx حسب نسبة العينة. إن امتلأ المخزن يُسقط السطر ويُعد.
+ */
+@Slf4j
+@Component
+public class AccessLogWriter {
+
+    private static final int BATCH_SIZE = 512;
+
+    private final ObjectMapper objectMapper;
+    private final AtomicLong dropped = new AtomicLong();
+    private BlockingQueue<AccessLogRecord> buffer;
+    private Thread writerThread;
+    private volatile boolean running;
+
+    @Value("${app.access-log.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${app.access-log.file:logs/access.log}")
+    private String file = "logs/access.log";
+
+    @Value("${app.access-log.buffer-size:8192}")
+    private int bufferSize = 8192;
+
+    /** نسبة الطلبات الناجحة (2xx) التي تُسجل: 1.0 = الكل، 0 = لا شيء */
+    @Value("${app.access-log.sample-2xx:1.0}")
+    private double successSampleRate = 1.0;
+
+    @Value("${app.access-log.slow-ms:1000}")
+    private long slowMs = 1000;
+
+    @Value("${app.access-log.max-file-size-mb:20}")
+    private long maxFileSizeMb = 20;
+
+    @Value("${app.access-log.max-files:5}")
+    private int maxFiles = 5;
+
+    public AccessLogWriter(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        buffer = new ArrayBlockingQueue<>(Math.max(bufferSize, 16));
+        running = true;
+        writerThread = new Thread(this::writeLoop, "access-log-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * يُستدعى على خيط الطلب — لا I/O ولا انتظار.
+     */
+    public void record(AccessLogRecord record) {
+        if (!running || !sampled(record)) {
+            return;
+        }
+        if (!buffer.offer(record)) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    boolean sampled(AccessLogRecord record) {
+        if (record.status() < 200 || record.status() >= 300 || record.latencyMs() >= slowMs) {
+            return true;
+        }
+        return successSampleRate >= 1.0
+                || (successSampleRate > 0 && ThreadLocalRandom.current().nextDouble() < successSampleRate);
+    }
+
+    private void writeLoop() {
+        Path path = Paths.get(file);
+        List<AccessLogRecord> batch = new ArrayList<>(BATCH_SIZE);
+        BufferedWriter writer = null;
+        try {
+            while (running || !buffer.isEmpty()) {
+                AccessLogRecord first = buffer.poll(500, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                buffer.drainTo(batch, BATCH_SIZE - 1);
+                try {
+                    if (writer == null || Files.size(path) >= maxFileSizeMb * 1024 * 1024) {
+                        writer = open(writer, path);
+                    }
+                    for (AccessLogRecord record : batch) {
+                        writer.write(objectMapper.writeValueAsString(toJson(record)));
+                        writer.newLine();
+                    }
+                    writer.flush();
+                } catch (IOException e) {
+                    log.warn("تعذر كتابة سجل الوصول إلى {}: {}", path, e.getMessage());
+                    // يُغلق قبل التخلي عنه حتى لا يتسرب واصف الملف مع كل خطأ كتابة
+                    close(writer);
+                    writer = null;
+                }
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            close(writer);
+        }
+    }
+
+    /** يغلق الملف الحالي، يدوّره إن تجاوز الحد (access.log ← access.log.1 ← ...) ثم يفتح للإلحاق */
+    private BufferedWriter open(BufferedWriter current, Path path) throws IOException {
+        close(current);
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        if (Files.exists(path) && Files.size(path) >= maxFileSizeMb * 1024 * 1024) {
+            for (int i = Math.max(maxFiles, 1) - 1; i >= 1; i--) {
+                Path older = Paths.get(file + "." + i);
+                if (Files.exists(older)) {
+                    Files.move(older, Paths.get(file + "." + (i + 1)), StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+            Files.move(path, Paths.get(file + ".1"), StandardCopyOption.REPLACE_EXISTING);
+            Files.deleteIfExists(Paths.get(file + "." + (Math.max(maxFiles, 1) + 1)));
+        }
+        return Files.newBufferedWriter(path, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                StandardOpenOption.APPEND);
+    }
+
+    private static void close(BufferedWriter writer) {
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException ignored) {
+                // الملف يُعاد فتحه مع الدفعة التالية
+            }
+        }
+    }
+
+    private static Map<String, Object> toJson(AccessLogRecord record) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("ts", Instant.ofEpochMilli(record.timestamp()).toString());
+        json.put("method", record.method());
+        json.put("route", record.route());
+        json.put("status", record.status());
+        json.put("latencyMs", record.latencyMs());
+        json.put("userId", record.userId());
+        json.put("bytes", record.bytes());
+        return json;
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        if (writerThread != null) {
+            writerThread.join(5000);
+        }
+        if (dropped.get() > 0) {
+            log.warn("سجل الوصول: أُسقط {} سطر لامتلاء المخزن", dropped.get());
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.rasras.erp.shared.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.flyway.FlywayConfigurationCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * قيم إعدادات التطبيق التي تحتاجها سكربتات Flyway كـ placeholders (مثل ${fiscalYearStartMonth}).
+ */
+@Configuration
+public class FlywayConfig {
+
+    @Bean
+    public FlywayConfigurationCustomizer applicationPlaceholders(
+            @Value("${app.documents.fiscal-year-start-month:1}") int fiscalYearStartMonth) {
+        return configuration -> {
+            Map<String, String> placeholders = new HashMap<>(configuration.getPlaceholders());
+            placeholders.put("fiscalYearStartMonth", String.valueOf(fiscalYearStartMonth));
+            configuration.placeholders(placeholders);
+        };
+    }
+}
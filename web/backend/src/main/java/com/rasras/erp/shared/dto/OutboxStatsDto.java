@@ -0,0 +1,20 @@
+package com.rasras.erp.shared.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * حالة صندوق الصادر: عدد الأحداث في كل حالة، وعمر أقدم حدث لم يُنفذ بعد (التأخير بالثواني)
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxStatsDto {
+    private long pending;
+    private long processing;
+    private long dead;
+    private long lagSeconds;
+}
@@ -0,0 +1,27 @@
+package com.rasras.erp.shared.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * حالة مهمة تصدير PDF مجمع: QUEUED ← RUNNING ← COMPLETED أو FAILED، مع عدد المستندات المنجزة من الإجمالي
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PdfExportJobDto {
+    private String jobId;
+    private String documentType;
+    private String status;
+    private int total;
+    private int completed;
+    private int failed;
+    private String error;
+    private LocalDateTime createdAt;
+    private LocalDateTime finishedAt;
+}
@@ -0,0 +1,20 @@
+package com.rasras.erp.shared.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * حالة كاش المستخدمين المصادق عليهم: عدد العناصر، مرات الإصابة والإخفاق منذ التشغيل، ورقم نسخة الأمان الحالي
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PrincipalCacheStatsDto {
+    private long size;
+    private long hits;
+    private long misses;
+    private long securityVersion;
+}
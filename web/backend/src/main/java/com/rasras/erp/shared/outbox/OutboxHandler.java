@@ -0,0 +1,14 @@
+package com.rasras.erp.shared.outbox;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * معالج نوع حدث واحد من صندوق الصادر. يُنفذ داخل معاملة يُعلّم فيها الحدث كمكتمل، فإما أن تُحفظ
+ * آثاره وحالة الحدث معاً أو يُعاد المحاولة لاحقاً — لذلك يجب أن يتحمل التنفيذ أكثر من مرة.
+ */
+public interface OutboxHandler {
+
+    String eventType();
+
+    void handle(JsonNode payload);
+}
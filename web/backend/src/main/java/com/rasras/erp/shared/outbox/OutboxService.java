@@ -0,0 +1,313 @@
+package com.rasras.erp.shared.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rasras.erp.shared.dto.OutboxEventDto;
+import com.rasras.erp.shared.dto.OutboxStatsDto;
+import com.rasras.erp.shared.exception.BadRequestException;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * صندوق صادر معاملاتي (جدول outboxevents): enqueue يُسجل الحدث داخل معاملة التغيير نفسها، وبعد commit
+ * يبدأ التصريف فوراً في الخلفية (وكل poll-interval كاحتياط). كل حدث يُنفذ في معاملة مستقلة على مجموعة
+ * خيوط محدودة؛ الفشل يُعاد بتأخير متزايد حتى max-attempts ثم يُنقل إلى DEAD ليظهر في قائمة الأحداث الفاشلة.
+ */
+@Slf4j
+@Service
+public class OutboxService {
+
+    static final String PENDING = "PENDING";
+    static final String PROCESSING = "PROCESSING";
+    static final String DONE = "DONE";
+    static final String DEAD = "DEAD";
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final ObjectProvider<OutboxHandler> handlerProvider;
+    private final TransactionTemplate eventTransaction;
+    private final ExecutorService workers;
+    private final ExecutorService dispatcher;
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private volatile Map<String, OutboxHandler> handlers;
+
+    @Value("${app.outbox.batch-size:50}")
+    private int batchSize;
+
+    @Value("${app.outbox.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${app.outbox.retry-base-seconds:5}")
+    private long retryBaseSeconds;
+
+    /** حدث بقي PROCESSING أطول من هذا (توقف الخادم أثناء التنفيذ) يُعاد إلى PENDING */
+    @Value("${app.outbox.lock-timeout-minutes:10}")
+    private long lockTimeoutMinutes;
+
+    @Value("${app.outbox.retention-days:7}")
+    private int retentionDays;
+
+    public OutboxService(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper,
+            ObjectProvider<OutboxHandler> handlerProvider, PlatformTransactionManager transactionManager,
+            @Value("${app.outbox.workers:2}") int workerCount) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.handlerProvider = handlerProvider;
+        this.eventTransaction = new TransactionTemplate(transactionManager);
+        this.eventTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        AtomicInteger counter = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(Math.max(workerCount, 1), r -> {
+            Thread t = new Thread(r, "outbox-worker-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.dispatcher = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "outbox-dispatcher");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * يسجل الحدث داخل المعاملة الحالية. نفس idempotencyKey مرة ثانية لا يضيف حدثاً جديداً.
+     */
+    public void enqueue(String eventType, String idempotencyKey, Object payload) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Outbox payload is not serializable: " + eventType, e);
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.update("INSERT IGNORE INTO outboxevents (EventType, IdempotencyKey, Payload, Status, Attempts, "
+                + "NextAttemptAt, CreatedAt) VALUES (?, ?, ?, 'PENDING', 0, ?, ?)",
+                eventType, idempotencyKey, json, now, now);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    trigger();
+                }
+            });
+        } else {
+            trigger();
+        }
+    }
+
+    /** احتياط للأحداث المؤجلة (إعادة المحاولة) أو التي فاتها التنبيه بعد commit */
+    @Scheduled(fixedDelayString = "${app.outbox.poll-interval-ms:1000}")
+    public void poll() {
+        trigger();
+    }
+
+    public void trigger() {
+        if (!draining.get()) {
+            dispatcher.execute(this::drain);
+        }
+    }
+
+    void drain() {
+        if (!draining.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            releaseStaleLocks();
+            List<ClaimedEvent> batch;
+            do {
+                batch = claimBatch();
+                List<CompletableFuture<Void>> running = new ArrayList<>(batch.size());
+                for (ClaimedEvent event : batch) {
+                    running.add(CompletableFuture.runAsync(() -> process(event), workers));
+                }
+                CompletableFuture.allOf(running.toArray(CompletableFuture[]::new)).join();
+            } while (batch.size() == batchSize);
+        } catch (Exception e) {
+            log.warn("تعذر تصريف صندوق الصادر", e);
+        } finally {
+            draining.set(false);
+        }
+    }
+
+    private void releaseStaleLocks() {
+        int released = jdbcTemplate.update("UPDATE outboxevents SET Status = 'PENDING', LockedBy = NULL "
+                + "WHERE Status = 'PROCESSING' AND LockedAt < ?",
+                Timestamp.valueOf(LocalDateTime.now().minusMinutes(lockTimeoutMinutes)));
+        if (released > 0) {
+            log.warn("صندوق الصادر: أُعيد {} حدث عالق في PROCESSING إلى PENDING", released);
+        }
+    }
+
+    /** حجز دفعة بتحديث شرطي واحد (آمن مع أكثر من نسخة من الخادم) ثم قراءتها بمعرف الحجز */
+    private List<ClaimedEvent> claimBatch() {
+        String lockId = UUID.randomUUID().toString();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        int claimed = jdbcTemplate.update("UPDATE outboxevents SET Status = 'PROCESSING', LockedBy = ?, LockedAt = ? "
+                + "WHERE Status = 'PENDING' AND NextAttemptAt <= ? ORDER BY EventID LIMIT ?",
+                lockId, now, now, batchSize);
+        if (claimed == 0) {
+            return List.of();
+        }
+        return jdbcTemplate.query("SELECT EventID, EventType, IdempotencyKey, Payload, Attempts FROM outboxevents "
+                + "WHERE LockedBy = ? AND Status = 'PROCESSING' ORDER BY EventID",
+                (rs, rowNum) -> new ClaimedEvent(rs.getLong("EventID"), rs.getString("EventType"),
+                        rs.getString("IdempotencyKey"), rs.getString("Payload"), rs.getInt("Attempts"), lockId),
+                lockId);
+    }
+
+    void process(ClaimedEvent event) {
+        OutboxHandler handler = handlers().get(event.eventType());
+        if (handler == null) {
+            markFailed(event, "No handler registered for event type " + event.eventType(), true);
+            return;
+        }
+        try {
+            JsonNode payload = objectMapper.readTree(event.payload() != null ? event.payload() : "{}");
+            Boolean done = eventTransaction.execute(status -> {
+                handler.handle(payload);
+                int updated = jdbcTemplate.update("UPDATE outboxevents SET Status = 'DONE', Attempts = Attempts + 1, "
+                        + "LockedBy = NULL, LastError = NULL, ProcessedAt = ? WHERE EventID = ? AND LockedBy = ?",
+                        Timestamp.valueOf(LocalDateTime.now()), event.id(), event.lockId());
+                // الحجز لم يعد لنا (أُعيد كعالق وحجزته نسخة أخرى): نلغي أثر المعالج حتى لا يُنفذ مرتين
+                if (updated != 1) {
+                    status.setRollbackOnly();
+                    return false;
+                }
+                return true;
+            });
+            if (!Boolean.TRUE.equals(done)) {
+                log.warn("صندوق الصادر: فُقد حجز الحدث {} ({}) أثناء التنفيذ، أُلغيت المعاملة", event.id(),
+                        event.idempotencyKey());
+            }
+        } catch (Exception e) {
+            log.warn("فشل تنفيذ حدث صندوق الصادر {} ({}) المحاولة {}: {}", event.id(), event.idempotencyKey(),
+                    event.attempts() + 1, e.getMessage());
+            markFailed(event, e.getMessage() != null ? e.getMessage() : e.getClass().getName(), false);
+        }
+    }
+
+    private void markFailed(ClaimedEvent event, String error, boolean permanent) {
+        int attempts = event.attempts() + 1;
+        boolean dead = permanent || attempts >= maxAttempts;
+        LocalDateTime nextAttempt = LocalDateTime.now().plus(backoff(attempts));
+        jdbcTemplate.update("UPDATE outboxevents SET Status = ?, Attempts = ?, NextAttemptAt = ?, LockedBy = NULL, "
+                + "LastError = ? WHERE EventID = ? AND LockedBy = ?",
+                dead ? DEAD : PENDING, attempts, Timestamp.valueOf(nextAttempt),
+                error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error,
+                event.id(), event.lockId());
+        if (dead) {
+            log.error("صندوق الصادر: الحدث {} ({}) نُقل إلى DEAD بعد {} محاولة: {}", event.id(),
+                    event.idempotencyKey(), attempts, error);
+        }
+    }
+
+    /** تأخير متزايد: base × 2^(attempts-1) بحد أقصى ساعة */
+    Duration backoff(int attempts) {
+        long seconds = retryBaseSeconds << Math.min(Math.max(attempts - 1, 0), 20);
+        return Duration.ofSeconds(Math.min(seconds, 3600));
+    }
+
+    private Map<String, OutboxHandler> handlers() {
+        Map<String, OutboxHandler> current = handlers;
+        if (current == null) {
+            // تحميل كسول: المعالجات تعتمد على خدمات تستدعي enqueue بدورها
+            Map<String, OutboxHandler> map = new HashMap<>();
+            handlerProvider.orderedStream().forEach(h -> map.put(h.eventType(), h));
+            handlers = current = map;
+        }
+        return current;
+    }
+
+    public OutboxStatsDto getStats() {
+        Map<String, Long> counts = new HashMap<>();
+        jdbcTemplate.query("SELECT Status, COUNT(*) AS Cnt FROM outboxevents WHERE Status <> 'DONE' GROUP BY Status",
+                rs -> {
+                    counts.put(rs.getString("Status"), rs.getLong("Cnt"));
+                });
+        Timestamp oldest = jdbcTemplate.queryForObject("SELECT MIN(CreatedAt) FROM outboxevents "
+                + "WHERE Status IN ('PENDING', 'PROCESSING')", Timestamp.class);
+        long lag = oldest != null
+                ? Math.max(Duration.between(oldest.toLocalDateTime(), LocalDateTime.now()).getSeconds(), 0)
+                : 0;
+        return OutboxStatsDto.builder()
+                .pending(counts.getOrDefault(PENDING, 0L))
+                .processing(counts.getOrDefault(PROCESSING, 0L))
+                .dead(counts.getOrDefault(DEAD, 0L))
+                .lagSeconds(lag)
+                .build();
+    }
+
+    public List<OutboxEventDto> getDeadLetters(int limit) {
+        return jdbcTemplate.query("SELECT EventID, EventType, IdempotencyKey, Payload, Status, Attempts, LastError, "
+                + "CreatedAt, NextAttemptAt FROM outboxevents WHERE Status = 'DEAD' ORDER BY EventID DESC LIMIT ?",
+                (rs, rowNum) -> OutboxEventDto.builder()
+                        .id(rs.getLong("EventID"))
+                        .eventType(rs.getString("EventType"))
+                        .idempotencyKey(rs.getString("IdempotencyKey"))
+                        .payload(rs.getString("Payload"))
+                        .status(rs.getString("Status"))
+                        .attempts(rs.getInt("Attempts"))
+                        .lastError(rs.getString("LastError"))
+                        .createdAt(rs.getTimestamp("CreatedAt").toLocalDateTime())
+                        .nextAttemptAt(rs.getTimestamp("NextAttemptAt").toLocalDateTime())
+                        .build(),
+                Math.min(Math.max(limit, 1), 500));
+    }
+
+    /**
+     * إعادة حدث من DEAD إلى PENDING بعد معالجة سبب الفشل.
+     */
+    public void retry(Long eventId) {
+        int updated = jdbcTemplate.update("UPDATE outboxevents SET Status = 'PENDING', Attempts = 0, NextAttemptAt = ? "
+                + "WHERE EventID = ? AND Status = 'DEAD'", Timestamp.valueOf(LocalDateTime.now()), eventId);
+        if (updated == 0) {
+            throw new BadRequestException("الحدث غير موجود أو ليس في قائمة الأحداث الفاشلة");
+        }
+        trigger();
+    }
+
+    @Scheduled(cron = "${app.outbox.cleanup-cron:0 20 3 * * *}")
+    public void purgeProcessed() {
+        int deleted = jdbcTemplate.update("DELETE FROM outboxevents WHERE Status = 'DONE' AND ProcessedAt < ?",
+                Timestamp.valueOf(LocalDateTime.now().minusDays(retentionDays)));
+        if (deleted > 0) {
+            log.info("صندوق الصادر: حُذف {} حدث مكتمل أقدم من {} يوم", deleted, retentionDays);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.shutdown();
+        workers.shutdown();
+    }
+
+    record ClaimedEvent(long id, String eventType, String idempotencyKey, String payload, int attempts,
+            String lockId) {
+    }
+}
@@ -0,0 +1,49 @@
+package com.rasras.erp.shared.pdf;
+
+import com.lowagie.text.Font;
+
+import java.awt.Color;
+
+/**
+ * خطوط فواتير الموردين وسندات الصرف: نفس الأحجام والأوزان، ولون العلامة يختلف حسب المستند.
+ */
+public record PdfBrandFonts(
+        Font title, Font subtitle, Font brand, Font brandSub, Font documentNo,
+        Font section, Font label, Font value, Font valueBold,
+        Font tableHeader, Font tableCell,
+        Font totalLabel, Font totalValue, Font grandTotalLabel, Font grandTotalValue,
+        Font footer, Font footerSub, Font timestamp, Font timestampLabel,
+        Font badge, Font note) {
+
+    private static final Color SLATE_900 = new Color(30, 41, 59);
+    private static final Color SLATE_700 = new Color(71, 85, 105);
+    private static final Color SLATE_500 = new Color(100, 116, 139);
+    private static final Color SLATE_400 = new Color(148, 163, 184);
+
+    static PdfBrandFonts of(PdfFontRegistry registry, Color primary, Color secondary) {
+        var regular = registry.regular();
+        var bold = registry.bold();
+        return new PdfBrandFonts(
+                new Font(bold, 22, Font.NORMAL, secondary),
+                new Font(regular, 10, Font.NORMAL, SLATE_500),
+                new Font(bold, 15, Font.NORMAL, primary),
+                new Font(regular, 10, Font.NORMAL, SLATE_500),
+                new Font(bold, 11, Font.NORMAL, primary),
+                new Font(bold, 12, Font.NORMAL, secondary),
+                new Font(bold, 8, Font.NORMAL, SLATE_500),
+                new Font(regular, 10, Font.NORMAL, SLATE_900),
+                new Font(bold, 10, Font.NORMAL, SLATE_900),
+                new Font(bold, 9, Font.NORMAL, secondary),
+                new Font(regular, 9, Font.NORMAL, SLATE_700),
+                new Font(regular, 10, Font.NORMAL, SLATE_700),
+                new Font(regular, 10, Font.NORMAL, SLATE_900),
+                new Font(bold, 12, Font.NORMAL, secondary),
+                new Font(bold, 13, Font.NORMAL, secondary),
+                new Font(regular, 8, Font.NORMAL, SLATE_500),
+                new Font(regular, 7, Font.NORMAL, SLATE_400),
+                new Font(regular, 8, Font.NORMAL, SLATE_400),
+                new Font(bold, 8, Font.NORMAL, SLATE_500),
+                new Font(bold, 8, Font.NORMAL, Color.WHITE),
+                new Font(regular, 10, Font.NORMAL, SLATE_700));
+    }
+}
@@ -0,0 +1,409 @@
+package com.rasras.erp.shared.pdf;
+
+import com.rasras.erp.shared.dto.PdfExportJobDto;
+import com.rasras.erp.shared.exception.BadRequestException;
+import com.rasras.erp.shared.exception.ResourceNotFoundException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * تصدير مجمع لملفات PDF في ZIP: المستندات تُرسم على مجموعة خيوط محدودة بخدمات الـ PDF الموجودة (عبر PdfExportSource)
+ * وتُكتب في الـ ZIP بترتيب انتهائها. لكل تصدير نافذة ثابتة من المستندات قيد الرسم (ضعف عدد الخيوط)، فالذاكرة
+ * محدودة بحجم النافذة لا بعدد المستندات. فشل مستند واحد لا يوقف التصدير: يُسجل في errors.txt داخل الـ ZIP.
+ * <p>
+ * التصدير المباشر محدود بـ max-sync-documents؛ الفترات الأكبر عبر مهمة خلفية تُكتب لملف ويُتابع تقدمها ثم يُحمّل.
+ * عدد التصديرات المباشرة المتزامنة محدود بـ max-direct-exports، والمهام النشطة (في الانتظار أو قيد التنفيذ) بـ
+ * max-running-jobs إجمالاً وبـ max-jobs-per-user لكل مستخدم؛ الطلب الزائد يُرفض بدل أن ينتظر في طابور بلا حد.
+ * كل نوع مستند يتطلب صلاحيات عرضه في وحدته (PdfExportSource.requiredAuthorities).
+ */
+@Slf4j
+@Service
+public class PdfBulkExportService {
+
+    public static final String STATUS_QUEUED = "QUEUED";
+    public static final String STATUS_RUNNING = "RUNNING";
+    public static final String STATUS_COMPLETED = "COMPLETED";
+    public static final String STATUS_FAILED = "FAILED";
+
+    private static final String ERRORS_ENTRY = "errors.txt";
+
+    private final Map<String, PdfExportSource> sources;
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    private ExecutorService renderPool;
+    private ExecutorService jobRunner;
+    private Semaphore directExports;
+    private Path root;
+
+    @Value("${app.pdf-export.threads:4}")
+    private int threads = 4;
+
+    @Value("${app.pdf-export.max-sync-documents:300}")
+    private int maxSyncDocuments = 300;
+
+    @Value("${app.pdf-export.max-direct-exports:2}")
+    private int maxDirectExports = 2;
+
+    @Value("${app.pdf-export.max-running-jobs:2}")
+    private int maxRunningJobs = 2;
+
+    @Value("${app.pdf-export.max-jobs-per-user:1}")
+    private int maxJobsPerUser = 1;
+
+    @Value("${app.pdf-export.dir:exports/pdf}")
+    private String directory = "exports/pdf";
+
+    @Value("${app.pdf-export.job-ttl-minutes:120}")
+    private long jobTtlMinutes = 120;
+
+    public PdfBulkExportService(List<PdfExportSource> sources) {
+        Map<String, PdfExportSource> byType = new LinkedHashMap<>();
+        for (PdfExportSource source : sources) {
+            byType.put(source.documentType(), source);
+        }
+        this.sources = Collections.unmodifiableMap(byType);
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        renderPool = Executors.newFixedThreadPool(Math.max(threads, 1), threadFactory("pdf-export-render"));
+        jobRunner = Executors.newFixedThreadPool(Math.max(maxRunningJobs, 1), threadFactory("pdf-export-job"));
+        directExports = new Semaphore(Math.max(maxDirectExports, 1));
+        root = Paths.get(directory).toAbsolutePath();
+        Files.createDirectories(root);
+        // المهام في الذاكرة فقط، فملفات التشغيل السابق لا يمكن تحميلها
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(root, "*.{zip,tmp}")) {
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        jobRunner.shutdownNow();
+        renderPool.shutdownNow();
+    }
+
+    /** الأنواع التي يملك المستخدم صلاحية عرضها */
+    public Set<String> documentTypes(Collection<? extends GrantedAuthority> authorities) {
+        return sources.values().stream()
+                .filter(source -> allowed(source, authorities))
+                .map(PdfExportSource::documentType)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+
+    /**
+     * معرفات التصدير المباشر — يُرفض إن تجاوز العدد الحد (يُستخدم startJob بدلاً منه).
+     */
+    public List<Integer> findForDirectExport(String documentType, PdfExportFilter filter,
+            Collection<? extends GrantedAuthority> authorities) {
+        List<Integer> ids = source(documentType, authorities).findIds(validate(filter));
+        if (ids.size() > maxSyncDocuments) {
+            throw new BadRequestException("عدد المستندات (" + ids.size() + ") أكبر من حد التصدير المباشر ("
+                    + maxSyncDocuments + ") — استخدم مهمة التصدير الخلفية");
+        }
+        return ids;
+    }
+
+    /**
+     * يحجز مكان تصدير مباشر طوال الكتابة ويحرره في finally، ويرفض إن كانت كل الأماكن مشغولة. target يُفتح بعد
+     * الحجز فقط، فالطلب المرفوض لا يترك ترويسات تحميل على الاستجابة. لا يُغلق المخرج.
+     */
+    public void writeZip(String documentType, List<Integer> ids, ZipTarget target) throws IOException {
+        PdfExportSource source = source(documentType);
+        if (!directExports.tryAcquire()) {
+            throw new BadRequestException("يوجد " + maxDirectExports
+                    + " تصدير مباشر قيد التنفيذ — حاول لاحقاً أو استخدم مهمة التصدير الخلفية");
+        }
+        try {
+            export(source, ids, target.open(), null);
+        } finally {
+            directExports.release();
+        }
+    }
+
+    public PdfExportJobDto startJob(String documentType, PdfExportFilter filter, String owner,
+            Collection<? extends GrantedAuthority> authorities) {
+        PdfExportSource source = source(documentType, authorities);
+        List<Integer> ids = source.findIds(validate(filter));
+        Job job = new Job(UUID.randomUUID().toString(), source.documentType(), owner, ids.size());
+        // الفحص والإضافة معاً حتى لا يتجاوز طلبان متزامنان الحد
+        synchronized (jobs) {
+            List<Job> active = jobs.values().stream().filter(j -> j.finishedAt == null).toList();
+            if (active.size() >= Math.max(maxRunningJobs, 1)) {
+                throw new BadRequestException("يوجد " + active.size() + " مهمة تصدير نشطة — حاول بعد انتهاء إحداها");
+            }
+            if (active.stream().filter(j -> j.owner.equals(owner)).count() >= Math.max(maxJobsPerUser, 1)) {
+                throw new BadRequestException("لديك مهمة تصدير نشطة بالفعل — انتظر انتهاءها");
+            }
+            jobs.put(job.id, job);
+        }
+        jobRunner.execute(() -> runJob(job, source, ids));
+        return job.toDto();
+    }
+
+    public PdfExportJobDto getJob(String jobId, String owner) {
+        return job(jobId, owner).toDto();
+    }
+
+    /** ملف الـ ZIP لمهمة مكتملة */
+    public Path getJobFile(String jobId, String owner) {
+        Job job = job(jobId, owner);
+        if (!STATUS_COMPLETED.equals(job.status) || job.file == null) {
+            throw new BadRequestException("مهمة التصدير لم تكتمل بعد");
+        }
+        return job.file;
+    }
+
+    /** حذف المهام المنتهية وملفاتها بعد job-ttl-minutes */
+    @Scheduled(fixedDelayString = "${app.pdf-export.cleanup-interval-ms:600000}")
+    public void purgeExpiredJobs() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(jobTtlMinutes);
+        jobs.values().removeIf(job -> {
+            if (job.finishedAt == null || job.finishedAt.isAfter(cutoff)) {
+                return false;
+            }
+            deleteQuietly(job.file);
+            return true;
+        });
+    }
+
+    private void runJob(Job job, PdfExportSource source, List<Integer> ids) {
+        job.status = STATUS_RUNNING;
+        Path tmp = root.resolve(job.id + ".tmp");
+        try {
+            try (OutputStream out = Files.newOutputStream(tmp)) {
+                export(source, ids, out, job);
+            }
+            Path file = root.resolve(job.id + ".zip");
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+            job.file = file;
+            job.status = STATUS_COMPLETED;
+        } catch (Exception e) {
+            log.warn("PDF export job {} ({}) failed: {}", job.id, job.documentType, e.getMessage());
+            deleteQuietly(tmp);
+            job.error = e.getMessage();
+            job.status = STATUS_FAILED;
+        } finally {
+            job.finishedAt = LocalDateTime.now();
+        }
+    }
+
+    private void export(PdfExportSource source, List<Integer> ids, OutputStream out, Job job) throws IOException {
+        int window = Math.max(threads, 1) * 2;
+        CompletionService<Rendered> completion = new ExecutorCompletionService<>(renderPool);
+        Set<Future<Rendered>> inFlight = new HashSet<>();
+        Set<String> entryNames = new HashSet<>();
+        List<String> failures = new ArrayList<>();
+        ZipOutputStream zip = new ZipOutputStream(new BufferedOutputStream(out));
+        // ملفات PDF مضغوطة أصلاً
+        zip.setLevel(Deflater.BEST_SPEED);
+        int next = 0;
+        try {
+            while (next < ids.size() || !inFlight.isEmpty()) {
+                while (inFlight.size() < window && next < ids.size()) {
+                    Integer id = ids.get(next++);
+                    inFlight.add(completion.submit(() -> render(source, id)));
+                }
+                Future<Rendered> done = completion.take();
+                inFlight.remove(done);
+                Rendered rendered = done.get();
+                if (rendered.error() != null) {
+                    failures.add(source.documentType() + " " + rendered.id() + ": " + rendered.error());
+                } else {
+                    zip.putNextEntry(new ZipEntry(uniqueName(entryNames, rendered)));
+                    zip.write(rendered.content());
+                    zip.closeEntry();
+                }
+                if (job != null) {
+                    (rendered.error() != null ? job.failed : job.completed).incrementAndGet();
+                }
+            }
+            if (!failures.isEmpty()) {
+                zip.putNextEntry(new ZipEntry(ERRORS_ENTRY));
+                zip.write(String.join("\n", failures).getBytes(StandardCharsets.UTF_8));
+                zip.closeEntry();
+            }
+            zip.finish();
+            zip.flush();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("PDF export interrupted");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            // العميل قطع الاتصال أو فشل الكتابة: لا داعي لإكمال الرسم
+            inFlight.forEach(f -> f.cancel(true));
+        }
+    }
+
+    private static Rendered render(PdfExportSource source, Integer id) {
+        try {
+            PdfExportDocument document = source.render(id);
+            return new Rendered(id, document.fileName(), document.content(), null);
+        } catch (RuntimeException e) {
+            log.warn("PDF export: {} {} failed: {}", source.documentType(), id, e.getMessage());
+            return new Rendered(id, null, null, e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+        }
+    }
+
+    /** رقم المستند قد يتكرر أو يكون فارغاً — المعرف يميّز الأسماء */
+    private static String uniqueName(Set<String> used, Rendered rendered) {
+        String name = rendered.fileName() != null ? rendered.fileName().replace('/', '_').replace('\\', '_') : "";
+        if (name.isBlank()) {
+            name = rendered.id() + ".pdf";
+        }
+        if (!used.add(name)) {
+            name = rendered.id() + "_" + name;
+            used.add(name);
+        }
+        return name;
+    }
+
+    private PdfExportSource source(String documentType, Collection<? extends GrantedAuthority> authorities) {
+        PdfExportSource source = source(documentType);
+        if (!allowed(source, authorities)) {
+            throw new AccessDeniedException("No permission to export " + source.documentType());
+        }
+        return source;
+    }
+
+    private static boolean allowed(PdfExportSource source, Collection<? extends GrantedAuthority> authorities) {
+        return authorities != null && authorities.stream()
+                .map(GrantedAuthority::getAuthority)
+                .anyMatch(source.requiredAuthorities()::contains);
+    }
+
+    private PdfExportSource source(String documentType) {
+        PdfExportSource source = documentType != null ? sources.get(documentType.trim().toUpperCase()) : null;
+        if (source == null) {
+            throw new BadRequestException("نوع المستند غير مدعوم للتصدير: " + documentType + " — المتاح: " + sources.keySet());
+        }
+        return source;
+    }
+
+    private static PdfExportFilter validate(PdfExportFilter filter) {
+        if (filter.startDate() == null || filter.endDate() == null) {
+            throw new BadRequestException("تاريخ البداية والنهاية مطلوبان");
+        }
+        if (filter.startDate().isAfter(filter.endDate())) {
+            throw new BadRequestException("تاريخ البداية بعد تاريخ النهاية");
+        }
+        return filter;
+    }
+
+    /** مهمة مستخدم آخر تُعامل كغير موجودة */
+    private Job job(String jobId, String owner) {
+        Job job = jobs.get(jobId);
+        if (job == null || !job.owner.equals(owner)) {
+            throw new ResourceNotFoundException("PdfExportJob", "id", jobId);
+        }
+        return job;
+    }
+
+    private static void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("PDF export: cannot delete {}: {}", file, e.getMessage());
+        }
+    }
+
+    private static ThreadFactory threadFactory(String name) {
+        AtomicInteger counter = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, name + "-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    private record Rendered(Integer id, String fileName, byte[] content, String error) {
+    }
+
+    /** مخرج الـ ZIP المباشر (عادة مخرج استجابة HTTP بعد ضبط ترويساتها) */
+    @FunctionalInterface
+    public interface ZipTarget {
+        OutputStream open() throws IOException;
+    }
+
+    private static final class Job {
+        private final String id;
+        private final String documentType;
+        private final String owner;
+        private final int total;
+        private final AtomicInteger completed = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+        private final LocalDateTime createdAt = LocalDateTime.now();
+        private volatile String status = STATUS_QUEUED;
+        private volatile String error;
+        private volatile Path file;
+        private volatile LocalDateTime finishedAt;
+
+        private Job(String id, String documentType, String owner, int total) {
+            this.id = id;
+            this.documentType = documentType;
+            this.owner = owner;
+            this.total = total;
+        }
+
+        private PdfExportJobDto toDto() {
+            return PdfExportJobDto.builder()
+                    .jobId(id)
+                    .documentType(documentType)
+                    .status(status)
+                    .total(total)
+                    .completed(completed.get())
+                    .failed(failed.get())
+                    .error(error)
+                    .createdAt(createdAt)
+                    .finishedAt(finishedAt)
+                    .build();
+        }
+    }
+}
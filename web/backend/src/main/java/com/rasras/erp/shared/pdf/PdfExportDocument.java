@@ -0,0 +1,4 @@
+package com.rasras.erp.shared.pdf;
+
+public record PdfExportDocument(String fileName, byte[] content) {
+}
@@ -0,0 +1,9 @@
+package com.rasras.erp.shared.pdf;
+
+import java.time.LocalDate;
+
+/**
+ * فلتر التصدير: الفترة (شاملة الطرفين) إلزامية، المورد والحالة اختياريان.
+ */
+public record PdfExportFilter(LocalDate startDate, LocalDate endDate, Integer supplierId, String status) {
+}
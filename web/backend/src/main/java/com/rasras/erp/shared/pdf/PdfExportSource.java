@@ -0,0 +1,23 @@
+package com.rasras.erp.shared.pdf;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * نوع مستند قابل للتصدير المجمع (ZIP): كل وحدة تسجل مصدرها كـ @Component فيجده PdfBulkExportService
+ * دون أن يعتمد shared على الوحدات.
+ */
+public interface PdfExportSource {
+
+    /** معرف النوع في الـ API، مثل PURCHASE_ORDER */
+    String documentType();
+
+    /** يكفي أن يملك المستخدم واحدة منها — نفس صلاحيات عرض المستند في وحدته */
+    Set<String> requiredAuthorities();
+
+    /** معرفات المستندات المطابقة للفلتر بترتيب التاريخ */
+    List<Integer> findIds(PdfExportFilter filter);
+
+    /** يُستدعى من خيوط التصدير — يحمّل المستند ويرسمه بخدمة الـ PDF الموجودة */
+    PdfExportDocument render(Integer id);
+}
@@ -0,0 +1,81 @@
+package com.rasras.erp.shared.pdf;
+
+import com.lowagie.text.pdf.BaseFont;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+import java.awt.Color;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * خطوط PDF العربية (arial / arialbd) تُحمّل مرة واحدة عند التشغيل بدلاً من قراءتها مع كل مستند،
+ * ومجموعات الخطوط لكل تصميم تُبنى مرة واحدة وتُشارك بين كل الطلبات.
+ * المجموعات للقراءة فقط: لا يُعدّل أي Font بعد بنائه (setColor / setSize) — من يحتاج نمطاً آخر يضيفه للمجموعة.
+ */
+@Slf4j
+@Component
+public class PdfFontRegistry {
+
+    private static final String REGULAR_FONT = "fonts/arial.ttf";
+    private static final String BOLD_FONT = "fonts/arialbd.ttf";
+
+    private final Map<String, Object> fontSets = new ConcurrentHashMap<>();
+    private BaseFont regular;
+    private BaseFont bold;
+
+    @PostConstruct
+    public void load() {
+        regular = loadClasspathFont(REGULAR_FONT);
+        if (regular == null) {
+            throw new IllegalStateException("Arabic font not found: " + REGULAR_FONT);
+        }
+        BaseFont boldFont = loadClasspathFont(BOLD_FONT);
+        bold = boldFont != null ? boldFont : regular;
+        log.info("PdfFontRegistry: loaded {}{}", REGULAR_FONT, boldFont != null ? " and " + BOLD_FONT : "");
+    }
+
+    public BaseFont regular() {
+        return regular;
+    }
+
+    /** arialbd إن وجد، وإلا الخط العادي */
+    public BaseFont bold() {
+        return bold;
+    }
+
+    /**
+     * مجموعة خطوط باسم ثابت تُبنى مرة واحدة فقط (أول استدعاء) ثم تُعاد نفسها لكل المستندات.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T fontSet(String name, Function<PdfFontRegistry, T> factory) {
+        return (T) fontSets.computeIfAbsent(name, k -> factory.apply(this));
+    }
+
+    /** مجموعة خطوط الفواتير والسندات بألوان العلامة المعطاة */
+    public PdfBrandFonts brandFonts(Color primary, Color secondary) {
+        return fontSet("brand:" + primary.getRGB() + ":" + secondary.getRGB(),
+                registry -> PdfBrandFonts.of(registry, primary, secondary));
+    }
+
+    private static BaseFont loadClasspathFont(String classpathLocation) {
+        try {
+            ClassPathResource res = new ClassPathResource(classpathLocation);
+            if (!res.exists()) {
+                return null;
+            }
+            try (InputStream is = res.getInputStream()) {
+                byte[] fontBytes = is.readAllBytes();
+                return BaseFont.createFont(classpathLocation, BaseFont.IDENTITY_H, BaseFont.EMBEDDED, true, fontBytes,
+                        null);
+            }
+        } catch (Exception e) {
+            log.warn("تعذر تحميل الخط {}: {}", classpathLocation, e.getMessage());
+            return null;
+        }
+    }
+}
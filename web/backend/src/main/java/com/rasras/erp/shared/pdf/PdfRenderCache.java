@@ -0,0 +1,275 @@
+package com.rasras.erp.shared.pdf;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rasras.erp.company.CompanyInfoRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * كاش ملفات PDF المولدة على القرص بمفتاح (نوع المستند، المعرف، نسخة المحتوى). نسخة المحتوى = hash لـ DTO المستند
+ * نفسه الذي يُرسم منه الملف مع بيانات الشركة (الترويسة والتذييل) كما هي في القاعدة، فأي تعديل على المستند أو الشركة
+ * ينتج مفتاحاً جديداً في كل نسخ الخادم ولو تم التعديل من نسخة أخرى أو بـ SQL، والنسخ القديمة تُحذف. الحجم الكلي محدود والأقدم استخداماً يُحذف أولاً (LRU).
+ * المفتاح يشمل تاريخ اليوم لأن المستندات تطبع "تاريخ الاستخراج" (يوماً بلا وقت)، فلا يُخدم ملف بتاريخ يوم سابق.
+ * الملف المخزن يُنسخ إلى الاستجابة من القرص دون تحميله في الذاكرة، وETag = المفتاح فيرد If-None-Match المطابق بـ 304 دون رسم أو قراءة.
+ */
+@Slf4j
+@Component
+public class PdfRenderCache {
+
+    private static final String SUFFIX = ".pdf";
+    private static final CacheControl CACHE_CONTROL = CacheControl.noCache().cachePrivate();
+
+    private final ObjectMapper objectMapper;
+    private final CompanyInfoRepository companyInfoRepository;
+    /** محمي بـ synchronized (this) */
+    private final LinkedHashMap<String, Entry> index = new LinkedHashMap<>(64, 0.75f, true);
+    private long totalBytes;
+    private Path root;
+
+    @Value("${app.pdf-cache.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${app.pdf-cache.dir:cache/pdf}")
+    private String directory = "cache/pdf";
+
+    @Value("${app.pdf-cache.max-size-mb:256}")
+    private long maxSizeMb = 256;
+
+    private Clock clock = Clock.systemDefaultZone();
+
+    public PdfRenderCache(ObjectMapper objectMapper, CompanyInfoRepository companyInfoRepository) {
+        this.objectMapper = objectMapper;
+        this.companyInfoRepository = companyInfoRepository;
+    }
+
+    /**
+     * الفهرس في الذاكرة فقط، فملفات التشغيل السابق تُحذف عند البدء.
+     */
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            root = Paths.get(directory).toAbsolutePath();
+            Files.createDirectories(root);
+            deleteCachedFiles();
+        } catch (IOException e) {
+            log.warn("PdfRenderCache: cannot use {} ({}), caching disabled", directory, e.getMessage());
+            enabled = false;
+        }
+    }
+
+    /**
+     * استجابة التحميل: 304 إن طابق If-None-Match، وإلا الملف المخزن أو رسم جديد (renderer) يُخزن ثم يُرسل.
+     *
+     * @param document DTO المستند كما يُمرر للـ PdfService — محتواه هو نسخة الكاش
+     */
+    public ResponseEntity<StreamingResponseBody> serve(String documentType, Object id, Object document, String fileName,
+            String ifNoneMatch, Supplier<byte[]> renderer) {
+        String key = key(documentType, id, document);
+        String etag = '"' + key + '"';
+        if (matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(CACHE_CONTROL).build();
+        }
+
+        Entry cached = lookup(key);
+        if (cached != null) {
+            // الملف يُفتح داخل الـ body فقط فلا يبقى مفتوحاً إن لم يُنفذ؛ إن حُذف بالإزاحة قبلها يفشل هذا التحميل
+            // وحده (المدخل حديث الاستخدام فلا يُزاح إلا بامتلاء الكاش كله أو بنسخة أحدث من المستند)
+            return ok(etag, fileName, cached.size(), out -> Files.copy(cached.path(), out));
+        }
+        return render(key, etag, fileName, renderer);
+    }
+
+    private ResponseEntity<StreamingResponseBody> render(String key, String etag, String fileName,
+            Supplier<byte[]> renderer) {
+        byte[] pdf = renderer.get();
+        store(key, pdf);
+        return ok(etag, fileName, pdf.length, out -> out.write(pdf));
+    }
+
+    private static ResponseEntity<StreamingResponseBody> ok(String etag, String fileName, long size,
+            StreamingResponseBody body) {
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CACHE_CONTROL)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+                .contentType(MediaType.APPLICATION_PDF)
+                .contentLength(size)
+                .body(body);
+    }
+
+    /**
+     * حذف كل الملفات المخزنة في هذه النسخة لتحرير القرص بعد تعديل بيانات الشركة (المفاتيح تتغير تلقائياً
+     * مع المحتوى). بعد commit إن وجدت معاملة.
+     */
+    public void invalidateAll() {
+        Runnable invalidate = () -> {
+            List<Entry> removed;
+            synchronized (this) {
+                removed = new ArrayList<>(index.values());
+                index.clear();
+                totalBytes = 0;
+            }
+            removed.forEach(this::delete);
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidate.run();
+                }
+            });
+        } else {
+            invalidate.run();
+        }
+    }
+
+    String key(String documentType, Object id, Object document) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            // صف واحد بالمفتاح الأساسي لكل تحميل؛ أرخص كثيراً من رسم الملف
+            digest.update(objectMapper.writeValueAsBytes(companyInfoRepository.findTopByOrderByIdAsc().orElse(null)));
+            digest.update(LocalDate.now(clock).toString().getBytes(StandardCharsets.US_ASCII));
+            digest.update(objectMapper.writeValueAsBytes(document));
+            String version = HexFormat.of().formatHex(digest.digest(), 0, 12);
+            return documentType + '-' + id + '-' + version;
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Cannot compute PDF cache key for " + documentType + " " + id, e);
+        }
+    }
+
+    static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.startsWith("W/")) {
+                value = value.substring(2);
+            }
+            if ("*".equals(value) || etag.equals(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** يحدّث ترتيب الاستخدام؛ مدخل فقد ملفه (حُذف من خارج التطبيق) يُسقط ويُعاد الرسم */
+    private Entry lookup(String key) {
+        if (!enabled) {
+            return null;
+        }
+        Entry entry;
+        synchronized (this) {
+            entry = index.get(key);
+        }
+        if (entry == null || Files.isRegularFile(entry.path())) {
+            return entry;
+        }
+        synchronized (this) {
+            if (index.remove(key, entry)) {
+                totalBytes -= entry.size();
+            }
+        }
+        return null;
+    }
+
+    private void store(String key, byte[] pdf) {
+        if (!enabled || pdf.length > maxBytes()) {
+            return;
+        }
+        Path target = root.resolve(key + SUFFIX);
+        try {
+            Path tmp = Files.createTempFile(root, key, ".tmp");
+            Files.write(tmp, pdf);
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("PdfRenderCache: cannot store {}: {}", key, e.getMessage());
+            return;
+        }
+
+        String documentPrefix = key.substring(0, key.lastIndexOf('-') + 1);
+        List<Entry> removed = new ArrayList<>();
+        synchronized (this) {
+            Entry previous = index.put(key, new Entry(target, pdf.length));
+            if (previous != null) {
+                totalBytes -= previous.size();
+            }
+            totalBytes += pdf.length;
+            // نسخ أقدم لنفس المستند لن تُطلب مجدداً
+            for (Iterator<Map.Entry<String, Entry>> it = index.entrySet().iterator(); it.hasNext(); ) {
+                Map.Entry<String, Entry> e = it.next();
+                if (!e.getKey().equals(key) && e.getKey().startsWith(documentPrefix)) {
+                    removed.add(e.getValue());
+                    totalBytes -= e.getValue().size();
+                    it.remove();
+                }
+            }
+            for (Iterator<Entry> it = index.values().iterator(); totalBytes > maxBytes() && it.hasNext(); ) {
+                Entry eldest = it.next();
+                if (eldest.path().equals(target)) {
+                    continue;
+                }
+                removed.add(eldest);
+                totalBytes -= eldest.size();
+                it.remove();
+            }
+        }
+        removed.forEach(this::delete);
+    }
+
+    private void delete(Entry entry) {
+        try {
+            Files.deleteIfExists(entry.path());
+        } catch (IOException e) {
+            log.warn("PdfRenderCache: cannot delete {}: {}", entry.path(), e.getMessage());
+        }
+    }
+
+    private void deleteCachedFiles() throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(root, "*.{pdf,tmp}")) {
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    private long maxBytes() {
+        return maxSizeMb * 1024 * 1024;
+    }
+
+    private record Entry(Path path, long size) {
+    }
+}
@@ -0,0 +1,2 @@
+@org.springframework.modulith.NamedInterface("pdf")
+package com.rasras.erp.shared.pdf;
@@ -1,34 +1,150 @@
 package com.rasras.erp.shared.security;
 
+import com.rasras.erp.shared.accesslog.AccessLogRecord;
+import com.rasras.erp.shared.accesslog.AccessLogWriter;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import lombok.extern.slf4j.Slf4j;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
 
 import java.io.IOException;
 
+/**
+ * سطر واحد في سجل الوصول لكل طلب (الطريقة، قالب المسار، الحالة، المدة، المستخدم، حجم الرد) عبر AccessLogWriter.
+ * الطلبات غير المتزامنة (SSE) تُسجل عند اكتمالها.
+ */
 @Component
-@Slf4j
+@RequiredArgsConstructor
 public class GlobalRequestLoggingFilter extends OncePerRequestFilter {
 
+    private final AccessLogWriter accessLogWriter;
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
 
-        String authHeader = request.getHeader("Authorization");
-        log.info("Request: {} {}, Auth Header Present: {}, Remote IP: {}",
-                request.getMethod(),
-                request.getRequestURI(),
-                authHeader != null && !authHeader.isEmpty(),
-                request.getRemoteAddr());
+        long start = System.currentTimeMillis();
+        CountingResponse counting = new CountingResponse(response);
+        try {
+            filterChain.doFilter(request, counting);
+        } catch (IOException | ServletException | RuntimeException e) {
+            // الحاوية ستكتب 500 بعد خروج الاستثناء
+            counting.failed = true;
+            throw e;
+        } finally {
+            Integer userId = currentUserId();
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        record(request, counting, start, userId);
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onError(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {
+                    }
+                });
+            } else {
+                record(request, counting, start, userId);
+            }
+        }
+    }
+
+    private void record(HttpServletRequest request, CountingResponse response, long start, Integer userId) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        long now = System.currentTimeMillis();
+        accessLogWriter.record(new AccessLogRecord(start, request.getMethod(),
+                pattern != null ? pattern.toString() : request.getRequestURI(),
+                response.failed ? HttpServletResponse.SC_INTERNAL_SERVER_ERROR : response.getStatus(), now - start, userId, response.bytes()));
+    }
+
+    private static Integer currentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.getPrincipal() instanceof UserPrincipal principal
+                ? principal.getId() : null;
+    }
+
+    /** يعد البايتات المكتوبة عبر getOutputStream؛ الردود المكتوبة بـ getWriter تُقدّر من Content-Length */
+    private static final class CountingResponse extends HttpServletResponseWrapper {
+
+        private long count;
+        private boolean failed;
+        private ServletOutputStream stream;
+
+        private CountingResponse(HttpServletResponse response) {
+            super(response);
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (stream == null) {
+                ServletOutputStream delegate = super.getOutputStream();
+                stream = new ServletOutputStream() {
+                    @Override
+                    public void write(int b) throws IOException {
+                        delegate.write(b);
+                        count++;
+                    }
 
-        if (authHeader != null && authHeader.startsWith("Bearer ")) {
-            log.debug("Auth Header: Bearer {}...", authHeader.substring(7, Math.min(authHeader.length(), 15)));
+                    @Override
+                    public void write(byte[] b, int off, int len) throws IOException {
+                        delegate.write(b, off, len);
+                        count += len;
+                    }
+
+                    @Override
+                    public void flush() throws IOException {
+                        delegate.flush();
+                    }
+
+                    @Override
+                    public void close() throws IOException {
+                        delegate.close();
+                    }
+
+                    @Override
+                    public boolean isReady() {
+                        return delegate.isReady();
+                    }
+
+                    @Override
+                    public void setWriteListener(WriteListener listener) {
+                        delegate.setWriteListener(listener);
+                    }
+                };
+            }
+            return stream;
         }
 
-        filterChain.doFilter(request, response);
+        private long bytes() {
+            if (count > 0) {
+                return count;
+            }
+            String length = getHeader("Content-Length");
+            try {
+                return length != null ? Long.parseLong(length) : 0;
+            } catch (NumberFormatException e) {
+                return 0;
+            }
+        }
     }
 }
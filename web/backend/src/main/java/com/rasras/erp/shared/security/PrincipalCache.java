@@ -0,0 +1,118 @@
+package com.rasras.erp.shared.security;
+
+import com.rasras.erp.shared.dto.PrincipalCacheStatsDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * المستخدم المصادق عليه (الصلاحيات والدور) محفوظ في الذاكرة بدلاً من تحميله من DB مع كل طلب JWT.
+ * يُحذف بعد commit قفل المستخدم أو تعطيله أو تغيير دوره أو كلمة مروره، ويُفرغ بالكامل عند تغيير صلاحيات أي دور.
+ * كل تحميل يحمل رقم نسخة الأمان العام ورقم نسخة المستخدم وقت بدئه؛ إن تغير أحدهما أثناء التحميل لا تُحفظ
+ * النتيجة (بيانات قديمة محتملة). حذف مستخدم واحد يرفع رقم نسخته فقط، فلا يُبطل مدخلات باقي المستخدمين.
+ */
+@Component
+public class PrincipalCache {
+
+    private final UserDetailsService userDetailsService;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong securityVersion = new AtomicLong();
+    /** رقم نسخة لكل مستخدم حُذف من الكاش منذ آخر evictAll */
+    private final Map<String, Long> userVersions = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    @Value("${app.security.principal-cache-ttl-ms:300000}")
+    private long ttlMs = 300_000;
+
+    @Value("${app.security.principal-cache-size:5000}")
+    private int maxEntries = 5_000;
+
+    public PrincipalCache(UserDetailsService userDetailsService) {
+        this.userDetailsService = userDetailsService;
+    }
+
+    /**
+     * مثل loadUserByUsername: المستخدم غير الموجود أو المعطل أو المقفل يرمي UsernameNotFoundException ولا يُحفظ.
+     */
+    public UserDetails get(String username) {
+        long now = System.currentTimeMillis();
+        Entry entry = entries.get(username);
+        if (entry != null && entry.version() == securityVersion.get()
+                && entry.userVersion() == userVersion(username) && now - entry.loadedAt() < ttlMs) {
+            hits.incrementAndGet();
+            return entry.principal();
+        }
+        misses.incrementAndGet();
+        long version = securityVersion.get();
+        long userVersion = userVersion(username);
+        UserDetails principal = userDetailsService.loadUserByUsername(username);
+        if (version == securityVersion.get() && userVersion == userVersion(username)) {
+            if (entries.size() >= maxEntries) {
+                entries.clear();
+            }
+            entries.put(username, new Entry(principal, version, userVersion, now));
+        }
+        return principal;
+    }
+
+    /**
+     * تغير بيانات مستخدم واحد (قفل، تعطيل، دور، كلمة مرور) — يُطبق بعد commit.
+     */
+    public void evict(String username) {
+        if (username != null) {
+            afterCommit(() -> {
+                userVersions.merge(username, 1L, Long::sum);
+                entries.remove(username);
+            });
+        }
+    }
+
+    /**
+     * تغير صلاحيات أو كود دور — يمس كل مستخدمي الدور، فيُفرغ الكاش بالكامل بعد commit.
+     */
+    public void evictAll() {
+        afterCommit(() -> {
+            securityVersion.incrementAndGet();
+            // رفع النسخة العامة يكفي لرفض أي تحميل جارٍ، فلا حاجة لأرقام المستخدمين السابقة
+            userVersions.clear();
+            entries.clear();
+        });
+    }
+
+    private long userVersion(String username) {
+        return userVersions.getOrDefault(username, 0L);
+    }
+
+    public PrincipalCacheStatsDto getStats() {
+        return PrincipalCacheStatsDto.builder()
+                .size(entries.size())
+                .hits(hits.get())
+                .misses(misses.get())
+                .securityVersion(securityVersion.get())
+                .build();
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private record Entry(UserDetails principal, long version, long userVersion, long loadedAt) {
+    }
+}
@@ -0,0 +1,178 @@
+package com.rasras.erp.shared.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * ترقيم المستندات من جدول documentsequences بعداد لكل (نوع، سنة مالية).
+ * <p>
+ * الوضع العادي (hi/lo): تُحجز كتلة أرقام في معاملة مستقلة قصيرة وتُوزع من الذاكرة، فلا يحتاج
+ * إنشاء المستند لأي استعلام إضافي في الغالب ولا يوجد تعارض بين المعاملات؛ الأرقام غير المستخدمة
+ * من الكتلة تضيع عند إعادة التشغيل (فجوات مقبولة). الوضع الصارم (فواتير الضريبة): الرقم يُحجز
+ * بقفل صف العداد داخل معاملة المستند نفسها، فيُلغى مع إلغائها ولا تظهر فجوات.
+ * <p>
+ * الحجز في الحالتين UPDATE واحد يقفل الصف ويعيد القيمة عبر LAST_INSERT_ID. صف العداد الناقص
+ * يُنشأ قبل ذلك في معاملة مستقلة، حتى لا تأخذ معاملة المستند قفل فجوة (gap lock) يتعارض مع
+ * إدراج معاملة أخرى فيحدث deadlock.
+ */
+@Slf4j
+@Service
+public class DocumentSequenceService {
+
+    private static final String INCREMENT_SQL = "UPDATE documentsequences SET NextValue = LAST_INSERT_ID(NextValue + ?), "
+            + "UpdatedAt = ? WHERE SequenceKey = ? AND FiscalYear = ?";
+
+    private static final String EXISTS_SQL = "SELECT COUNT(*) FROM documentsequences "
+            + "WHERE SequenceKey = ? AND FiscalYear = ?";
+
+    private static final String ENSURE_SQL = "INSERT IGNORE INTO documentsequences (SequenceKey, FiscalYear, "
+            + "NextValue, UpdatedAt) VALUES (?, ?, 1, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate blockTransaction;
+    private final Map<String, Block> blocks = new ConcurrentHashMap<>();
+    /** عدادات تأكد وجود صفها منذ بدء التشغيل */
+    private final Set<String> ensured = ConcurrentHashMap.newKeySet();
+
+    /** حجم كتلة الأرقام المحجوزة في الذاكرة للأنواع غير الصارمة */
+    @Value("${app.documents.sequence-block-size:20}")
+    private int blockSize;
+
+    /** شهر بداية السنة المالية (1 = يناير) */
+    @Value("${app.documents.fiscal-year-start-month:1}")
+    private int fiscalYearStartMonth;
+
+    public DocumentSequenceService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.blockTransaction = new TransactionTemplate(transactionManager);
+        this.blockTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * الرقم التالي للمستند بتاريخ اليوم.
+     */
+    public String next(DocumentType type) {
+        return next(type, LocalDate.now());
+    }
+
+    /**
+     * الرقم التالي للمستند بتاريخ محدد (يحدد السنة المالية والشهر في النمط).
+     */
+    public String next(DocumentType type, LocalDate date) {
+        int fiscalYear = type.isYearly() ? fiscalYearOf(date) : 0;
+        long value = type.isStrict() ? nextStrict(type, fiscalYear) : nextFromBlock(type, fiscalYear);
+        return format(type.getPattern(), value, fiscalYear != 0 ? fiscalYear : fiscalYearOf(date), date);
+    }
+
+    int fiscalYearOf(LocalDate date) {
+        return fiscalYearStartMonth > 1 && date.getMonthValue() >= fiscalYearStartMonth
+                ? date.getYear() + 1
+                : date.getYear();
+    }
+
+    /**
+     * يتطلب معاملة المستند: قفل صف العداد حتى commit/rollback المستند.
+     */
+    private long nextStrict(DocumentType type, int fiscalYear) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Strict document numbering for " + type + " requires a transaction");
+        }
+        ensureRow(type.name(), fiscalYear);
+        return take(type.name(), fiscalYear, 1);
+    }
+
+    private long nextFromBlock(DocumentType type, int fiscalYear) {
+        Block block = blocks.computeIfAbsent(type.name() + "|" + fiscalYear, k -> new Block());
+        synchronized (block) {
+            if (block.next >= block.end) {
+                long start = reserveBlock(type.name(), fiscalYear, Math.max(blockSize, 1));
+                block.next = start;
+                block.end = start + Math.max(blockSize, 1);
+            }
+            return block.next++;
+        }
+    }
+
+    private long reserveBlock(String key, int fiscalYear, int size) {
+        ensureRow(key, fiscalYear);
+        Long start = blockTransaction.execute(status -> take(key, fiscalYear, size));
+        log.debug("حجز أرقام {} للسنة {}: {}..{}", key, fiscalYear, start, start + size - 1);
+        return start;
+    }
+
+    /**
+     * يزيد العداد بـ size ويرجع أول رقم محجوز؛ قفل الصف يبقى حتى نهاية المعاملة الحالية.
+     */
+    private long take(String key, int fiscalYear, int size) {
+        int updated = jdbcTemplate.update(INCREMENT_SQL, size, Timestamp.valueOf(LocalDateTime.now()), key, fiscalYear);
+        if (updated != 1) {
+            ensured.remove(key + "|" + fiscalYear);
+            throw new IllegalStateException("Document sequence row " + key + "/" + fiscalYear + " is missing");
+        }
+        Long next = jdbcTemplate.queryForObject("SELECT LAST_INSERT_ID()", Long.class);
+        return next - size;
+    }
+
+    /**
+     * ينشئ صف العداد إن لم يوجد، في معاملة مستقلة قبل أي قفل في معاملة المستند.
+     */
+    private void ensureRow(String key, int fiscalYear) {
+        if (ensured.contains(key + "|" + fiscalYear)) {
+            return;
+        }
+        Integer count = jdbcTemplate.queryForObject(EXISTS_SQL, Integer.class, key, fiscalYear);
+        if (count == null || count == 0) {
+            blockTransaction.executeWithoutResult(status -> jdbcTemplate.update(ENSURE_SQL, key, fiscalYear,
+                    Timestamp.valueOf(LocalDateTime.now())));
+        }
+        ensured.add(key + "|" + fiscalYear);
+    }
+
+    static String format(String pattern, long value, int fiscalYear, LocalDate date) {
+        StringBuilder sb = new StringBuilder(pattern.length() + 8);
+        int i = 0;
+        while (i < pattern.length()) {
+            char c = pattern.charAt(i);
+            int close = c == '{' ? pattern.indexOf('}', i) : -1;
+            if (close < 0) {
+                sb.append(c);
+                i++;
+                continue;
+            }
+            String token = pattern.substring(i + 1, close);
+            switch (token) {
+                case "YYYY" -> sb.append(fiscalYear);
+                case "YY" -> sb.append(String.format("%02d", fiscalYear % 100));
+                case "MM" -> sb.append(String.format("%02d", date.getMonthValue()));
+                case "SEQ" -> sb.append(value);
+                default -> {
+                    if (token.startsWith("SEQ:")) {
+                        sb.append(String.format("%0" + Integer.parseInt(token.substring(4)) + "d", value));
+                    } else {
+                        sb.append(pattern, i, close + 1);
+                    }
+                }
+            }
+            i = close + 1;
+        }
+        return sb.toString();
+    }
+
+    private static final class Block {
+        private long next;
+        private long end;
+    }
+}
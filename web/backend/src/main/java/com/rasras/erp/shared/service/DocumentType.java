@@ -0,0 +1,54 @@
+package com.rasras.erp.shared.service;
+
+/**
+ * أنواع المستندات المرقّمة ونمط الترقيم لكل نوع.
+ * <p>
+ * رموز النمط: {YYYY} سنة مالية، {YY}، {MM} شهر الإنشاء، {SEQ} أو {SEQ:n} الرقم المسلسل بعرض n.
+ * النوع السنوي له عداد مستقل لكل سنة مالية؛ النوع الصارم (strict) يُرقّم بلا فجوات داخل معاملة المستند.
+ */
+public enum DocumentType {
+
+    SALES_INVOICE("INV-{SEQ}", false, true),
+    SALES_ORDER("SO-{SEQ}", false, false),
+    SALES_QUOTATION("SQ-{SEQ}", false, false),
+    DELIVERY_ORDER("DO-{SEQ}", false, false),
+    STOCK_ISSUE_NOTE("SIN-{SEQ}", false, false),
+    PAYMENT_RECEIPT("RCP-{SEQ}", false, false),
+    CUSTOMER_REQUEST("CR-{SEQ}", false, false),
+    VEHICLE("V-{SEQ}", false, false),
+    PAYMENT_VOUCHER("PV-{SEQ}", false, false),
+    SUPPLIER("SUP-{SEQ}", false, false),
+    SUPPLIER_INVOICE("#INV-{SEQ}", false, false),
+    PURCHASE_REQUISITION("#PR-{SEQ}", false, false),
+    RFQ("#RFQ-{SEQ}", false, false),
+    QUOTATION_COMPARISON("#COMP-{SEQ}", false, false),
+    PURCHASE_ORDER("PO-{SEQ}", false, false),
+    GOODS_RECEIPT("#GRN-{SEQ}", false, false),
+    STOCK_TRANSFER("TRF-{YYYY}{MM}-{SEQ:3}", true, false),
+    STOCK_ADJUSTMENT("ADJ-{YYYY}{MM}-{SEQ:3}", true, false),
+    QUALITY_INSPECTION("QI-{SEQ}", false, false),
+    PRICE_LIST("PL-{SEQ}", false, false),
+    ITEM("ITEM-{SEQ:5}", false, false);
+
+    private final String pattern;
+    private final boolean yearly;
+    private final boolean strict;
+
+    DocumentType(String pattern, boolean yearly, boolean strict) {
+        this.pattern = pattern;
+        this.yearly = yearly;
+        this.strict = strict;
+    }
+
+    public String getPattern() {
+        return pattern;
+    }
+
+    public boolean isYearly() {
+        return yearly;
+    }
+
+    public boolean isStrict() {
+        return strict;
+    }
+}
@@ -3,12 +3,15 @@ package com.rasras.erp.supplier;
 import com.rasras.erp.inventory.GRNService;
 import com.rasras.erp.inventory.GoodsReceiptNoteDto;
 import com.rasras.erp.shared.dto.ApiResponse;
+import com.rasras.erp.shared.pdf.PdfRenderCache;
 import com.rasras.erp.shared.security.SecurityConstants;
 import com.rasras.erp.supplier.dto.SupplierInvoiceDto;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -20,6 +23,7 @@ public class SupplierInvoiceController {
 
     private final SupplierInvoiceService invoiceService;
     private final GRNService grnService;
+    private final PdfRenderCache pdfRenderCache;
 
     @GetMapping("/pending-grns")
     @PreAuthorize(SecurityConstants.SUPPLIER_INVOICE_CREATE)
@@ -68,12 +72,11 @@ public class SupplierInvoiceController {
 
     @GetMapping("/{id}/pdf")
     @PreAuthorize(SecurityConstants.SUPPLIER_INVOICE_VIEW)
-    public ResponseEntity<byte[]> downloadPdf(@PathVariable Integer id) {
-        byte[] pdf = invoiceService.generateInvoicePdf(id);
-        return ResponseEntity.ok()
-                .header("Content-Type", "application/pdf")
-                .header("Content-Disposition", "attachment; filename=\"invoice-" + id + ".pdf\"")
-                .body(pdf);
+    public ResponseEntity<StreamingResponseBody> downloadPdf(@PathVariable Integer id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        SupplierInvoiceDto invoice = invoiceService.getInvoiceById(id);
+        return pdfRenderCache.serve("SUPPLIER_INVOICE", id, invoice, "invoice-" + id + ".pdf", ifNoneMatch,
+                () -> invoiceService.generateInvoicePdf(invoice));
     }
 
     @DeleteMapping("/{id}")
@@ -0,0 +1,41 @@
+package com.rasras.erp.supplier;
+
+import com.rasras.erp.shared.pdf.PdfExportDocument;
+import com.rasras.erp.shared.pdf.PdfExportFilter;
+import com.rasras.erp.shared.pdf.PdfExportSource;
+import com.rasras.erp.supplier.dto.SupplierInvoiceDto;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Set;
+
+@Component
+@RequiredArgsConstructor
+public class SupplierInvoicePdfExportSource implements PdfExportSource {
+
+    private final SupplierInvoiceRepository invoiceRepo;
+    private final SupplierInvoiceService invoiceService;
+
+    @Override
+    public String documentType() {
+        return "SUPPLIER_INVOICE";
+    }
+
+    @Override
+    public Set<String> requiredAuthorities() {
+        return Set.of("SUPPLIER_INVOICE_VIEW");
+    }
+
+    @Override
+    public List<Integer> findIds(PdfExportFilter filter) {
+        return invoiceRepo.findIdsForExport(filter.startDate(), filter.endDate(), filter.supplierId(), filter.status());
+    }
+
+    @Override
+    public PdfExportDocument render(Integer id) {
+        SupplierInvoiceDto invoice = invoiceService.getInvoiceById(id);
+        String fileName = "SupplierInvoice_" + (invoice.getInvoiceNumber() != null ? invoice.getInvoiceNumber() : id) + ".pdf";
+        return new PdfExportDocument(fileName, invoiceService.generateInvoicePdf(invoice));
+    }
+}
@@ -1,7 +1,10 @@
 package com.rasras.erp.supplier;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.time.LocalDate;
 import java.util.List;
 
 @Repository
@@ -16,4 +19,11 @@ public interface SupplierInvoiceRepository extends JpaRepository<SupplierInvoice
 
     @org.springframework.data.jpa.repository.Query("SELECT DISTINCT i.poId FROM SupplierInvoice i WHERE i.poId IS NOT NULL")
     List<Integer> findAllInvoicedPoIds();
+
+    /** معرفات الفواتير للتصدير المجمع (الفترة شاملة الطرفين) */
+    @Query("SELECT i.id FROM SupplierInvoice i WHERE i.invoiceDate BETWEEN :from AND :to"
+            + " AND (:supplierId IS NULL OR i.supplier.id = :supplierId) AND (:status IS NULL OR i.status = :status)"
+            + " ORDER BY i.invoiceDate, i.id")
+    List<Integer> findIdsForExport(@Param("from") LocalDate from, @Param("to") LocalDate to,
+            @Param("supplierId") Integer supplierId, @Param("status") String status);
 }
@@ -18,6 +18,8 @@ import com.rasras.erp.supplier.service.SupplierInvoicePdfService;
 import com.rasras.erp.user.User;
 import com.rasras.erp.user.UserRepository;
 import com.rasras.erp.shared.exception.BadRequestException;
+import com.rasras.erp.shared.service.DocumentSequenceService;
+import com.rasras.erp.shared.service.DocumentType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -45,6 +47,7 @@ public class SupplierInvoiceService {
         private final com.rasras.erp.inventory.ItemService itemService;
         private final UserRepository userRepository;
         private final ExchangeRateService exchangeRateService;
+        private final DocumentSequenceService documentSequence;
 
         @Transactional(readOnly = true)
         public List<SupplierInvoiceDto> getAllInvoices() {
@@ -497,9 +500,7 @@ public class SupplierInvoiceService {
                 }
         }
 
-        @Transactional(readOnly = true)
-        public byte[] generateInvoicePdf(Integer id) {
-                SupplierInvoiceDto invoice = getInvoiceById(id);
+        public byte[] generateInvoicePdf(SupplierInvoiceDto invoice) {
                 return pdfService.generateInvoicePdf(invoice);
         }
 
@@ -511,8 +512,7 @@ public class SupplierInvoiceService {
         }
 
         private String generateInvoiceNumber() {
-                long count = invoiceRepo.count() + 1;
-                return "#INV-" + count;
+                return documentSequence.next(DocumentType.SUPPLIER_INVOICE);
         }
 
         @Transactional(readOnly = true)
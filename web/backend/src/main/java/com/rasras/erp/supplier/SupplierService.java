@@ -1,6 +1,8 @@
 package com.rasras.erp.supplier;
 
 import com.rasras.erp.supplier.SupplierStatus;
+import com.rasras.erp.shared.service.DocumentSequenceService;
+import com.rasras.erp.shared.service.DocumentType;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
@@ -20,6 +22,7 @@ public class SupplierService {
     private final SupplierBankRepository supplierBankRepository;
     private final com.rasras.erp.inventory.ItemRepository itemRepository;
     private final com.rasras.erp.approval.ApprovalService approvalService;
+    private final DocumentSequenceService documentSequence;
 
     @Transactional(readOnly = true)
     public List<SupplierDto> getAllSuppliers() {
@@ -249,8 +252,7 @@ public class SupplierService {
     }
 
     private String generateSupplierCode() {
-        long n = supplierRepository.count() + 1;
-        return "SUP-" + n;
+        return documentSequence.next(DocumentType.SUPPLIER);
     }
 
     private SupplierDto mapToDto(Supplier supplier) {
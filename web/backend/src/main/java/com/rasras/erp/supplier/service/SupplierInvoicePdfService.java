@@ -6,7 +6,8 @@ import com.rasras.erp.company.CompanyInfo;
 import com.rasras.erp.company.CompanyInfoRepository;
 import com.rasras.erp.supplier.dto.SupplierInvoiceDto;
 import com.rasras.erp.supplier.dto.SupplierInvoiceItemDto;
-import lombok.RequiredArgsConstructor;
+import com.rasras.erp.shared.pdf.PdfBrandFonts;
+import com.rasras.erp.shared.pdf.PdfFontRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Service;
@@ -14,14 +15,12 @@ import org.springframework.stereotype.Service;
 import java.awt.Color;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.InputStream;
 import java.math.BigDecimal;
-import java.time.LocalDateTime;
+import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class SupplierInvoicePdfService {
 
     private final CompanyInfoRepository companyInfoRepository;
@@ -55,16 +54,13 @@ public class SupplierInvoicePdfService {
     private static final Color ROW_EVEN = WHITE;
     private static final Color ROW_ODD = BRAND_LIGHT;
 
-    // ── Fonts ────────────────────────────────────────────────────────
-    private BaseFont bfRegular;
-    private BaseFont bfBold;
-    private Font titleFont, subtitleFont, brandFont, brandSubFont;
-    private Font sectionFont, labelFont, valueFont, valueBoldFont;
-    private Font tableHeaderFont, tableCellFont;
-    private Font totalLabelFont, totalValueFont;
-    private Font grandTotalLabelFont, grandTotalValueFont;
-    private Font footerFont, footerSubFont, invoiceNoFont;
-    private Font timestampFont, timestampLabelFont;
+    // ── Fonts (shared, built once — see PdfFontRegistry) ─────────────
+    private final PdfBrandFonts fonts;
+
+    public SupplierInvoicePdfService(CompanyInfoRepository companyInfoRepository, PdfFontRegistry fontRegistry) {
+        this.companyInfoRepository = companyInfoRepository;
+        this.fonts = fontRegistry.brandFonts(BRAND_PRIMARY, BRAND_SECONDARY);
+    }
 
     // ─────────────────────────────────────────────────────────────────
     // PUBLIC API
@@ -77,8 +73,6 @@ public class SupplierInvoicePdfService {
             PdfWriter.getInstance(document, out);
             document.open();
 
-            initFonts();
-
             addHeader(document, invoice);
             addInfoCards(document, invoice);
             addItemsTable(document, invoice);
@@ -94,58 +88,6 @@ public class SupplierInvoicePdfService {
         }
     }
 
-    // ─────────────────────────────────────────────────────────────────
-    // FONT INITIALIZATION
-    // ─────────────────────────────────────────────────────────────────
-
-    private void initFonts() {
-        bfRegular = loadClasspathFont("fonts/arial.ttf");
-        bfBold = loadClasspathFont("fonts/arialbd.ttf");
-
-        if (bfRegular == null) throw new RuntimeException("Font not found: fonts/arial.ttf");
-        if (bfBold == null) bfBold = bfRegular;
-
-        buildFontSet();
-    }
-
-    private BaseFont loadClasspathFont(String classpathLocation) {
-        try {
-            ClassPathResource res = new ClassPathResource(classpathLocation);
-            if (!res.exists()) return null;
-            try (InputStream is = res.getInputStream()) {
-                byte[] fontBytes = is.readAllBytes();
-                return BaseFont.createFont(classpathLocation, BaseFont.IDENTITY_H, BaseFont.EMBEDDED, true, fontBytes, null);
-            }
-        } catch (Exception e) { return null; }
-    }
-
-    private void buildFontSet() {
-        titleFont = new Font(bfBold, 22, Font.NORMAL, BRAND_SECONDARY);
-        subtitleFont = new Font(bfRegular, 10, Font.NORMAL, SLATE_500);
-        brandFont = new Font(bfBold, 15, Font.NORMAL, BRAND_PRIMARY);
-        brandSubFont = new Font(bfRegular, 10, Font.NORMAL, SLATE_500);
-        invoiceNoFont = new Font(bfBold, 11, Font.NORMAL, BRAND_PRIMARY);
-
-        sectionFont = new Font(bfBold, 12, Font.NORMAL, BRAND_SECONDARY);
-        labelFont = new Font(bfBold, 8, Font.NORMAL, SLATE_500);
-        valueFont = new Font(bfRegular, 10, Font.NORMAL, SLATE_900);
-        valueBoldFont = new Font(bfBold, 10, Font.NORMAL, SLATE_900);
-        
-        tableHeaderFont = new Font(bfBold, 9, Font.NORMAL, BRAND_SECONDARY);
-        tableCellFont = new Font(bfRegular, 9, Font.NORMAL, SLATE_700);
-        
-        totalLabelFont = new Font(bfRegular, 10, Font.NORMAL, SLATE_700);
-        totalValueFont = new Font(bfRegular, 10, Font.NORMAL, SLATE_900);
-        
-        grandTotalLabelFont = new Font(bfBold, 12, Font.NORMAL, BRAND_SECONDARY);
-        grandTotalValueFont = new Font(bfBold, 13, Font.NORMAL, BRAND_SECONDARY);
-        
-        footerFont = new Font(bfRegular, 8, Font.NORMAL, SLATE_500);
-        footerSubFont = new Font(bfRegular, 7, Font.NORMAL, SLATE_400);
-        timestampFont = new Font(bfRegular, 8, Font.NORMAL, SLATE_400);
-        timestampLabelFont = new Font(bfBold, 8, Font.NORMAL, SLATE_500);
-    }
-
     // ─────────────────────────────────────────────────────────────────
     // HEADER
     // ─────────────────────────────────────────────────────────────────
@@ -176,9 +118,9 @@ public class SupplierInvoicePdfService {
         leftCol.setHorizontalAlignment(Element.ALIGN_LEFT);
         leftCol.setPadding(8); 
         
-        Paragraph enTitle = new Paragraph("SUPPLIER INVOICE", subtitleFont);
+        Paragraph enTitle = new Paragraph("SUPPLIER INVOICE", fonts.subtitle());
         leftCol.addElement(enTitle);
-        Paragraph brand = new Paragraph(companyEn, brandFont);
+        Paragraph brand = new Paragraph(companyEn, fonts.brand());
         brand.setSpacingBefore(3);
         leftCol.addElement(brand);
         header.addCell(leftCol);
@@ -215,21 +157,21 @@ public class SupplierInvoicePdfService {
         rightContent.setWidthPercentage(100);
         rightContent.setRunDirection(PdfWriter.RUN_DIRECTION_RTL);
 
-        PdfPCell rTitle = new PdfPCell(new Phrase("فاتورة مورد", titleFont));
+        PdfPCell rTitle = new PdfPCell(new Phrase("فاتورة مورد", fonts.title()));
         rTitle.setBorder(Rectangle.NO_BORDER);
         rTitle.setHorizontalAlignment(Element.ALIGN_LEFT); 
         rTitle.setPadding(0);
         rTitle.setPaddingBottom(3);
         rightContent.addCell(rTitle);
 
-        PdfPCell rInv = new PdfPCell(new Phrase(safe(invoice.getInvoiceNumber()), invoiceNoFont));
+        PdfPCell rInv = new PdfPCell(new Phrase(safe(invoice.getInvoiceNumber()), fonts.documentNo()));
         rInv.setBorder(Rectangle.NO_BORDER);
         rInv.setHorizontalAlignment(Element.ALIGN_LEFT);
         rInv.setPadding(0);
         rInv.setPaddingBottom(3);
         rightContent.addCell(rInv);
 
-        PdfPCell rComp = new PdfPCell(new Phrase(companyAr, brandSubFont));
+        PdfPCell rComp = new PdfPCell(new Phrase(companyAr, fonts.brandSub()));
         rComp.setBorder(Rectangle.NO_BORDER);
         rComp.setHorizontalAlignment(Element.ALIGN_LEFT);
         rComp.setPadding(0);
@@ -254,10 +196,9 @@ public class SupplierInvoicePdfService {
         addTimestamp(document);
     }
 
+    /** تاريخ فقط بلا وقت: الملف يُخدم من PdfRenderCache طوال اليوم (المفتاح يتغير يومياً) */
     private void addTimestamp(Document document) throws DocumentException {
-        LocalDateTime now = LocalDateTime.now();
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy/MM/dd  hh:mm:ss a");
-        String timestamp = now.format(formatter);
+        String timestamp = LocalDate.now().format(DateTimeFormatter.ofPattern("yyyy/MM/dd"));
 
         PdfPTable tsTable = new PdfPTable(1);
         tsTable.setWidthPercentage(100);
@@ -271,8 +212,8 @@ public class SupplierInvoicePdfService {
         tsCell.setPaddingRight(8); 
 
         Phrase phrase = new Phrase();
-        phrase.add(new Chunk("تاريخ الاستخراج:  ", timestampLabelFont));
-        phrase.add(new Chunk("\u200E" + timestamp + "\u200E", timestampFont));
+        phrase.add(new Chunk("تاريخ الاستخراج:  ", fonts.timestampLabel()));
+        phrase.add(new Chunk("\u200E" + timestamp + "\u200E", fonts.timestamp()));
 
         tsCell.setPhrase(phrase);
         tsTable.addCell(tsCell);
@@ -305,11 +246,11 @@ public class SupplierInvoicePdfService {
         card.setPadding(10);
         card.setHorizontalAlignment(Element.ALIGN_RIGHT);
         
-        addRtlParagraph(card, label, labelFont, Element.ALIGN_RIGHT, 0, 2);
+        addRtlParagraph(card, label, fonts.label(), Element.ALIGN_RIGHT, 0, 2);
         
         Paragraph vp = new Paragraph();
         vp.setAlignment(Element.ALIGN_RIGHT);
-        vp.add(new Chunk("\u200E" + value + "\u200E", valueBoldFont));
+        vp.add(new Chunk("\u200E" + value + "\u200E", fonts.valueBold()));
         card.addElement(vp);
         table.addCell(card);
     }
@@ -321,7 +262,7 @@ public class SupplierInvoicePdfService {
         card.setPadding(10);
         card.setHorizontalAlignment(Element.ALIGN_RIGHT);
 
-        addRtlParagraph(card, "الحالة", labelFont, Element.ALIGN_RIGHT, 0, 4);
+        addRtlParagraph(card, "الحالة", fonts.label(), Element.ALIGN_RIGHT, 0, 4);
 
         String s = (status != null ? status.toLowerCase() : "");
         Color bg;
@@ -337,7 +278,7 @@ public class SupplierInvoicePdfService {
         badge.setWidthPercentage(45);
         badge.setHorizontalAlignment(Element.ALIGN_RIGHT);
 
-        Font badgeFont = new Font(bfBold, 8, Font.NORMAL, WHITE);
+        Font badgeFont = fonts.badge();
         PdfPCell bc = new PdfPCell(new Phrase(mappedStatus, badgeFont));
         bc.setBackgroundColor(bg);
         bc.setBorder(Rectangle.NO_BORDER);
@@ -366,7 +307,7 @@ public class SupplierInvoicePdfService {
 
         String[] headers = { "#", "الصنف", "الكمية", "الوحدة", "السعر", "الخصم", "الإجمالي" };
         for (String h : headers) {
-            PdfPCell cell = new PdfPCell(new Phrase(h, tableHeaderFont));
+            PdfPCell cell = new PdfPCell(new Phrase(h, fonts.tableHeader()));
             cell.setBackgroundColor(TABLE_HEADER_BG); 
             cell.setBorder(Rectangle.NO_BORDER);
             cell.setPadding(6);
@@ -390,7 +331,7 @@ public class SupplierInvoicePdfService {
                 idx++;
             }
         } else {
-            PdfPCell empty = new PdfPCell(new Phrase("لا توجد عناصر", tableCellFont));
+            PdfPCell empty = new PdfPCell(new Phrase("لا توجد عناصر", fonts.tableCell()));
             empty.setColspan(7);
             empty.setPadding(15);
             empty.setHorizontalAlignment(Element.ALIGN_CENTER);
@@ -401,7 +342,7 @@ public class SupplierInvoicePdfService {
     }
 
     private void addDataCell(PdfPTable table, String value, Color bg, int align) {
-        PdfPCell cell = new PdfPCell(new Phrase(value != null ? value : "", tableCellFont));
+        PdfPCell cell = new PdfPCell(new Phrase(value != null ? value : "", fonts.tableCell()));
         cell.setBackgroundColor(bg);
         cell.setPadding(6);
         cell.setHorizontalAlignment(align);
@@ -457,8 +398,8 @@ public class SupplierInvoicePdfService {
     }
 
     private void addSummaryRow(PdfPTable table, String label, BigDecimal value, boolean isGrand, String currency) {
-        Font lf = isGrand ? grandTotalLabelFont : totalLabelFont;
-        Font vf = isGrand ? grandTotalValueFont : totalValueFont;
+        Font lf = isGrand ? fonts.grandTotalLabel() : fonts.totalLabel();
+        Font vf = isGrand ? fonts.grandTotalValue() : fonts.totalValue();
         Color bg = isGrand ? BRAND_VERY_LIGHT : WHITE;
         int border = Rectangle.BOTTOM;
         
@@ -502,11 +443,11 @@ public class SupplierInvoicePdfService {
         cell.setPadding(12);
         cell.setHorizontalAlignment(Element.ALIGN_CENTER);
 
-        Paragraph title = new Paragraph("ملاحظات", sectionFont);
+        Paragraph title = new Paragraph("ملاحظات", fonts.section());
         title.setAlignment(Element.ALIGN_CENTER);
         cell.addElement(title);
 
-        Paragraph p = new Paragraph("هذه الفاتورة صادرة وفقاً للشروط والأحكام المتفق عليها مع المورد.", new Font(bfRegular, 10, Font.NORMAL, SLATE_700));
+        Paragraph p = new Paragraph("هذه الفاتورة صادرة وفقاً للشروط والأحكام المتفق عليها مع المورد.", fonts.note());
         p.setAlignment(Element.ALIGN_CENTER);
         cell.addElement(p);
 
@@ -528,10 +469,10 @@ public class SupplierInvoicePdfService {
         ft.setSpacingBefore(6);
 
         PdfPCell fc = rtlCell(Rectangle.NO_BORDER, null);
-        Paragraph p1 = new Paragraph("تم إنشاء هذه الفاتورة آلياً من نظام رصرص لإدارة الموارد", footerFont);
+        Paragraph p1 = new Paragraph("تم إنشاء هذه الفاتورة آلياً من نظام رصرص لإدارة الموارد", fonts.footer());
         p1.setAlignment(Element.ALIGN_CENTER);
         fc.addElement(p1);
-        Paragraph p2 = new Paragraph("Generated by RasRas ERP System  •  www.rasrasplastic.com", footerSubFont);
+        Paragraph p2 = new Paragraph("Generated by RasRas ERP System  •  www.rasrasplastic.com", fonts.footerSub());
         p2.setAlignment(Element.ALIGN_CENTER);
         fc.addElement(p2);
         
@@ -557,7 +498,7 @@ public class SupplierInvoicePdfService {
         bar.setFixedHeight(14); 
         inner.addCell(bar);
 
-        PdfPCell tc = new PdfPCell(new Phrase("  " + title, sectionFont));
+        PdfPCell tc = new PdfPCell(new Phrase("  " + title, fonts.section()));
         tc.setBorder(Rectangle.NO_BORDER);
         tc.setVerticalAlignment(Element.ALIGN_MIDDLE);
         tc.setRunDirection(PdfWriter.RUN_DIRECTION_RTL);
@@ -0,0 +1,19 @@
+package com.rasras.erp.system;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DatabaseBackupFileDto {
+    private String fileName;
+    private long size;
+    private String sha256;
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,371 @@
+package com.rasras.erp.system;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * نسخ احتياطي بالبث: مخرجات mysqldump (--single-transaction --quick) تمر عبر gzip مباشرة إلى استجابة HTTP
+ * أو إلى ملف في مجلد النسخ المحلية، بمخزن ثابت الحجم فالذاكرة لا تتغير مع حجم القاعدة.
+ * SHA-256 يُحسب للمخرجات أثناء الكتابة (ملف .sha256 بجانب كل نسخة محلية)، والتقدم متاح من getStatus.
+ * النسخة المجدولة (app.database.backup.cron) تحتفظ بآخر keep نسخ وتحذف الأقدم. نسخة واحدة فقط في نفس الوقت.
+ */
+@Slf4j
+@Service
+public class DatabaseBackupService {
+
+    static final String FILE_PREFIX = "backup_";
+    static final String FILE_SUFFIX = ".sql.gz";
+    private static final String CHECKSUM_SUFFIX = ".sha256";
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss");
+
+    private final DatabaseService databaseService;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicLong dumpedBytes = new AtomicLong();
+    private final AtomicLong writtenBytes = new AtomicLong();
+    private volatile String currentTarget;
+    private volatile LocalDateTime startedAt;
+    private volatile DatabaseBackupStatusDto lastResult;
+
+    @Value("${spring.datasource.username}")
+    private String dbUser;
+
+    @Value("${spring.datasource.password}")
+    private String dbPassword;
+
+    @Value("${app.database.mysqldump-path:mysqldump}")
+    private String mysqldumpPath = "mysqldump";
+
+    @Value("${app.database.backup.dir:backups}")
+    private String backupDir = "backups";
+
+    /** عدد النسخ المحلية المحتفظ بها */
+    @Value("${app.database.backup.keep:7}")
+    private int keep = 7;
+
+    public DatabaseBackupService(DatabaseService databaseService) {
+        this.databaseService = databaseService;
+    }
+
+    /**
+     * يبث النسخة إلى out دون إغلاقه. نهاية gzip لا تُكتب إلا بعد خروج mysqldump بنجاح، فإن فشل يكون الملف المحمّل
+     * gzip ناقصاً يرفضه فك الضغط بدل نسخة مقطوعة تبدو سليمة (بدون gzip لا توجد علامة نهاية في المخرجات).
+     */
+    public BackupResult streamBackup(String user, String password, boolean gzip, OutputStream out)
+            throws IOException, InterruptedException {
+        begin("download");
+        try {
+            return finish("download", null, dump(user, password, gzip, out));
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            fail("download", e);
+            throw e;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * نسخة محلية مضغوطة في app.database.backup.dir بحساب قاعدة البيانات المُعد، مع حذف ما زاد عن keep.
+     */
+    public BackupResult backupToDirectory() throws IOException, InterruptedException {
+        begin("local");
+        Path dir = Paths.get(backupDir).toAbsolutePath();
+        String fileName = FILE_PREFIX + LocalDateTime.now().format(FILE_TIMESTAMP) + FILE_SUFFIX;
+        Path tmp = dir.resolve(fileName + ".tmp");
+        try {
+            Files.createDirectories(dir);
+            BackupResult result;
+            try (OutputStream out = Files.newOutputStream(tmp)) {
+                result = dump(dbUser, dbPassword, true, out);
+            }
+            Path file = dir.resolve(fileName);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Files.writeString(dir.resolve(fileName + CHECKSUM_SUFFIX), result.sha256() + "  " + fileName + "\n");
+            deleteOldGenerations(dir, keep);
+            return finish("local", fileName, result);
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            try {
+                Files.deleteIfExists(tmp);
+            } catch (IOException cleanup) {
+                e.addSuppressed(cleanup);
+            }
+            fail("local", e);
+            throw e;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /** معطل افتراضياً ("-")؛ مثال يومي: 0 0 2 * * * */
+    @Scheduled(cron = "${app.database.backup.cron:-}")
+    public void scheduledBackup() {
+        try {
+            BackupResult result = backupToDirectory();
+            log.info("Scheduled backup completed: {} bytes dumped, {} written, sha256 {}",
+                    result.dumpedBytes(), result.writtenBytes(), result.sha256());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("Scheduled backup failed: {}", e.getMessage(), e);
+        }
+    }
+
+    public DatabaseBackupStatusDto getStatus() {
+        DatabaseBackupStatusDto last = lastResult;
+        DatabaseBackupStatusDto.DatabaseBackupStatusDtoBuilder status = DatabaseBackupStatusDto.builder()
+                .running(running.get());
+        if (running.get()) {
+            status.target(currentTarget).startedAt(startedAt).dumpedBytes(dumpedBytes.get())
+                    .writtenBytes(writtenBytes.get());
+        }
+        if (last != null) {
+            status.lastFinishedAt(last.getLastFinishedAt())
+                    .lastSuccess(last.isLastSuccess())
+                    .lastTarget(last.getLastTarget())
+                    .lastFileName(last.getLastFileName())
+                    .lastDumpedBytes(last.getLastDumpedBytes())
+                    .lastWrittenBytes(last.getLastWrittenBytes())
+                    .lastSha256(last.getLastSha256())
+                    .lastDurationMs(last.getLastDurationMs())
+                    .lastError(last.getLastError());
+        }
+        return status.build();
+    }
+
+    /** النسخ المحلية، الأحدث أولاً */
+    public List<DatabaseBackupFileDto> listBackups() throws IOException {
+        Path dir = Paths.get(backupDir).toAbsolutePath();
+        List<DatabaseBackupFileDto> files = new ArrayList<>();
+        for (Path file : generations(dir)) {
+            Path checksum = file.resolveSibling(file.getFileName() + CHECKSUM_SUFFIX);
+            String sha256 = Files.exists(checksum) ? Files.readString(checksum).split("\\s+")[0] : null;
+            files.add(DatabaseBackupFileDto.builder()
+                    .fileName(file.getFileName().toString())
+                    .size(Files.size(file))
+                    .sha256(sha256)
+                    .createdAt(LocalDateTime.ofInstant(Files.getLastModifiedTime(file).toInstant(),
+                            ZoneId.systemDefault()))
+                    .build());
+        }
+        return files;
+    }
+
+    private BackupResult dump(String user, String password, boolean gzip, OutputStream out)
+            throws IOException, InterruptedException {
+        String dbName = databaseService.getDatabaseName();
+        log.info("Streaming backup of {}: {} --single-transaction --quick -u{} (gzip: {})",
+                dbName, mysqldumpPath, user, gzip);
+        ProcessBuilder pb = new ProcessBuilder(dumpCommand(user, dbName));
+        if (password != null && !password.isEmpty()) {
+            // لا تظهر كلمة المرور في قائمة العمليات كما مع -p
+            pb.environment().put("MYSQL_PWD", password);
+        }
+        Process process = pb.start();
+        StderrTail stderr = new StderrTail(process.getErrorStream());
+        stderr.start();
+
+        try (InputStream in = process.getInputStream()) {
+            return pump(in, out, gzip, dumpedBytes, writtenBytes, () -> {
+                int exitCode = process.waitFor();
+                stderr.join(1000);
+                if (exitCode != 0) {
+                    throw new RuntimeException("Backup failed (Exit Code: " + exitCode + ")\n" + stderr.tail());
+                }
+            });
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            process.destroyForcibly();
+            throw e;
+        }
+    }
+
+    List<String> dumpCommand(String user, String dbName) {
+        List<String> command = new ArrayList<>();
+        command.add(mysqldumpPath);
+        // لقطة متسقة لجداول InnoDB دون قفلها، والصفوف تُقرأ بالتتابع بدل تحميل الجدول في ذاكرة mysqldump
+        command.add("--single-transaction");
+        command.add("--quick");
+        command.add("-u" + user);
+        command.add(dbName);
+        return command;
+    }
+
+    /**
+     * ينسخ الـ dump بمخزن ثابت إلى out (عبر gzip إن طُلب) ويحسب SHA-256 للبايتات المكتوبة فعلاً.
+     * عند نهاية القراءة يُستدعى completed (انتظار رمز خروج mysqldump)، وgzip يُنهى (finish) فقط إن نجح. لا يُغلق out.
+     */
+    static BackupResult pump(InputStream in, OutputStream out, boolean gzip, AtomicLong dumped, AtomicLong written,
+            DumpCompletion completed) throws IOException, InterruptedException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        dumped.set(0);
+        written.set(0);
+        OutputStream counted = new FilterOutputStream(new DigestOutputStream(out, digest)) {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                this.out.write(b, off, len);
+                written.addAndGet(len);
+            }
+
+            @Override
+            public void write(int b) throws IOException {
+                this.out.write(b);
+                written.incrementAndGet();
+            }
+
+            @Override
+            public void close() throws IOException {
+                flush();
+            }
+        };
+        OutputStream target = gzip ? new GZIPOutputStream(counted, BUFFER_SIZE) : counted;
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            target.write(buffer, 0, read);
+            dumped.addAndGet(read);
+        }
+        completed.verify();
+        if (target instanceof GZIPOutputStream gzipStream) {
+            gzipStream.finish();
+        }
+        target.flush();
+        return new BackupResult(dumped.get(), written.get(), HexFormat.of().formatHex(digest.digest()));
+    }
+
+    static void deleteOldGenerations(Path dir, int keep) throws IOException {
+        List<Path> files = generations(dir);
+        for (int i = Math.max(keep, 1); i < files.size(); i++) {
+            Path file = files.get(i);
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(file.resolveSibling(file.getFileName() + CHECKSUM_SUFFIX));
+            log.info("Deleted old backup generation {}", file.getFileName());
+        }
+    }
+
+    /** أسماء الملفات تبدأ بالتاريخ والوقت، فالترتيب الأبجدي العكسي = الأحدث أولاً */
+    private static List<Path> generations(Path dir) throws IOException {
+        List<Path> files = new ArrayList<>();
+        if (!Files.isDirectory(dir)) {
+            return files;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, FILE_PREFIX + "*" + FILE_SUFFIX)) {
+            stream.forEach(files::add);
+        }
+        files.sort(Comparator.comparing((Path p) -> p.getFileName().toString()).reversed());
+        return files;
+    }
+
+    private void begin(String target) {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("A database backup is already running");
+        }
+        currentTarget = target;
+        startedAt = LocalDateTime.now();
+        dumpedBytes.set(0);
+        writtenBytes.set(0);
+    }
+
+    private BackupResult finish(String target, String fileName, BackupResult result) {
+        record(target, fileName, result, null);
+        log.info("Backup ({}) completed: {} bytes dumped, {} written, sha256 {}",
+                target, result.dumpedBytes(), result.writtenBytes(), result.sha256());
+        return result;
+    }
+
+    private void fail(String target, Exception e) {
+        record(target, null, null, e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+        log.error("Backup ({}) failed: {}", target, e.getMessage());
+    }
+
+    private void record(String target, String fileName, BackupResult result, String error) {
+        LocalDateTime now = LocalDateTime.now();
+        lastResult = DatabaseBackupStatusDto.builder()
+                .lastFinishedAt(now)
+                .lastSuccess(error == null)
+                .lastTarget(target)
+                .lastFileName(fileName)
+                .lastDumpedBytes(result != null ? result.dumpedBytes() : dumpedBytes.get())
+                .lastWrittenBytes(result != null ? result.writtenBytes() : writtenBytes.get())
+                .lastSha256(result != null ? result.sha256() : null)
+                .lastDurationMs(Duration.between(startedAt, now).toMillis())
+                .lastError(error)
+                .build();
+    }
+
+    public record BackupResult(long dumpedBytes, long writtenBytes, String sha256) {
+    }
+
+    /** يرمي إن لم يكتمل الـ dump بنجاح رغم انتهاء مخرجاته */
+    @FunctionalInterface
+    interface DumpCompletion {
+        void verify() throws IOException, InterruptedException;
+    }
+
+    /** يقرأ stderr على خيط منفصل (حتى لا يتوقف mysqldump) ويحتفظ بآخر 4KB لرسالة الخطأ */
+    private static final class StderrTail extends Thread {
+        private static final int MAX = 4096;
+        private final InputStream in;
+        private final StringBuilder tail = new StringBuilder();
+
+        private StderrTail(InputStream in) {
+            super("mysqldump-stderr");
+            setDaemon(true);
+            this.in = in;
+        }
+
+        @Override
+        public void run() {
+            byte[] buffer = new byte[1024];
+            int read;
+            try (in) {
+                while ((read = in.read(buffer)) != -1) {
+                    synchronized (tail) {
+                        tail.append(new String(buffer, 0, read, StandardCharsets.UTF_8));
+                        if (tail.length() > MAX) {
+                            tail.delete(0, tail.length() - MAX);
+                        }
+                    }
+                }
+            } catch (IOException ignored) {
+                // العملية انتهت
+            }
+        }
+
+        private String tail() {
+            synchronized (tail) {
+                return tail.toString();
+            }
+        }
+    }
+}
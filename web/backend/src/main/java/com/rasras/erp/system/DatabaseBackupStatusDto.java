@@ -0,0 +1,33 @@
+package com.rasras.erp.system;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * النسخة الاحتياطية الجارية (إن وجدت) ونتيجة آخر نسخة منتهية
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DatabaseBackupStatusDto {
+    private boolean running;
+    private String target;
+    private LocalDateTime startedAt;
+    private long dumpedBytes;
+    private long writtenBytes;
+
+    private LocalDateTime lastFinishedAt;
+    private boolean lastSuccess;
+    private String lastTarget;
+    private String lastFileName;
+    private long lastDumpedBytes;
+    private long lastWrittenBytes;
+    private String lastSha256;
+    private long lastDurationMs;
+    private String lastError;
+}
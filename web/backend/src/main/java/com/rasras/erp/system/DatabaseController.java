@@ -4,9 +4,8 @@ import com.rasras.erp.shared.dto.ApiResponse;
 import com.rasras.erp.shared.security.SecurityConstants;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
-import org.springframework.core.io.ByteArrayResource;
-import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -14,6 +13,7 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
@@ -27,6 +27,7 @@ import java.util.Map;
 public class DatabaseController {
 
     private final DatabaseService databaseService;
+    private final DatabaseBackupService backupService;
     private final LogService logService;
 
     @PostMapping("/restore")
@@ -44,29 +45,56 @@ public class DatabaseController {
         }
     }
 
+    /**
+     * يكتب النسخة مباشرة في الاستجابة على خيط الطلب: مع StreamingResponseBody يقطع مهلة async الافتراضية
+     * في Tomcat (30 ثانية) أي نسخة أطول منها.
+     */
     @GetMapping("/backup")
     @PreAuthorize(SecurityConstants.SYSTEM_ADMIN_ONLY)
-    @Operation(summary = "Download Database Backup", description = "Generates and downloads an SQL backup of the current database.")
-    public ResponseEntity<Resource> downloadBackup(
+    @Operation(summary = "Download Database Backup", description = "Streams a gzip-compressed SQL backup of the current database (gzip=false for plain SQL).")
+    public void downloadBackup(
             @RequestParam("dbUser") String dbUser,
-            @RequestParam("dbPassword") String dbPassword) {
+            @RequestParam("dbPassword") String dbPassword,
+            @RequestParam(defaultValue = "true") boolean gzip,
+            HttpServletResponse response) throws IOException {
+        String filename = "backup_" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"))
+                + (gzip ? ".sql.gz" : ".sql");
+
+        response.setContentType(gzip ? "application/gzip" : MediaType.APPLICATION_OCTET_STREAM_VALUE);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"");
         try {
-            byte[] data = databaseService.generateBackup(dbUser, dbPassword);
-            ByteArrayResource resource = new ByteArrayResource(data);
-
-            String filename = "backup_" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"))
-                    + ".sql";
+            backupService.streamBackup(dbUser, dbPassword, gzip, response.getOutputStream());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Backup interrupted", e);
+        }
+    }
 
-            return ResponseEntity.ok()
-                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
-                    .contentType(MediaType.APPLICATION_OCTET_STREAM)
-                    .contentLength(data.length)
-                    .body(resource);
+    @PostMapping("/backup/local")
+    @PreAuthorize(SecurityConstants.SYSTEM_ADMIN_ONLY)
+    @Operation(summary = "Create Local Backup", description = "Writes a compressed backup to the server backup directory, keeping the configured number of generations.")
+    public ResponseEntity<ApiResponse<DatabaseBackupService.BackupResult>> createLocalBackup() {
+        try {
+            return ResponseEntity.ok(ApiResponse.success(backupService.backupToDirectory()));
         } catch (Exception e) {
-            return ResponseEntity.internalServerError().build();
+            return ResponseEntity.badRequest().body(ApiResponse.error("Backup failed: " + e.getMessage()));
         }
     }
 
+    @GetMapping("/backup/status")
+    @PreAuthorize(SecurityConstants.SYSTEM_ADMIN_ONLY)
+    @Operation(summary = "Backup Status", description = "Progress of the running backup and the result and checksum of the last one.")
+    public ResponseEntity<ApiResponse<DatabaseBackupStatusDto>> getBackupStatus() {
+        return ResponseEntity.ok(ApiResponse.success(backupService.getStatus()));
+    }
+
+    @GetMapping("/backup/files")
+    @PreAuthorize(SecurityConstants.SYSTEM_ADMIN_ONLY)
+    @Operation(summary = "Local Backups", description = "Backup generations kept on the server with their SHA-256 checksums, newest first.")
+    public ResponseEntity<ApiResponse<List<DatabaseBackupFileDto>>> getLocalBackups() throws IOException {
+        return ResponseEntity.ok(ApiResponse.success(backupService.listBackups()));
+    }
+
     @GetMapping("/overview")
     @PreAuthorize(SecurityConstants.SYSTEM_ADMIN_ONLY)
     @Operation(summary = "Get Database Overview", description = "Returns statistics about database tables (rows, size, etc.)")
@@ -9,6 +9,7 @@ import org.springframework.web.multipart.MultipartFile;
 
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -17,6 +18,7 @@ import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.zip.GZIPInputStream;
 
 @Service
 @Slf4j
@@ -37,9 +39,6 @@ public class DatabaseService {
     @Value("${app.database.mysql-path:mysql}")
     private String mysqlPath;
 
-    @Value("${app.database.mysqldump-path:mysqldump}")
-    private String mysqldumpPath;
-
     private static final String RESTORE_FILE_NAME = "restore_point.sql";
     private static final String TEMP_DIR = "temp_restore";
 
@@ -61,7 +60,13 @@ public class DatabaseService {
         }
 
         log.info("Saving new restore file: {}", targetPath);
-        Files.copy(file.getInputStream(), targetPath, StandardCopyOption.REPLACE_EXISTING);
+        // النسخ الاحتياطية الحالية مضغوطة (.sql.gz)؛ ملفات .sql القديمة تُقبل كما هي
+        String originalName = file.getOriginalFilename();
+        try (InputStream in = originalName != null && originalName.toLowerCase().endsWith(".gz")
+                ? new GZIPInputStream(file.getInputStream())
+                : file.getInputStream()) {
+            Files.copy(in, targetPath, StandardCopyOption.REPLACE_EXISTING);
+        }
 
         // 3. Parse Database Name from URL
         String dbName = dbUrl.substring(dbUrl.lastIndexOf("/") + 1);
@@ -170,47 +175,6 @@ public class DatabaseService {
         }
     }
 
-    public byte[] generateBackup(String providedUser, String providedPassword)
-            throws IOException, InterruptedException {
-        String dbName = getDatabaseName();
-        log.info("Generating backup for database: {}", dbName);
-
-        Path tempPath = Paths.get(TEMP_DIR);
-        if (!Files.exists(tempPath)) {
-            Files.createDirectories(tempPath);
-        }
-
-        Path backupFile = tempPath.resolve("backup_" + System.currentTimeMillis() + ".sql");
-
-        log.info("Executing backup command: {} -u{} -p**** {}", mysqldumpPath, providedUser, dbName);
-        List<String> command = new ArrayList<>();
-        command.add(mysqldumpPath);
-        command.add("-u" + providedUser);
-        if (providedPassword != null && !providedPassword.isEmpty()) {
-            command.add("-p" + providedPassword);
-        }
-        command.add(dbName);
-        ProcessBuilder pb = new ProcessBuilder(command);
-        pb.redirectOutput(backupFile.toFile());
-        pb.redirectErrorStream(true);
-        Process process = pb.start();
-
-        // Consume output to avoid hanging
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-            while (reader.readLine() != null) {
-            }
-        }
-
-        int exitCode = process.waitFor();
-        if (exitCode != 0) {
-            throw new RuntimeException("Backup failed with exit code: " + exitCode);
-        }
-
-        byte[] data = Files.readAllBytes(backupFile);
-        Files.delete(backupFile); // Clean up
-        return data;
-    }
-
     public List<Map<String, Object>> getTableData(String tableName, int limit) {
         // Sanitize table name to prevent basic SQL injection (only allow alphanumeric
         // and underscore)
@@ -221,7 +185,7 @@ public class DatabaseService {
         return jdbcTemplate.queryForList(sql, limit);
     }
 
-    private String getDatabaseName() {
+    String getDatabaseName() {
         String dbName = dbUrl.substring(dbUrl.lastIndexOf("/") + 1);
         if (dbName.contains("?")) {
             dbName = dbName.substring(0, dbName.indexOf("?"));
@@ -0,0 +1,47 @@
+package com.rasras.erp.system;
+
+import com.rasras.erp.shared.dto.ApiResponse;
+import com.rasras.erp.shared.dto.OutboxEventDto;
+import com.rasras.erp.shared.dto.OutboxStatsDto;
+import com.rasras.erp.shared.outbox.OutboxService;
+import com.rasras.erp.shared.security.SecurityConstants;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/settings/outbox")
+@RequiredArgsConstructor
+@Tag(name = "Outbox", description = "Background side-effect queue monitoring")
+public class OutboxController {
+
+    private final OutboxService outboxService;
+
+    @GetMapping("/stats")
+    @PreAuthorize(SecurityConstants.SYSTEM_ADMIN_ONLY)
+    @Operation(summary = "Outbox Stats", description = "Pending, processing and dead event counts with the current lag.")
+    public ResponseEntity<ApiResponse<OutboxStatsDto>> getStats() {
+        return ResponseEntity.ok(ApiResponse.success(outboxService.getStats()));
+    }
+
+    @GetMapping("/dead-letters")
+    @PreAuthorize(SecurityConstants.SYSTEM_ADMIN_ONLY)
+    @Operation(summary = "Dead Letters", description = "Events that exhausted their retries, newest first.")
+    public ResponseEntity<ApiResponse<List<OutboxEventDto>>> getDeadLetters(
+            @RequestParam(defaultValue = "100") int limit) {
+        return ResponseEntity.ok(ApiResponse.success(outboxService.getDeadLetters(limit)));
+    }
+
+    @PostMapping("/{id}/retry")
+    @PreAuthorize(SecurityConstants.SYSTEM_ADMIN_ONLY)
+    @Operation(summary = "Retry Dead Letter", description = "Moves a dead event back to the queue.")
+    public ResponseEntity<ApiResponse<Void>> retry(@PathVariable Long id) {
+        outboxService.retry(id);
+        return ResponseEntity.ok(ApiResponse.success(null));
+    }
+}
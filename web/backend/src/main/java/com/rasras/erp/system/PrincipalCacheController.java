@@ -0,0 +1,36 @@
+package com.rasras.erp.system;
+
+import com.rasras.erp.shared.dto.ApiResponse;
+import com.rasras.erp.shared.dto.PrincipalCacheStatsDto;
+import com.rasras.erp.shared.security.PrincipalCache;
+import com.rasras.erp.shared.security.SecurityConstants;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/settings/principal-cache")
+@RequiredArgsConstructor
+@Tag(name = "Principal Cache", description = "Authenticated user cache monitoring")
+public class PrincipalCacheController {
+
+    private final PrincipalCache principalCache;
+
+    @GetMapping("/stats")
+    @PreAuthorize(SecurityConstants.SYSTEM_ADMIN_ONLY)
+    @Operation(summary = "Principal Cache Stats", description = "Cached users with hit and miss counts since startup.")
+    public ResponseEntity<ApiResponse<PrincipalCacheStatsDto>> getStats() {
+        return ResponseEntity.ok(ApiResponse.success(principalCache.getStats()));
+    }
+
+    @PostMapping("/evict")
+    @PreAuthorize(SecurityConstants.SYSTEM_ADMIN_ONLY)
+    @Operation(summary = "Evict Principal Cache", description = "Forces every user to be reloaded on the next request.")
+    public ResponseEntity<ApiResponse<Void>> evictAll() {
+        principalCache.evictAll();
+        return ResponseEntity.ok(ApiResponse.success(null));
+    }
+}
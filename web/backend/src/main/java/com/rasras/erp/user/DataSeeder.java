@@ -22,6 +22,7 @@ public class DataSeeder implements CommandLineRunner {
     private final com.rasras.erp.approval.ApprovalWorkflowRepository workflowRepo;
     private final com.rasras.erp.approval.ApprovalWorkflowStepRepository stepRepo;
     private final com.rasras.erp.approval.ApprovalLimitRepository limitRepo;
+    private final com.rasras.erp.approval.ApprovalWorkflowRegistry workflowRegistry;
     private final PermissionRepository permissionRepository;
     private final RolePermissionRepository rolePermissionRepository;
     private final PathPermissionRepository pathPermissionRepository;
@@ -59,6 +60,7 @@ public class DataSeeder implements CommandLineRunner {
 
         // 0.2 Seed Approval Limits (حدود الاعتماد المالية)
         seedApprovalLimits();
+        workflowRegistry.invalidate();
 
         // 1. Ensure Department 1 exists (needed for employee)
         Integer deptCount = jdbcTemplate.queryForObject(
@@ -489,6 +491,12 @@ public class DataSeeder implements CommandLineRunner {
         }
     }
 
+    /** { pathPattern, httpMethod, permissionCode, priority }; also the seeded set in PathPermissionMatcherBenchmark */
+    static final String[][] PATH_RULES = {
+            // Database settings endpoints — require SECTION_SYSTEM
+            { "/api/settings/database/**", "*", "SECTION_SYSTEM", "10" },
+    };
+
     /**
      * Seed path_permission rules for API endpoints that require dynamic permission
      * checks.
@@ -498,12 +506,7 @@ public class DataSeeder implements CommandLineRunner {
     private void seedPathPermissions() {
         log.info("Seeding path permission rules...");
 
-        // Database settings endpoints — require SECTION_SYSTEM
-        String[][] rules = {
-                { "/api/settings/database/**", "*", "SECTION_SYSTEM", "10" },
-        };
-
-        for (String[] rule : rules) {
+        for (String[] rule : PATH_RULES) {
             String pathPattern = rule[0];
             String httpMethod = rule[1];
             String permCode = rule[2];
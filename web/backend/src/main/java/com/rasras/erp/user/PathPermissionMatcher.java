@@ -0,0 +1,222 @@
+package com.rasras.erp.user;
+
+import org.springframework.util.AntPathMatcher;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * قواعد path_permission مجمّعة في شجرة مقاطع (segment trie) لكل نوع مسار وطريقة HTTP، مع كاش محدود
+ * من (الطريقة، المسار بعد توحيد المعرفات الرقمية) إلى مجموعة رموز صلاحيات غير قابلة للتعديل.
+ * النسخة غير قابلة للتعديل: reloadCache يبني نسخة جديدة ويستبدلها دفعة واحدة.
+ * <p>
+ * المقاطع الحرفية و * و ** تدخل الشجرة؛ أي نمط آخر (?، {var}، *.ext) يُطابق بـ AntPathMatcher كما كان.
+ * المسارات غير الاعتيادية (تنتهي بـ / أو بها //) تُطابق بالمسح الخطي القديم للحفاظ على نفس النتيجة تماماً.
+ */
+final class PathPermissionMatcher {
+
+    private static final AntPathMatcher PATH_MATCHER = new AntPathMatcher();
+    private static final String ANY_METHOD = "*";
+    private static final String NUMERIC_SEGMENT = "{n}";
+
+    private final List<Rule> rules;
+    private final Map<PathType, Map<String, Node>> tries = new EnumMap<>(PathType.class);
+    private final List<Rule> patternRules = new ArrayList<>();
+    /** توحيد المعرفات الرقمية آمن فقط إن لم تميّز أي قاعدة بين أرقام بعينها */
+    private final boolean normalizeNumericSegments;
+    private final Map<String, Set<String>> decisions = new ConcurrentHashMap<>();
+    private final int maxCacheEntries;
+
+    PathPermissionMatcher(List<PathPermission> orderedRules, int maxCacheEntries) {
+        this.maxCacheEntries = maxCacheEntries;
+        List<Rule> compiled = new ArrayList<>(orderedRules.size());
+        boolean numericLiteral = false;
+        for (PathPermission r : orderedRules) {
+            if (r.getPermission() == null || r.getPermission().getPermissionCode() == null
+                    || r.getPathPattern() == null || r.getPathType() == null) {
+                continue;
+            }
+            Rule rule = new Rule(compiled.size(), r.getPathPattern(), methodKey(r.getHttpMethod()), r.getPathType(),
+                    r.getPermission().getPermissionCode());
+            compiled.add(rule);
+
+            String[] segments = segments(rule.pattern());
+            if (!isSimplePath(rule.pattern()) || !isTriePattern(segments)) {
+                patternRules.add(rule);
+                continue;
+            }
+            Node node = tries.computeIfAbsent(rule.pathType(), k -> new HashMap<>())
+                    .computeIfAbsent(rule.method(), k -> new Node());
+            for (String segment : segments) {
+                if ("**".equals(segment)) {
+                    node = node.multi != null ? node.multi : (node.multi = new Node());
+                } else if ("*".equals(segment)) {
+                    node = node.single != null ? node.single : (node.single = new Node());
+                } else {
+                    numericLiteral |= isNumeric(segment);
+                    node = node.literals.computeIfAbsent(segment, k -> new Node());
+                }
+            }
+            node.rules.add(rule);
+        }
+        this.rules = Collections.unmodifiableList(compiled);
+        this.normalizeNumericSegments = patternRules.isEmpty() && !numericLiteral;
+    }
+
+    /**
+     * نفس نتيجة المسح الخطي (اتحاد رموز كل القواعد المطابقة) بترتيب الأولوية.
+     */
+    Set<String> allowedPermissionCodes(String path, String httpMethod, PathType pathType) {
+        if (path == null || pathType == null) {
+            return Collections.emptySet();
+        }
+        String method = methodKey(httpMethod);
+        if (!isSimplePath(path)) {
+            return linearScan(rules, path, method, pathType);
+        }
+        String[] segments = segments(path);
+        if (normalizeNumericSegments) {
+            for (int i = 0; i < segments.length; i++) {
+                if (isNumeric(segments[i])) {
+                    segments[i] = NUMERIC_SEGMENT;
+                }
+            }
+        }
+        String key = pathType.name() + ' ' + method + ' '
+                + (normalizeNumericSegments ? String.join("/", segments) : path);
+        Set<String> cached = decisions.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        Set<String> result = resolve(path, segments, method, pathType);
+        if (decisions.size() >= maxCacheEntries) {
+            decisions.clear();
+        }
+        decisions.put(key, result);
+        return result;
+    }
+
+    List<Rule> rules() {
+        return rules;
+    }
+
+    private Set<String> resolve(String path, String[] segments, String method, PathType pathType) {
+        TreeSet<Rule> matched = new TreeSet<>((a, b) -> Integer.compare(a.order(), b.order()));
+        Map<String, Node> byMethod = tries.get(pathType);
+        if (byMethod != null) {
+            collect(byMethod.get(ANY_METHOD), segments, 0, matched);
+            if (!ANY_METHOD.equals(method)) {
+                collect(byMethod.get(method), segments, 0, matched);
+            }
+        }
+        for (Rule rule : patternRules) {
+            if (rule.pathType() == pathType && rule.appliesTo(method) && PATH_MATCHER.match(rule.pattern(), path)) {
+                matched.add(rule);
+            }
+        }
+        if (matched.isEmpty()) {
+            return Collections.emptySet();
+        }
+        Set<String> codes = new LinkedHashSet<>();
+        for (Rule rule : matched) {
+            codes.add(rule.permissionCode());
+        }
+        return Collections.unmodifiableSet(codes);
+    }
+
+    private static void collect(Node node, String[] segments, int i, Set<Rule> out) {
+        if (node == null) {
+            return;
+        }
+        if (node.multi != null) {
+            // ** يستهلك صفر أو أكثر من المقاطع
+            for (int j = i; j <= segments.length; j++) {
+                collect(node.multi, segments, j, out);
+            }
+        }
+        if (i == segments.length) {
+            out.addAll(node.rules);
+            return;
+        }
+        collect(node.literals.get(segments[i]), segments, i + 1, out);
+        collect(node.single, segments, i + 1, out);
+    }
+
+    /** المسح الخطي الأصلي (قواعد مرتبة حسب الأولوية) */
+    static Set<String> linearScan(List<Rule> rules, String path, String method, PathType pathType) {
+        Set<String> allowed = new LinkedHashSet<>();
+        for (Rule rule : rules) {
+            if (rule.pathType() == pathType && rule.appliesTo(method) && PATH_MATCHER.match(rule.pattern(), path)) {
+                allowed.add(rule.permissionCode());
+            }
+        }
+        return allowed.isEmpty() ? Collections.emptySet() : Collections.unmodifiableSet(allowed);
+    }
+
+    private static boolean isSimplePath(String path) {
+        return path.startsWith("/") && !path.endsWith("/") && !path.contains("//");
+    }
+
+    private static boolean isTriePattern(String[] segments) {
+        for (String segment : segments) {
+            if (!"*".equals(segment) && !"**".equals(segment)
+                    && (segment.indexOf('*') >= 0 || segment.indexOf('?') >= 0 || segment.indexOf('{') >= 0)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String[] segments(String path) {
+        List<String> result = new ArrayList<>();
+        int start = 0;
+        for (int i = 0; i <= path.length(); i++) {
+            if (i == path.length() || path.charAt(i) == '/') {
+                if (i > start) {
+                    result.add(path.substring(start, i));
+                }
+                start = i + 1;
+            }
+        }
+        return result.toArray(String[]::new);
+    }
+
+    private static boolean isNumeric(String segment) {
+        if (segment.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < segment.length(); i++) {
+            if (!Character.isDigit(segment.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String methodKey(String method) {
+        return method == null || method.isBlank() ? ANY_METHOD : method.trim().toUpperCase(Locale.ROOT);
+    }
+
+    private static final class Node {
+        private final Map<String, Node> literals = new HashMap<>();
+        private Node single;
+        private Node multi;
+        private final List<Rule> rules = new ArrayList<>();
+    }
+
+    record Rule(int order, String pattern, String method, PathType pathType, String permissionCode) {
+
+        boolean appliesTo(String requestMethod) {
+            return ANY_METHOD.equals(method) || method.equals(requestMethod);
+        }
+    }
+}
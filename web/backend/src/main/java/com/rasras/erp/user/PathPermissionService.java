@@ -3,15 +3,14 @@ package com.rasras.erp.user;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
-import org.springframework.util.AntPathMatcher;
+import org.springframework.beans.factory.annotation.Value;
 
 import jakarta.annotation.PostConstruct;
 import java.util.*;
-import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * تحميل قواعد path_permission في الذاكرة عند التشغيل.
- * ترتيب حسب priority DESC، واستخدام AntPathMatcher لمطابقة المسار.
+ * ترتيب حسب priority DESC، والمطابقة عبر شجرة مقاطع مجمّعة مع كاش قرارات (PathPermissionMatcher).
  * لا يربط بأي Filter حتى الآن — الخدمة فقط.
  */
 @Slf4j
@@ -21,13 +20,16 @@ public class PathPermissionService {
 
     private final PathPermissionRepository pathPermissionRepository;
 
-    private static final AntPathMatcher PATH_MATCHER = new AntPathMatcher();
+    /** أقصى عدد قرارات (طريقة + مسار) محفوظة في كاش المطابقة */
+    @Value("${app.security.path-permission-cache-size:10000}")
+    private int decisionCacheSize = 10000;
 
     /**
-     * كاش في الذاكرة: قائمة القواعد مرتبة حسب priority DESC.
-     * CopyOnWriteArrayList لقراءة آمنة مع إمكانية إعادة التحميل لاحقاً.
+     * كاش في الذاكرة: القواعد مرتبة حسب priority DESC (لواجهة المستخدم)، والقواعد المجمّعة للمطابقة.
+     * كلاهما يُستبدل دفعة واحدة عند إعادة التحميل.
      */
     private volatile List<PathPermission> cachedRules = Collections.emptyList();
+    private volatile PathPermissionMatcher matcher = new PathPermissionMatcher(List.of(), 1);
 
     @PostConstruct
     public void loadRulesOnStartup() {
@@ -39,7 +41,8 @@ public class PathPermissionService {
      */
     public void reloadCache() {
         List<PathPermission> rules = pathPermissionRepository.findAllByOrderByPriorityDesc();
-        this.cachedRules = new CopyOnWriteArrayList<>(rules);
+        this.matcher = new PathPermissionMatcher(rules, decisionCacheSize);
+        this.cachedRules = List.copyOf(rules);
         log.info("PathPermissionService: loaded {} path-permission rules (ordered by priority DESC)", rules.size());
         if (log.isDebugEnabled()) {
             for (PathPermission r : rules) {
@@ -54,7 +57,7 @@ public class PathPermissionService {
 
     /**
      * يُرجع مجموعة رموز الصلاحيات التي تسمح بالوصول لمسار وطريقة HTTP معيّنين.
-     * المطابقة باستخدام AntPathMatcher، وترتيب القواعد حسب priority DESC (مضمون في الكاش).
+     * المطابقة عبر القواعد المجمّعة (PathPermissionMatcher) بنفس نتيجة AntPathMatcher، بترتيب priority DESC.
      *
      * @param path       مسار الطلب (مثلاً /api/inventory/items)
      * @param httpMethod طريقة HTTP (GET, POST, ...)
@@ -62,17 +65,7 @@ public class PathPermissionService {
      * @return مجموعة رموز الصلاحيات (اتحاد كل القواعد المطابقة)، أو فارغة إن لم يُعرَّف أي قاعدة
      */
     public Set<String> getAllowedPermissionCodes(String path, String httpMethod, PathType pathType) {
-        Set<String> allowed = new HashSet<>();
-        List<PathPermission> rules = this.cachedRules;
-        for (PathPermission rule : rules) {
-            if (rule.getPathType() != pathType) continue;
-            if (!PATH_MATCHER.match(rule.getPathPattern(), path)) continue;
-            if (!"*".equals(rule.getHttpMethod()) && !rule.getHttpMethod().equalsIgnoreCase(httpMethod)) continue;
-            if (rule.getPermission() != null && rule.getPermission().getPermissionCode() != null) {
-                allowed.add(rule.getPermission().getPermissionCode());
-            }
-        }
-        return allowed;
+        return matcher.allowedPermissionCodes(path, httpMethod, pathType);
     }
 
     /**
@@ -1,8 +1,10 @@
 package com.rasras.erp.user;
 
 import com.rasras.erp.approval.ApprovalLimitRepository;
+import com.rasras.erp.approval.ApprovalWorkflowRegistry;
 import com.rasras.erp.approval.ApprovalWorkflowStepRepository;
 import com.rasras.erp.shared.exception.BadRequestException;
+import com.rasras.erp.shared.security.PrincipalCache;
 import com.rasras.erp.user.dto.EffectivePermissionsDto;
 import com.rasras.erp.user.dto.RoleDto;
 import lombok.RequiredArgsConstructor;
@@ -24,6 +26,8 @@ public class RoleService {
     private final UserRepository userRepository;
     private final ApprovalWorkflowStepRepository approvalWorkflowStepRepository;
     private final ApprovalLimitRepository approvalLimitRepository;
+    private final ApprovalWorkflowRegistry approvalWorkflowRegistry;
+    private final PrincipalCache principalCache;
 
     @Transactional(readOnly = true)
     public List<RoleDto> getAllRoles() {
@@ -73,6 +77,12 @@ public class RoleService {
                 throw new BadRequestException("كود الدور مكرر - يرجى استخدام كود آخر");
             }
         });
+        if (!roleCode.equals(role.getRoleCode())) {
+            // خطوات سير العمل وحدود الموافقة المجمّعة تعتمد على كود الدور
+            approvalWorkflowRegistry.invalidate();
+            // authority ROLE_<code> في المستخدمين المحفوظين
+            principalCache.evictAll();
+        }
         role.setRoleCode(roleCode);
         role.setRoleNameAr(dto.getRoleNameAr());
         role.setRoleNameEn(dto.getRoleNameEn());
@@ -130,6 +140,7 @@ public class RoleService {
                 .collect(Collectors.toList());
 
         rolePermissionRepository.saveAll(newPermissions);
+        principalCache.evictAll();
     }
 
     /**
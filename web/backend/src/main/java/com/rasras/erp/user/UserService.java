@@ -3,6 +3,7 @@ package com.rasras.erp.user;
 import com.rasras.erp.employee.EmployeeRepository;
 import com.rasras.erp.shared.exception.BadRequestException;
 import com.rasras.erp.shared.exception.ResourceNotFoundException;
+import com.rasras.erp.shared.security.PrincipalCache;
 import com.rasras.erp.user.dto.*;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
@@ -22,6 +23,7 @@ public class UserService {
     private final RoleRepository roleRepository;
     private final EmployeeRepository employeeRepository;
     private final PasswordEncoder passwordEncoder;
+    private final PrincipalCache principalCache;
 
     @Transactional(readOnly = true)
     public Page<UserDto> getAllUsers(Pageable pageable) {
@@ -78,6 +80,7 @@ public class UserService {
         }
 
         user = userRepository.save(user);
+        principalCache.evict(user.getUsername());
         return toDto(user);
     }
 
@@ -91,6 +94,7 @@ public class UserService {
         user.setIsActive(false);
         user.setIsLocked(true);
         userRepository.save(user);
+        principalCache.evict(user.getUsername());
     }
 
     @Transactional
@@ -99,6 +103,7 @@ public class UserService {
                 .orElseThrow(() -> new ResourceNotFoundException("User", "id", id));
         user.setPasswordHash(passwordEncoder.encode(newPassword));
         userRepository.save(user);
+        principalCache.evict(user.getUsername());
     }
 
     // Roles
@@ -0,0 +1,125 @@
+-- Document numbering: one counter per (document type, fiscal year). FiscalYear = 0 for types
+-- numbered continuously; yearly types (stock transfers/adjustments) get a row per fiscal year.
+
+CREATE TABLE IF NOT EXISTS documentsequences
+(
+    SequenceKey VARCHAR(40) NOT NULL,
+    FiscalYear  INT         NOT NULL,
+    NextValue   BIGINT      NOT NULL,
+    UpdatedAt   DATETIME    NULL,
+    PRIMARY KEY (SequenceKey, FiscalYear)
+);
+
+-- Continue after the highest number already issued (the old count()+1 scheme reused numbers after deletes).
+
+INSERT IGNORE INTO documentsequences (SequenceKey, FiscalYear, NextValue, UpdatedAt)
+SELECT 'SALES_INVOICE', 0, COALESCE(MAX(CAST(SUBSTRING_INDEX(InvoiceNumber, '-', -1) AS UNSIGNED)), 0) + 1, NOW()
+FROM salesinvoices
+WHERE InvoiceNumber REGEXP '-[0-9]+$';
+
+INSERT IGNORE INTO documentsequences (SequenceKey, FiscalYear, NextValue, UpdatedAt)
+SELECT 'SALES_ORDER', 0, COALESCE(MAX(CAST(SUBSTRING_INDEX(SONumber, '-', -1) AS UNSIGNED)), 0) + 1, NOW()
+FROM salesorders
+WHERE SONumber REGEXP '-[0-9]+$';
+
+INSERT IGNORE INTO documentsequences (SequenceKey, FiscalYear, NextValue, UpdatedAt)
+SELECT 'SALES_QUOTATION', 0, COALESCE(MAX(CAST(SUBSTRING_INDEX(QuotationNumber, '-', -1) AS UNSIGNED)), 0) + 1, NOW()
+FROM salesquotations
+WHERE QuotationNumber REGEXP '-[0-9]+$';
+
+INSERT IGNORE INTO documentsequences (SequenceKey, FiscalYear, NextValue, UpdatedAt)
+SELECT 'DELIVERY_ORDER', 0, COALESCE(MAX(CAST(SUBSTRING_INDEX(DeliveryOrderNumber, '-', -1) AS UNSIGNED)), 0) + 1, NOW()
+FROM deliveryorders
+WHERE DeliveryOrderNumber REGEXP '-[0-9]+$';
+
+INSERT IGNORE INTO documentsequences (SequenceKey, FiscalYear, NextValue, UpdatedAt)
+SELECT 'STOCK_ISSUE_NOTE', 0, COALESCE(MAX(CAST(SUBSTRING_INDEX(IssueNoteNumber, '-', -1) AS UNSIGNED)), 0) + 1, NOW()
+FROM stockissuenotes
+WHERE IssueNoteNumber REGEXP '-[0-9]+$';
+
+INSERT IGNORE INTO documentsequences (SequenceKey, FiscalYear, NextValue, UpdatedAt)
+SELECT 'PAYMENT_RECEIPT', 0, COALESCE(MAX(CAST(SUBSTRING_INDEX(VoucherNumber, '-', -1) AS UNSIGNED)), 0) + 1, NOW()
+FROM receiptvouchers
+WHERE VoucherNumber REGEXP '-[0-9]+$';
+
+INSERT IGNORE INTO documentsequences (SequenceKey, FiscalYear, NextValue, UpdatedAt)
+SELECT 'CUSTOMER_REQUEST', 0, COALESCE(MAX(CAST(SUBSTRING_INDEX(RequestNumber, '-', -1) AS UNSIGNED)), 0) + 1, NOW()
+FROM customerrequests
+WHERE RequestNumber REGEXP '-[0-9]+$';
+
+INSERT IGNORE INTO documentsequences (SequenceKey, FiscalYear, NextValue, UpdatedAt)
+SELECT 'VEHICLE', 0, COALESCE(MAX(CAST(SUBSTRING_INDEX(VehicleCode, '-', -1) AS UNSIGNED)), 0) + 1, NOW()
+FROM vehicles
+WHERE VehicleCode REGEXP '-[0-9]+$';
+
+INSERT IGNORE INTO documentsequences (SequenceKey, FiscalYear, NextValue, UpdatedAt)
+SELECT 'PAYMENT_VOUCHER', 0, COALESCE(MAX(CAST(SUBSTRING_INDEX(VoucherNumber, '-', -1) AS UNSIGNED)), 0) + 1, NOW()
+FROM paymentvouchers
+WHERE VoucherNumber REGEXP '-[0-9]+$';
+
+INSERT IGNORE INTO documentsequences (SequenceKey, FiscalYear, NextValue, UpdatedAt)
+SELECT 'SUPPLIER', 0, COALESCE(MAX(CAST(SUBSTRING_INDEX(SupplierCode, '-', -1) AS UNSIGNED)), 0) + 1, NOW()
+FROM suppliers
+WHERE SupplierCode REGEXP '-[0-9]+$';
+
+INSERT IGNORE INTO documentsequences (SequenceKey, FiscalYear, NextValue, UpdatedAt)
+SELECT 'SUPPLIER_INVOICE', 0, COALESCE(MAX(CAST(SUBSTRING_INDEX(InvoiceNumber, '-', -1) AS UNSIGNED)), 0) + 1, NOW()
+FROM supplierinvoices
+WHERE InvoiceNumber REGEXP '-[0-9]+$';
+
+INSERT IGNORE INTO documentsequences (SequenceKey, FiscalYear, NextValue, UpdatedAt)
+SELECT 'PURCHASE_REQUISITION', 0, COALESCE(MAX(CAST(SUBSTRING_INDEX(PRNumber, '-', -1) AS UNSIGNED)), 0) + 1, NOW()
+FROM purchaserequisitions
+WHERE PRNumber REGEXP '-[0-9]+$';
+
+INSERT IGNORE INTO documentsequences (SequenceKey, FiscalYear, NextValue, UpdatedAt)
+SELECT 'RFQ', 0, COALESCE(MAX(CAST(SUBSTRING_INDEX(RFQNumber, '-', -1) AS UNSIGNED)), 0) + 1, NOW()
+FROM requestforquotations
+WHERE RFQNumber REGEXP '-[0-9]+$';
+
+INSERT IGNORE INTO documentsequences (SequenceKey, FiscalYear, NextValue, UpdatedAt)
+SELECT 'QUOTATION_COMPARISON', 0, COALESCE(MAX(CAST(SUBSTRING_INDEX(ComparisonNumber, '-', -1) AS UNSIGNED)), 0) + 1, NOW()
+FROM quotationcomparisons
+WHERE ComparisonNumber REGEXP '-[0-9]+$';
+
+INSERT IGNORE INTO documentsequences (SequenceKey, FiscalYear, NextValue, UpdatedAt)
+SELECT 'PURCHASE_ORDER', 0, COALESCE(MAX(CAST(SUBSTRING_INDEX(PONumber, '-', -1) AS UNSIGNED)), 0) + 1, NOW()
+FROM purchaseorders
+WHERE PONumber REGEXP '-[0-9]+$';
+
+INSERT IGNORE INTO documentsequences (SequenceKey, FiscalYear, NextValue, UpdatedAt)
+SELECT 'GOODS_RECEIPT', 0, COALESCE(MAX(CAST(SUBSTRING_INDEX(GRNNumber, '-', -1) AS UNSIGNED)), 0) + 1, NOW()
+FROM goodsreceiptnotes
+WHERE GRNNumber REGEXP '-[0-9]+$';
+
+INSERT IGNORE INTO documentsequences (SequenceKey, FiscalYear, NextValue, UpdatedAt)
+SELECT 'QUALITY_INSPECTION', 0, COALESCE(MAX(CAST(SUBSTRING_INDEX(InspectionNumber, '-', -1) AS UNSIGNED)), 0) + 1, NOW()
+FROM qualityinspections
+WHERE InspectionNumber REGEXP '-[0-9]+$';
+
+INSERT IGNORE INTO documentsequences (SequenceKey, FiscalYear, NextValue, UpdatedAt)
+SELECT 'PRICE_LIST', 0, COALESCE(MAX(CAST(SUBSTRING_INDEX(PriceListCode, '-', -1) AS UNSIGNED)), 0) + 1, NOW()
+FROM pricelists
+WHERE PriceListCode REGEXP '-[0-9]+$';
+
+INSERT IGNORE INTO documentsequences (SequenceKey, FiscalYear, NextValue, UpdatedAt)
+SELECT 'ITEM', 0, COALESCE(MAX(CAST(SUBSTRING_INDEX(ItemCode, '-', -1) AS UNSIGNED)), 0) + 1, NOW()
+FROM items
+WHERE ItemCode REGEXP '-[0-9]+$';
+
+-- Transfers and adjustments were numbered with one global counter; seed the current fiscal year from it.
+-- The fiscal year follows DocumentSequenceService.fiscalYearOf (app.documents.fiscal-year-start-month).
+
+INSERT IGNORE INTO documentsequences (SequenceKey, FiscalYear, NextValue, UpdatedAt)
+SELECT 'STOCK_TRANSFER',
+       YEAR(CURDATE()) + IF(${fiscalYearStartMonth} > 1 AND MONTH(CURDATE()) >= ${fiscalYearStartMonth}, 1, 0),
+       COALESCE(MAX(CAST(SUBSTRING_INDEX(TransferNumber, '-', -1) AS UNSIGNED)), 0) + 1, NOW()
+FROM stocktransfers
+WHERE TransferNumber REGEXP '-[0-9]+$';
+
+INSERT IGNORE INTO documentsequences (SequenceKey, FiscalYear, NextValue, UpdatedAt)
+SELECT 'STOCK_ADJUSTMENT',
+       YEAR(CURDATE()) + IF(${fiscalYearStartMonth} > 1 AND MONTH(CURDATE()) >= ${fiscalYearStartMonth}, 1, 0),
+       COALESCE(MAX(CAST(SUBSTRING_INDEX(AdjustmentNumber, '-', -1) AS UNSIGNED)), 0) + 1, NOW()
+FROM stockadjustments
+WHERE AdjustmentNumber REGEXP '-[0-9]+$';
@@ -0,0 +1,22 @@
+-- Transactional outbox: side effects recorded in the same transaction as the business change and
+-- drained asynchronously. IdempotencyKey makes enqueueing the same effect twice a no-op.
+
+CREATE TABLE IF NOT EXISTS outboxevents
+(
+    EventID        BIGINT       NOT NULL AUTO_INCREMENT,
+    EventType      VARCHAR(60)  NOT NULL,
+    IdempotencyKey VARCHAR(150) NOT NULL,
+    Payload        TEXT         NULL,
+    Status         VARCHAR(20)  NOT NULL DEFAULT 'PENDING',
+    Attempts       INT          NOT NULL DEFAULT 0,
+    NextAttemptAt  DATETIME(3)  NOT NULL,
+    LockedBy       VARCHAR(40)  NULL,
+    LockedAt       DATETIME(3)  NULL,
+    LastError      VARCHAR(1000) NULL,
+    CreatedAt      DATETIME(3)  NOT NULL,
+    ProcessedAt    DATETIME(3)  NULL,
+    PRIMARY KEY (EventID),
+    UNIQUE KEY UX_OutboxEvents_IdempotencyKey (IdempotencyKey),
+    KEY IX_OutboxEvents_Status_NextAttempt (Status, NextAttemptAt),
+    KEY IX_OutboxEvents_LockedBy (LockedBy)
+);
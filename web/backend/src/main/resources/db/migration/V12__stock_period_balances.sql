@@ -0,0 +1,51 @@
+-- Monthly stock snapshots per (item, warehouse): opening, in, out and closing quantity/value.
+-- Maintained by StockPeriodLedger on every posting and sealed by StockPeriodCloseService.
+
+CREATE TABLE IF NOT EXISTS stockperiodbalances (
+    PeriodBalanceID BIGINT         NOT NULL AUTO_INCREMENT,
+    ItemID          INT            NOT NULL,
+    WarehouseID     INT            NOT NULL,
+    Period          INT            NOT NULL,
+    PeriodYear      INT            NOT NULL,
+    PeriodMonth     INT            NOT NULL,
+    OpeningQty      DECIMAL(18, 3) NOT NULL,
+    OpeningValue    DECIMAL(18, 2) NOT NULL,
+    InQty           DECIMAL(18, 3) NOT NULL,
+    InValue         DECIMAL(18, 2) NOT NULL,
+    OutQty          DECIMAL(18, 3) NOT NULL,
+    OutValue        DECIMAL(18, 2) NOT NULL,
+    ClosingQty      DECIMAL(18, 3) NOT NULL,
+    ClosingValue    DECIMAL(18, 2) NOT NULL,
+    AverageCost     DECIMAL(18, 4) NULL,
+    IsClosed        BIT            NOT NULL DEFAULT 0,
+    ClosedAt        DATETIME(6)    NULL,
+    UpdatedAt       DATETIME(6)    NULL,
+    PRIMARY KEY (PeriodBalanceID),
+    UNIQUE KEY UQ_StockPeriodBalances_Key (ItemID, WarehouseID, Period),
+    KEY IX_StockPeriodBalances_Period (Period, WarehouseID),
+    -- "is this period sealed" probe made by StockPeriodLedger before each upsert
+    KEY IX_StockPeriodBalances_Closed (Period, IsClosed)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4 COLLATE = utf8mb4_general_ci;
+
+-- Open snapshot of the current month for every existing balance: opening = on-hand minus this month's net movement.
+-- Earlier months can be rebuilt from the movement history with POST /inventory/stocks/periods/rebuild.
+INSERT INTO stockperiodbalances (ItemID, WarehouseID, Period, PeriodYear, PeriodMonth, OpeningQty, OpeningValue,
+                                 InQty, InValue, OutQty, OutValue, ClosingQty, ClosingValue, AverageCost, IsClosed,
+                                 UpdatedAt)
+SELECT b.ItemID, b.WarehouseID, YEAR(CURDATE()) * 100 + MONTH(CURDATE()), YEAR(CURDATE()), MONTH(CURDATE()),
+       b.QuantityOnHand - COALESCE(m.InQty, 0) + COALESCE(m.OutQty, 0),
+       (b.QuantityOnHand - COALESCE(m.InQty, 0) + COALESCE(m.OutQty, 0)) * COALESCE(b.AverageCost, 0),
+       COALESCE(m.InQty, 0), COALESCE(m.InValue, 0), COALESCE(m.OutQty, 0),
+       COALESCE(m.OutQty, 0) * COALESCE(b.AverageCost, 0),
+       b.QuantityOnHand, b.QuantityOnHand * COALESCE(b.AverageCost, 0), COALESCE(b.AverageCost, 0), 0, NOW(6)
+FROM stockbalances b
+         LEFT JOIN (SELECT ItemID, WarehouseID,
+                           SUM(CASE WHEN Direction = 'IN' THEN Quantity ELSE 0 END)  AS InQty,
+                           SUM(CASE WHEN Direction = 'IN' THEN TotalCost ELSE 0 END) AS InValue,
+                           SUM(CASE WHEN Direction = 'OUT' THEN Quantity ELSE 0 END) AS OutQty
+                    FROM stockmovements
+                    WHERE MovementDate >= DATE_FORMAT(CURDATE(), '%Y-%m-01')
+                    GROUP BY ItemID, WarehouseID) m ON m.ItemID = b.ItemID AND m.WarehouseID = b.WarehouseID
+WHERE NOT EXISTS (SELECT 1 FROM stockperiodbalances p
+                  WHERE p.ItemID = b.ItemID AND p.WarehouseID = b.WarehouseID
+                    AND p.Period = YEAR(CURDATE()) * 100 + MONTH(CURDATE()));
@@ -0,0 +1,16 @@
+-- Low-stock watch list: one row per item whose total on-hand is below MinStockLevel or ReorderLevel.
+-- Maintained by LowStockWatchService on every posting; rebuilt in full at startup, so no backfill is needed.
+
+CREATE TABLE IF NOT EXISTS lowstockwatch (
+    LowStockWatchID BIGINT         NOT NULL AUTO_INCREMENT,
+    ItemID          INT            NOT NULL,
+    Status          VARCHAR(20)    NOT NULL,
+    TotalOnHand     DECIMAL(18, 3) NOT NULL,
+    MinStockLevel   DECIMAL(18, 3) NULL,
+    ReorderLevel    DECIMAL(18, 3) NULL,
+    CrossedAt       DATETIME(6)    NOT NULL,
+    UpdatedAt       DATETIME(6)    NULL,
+    PRIMARY KEY (LowStockWatchID),
+    UNIQUE KEY UQ_LowStockWatch_Item (ItemID),
+    KEY IX_LowStockWatch_Status (Status, CrossedAt)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4 COLLATE = utf8mb4_general_ci;
@@ -0,0 +1,16 @@
+-- Materialized approval inbox: one row per open approval request with the approver of its current step.
+-- Maintained by ApprovalInboxService in the request's transaction and reconciled at startup, so no backfill is needed.
+
+CREATE TABLE IF NOT EXISTS approvalinbox (
+    RequestID        INT            NOT NULL,
+    ApproverRoleCode VARCHAR(50)    NULL,
+    ApproverUserID   INT            NULL,
+    DocumentType     VARCHAR(30)    NOT NULL,
+    StepID           INT            NOT NULL,
+    TotalAmount      DECIMAL(18, 2) NULL,
+    RequestedDate    DATETIME(6)    NULL,
+    UpdatedAt        DATETIME(6)    NOT NULL,
+    PRIMARY KEY (RequestID),
+    KEY IX_ApprovalInbox_Role (ApproverRoleCode, RequestedDate),
+    KEY IX_ApprovalInbox_User (ApproverUserID, RequestedDate)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4 COLLATE = utf8mb4_general_ci;
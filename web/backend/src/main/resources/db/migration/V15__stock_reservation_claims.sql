@@ -0,0 +1,9 @@
+-- One row per reserved document. StockReservationService.reserve upserts it first, so concurrent reserves of the
+-- same document queue on this key and the second one sees the first one's Active rows instead of reserving twice.
+
+CREATE TABLE IF NOT EXISTS stockreservationclaims (
+    ReferenceType VARCHAR(20) NOT NULL,
+    ReferenceID   INT         NOT NULL,
+    ClaimedAt     DATETIME(6) NOT NULL,
+    PRIMARY KEY (ReferenceType, ReferenceID)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4 COLLATE = utf8mb4_general_ci;
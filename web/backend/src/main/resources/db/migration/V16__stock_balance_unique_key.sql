@@ -0,0 +1,34 @@
+-- UQ_StockBalance covered (ItemID, WarehouseID, LocationID, LotNumber). Both trailing columns are nullable and the
+-- application never sets them, and MySQL treats NULLs as distinct in a unique key, so the key never stopped two
+-- concurrent postings from inserting the same (item, warehouse) balance twice. The key now uses stored generated
+-- columns that map NULL to a sentinel (0 / '').
+
+-- Merge rows the old key let through into the lowest StockBalanceID of each key.
+UPDATE stockbalances b
+    JOIN (SELECT MIN(StockBalanceID)                                                 AS KeepID,
+                 SUM(QuantityOnHand)                                                 AS OnHand,
+                 SUM(QuantityReserved)                                               AS Reserved,
+                 SUM(QuantityOnHand * AverageCost) / NULLIF(SUM(QuantityOnHand), 0)  AS AvgCost,
+                 MAX(LastMovementDate)                                               AS LastMove
+          FROM stockbalances
+          GROUP BY ItemID, WarehouseID, COALESCE(LocationID, 0), COALESCE(LotNumber, '')
+          HAVING COUNT(*) > 1) d ON d.KeepID = b.StockBalanceID
+SET b.QuantityOnHand   = d.OnHand,
+    b.QuantityReserved = d.Reserved,
+    b.AverageCost      = COALESCE(d.AvgCost, b.AverageCost),
+    b.LastMovementDate = d.LastMove;
+
+DELETE b
+FROM stockbalances b
+         JOIN stockbalances k
+              ON k.ItemID = b.ItemID
+                  AND k.WarehouseID = b.WarehouseID
+                  AND COALESCE(k.LocationID, 0) = COALESCE(b.LocationID, 0)
+                  AND COALESCE(k.LotNumber, '') = COALESCE(b.LotNumber, '')
+                  AND k.StockBalanceID < b.StockBalanceID;
+
+ALTER TABLE stockbalances
+    ADD COLUMN LocationKey INT GENERATED ALWAYS AS (COALESCE(LocationID, 0)) STORED NOT NULL,
+    ADD COLUMN LotKey VARCHAR(50) GENERATED ALWAYS AS (COALESCE(LotNumber, '')) STORED NOT NULL,
+    DROP INDEX UQ_StockBalance,
+    ADD UNIQUE KEY UQ_StockBalance (ItemID, WarehouseID, LocationKey, LotKey);
@@ -0,0 +1,8 @@
+-- Seek (keyset) pagination of the stock movement ledger orders by (MovementDate, MovementID).
+-- InnoDB secondary indexes carry the primary key, so MovementID is the implicit last column.
+
+CREATE INDEX IX_StockMovement_Item_Warehouse_Date ON stockmovements (ItemID, WarehouseID, MovementDate);
+
+CREATE INDEX IX_StockMovement_Warehouse_Date ON stockmovements (WarehouseID, MovementDate);
+
+CREATE INDEX IX_StockMovement_Item_Date ON stockmovements (ItemID, MovementDate);
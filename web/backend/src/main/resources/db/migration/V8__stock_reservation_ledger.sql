@@ -0,0 +1,18 @@
+-- Reservation ledger: stockreservations rows per document drive stockbalances.QuantityReserved.
+
+CREATE INDEX IX_StockReservations_Reference ON stockreservations (ReferenceType, ReferenceID, Status);
+
+CREATE INDEX IX_StockReservations_Status_Expiry ON stockreservations (Status, ExpiryDate);
+
+CREATE INDEX IX_StockReservations_Key_Status ON stockreservations (ItemID, WarehouseID, Status);
+
+-- Carry existing reservations into the ledger so the reconcile job keeps them.
+-- They are consumed/released by documents reserved before the ledger existed.
+INSERT INTO stockreservations (ItemID, WarehouseID, ReservedQty, ReferenceType, ReferenceID, ReservedByUserID,
+                               ReservedDate, ExpiryDate, Status, Notes)
+SELECT b.ItemID, b.WarehouseID, b.QuantityReserved, 'Legacy', 0, u.UserID, NOW(), NULL, 'Active',
+       'Backfilled from stockbalances.QuantityReserved'
+FROM stockbalances b
+         CROSS JOIN (SELECT MIN(UserID) AS UserID FROM users) u
+WHERE b.QuantityReserved > 0
+  AND u.UserID IS NOT NULL;
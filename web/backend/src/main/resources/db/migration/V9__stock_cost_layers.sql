@@ -0,0 +1,44 @@
+-- FIFO cost layers: one layer per inbound receipt, consumed oldest-first by OUT movements.
+
+CREATE TABLE IF NOT EXISTS stockcostlayers (
+    LayerID       BIGINT         NOT NULL AUTO_INCREMENT,
+    ItemID        INT            NOT NULL,
+    WarehouseID   INT            NOT NULL,
+    LotNumber     VARCHAR(50)    NULL,
+    ReceivedAt    DATETIME(6)    NOT NULL,
+    ReferenceType VARCHAR(30)    NULL,
+    ReferenceID   INT            NULL,
+    OriginalQty   DECIMAL(18, 3) NOT NULL,
+    RemainingQty  DECIMAL(18, 3) NOT NULL,
+    UnitCost      DECIMAL(18, 4) NOT NULL,
+    IsOpen        BIT            NOT NULL,
+    PRIMARY KEY (LayerID),
+    -- "oldest open layer" seek: ItemID, WarehouseID, IsOpen = 1 ORDER BY ReceivedAt, LayerID LIMIT n
+    KEY IX_StockCostLayers_Open (ItemID, WarehouseID, IsOpen, ReceivedAt),
+    KEY IX_StockCostLayers_Lot (ItemID, WarehouseID, LotNumber, IsOpen, ReceivedAt)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4 COLLATE = utf8mb4_general_ci;
+
+CREATE TABLE IF NOT EXISTS stockcostconsumptions (
+    ConsumptionID BIGINT         NOT NULL AUTO_INCREMENT,
+    LayerID       BIGINT         NULL,
+    ItemID        INT            NOT NULL,
+    WarehouseID   INT            NOT NULL,
+    LotNumber     VARCHAR(50)    NULL,
+    Quantity      DECIMAL(18, 3) NOT NULL,
+    UnitCost      DECIMAL(18, 4) NOT NULL,
+    ReferenceType VARCHAR(30)    NULL,
+    ReferenceID   INT            NULL,
+    ConsumedAt    DATETIME(6)    NOT NULL,
+    PRIMARY KEY (ConsumptionID),
+    KEY IX_StockCostConsumptions_Reference (ReferenceType, ReferenceID),
+    KEY IX_StockCostConsumptions_Item_Date (ItemID, ConsumedAt)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4 COLLATE = utf8mb4_general_ci;
+
+-- Opening layer per existing balance at its moving-average cost.
+INSERT INTO stockcostlayers (ItemID, WarehouseID, LotNumber, ReceivedAt, ReferenceType, ReferenceID, OriginalQty,
+                             RemainingQty, UnitCost, IsOpen)
+SELECT b.ItemID, b.WarehouseID, NULL, NOW(6), 'Opening', NULL, b.QuantityOnHand, b.QuantityOnHand,
+       COALESCE(b.AverageCost, 0), 1
+FROM stockbalances b
+WHERE b.QuantityOnHand > 0
+  AND NOT EXISTS (SELECT 1 FROM stockcostlayers l WHERE l.ItemID = b.ItemID AND l.WarehouseID = b.WarehouseID);
@@ -0,0 +1,75 @@
+package com.rasras.erp.approval;
+
+import com.rasras.erp.approval.dto.BulkApprovalActionRequest;
+import com.rasras.erp.approval.dto.BulkApprovalResultDto;
+import com.rasras.erp.shared.exception.BadRequestException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class ApprovalBulkServiceTest {
+
+    @Mock
+    private ApprovalService approvalService;
+
+    private ApprovalBulkService bulkService;
+
+    @BeforeEach
+    void setUp() {
+        bulkService = new ApprovalBulkService(approvalService, 3, 5);
+    }
+
+    @AfterEach
+    void tearDown() {
+        bulkService.shutdown();
+    }
+
+    @Test
+    @DisplayName("reports each request separately and keeps going after a failure")
+    void perItemOutcome() {
+        doAnswer(inv -> {
+            if (Integer.valueOf(2).equals(inv.getArgument(0))) {
+                throw new RuntimeException("Request not found");
+            }
+            return null;
+        }).when(approvalService).processAction(anyInt(), anyInt(), anyString(), any(), any(), any());
+        BulkApprovalActionRequest request = new BulkApprovalActionRequest(List.of(1, 2, 3, 1), "Approved",
+                "month end", 7, new BigDecimal("48.5"));
+
+        BulkApprovalResultDto result = bulkService.processBulk(request, 42);
+
+        assertThat(result.getTotal()).isEqualTo(3);
+        assertThat(result.getSucceeded()).isEqualTo(2);
+        assertThat(result.getFailed()).isEqualTo(1);
+        assertThat(result.getItems()).extracting(BulkApprovalResultDto.Item::getRequestId).containsExactly(1, 2, 3);
+        assertThat(result.getItems().get(1).getMessage()).isEqualTo("Request not found");
+        verify(approvalService, times(1)).processAction(1, 42, "Approved", "month end", 7, new BigDecimal("48.5"));
+        verify(approvalService, times(1)).processAction(3, 42, "Approved", "month end", 7, new BigDecimal("48.5"));
+    }
+
+    @Test
+    @DisplayName("rejects batches above the configured maximum")
+    void tooMany() {
+        BulkApprovalActionRequest request = new BulkApprovalActionRequest(List.of(1, 2, 3, 4, 5, 6), "Approved",
+                null, null, null);
+
+        assertThatThrownBy(() -> bulkService.processBulk(request, 42)).isInstanceOf(BadRequestException.class);
+    }
+}
@@ -0,0 +1,137 @@
+package com.rasras.erp.approval;
+
+import com.rasras.erp.employee.EmployeeNameCache;
+import com.rasras.erp.employee.EmployeeRepository;
+import com.rasras.erp.procurement.QuotationComparisonRepository;
+import com.rasras.erp.user.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * كل استدعاء مستودع = استعلام واحد: صفحة الاعتمادات يجب أن تكلف عدداً ثابتاً من الاستعلامات
+ * مهما كان عدد الصفوف أو المستخدمين فيها.
+ */
+@ExtendWith(MockitoExtension.class)
+class ApprovalDtoAssemblerQueryCountTest {
+
+    private static final int PAGE_SIZE = 200;
+
+    @Mock
+    private EmployeeRepository employeeRepository;
+
+    @Mock
+    private QuotationComparisonRepository comparisonRepository;
+
+    private ApprovalDtoAssembler assembler;
+
+    @BeforeEach
+    void setUp() {
+        assembler = new ApprovalDtoAssembler(new EmployeeNameCache(employeeRepository), comparisonRepository);
+        when(employeeRepository.findArabicNames(anyCollection())).thenAnswer(inv -> {
+            Collection<Integer> ids = inv.getArgument(0);
+            List<Object[]> rows = new ArrayList<>();
+            for (Integer id : ids) {
+                rows.add(new Object[] { id, "موظف", String.valueOf(id) });
+            }
+            return rows;
+        });
+    }
+
+    @Test
+    @DisplayName("audit page resolves all employee names with one query, and none once cached")
+    void auditPage_oneEmployeeQuery() {
+        List<ApprovalAction> actions = new ArrayList<>();
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            actions.add(action(i, user(i, i % 50)));
+        }
+
+        List<ApprovalAuditDto> dtos = assembler.toAuditDtos(actions);
+
+        assertThat(dtos).hasSize(PAGE_SIZE);
+        assertThat(dtos.get(7).getActionByUser()).isEqualTo("موظف 7");
+        verify(employeeRepository, times(1)).findArabicNames(anyCollection());
+
+        assembler.toAuditDtos(actions);
+        verify(employeeRepository, times(1)).findArabicNames(anyCollection());
+        verifyNoMoreInteractions(employeeRepository);
+    }
+
+    @Test
+    @DisplayName("request page uses one query for employees and one for comparison totals")
+    void requestPage_fixedQueries() {
+        when(comparisonRepository.findSelectedQuotationTotals(anyCollection())).thenAnswer(inv -> {
+            Collection<Integer> ids = inv.getArgument(0);
+            return ids.stream().map(id -> new Object[] { id, new BigDecimal("125.50") }).toList();
+        });
+        List<ApprovalRequest> requests = new ArrayList<>();
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            requests.add(request(i, i % 2 == 0 ? "QuotationComparison" : "PurchaseOrder", user(i, i)));
+        }
+
+        List<ApprovalRequestDto> dtos = assembler.toDtos(requests);
+
+        assertThat(dtos).hasSize(PAGE_SIZE);
+        assertThat(dtos.get(0).getTotalAmount()).isEqualByComparingTo("125.50");
+        assertThat(dtos.get(1).getTotalAmount()).isEqualByComparingTo("0");
+        assertThat(dtos.get(3).getCurrentApproverName()).isEqualTo("تم عن طريق موظف 1003");
+        verify(employeeRepository, times(1)).findArabicNames(anyCollection());
+        verify(comparisonRepository, times(1)).findSelectedQuotationTotals(anyCollection());
+        verify(comparisonRepository, never()).findById(any());
+        verify(employeeRepository, never()).findById(any());
+    }
+
+    private static User user(int userId, Integer employeeId) {
+        return User.builder().userId(userId).username("user" + userId).employeeId(employeeId).build();
+    }
+
+    private static ApprovalWorkflow workflow() {
+        return ApprovalWorkflow.builder().workflowId(1).workflowName("اعتماد").build();
+    }
+
+    private static ApprovalAction action(int id, User actor) {
+        return ApprovalAction.builder()
+                .id(id)
+                .request(request(id, "PurchaseOrder", actor))
+                .step(ApprovalWorkflowStep.builder().stepId(1).stepName("مدير").build())
+                .actionByUser(actor)
+                .actionType("Approved")
+                .actionDate(LocalDateTime.now())
+                .build();
+    }
+
+    private static ApprovalRequest request(int id, String documentType, User requester) {
+        return ApprovalRequest.builder()
+                .id(id)
+                .workflow(workflow())
+                .documentType(documentType)
+                .documentId(id)
+                .requestedByUser(requester)
+                .totalAmount(BigDecimal.ZERO)
+                .currentStep(ApprovalWorkflowStep.builder()
+                        .stepId(2)
+                        .stepName("مدير")
+                        .approverType("USER")
+                        .approverUser(user(1000 + id, 1000 + id))
+                        .build())
+                .build();
+    }
+}
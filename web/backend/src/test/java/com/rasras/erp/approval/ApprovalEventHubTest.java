@@ -0,0 +1,66 @@
+package com.rasras.erp.approval;
+
+import com.rasras.erp.shared.security.UserPrincipal;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ApprovalEventHubTest {
+
+    private final ApprovalWorkflowRegistry workflowRegistry = mock(ApprovalWorkflowRegistry.class);
+    /** الأحداث المرسلة لكل مشترك بترتيب الاشتراك */
+    private final List<BlockingQueue<String>> sent = List.of(new LinkedBlockingQueue<>(),
+            new LinkedBlockingQueue<>());
+    private int subscribed;
+
+    private final ApprovalEventHub hub = new ApprovalEventHub(workflowRegistry) {
+        @Override
+        SseEmitter createEmitter() {
+            BlockingQueue<String> queue = sent.get(subscribed++);
+            return new SseEmitter() {
+                @Override
+                public void send(SseEventBuilder builder) {
+                    queue.add(builder.build().iterator().next().getData().toString());
+                }
+            };
+        }
+    };
+
+    @AfterEach
+    void tearDown() {
+        hub.shutdown();
+    }
+
+    private static UserPrincipal user(int id, String authority) {
+        return new UserPrincipal(id, "user" + id, "", null, true, false,
+                List.of(new SimpleGrantedAuthority(authority)));
+    }
+
+    @Test
+    @DisplayName("role step events reach subscribers whose role code differs only in case")
+    void roleMatchIgnoresCase() throws Exception {
+        when(workflowRegistry.findStep(5))
+                .thenReturn(Optional.of(new CompiledWorkflow.Step(5, 1, "ROLE", true, "Manager", null)));
+        hub.subscribe(user(1, "ROLE_MANAGER"), null);
+        hub.subscribe(user(2, "ROLE_CLERK"), null);
+
+        hub.requestChanged(ApprovalRequest.builder().id(12).status("InProgress")
+                .currentStep(ApprovalWorkflowStep.builder().stepId(5).build()).build(), null);
+
+        assertThat(sent.get(0).poll(5, TimeUnit.SECONDS)).contains("inbox");
+        // الإرسال على خيط واحد: بعد وصول الحدث للأول انتهى التوزيع على الجميع
+        assertThat(sent.get(1)).isEmpty();
+    }
+}
@@ -0,0 +1,129 @@
+package com.rasras.erp.approval;
+
+import com.rasras.erp.user.Role;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ApprovalInboxServiceTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final ApprovalWorkflowRegistry workflowRegistry = mock(ApprovalWorkflowRegistry.class);
+    private final ApprovalInboxService service = new ApprovalInboxService(jdbcTemplate,
+            new TransactionTemplate(mock(PlatformTransactionManager.class)), workflowRegistry);
+
+    private static ApprovalRequest request(String status, ApprovalWorkflowStep step) {
+        return ApprovalRequest.builder()
+                .id(12)
+                .documentType("PO")
+                .status(status)
+                .currentStep(step)
+                .totalAmount(new BigDecimal("2500.00"))
+                .requestedDate(LocalDateTime.of(2025, 3, 1, 10, 0))
+                .build();
+    }
+
+    private static ApprovalWorkflowStep step(int stepId) {
+        return ApprovalWorkflowStep.builder().stepId(stepId).build();
+    }
+
+    @Test
+    @DisplayName("an open request on a role step is upserted with the role code from the compiled workflow")
+    void openRoleStep() {
+        when(workflowRegistry.findStep(5))
+                .thenReturn(Optional.of(new CompiledWorkflow.Step(5, 1, "ROLE", true, "PM", null)));
+
+        service.sync(request("InProgress", step(5)));
+
+        verify(jdbcTemplate).update(startsWith("INSERT INTO approvalinbox"), eq(12), eq("PM"), isNull(), eq("PO"),
+                eq(5), eq(new BigDecimal("2500.00")), any(), any());
+    }
+
+    @Test
+    @DisplayName("an open request on a user step is upserted with the approver user")
+    void openUserStep() {
+        when(workflowRegistry.findStep(6))
+                .thenReturn(Optional.of(new CompiledWorkflow.Step(6, 2, "USER", false, null, 44)));
+
+        service.sync(request("Pending", step(6)));
+
+        verify(jdbcTemplate).update(startsWith("INSERT INTO approvalinbox"), eq(12), isNull(), eq(44), eq("PO"),
+                eq(6), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("a step missing from the registry falls back to the step entity")
+    void registryMissFallsBackToEntity() {
+        Role role = new Role();
+        role.setRoleCode("FM");
+        ApprovalWorkflowStep step = ApprovalWorkflowStep.builder().stepId(7).approverType("ROLE").approverRole(role)
+                .build();
+        when(workflowRegistry.findStep(7)).thenReturn(Optional.empty());
+
+        service.sync(request("InProgress", step));
+
+        verify(jdbcTemplate).update(startsWith("INSERT INTO approvalinbox"), eq(12), eq("FM"), isNull(), eq("PO"),
+                eq(7), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("approved or rejected requests leave the inbox; unsaved requests are ignored")
+    void closedRequestsRemoved() {
+        service.sync(request("Approved", step(5)));
+        service.sync(request("Rejected", null));
+        service.sync(ApprovalRequest.builder().status("Pending").currentStep(step(5)).build());
+
+        verify(jdbcTemplate, times(2)).update("DELETE FROM approvalinbox WHERE RequestID = ?", 12);
+        verify(jdbcTemplate, never()).update(startsWith("INSERT"), any(), any(), any(), any(), any(), any(), any(),
+                any());
+    }
+
+    @Test
+    @DisplayName("startup reconcile upserts open requests and deletes closed ones under a server lock, never truncating")
+    void reconcileUnderLock() {
+        when(jdbcTemplate.queryForObject("SELECT GET_LOCK(?, 0)", Integer.class,
+                ApprovalInboxService.REBUILD_LOCK)).thenReturn(1);
+
+        service.rebuildOnStartup();
+
+        var order = inOrder(jdbcTemplate);
+        order.verify(jdbcTemplate).update(eq(ApprovalInboxService.REBUILD_SQL), any(Object[].class));
+        order.verify(jdbcTemplate).update(ApprovalInboxService.DELETE_CLOSED_SQL);
+        order.verify(jdbcTemplate).queryForObject("SELECT RELEASE_LOCK(?)", Integer.class,
+                ApprovalInboxService.REBUILD_LOCK);
+        verify(jdbcTemplate, never()).update("DELETE FROM approvalinbox");
+    }
+
+    @Test
+    @DisplayName("startup reconcile is skipped while another instance holds the lock")
+    void reconcileSkippedWhenLocked() {
+        when(jdbcTemplate.queryForObject("SELECT GET_LOCK(?, 0)", Integer.class,
+                ApprovalInboxService.REBUILD_LOCK)).thenReturn(0);
+
+        service.rebuildOnStartup();
+
+        verify(jdbcTemplate, never()).update(anyString(), any(Object[].class));
+        verify(jdbcTemplate, never()).queryForObject(startsWith("SELECT RELEASE_LOCK"), eq(Integer.class),
+                any(Object[].class));
+        verify(workflowRegistry, never()).findStep(anyInt());
+    }
+}
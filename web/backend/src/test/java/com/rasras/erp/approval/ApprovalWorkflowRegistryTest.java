@@ -0,0 +1,55 @@
+package com.rasras.erp.approval;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ApprovalWorkflowRegistryTest {
+
+    private final ApprovalWorkflowRepository workflowRepo = mock(ApprovalWorkflowRepository.class);
+    private final ApprovalWorkflowRegistry registry = new ApprovalWorkflowRegistry(workflowRepo,
+            mock(ApprovalWorkflowStepRepository.class), mock(ApprovalLimitRepository.class));
+
+    @BeforeEach
+    void setUp() {
+        when(workflowRepo.findAll()).thenReturn(List.of(
+                ApprovalWorkflow.builder().workflowId(1).workflowCode("PO_APPROVAL").build()));
+    }
+
+    @Test
+    @DisplayName("definitions are cached while fresh and reloaded once the TTL has passed")
+    void expiresAfterTtl() throws InterruptedException {
+        ReflectionTestUtils.setField(registry, "ttlSeconds", 1L);
+        registry.getByCode("PO_APPROVAL");
+        registry.findById(1);
+        verify(workflowRepo, times(1)).findAll();
+
+        Thread.sleep(1100);
+        registry.findById(1);
+        verify(workflowRepo, times(2)).findAll();
+    }
+
+    @Test
+    @DisplayName("reload picks up workflows added outside the application immediately")
+    void reloadPicksUpSqlEdits() {
+        ReflectionTestUtils.setField(registry, "ttlSeconds", 0L);
+        assertThat(registry.findById(2)).isEmpty();
+
+        when(workflowRepo.findAll()).thenReturn(List.of(
+                ApprovalWorkflow.builder().workflowId(1).workflowCode("PO_APPROVAL").build(),
+                ApprovalWorkflow.builder().workflowId(2).workflowCode("PV_APPROVAL").build()));
+        assertThat(registry.findById(2)).isEmpty();
+
+        assertThat(registry.reload()).isEqualTo(2);
+        assertThat(registry.findById(2)).isPresent();
+    }
+}
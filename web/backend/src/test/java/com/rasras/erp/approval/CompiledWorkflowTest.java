@@ -0,0 +1,96 @@
+package com.rasras.erp.approval;
+
+import com.rasras.erp.user.Role;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CompiledWorkflowTest {
+
+    private static final Role PM = Role.builder().roleId(1).roleCode("PM").build();
+    private static final Role FM = Role.builder().roleId(2).roleCode("FM").build();
+    private static final Role GM = Role.builder().roleId(3).roleCode("GM").build();
+
+    private static final ApprovalWorkflow WORKFLOW = ApprovalWorkflow.builder()
+            .workflowId(1).workflowCode("PO_APPROVAL").build();
+
+    private static final List<ApprovalWorkflowStep> STEPS = List.of(
+            step(10, 1, PM), step(11, 2, FM), step(12, 3, GM));
+
+    private static final List<ApprovalLimit> LIMITS = List.of(
+            limit(PM, "0", "10000"),
+            limit(FM, "10000.01", "50000"),
+            limit(FM, "40000", "100000"),
+            limit(GM, "100000.01", null));
+
+    private final CompiledWorkflow compiled = new CompiledWorkflow(WORKFLOW, STEPS, LIMITS);
+
+    @Nested
+    @DisplayName("initialStep")
+    class InitialStep {
+
+        @Test
+        @DisplayName("picks the first step whose role limit covers the amount")
+        void byAmount() {
+            assertThat(compiled.initialStep(new BigDecimal("5000")).stepId()).isEqualTo(10);
+            assertThat(compiled.initialStep(new BigDecimal("75000")).stepId()).isEqualTo(11);
+            assertThat(compiled.initialStep(new BigDecimal("5000000")).stepId()).isEqualTo(12);
+        }
+
+        @Test
+        @DisplayName("falls back to the first step without amount, limits or match")
+        void fallback() {
+            assertThat(compiled.initialStep(null).stepId()).isEqualTo(10);
+            assertThat(compiled.initialStep(new BigDecimal("-1")).stepId()).isEqualTo(10);
+            assertThat(new CompiledWorkflow(WORKFLOW, STEPS, List.of()).initialStep(new BigDecimal("75000")).stepId())
+                    .isEqualTo(10);
+        }
+    }
+
+    @Nested
+    @DisplayName("nextStep")
+    class NextStep {
+
+        @Test
+        @DisplayName("skips role steps whose limits do not cover the amount")
+        void skipsOutOfRange() {
+            assertThat(compiled.nextStep(10, new BigDecimal("150000")).stepId()).isEqualTo(12);
+            assertThat(compiled.nextStep(10, new BigDecimal("45000")).stepId()).isEqualTo(11);
+        }
+
+        @Test
+        @DisplayName("returns null when no later step applies or the current step is unknown")
+        void finished() {
+            assertThat(compiled.nextStep(11, new BigDecimal("45000"))).isNull();
+            assertThat(compiled.nextStep(12, null)).isNull();
+            assertThat(compiled.nextStep(99, null)).isNull();
+            assertThat(compiled.nextStep(null, null)).isNull();
+        }
+
+        @Test
+        @DisplayName("does not check limits when the amount is null")
+        void noAmount() {
+            assertThat(compiled.nextStep(10, null).stepId()).isEqualTo(11);
+        }
+    }
+
+    private static ApprovalWorkflowStep step(int id, int number, Role role) {
+        return ApprovalWorkflowStep.builder()
+                .stepId(id).stepNumber(number).stepName("Step " + number)
+                .approverType("ROLE").approverRole(role).workflow(WORKFLOW)
+                .build();
+    }
+
+    private static ApprovalLimit limit(Role role, String min, String max) {
+        return ApprovalLimit.builder()
+                .activityType("PO_APPROVAL").role(role)
+                .minAmount(new BigDecimal(min))
+                .maxAmount(max != null ? new BigDecimal(max) : null)
+                .build();
+    }
+}
@@ -0,0 +1,71 @@
+package com.rasras.erp.finance;
+
+import com.rasras.erp.company.CompanyInfoRepository;
+import com.rasras.erp.finance.dto.PaymentVoucherDto;
+import com.rasras.erp.shared.pdf.PdfFontRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * رسم سند صرف كامل: قبل (قراءة arial/arialbd وبناء مجموعة الخطوط مع كل مستند، كما كان initFonts)
+ * وبعد (خطوط مشتركة من PdfFontRegistry تُحمّل مرة واحدة).
+ * <p>
+ * mvn -Pbenchmark test-compile exec:exec -Dbenchmark=PaymentVoucherPdfBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PaymentVoucherPdfBenchmark {
+
+    private final CompanyInfoRepository companyInfoRepository = mock(CompanyInfoRepository.class);
+    private PaymentVoucherPdfService sharedFonts;
+    private PaymentVoucherDto voucher;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        PdfFontRegistry registry = new PdfFontRegistry();
+        registry.load();
+        sharedFonts = new PaymentVoucherPdfService(companyInfoRepository, registry);
+        voucher = PaymentVoucherDto.builder()
+                .voucherNumber("PV-2026-0001")
+                .voucherDate(LocalDate.of(2026, 1, 1))
+                .paymentMethod("Cash")
+                .currency("EGP")
+                .amount(BigDecimal.valueOf(12_500))
+                .status("Approved")
+                .supplierNameAr("مورد تجريبي")
+                .allocations(List.of())
+                .build();
+    }
+
+    @Benchmark
+    public byte[] fontsPerDocument() {
+        PdfFontRegistry registry = new PdfFontRegistry();
+        registry.load();
+        return new PaymentVoucherPdfService(companyInfoRepository, registry).generateVoucherPdf(voucher);
+    }
+
+    @Benchmark
+    public byte[] sharedFontRegistry() {
+        return sharedFonts.generateVoucherPdf(voucher);
+    }
+}
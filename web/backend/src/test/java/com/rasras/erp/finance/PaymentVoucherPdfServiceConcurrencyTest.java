@@ -0,0 +1,93 @@
+package com.rasras.erp.finance;
+
+import com.lowagie.text.pdf.PdfReader;
+import com.lowagie.text.pdf.parser.PdfTextExtractor;
+import com.rasras.erp.company.CompanyInfoRepository;
+import com.rasras.erp.finance.dto.PaymentVoucherDto;
+import com.rasras.erp.shared.pdf.PdfFontRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * سندات صرف تُولّد بالتوازي من نفس الخدمة (خطوط مشتركة من PdfFontRegistry) — كل ملف صالح ويحمل بياناته هو.
+ */
+@ExtendWith(MockitoExtension.class)
+class PaymentVoucherPdfServiceConcurrencyTest {
+
+    @Mock
+    private CompanyInfoRepository companyInfoRepository;
+
+    private PdfFontRegistry fontRegistry;
+    private PaymentVoucherPdfService service;
+
+    @BeforeEach
+    void setUp() {
+        fontRegistry = new PdfFontRegistry();
+        fontRegistry.load();
+        service = new PaymentVoucherPdfService(companyInfoRepository, fontRegistry);
+    }
+
+    private static PaymentVoucherDto voucher(int n) {
+        return PaymentVoucherDto.builder()
+                .voucherNumber("PV-2026-" + String.format("%04d", n))
+                .voucherDate(LocalDate.of(2026, 1, 1))
+                .paymentMethod("Cash")
+                .currency("EGP")
+                .amount(BigDecimal.valueOf(1000 + n))
+                .status("Approved")
+                .supplierNameAr("مورد " + n)
+                .allocations(List.of())
+                .build();
+    }
+
+    @Test
+    @DisplayName("font sets are built once and shared")
+    void fontSetsShared() {
+        PaymentVoucherPdfService other = new PaymentVoucherPdfService(companyInfoRepository, fontRegistry);
+
+        assertThat(ReflectionTestUtils.getField(other, "fonts")).isSameAs(ReflectionTestUtils.getField(service, "fonts"));
+    }
+
+    @Test
+    @DisplayName("concurrent renders produce valid, independent documents")
+    void concurrentRenders() throws Exception {
+        int documents = 32;
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<byte[]>> results = new ArrayList<>();
+            for (int i = 0; i < documents; i++) {
+                PaymentVoucherDto dto = voucher(i);
+                results.add(pool.submit((Callable<byte[]>) () -> service.generateVoucherPdf(dto)));
+            }
+            for (int i = 0; i < documents; i++) {
+                byte[] pdf = results.get(i).get();
+                PdfReader reader = new PdfReader(pdf);
+                try {
+                    assertThat(reader.getNumberOfPages()).isPositive();
+                    String text = new PdfTextExtractor(reader).getTextFromPage(1);
+                    assertThat(text).contains(String.format("PV-2026-%04d", i));
+                } finally {
+                    reader.close();
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
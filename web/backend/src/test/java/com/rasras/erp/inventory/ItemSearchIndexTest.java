@@ -0,0 +1,96 @@
+package com.rasras.erp.inventory;
+
+import com.rasras.erp.inventory.dto.ItemSearchResultDto;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ItemSearchIndexTest {
+
+    private final ItemRepository itemRepository = mock(ItemRepository.class);
+    private final ItemSearchIndex index = new ItemSearchIndex(itemRepository);
+
+    private static Item item(int id, String code, String nameAr, String nameEn) {
+        return Item.builder().id(id).itemCode(code).itemNameAr(nameAr).itemNameEn(nameEn).isActive(true).build();
+    }
+
+    private List<String> codes(String query) {
+        return index.search(query, true, Pageable.unpaged()).getContent().stream()
+                .map(ItemSearchResultDto::getItemCode)
+                .toList();
+    }
+
+    @Test
+    @DisplayName("normalisation strips diacritics and tatweel and unifies alef, yeh, teh marbuta, waw and digits")
+    void arabicNormalisation() {
+        assertThat(ArabicText.normalize("أَنْبُوب")).isEqualTo("انبوب");
+        assertThat(ArabicText.normalize("إطار آلي ٱلمصنع")).isEqualTo("اطار الي المصنع");
+        assertThat(ArabicText.normalize("مستشفى شاطئ")).isEqualTo("مستشفي شاطي");
+        assertThat(ArabicText.normalize("مادة مؤقتة")).isEqualTo("ماده موقته");
+        assertThat(ArabicText.normalize("بـــولي")).isEqualTo("بولي");
+        assertThat(ArabicText.normalize("٠١٢ ۳۴۵ PVC")).isEqualTo("012 345 pvc");
+        assertThat(ArabicText.normalize(null)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("tokenisation splits on any non letter or digit and never yields empty tokens")
+    void tokenisation() {
+        assertThat(ArabicText.tokens("  (PP-12) بولي/بروبلين ")).containsExactly("pp", "12", "بولي", "بروبلين");
+        assertThat(ArabicText.tokens("-أنبوب")).containsExactly("انبوب");
+        assertThat(ArabicText.tokens(" - ")).isEmpty();
+        assertThat(ArabicText.tokens("")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("search matches normalised Arabic by exact word, prefix and typo, and requires every term")
+    void searchMatchesArabic() {
+        when(itemRepository.findAll()).thenReturn(List.of(
+                item(1, "ITEM-001", "أنبوب بلاستيك", "Plastic pipe"),
+                item(2, "ITEM-002", "غطاء بلاستيكي", "Plastic cap"),
+                item(3, "ITEM-003", "مادة خام", "Raw material")));
+        index.rebuild();
+
+        assertThat(codes("انبوب")).containsExactly("ITEM-001");
+        assertThat(codes("بلاست")).containsExactlyInAnyOrder("ITEM-001", "ITEM-002");
+        assertThat(codes("بلاستك")).contains("ITEM-001");
+        assertThat(codes("ماده")).containsExactly("ITEM-003");
+        assertThat(codes("plastic cap")).containsExactly("ITEM-002");
+        assertThat(codes("item-003")).first().isEqualTo("ITEM-003");
+        assertThat(codes("-")).hasSize(3);
+    }
+
+    @Test
+    @DisplayName("a rebuild keeps serving the old index and keeps updates that land while it loads")
+    void rebuildSwapsAtomically() throws Exception {
+        when(itemRepository.findAll()).thenReturn(List.of(item(1, "ITEM-001", "أنبوب", "Pipe")));
+        index.rebuild();
+
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(itemRepository.findAll()).thenAnswer(inv -> {
+            loading.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return List.of(item(1, "ITEM-001", "أنبوب", "Pipe"));
+        });
+        CompletableFuture<Void> rebuild = CompletableFuture.runAsync(index::rebuild);
+        assertThat(loading.await(10, TimeUnit.SECONDS)).isTrue();
+
+        index.index(item(2, "ITEM-002", "غطاء", "Cap"));
+        assertThat(codes("")).containsExactly("ITEM-001", "ITEM-002");
+
+        release.countDown();
+        rebuild.get(10, TimeUnit.SECONDS);
+
+        assertThat(codes("")).containsExactly("ITEM-001", "ITEM-002");
+        assertThat(codes("غطاء")).containsExactly("ITEM-002");
+    }
+}
@@ -0,0 +1,165 @@
+package com.rasras.erp.inventory;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class LowStockWatchServiceTest {
+
+    private static final int ITEM_ID = 7;
+    private static final BigDecimal MIN_LEVEL = BigDecimal.valueOf(1_000_000);
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final StockPostingEngine postingEngine = mock(StockPostingEngine.class);
+    private final LowStockWatchService watchService = new LowStockWatchService(jdbcTemplate,
+            mock(LowStockWatchRepository.class), mock(EntityManager.class), mock(ApplicationEventPublisher.class),
+            mock(TransactionTemplate.class));
+    private final InventoryService inventoryService = new InventoryService(postingEngine, watchService,
+            mock(StockReservationService.class), mock(StockCostLayerLedger.class));
+
+    /** صف items كقفل InnoDB: يُمسك حتى commit المعاملة */
+    private final ReentrantLock itemRow = new ReentrantLock();
+    /** مجموع الأرصدة المُلتزم عبر كل المخازن، وما كتبته آخر معاملة مُلتزمة في lowstockwatch */
+    private BigDecimal committedTotal = BigDecimal.ZERO;
+    private BigDecimal committedWatchTotal;
+
+    /** تعديلات المعاملة الجارية في كل خيط (لا يراها غيره قبل commit) */
+    private final ThreadLocal<BigDecimal> pendingDelta = ThreadLocal.withInitial(() -> BigDecimal.ZERO);
+    private final ThreadLocal<BigDecimal> pendingWatchTotal = new ThreadLocal<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        when(jdbcTemplate.queryForList(startsWith("SELECT ItemID FROM items"), eq(Integer.class), any(Object[].class)))
+                .thenAnswer(inv -> {
+                    if (!itemRow.isHeldByCurrentThread()) {
+                        itemRow.lock();
+                    }
+                    return List.of(ITEM_ID);
+                });
+        doAnswer(inv -> {
+            postPending(inv.<StockPosting>getArgument(0).getQuantity());
+            return null;
+        }).when(postingEngine).post(any());
+        doAnswer(inv -> {
+            ResultSet rs = mock(ResultSet.class);
+            when(rs.getInt("ItemID")).thenReturn(ITEM_ID);
+            when(rs.getBigDecimal("MinStockLevel")).thenReturn(MIN_LEVEL);
+            when(rs.getBigDecimal("ReorderLevel")).thenReturn(BigDecimal.ZERO);
+            when(rs.getString("Status")).thenReturn(LowStockWatch.BELOW_MIN);
+            // القراءة القافلة ترى آخر commit إضافة إلى تعديلات المعاملة نفسها
+            when(rs.getBigDecimal("Total")).thenReturn(readCommittedTotal().add(pendingDelta.get()));
+            inv.<RowCallbackHandler>getArgument(1).processRow(rs);
+            Thread.sleep(2);
+            return null;
+        }).when(jdbcTemplate).query(startsWith("SELECT i.ItemID"), any(RowCallbackHandler.class), any(Object[].class));
+        when(jdbcTemplate.batchUpdate(startsWith("INSERT INTO lowstockwatch"), anyList())).thenAnswer(inv -> {
+            List<Object[]> rows = inv.getArgument(1);
+            pendingWatchTotal.set((BigDecimal) rows.get(0)[2]);
+            return new int[rows.size()];
+        });
+    }
+
+    private void postPending(BigDecimal quantity) throws InterruptedException {
+        pendingDelta.set(pendingDelta.get().add(quantity));
+        // مهلة بين الترحيل وإعادة التقييم تزيد فرص تداخل المعاملتين
+        Thread.sleep(2);
+    }
+
+    private synchronized BigDecimal readCommittedTotal() {
+        return committedTotal;
+    }
+
+    private synchronized void commit() {
+        committedTotal = committedTotal.add(pendingDelta.get());
+        if (pendingWatchTotal.get() != null) {
+            committedWatchTotal = pendingWatchTotal.get();
+        }
+        pendingDelta.remove();
+        pendingWatchTotal.remove();
+        while (itemRow.isHeldByCurrentThread()) {
+            itemRow.unlock();
+        }
+    }
+
+    private void postInTransaction(int warehouseId) {
+        try {
+            inventoryService.updateStock(ITEM_ID, warehouseId, BigDecimal.valueOf(5), "IN", "RECEIPT", "GRN", 1,
+                    "GRN-1", BigDecimal.ONE, 1);
+        } finally {
+            commit();
+        }
+    }
+
+    @Test
+    @DisplayName("postings of one item in two warehouses leave the watch total equal to the committed sum")
+    void concurrentWarehouses_noStaleTotal() throws Exception {
+        int threads = 4;
+        int postingsPerThread = 25;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int warehouseId = t % 2 + 1;
+            futures.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < postingsPerThread; i++) {
+                    postInTransaction(warehouseId);
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> f : futures) {
+            f.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        BigDecimal expected = BigDecimal.valueOf(5L * threads * postingsPerThread);
+        assertThat(committedTotal).isEqualByComparingTo(expected);
+        assertThat(committedWatchTotal).isEqualByComparingTo(expected);
+    }
+
+    @Test
+    @DisplayName("postMovements locks the item rows in ItemID order before any balance is touched")
+    void postMovements_locksItemsFirst() {
+        inventoryService.postMovements(List.of(
+                StockPosting.builder().itemId(9).warehouseId(1).quantity(BigDecimal.ONE).direction("IN").build(),
+                StockPosting.builder().itemId(ITEM_ID).warehouseId(2).quantity(BigDecimal.ONE).direction("IN")
+                        .build()));
+        commit();
+
+        InOrder order = inOrder(jdbcTemplate, postingEngine);
+        order.verify(jdbcTemplate).queryForList(eq("SELECT ItemID FROM items WHERE ItemID IN (?, ?) "
+                + "ORDER BY ItemID FOR UPDATE"), eq(Integer.class), eq(ITEM_ID), eq(9));
+        order.verify(postingEngine).postAll(any());
+        order.verify(jdbcTemplate).query(startsWith("SELECT i.ItemID"), any(RowCallbackHandler.class),
+                any(Object[].class));
+    }
+}
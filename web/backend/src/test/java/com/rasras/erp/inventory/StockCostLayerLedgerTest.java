@@ -0,0 +1,269 @@
+package com.rasras.erp.inventory;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class StockCostLayerLedgerTest {
+
+    private static final int ITEM_ID = 7;
+    private static final int WAREHOUSE_ID = 3;
+    private static final int TARGET_WAREHOUSE_ID = 4;
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 3, 10, 9, 0);
+
+    private final FakeCostLayerJdbc jdbc = new FakeCostLayerJdbc();
+    private final StockCostLayerLedger ledger = new StockCostLayerLedger(jdbc);
+
+    @Test
+    @DisplayName("a partial issue takes from the oldest layer and leaves it open with the rest")
+    void partialConsumption() {
+        ledger.apply(List.of(in("GRN", 1, "10", "5")), NOW);
+
+        ledger.apply(List.of(out("StockIssueNote", 2, "4", "0")), NOW);
+
+        assertThat(jdbc.layers).singleElement().satisfies(layer -> {
+            assertThat(layer.remaining).isEqualByComparingTo("6");
+            assertThat(layer.open).isTrue();
+        });
+        assertThat(jdbc.consumptions).singleElement().satisfies(c -> {
+            assertThat(c.quantity).isEqualByComparingTo("4");
+            assertThat(c.unitCost).isEqualByComparingTo("5");
+        });
+    }
+
+    @Test
+    @DisplayName("an issue spanning several layers closes them oldest first and costs each slice at its own layer")
+    void multiLayerConsumption() {
+        ledger.apply(List.of(in("GRN", 1, "10", "5"), in("GRN", 2, "10", "6"), in("GRN", 3, "10", "7")), NOW);
+
+        ledger.apply(List.of(out("StockIssueNote", 4, "25", "0")), NOW);
+
+        assertThat(jdbc.layers).extracting(l -> l.open).containsExactly(false, false, true);
+        assertThat(jdbc.layers.get(2).remaining).isEqualByComparingTo("5");
+        assertThat(jdbc.consumptions).extracting(c -> c.unitCost)
+                .usingElementComparator(BigDecimal::compareTo)
+                .containsExactly(new BigDecimal("5"), new BigDecimal("6"), new BigDecimal("7"));
+        assertThat(jdbc.consumedCost("StockIssueNote", 4)).isEqualByComparingTo("145");
+    }
+
+    @Test
+    @DisplayName("consumption seeks past one batch of open layers without skipping any")
+    void consumptionAcrossSeekBatches() {
+        List<StockPosting> receipts = new ArrayList<>();
+        for (int i = 1; i <= 20; i++) {
+            receipts.add(in("GRN", i, "1", String.valueOf(i)));
+        }
+        ledger.apply(receipts, NOW);
+
+        ledger.apply(List.of(out("StockIssueNote", 99, "18", "0")), NOW);
+
+        assertThat(jdbc.layers.stream().filter(l -> l.open)).extracting(l -> l.unitCost)
+                .usingElementComparator(BigDecimal::compareTo)
+                .containsExactly(new BigDecimal("19"), new BigDecimal("20"));
+        // 1 + 2 + ... + 18
+        assertThat(jdbc.consumedCost("StockIssueNote", 99)).isEqualByComparingTo("171");
+    }
+
+    @Test
+    @DisplayName("issuing more than the open layers costs the shortfall at the movement's unit cost")
+    void overIssue() {
+        ledger.apply(List.of(in("GRN", 1, "3", "5")), NOW);
+
+        ledger.apply(List.of(out("StockIssueNote", 2, "5", "9")), NOW);
+
+        assertThat(jdbc.layers).singleElement().satisfies(layer -> assertThat(layer.open).isFalse());
+        assertThat(jdbc.consumptions).hasSize(2);
+        assertThat(jdbc.consumptions.get(1).layerId).isNull();
+        assertThat(jdbc.consumptions.get(1).quantity).isEqualByComparingTo("2");
+        assertThat(jdbc.consumedCost("StockIssueNote", 2)).isEqualByComparingTo("33");
+    }
+
+    @Test
+    @DisplayName("a purchase return is costed from FIFO layers, not from the return price")
+    void purchaseReturnUsesLayerCost() {
+        ledger.apply(List.of(in("GRN", 1, "10", "5"), in("GRN", 2, "10", "8")), NOW);
+
+        ledger.apply(List.of(out("PurchaseReturn", 3, "12", "8")), NOW);
+
+        // 10 × 5 + 2 × 8
+        assertThat(jdbc.consumedCost("PurchaseReturn", 3)).isEqualByComparingTo("66");
+        assertThat(jdbc.layers.get(1).remaining).isEqualByComparingTo("8");
+    }
+
+    @Test
+    @DisplayName("a transfer moves the consumed slices to the target warehouse with their lot and cost")
+    void transferCarriesLayers() {
+        ledger.apply(List.of(lotIn(1, "L-1", "4", "5"), lotIn(2, "L-2", "6", "7")), NOW);
+
+        ledger.apply(List.of(
+                StockPosting.builder().itemId(ITEM_ID).warehouseId(TARGET_WAREHOUSE_ID).quantity(new BigDecimal("5"))
+                        .direction("IN").referenceType("StockTransfer").referenceId(9)
+                        .unitCost(new BigDecimal("6")).build(),
+                StockPosting.builder().itemId(ITEM_ID).warehouseId(WAREHOUSE_ID).quantity(new BigDecimal("5"))
+                        .direction("OUT").referenceType("StockTransfer").referenceId(9)
+                        .unitCost(new BigDecimal("6")).build()), NOW);
+
+        List<Layer> target = jdbc.layers.stream().filter(l -> l.warehouseId == TARGET_WAREHOUSE_ID).toList();
+        assertThat(target).extracting(l -> l.lotNumber).containsExactly("L-1", "L-2");
+        assertThat(target).extracting(l -> l.remaining)
+                .usingElementComparator(BigDecimal::compareTo)
+                .containsExactly(new BigDecimal("4"), new BigDecimal("1"));
+        assertThat(target).extracting(l -> l.unitCost)
+                .usingElementComparator(BigDecimal::compareTo)
+                .containsExactly(new BigDecimal("5"), new BigDecimal("7"));
+    }
+
+    @Test
+    @DisplayName("two lines of one item with different lots in one transfer each carry only their own lot")
+    void transferWithTwoLotsOfOneItem() {
+        ledger.apply(List.of(lotIn(1, "L-1", "4", "5"), lotIn(2, "L-2", "6", "7")), NOW);
+
+        ledger.apply(List.of(
+                transferLine("OUT", WAREHOUSE_ID, "L-2", "3"),
+                transferLine("IN", TARGET_WAREHOUSE_ID, "L-2", "3"),
+                transferLine("OUT", WAREHOUSE_ID, "L-1", "2"),
+                transferLine("IN", TARGET_WAREHOUSE_ID, "L-1", "2")), NOW);
+
+        List<Layer> target = jdbc.layers.stream().filter(l -> l.warehouseId == TARGET_WAREHOUSE_ID).toList();
+        assertThat(target).extracting(l -> l.lotNumber).containsExactly("L-2", "L-1");
+        assertThat(target).extracting(l -> l.remaining)
+                .usingElementComparator(BigDecimal::compareTo)
+                .containsExactly(new BigDecimal("3"), new BigDecimal("2"));
+        assertThat(target).extracting(l -> l.unitCost)
+                .usingElementComparator(BigDecimal::compareTo)
+                .containsExactly(new BigDecimal("7"), new BigDecimal("5"));
+        assertThat(jdbc.layers.stream().filter(l -> l.warehouseId == WAREHOUSE_ID)).extracting(l -> l.remaining)
+                .usingElementComparator(BigDecimal::compareTo)
+                .containsExactly(new BigDecimal("2"), new BigDecimal("3"));
+    }
+
+    private static StockPosting transferLine(String direction, int warehouseId, String lot, String qty) {
+        return StockPosting.builder().itemId(ITEM_ID).warehouseId(warehouseId).quantity(new BigDecimal(qty))
+                .direction(direction).referenceType("StockTransfer").referenceId(9)
+                .unitCost(new BigDecimal("6")).lotNumber(lot).build();
+    }
+
+    private static StockPosting in(String refType, int refId, String qty, String unitCost) {
+        return posting("IN", refType, refId, qty, unitCost, null);
+    }
+
+    private static StockPosting lotIn(int refId, String lot, String qty, String unitCost) {
+        return posting("IN", "GRN", refId, qty, unitCost, lot);
+    }
+
+    private static StockPosting out(String refType, int refId, String qty, String unitCost) {
+        return posting("OUT", refType, refId, qty, unitCost, null);
+    }
+
+    private static StockPosting posting(String direction, String refType, int refId, String qty, String unitCost,
+            String lot) {
+        return StockPosting.builder()
+                .itemId(ITEM_ID)
+                .warehouseId(WAREHOUSE_ID)
+                .quantity(new BigDecimal(qty))
+                .direction(direction)
+                .movementType(refType)
+                .referenceType(refType)
+                .referenceId(refId)
+                .unitCost(new BigDecimal(unitCost))
+                .lotNumber(lot)
+                .build();
+    }
+
+    private static final class Layer {
+        private final long id;
+        private final int warehouseId;
+        private final String lotNumber;
+        private final BigDecimal unitCost;
+        private BigDecimal remaining;
+        private boolean open = true;
+
+        Layer(long id, int warehouseId, String lotNumber, BigDecimal remaining, BigDecimal unitCost) {
+            this.id = id;
+            this.warehouseId = warehouseId;
+            this.lotNumber = lotNumber;
+            this.remaining = remaining;
+            this.unitCost = unitCost;
+        }
+    }
+
+    private record Consumption(Long layerId, BigDecimal quantity, BigDecimal unitCost, String referenceType,
+            Integer referenceId) {
+    }
+
+    /**
+     * جداول stockcostlayers و stockcostconsumptions في الذاكرة، بترتيب الإدراج بدلاً من ReceivedAt.
+     */
+    private static final class FakeCostLayerJdbc extends JdbcTemplate {
+        private final List<Layer> layers = new ArrayList<>();
+        private final List<Consumption> consumptions = new ArrayList<>();
+
+        BigDecimal consumedCost(String referenceType, int referenceId) {
+            return consumptions.stream()
+                    .filter(c -> referenceType.equals(c.referenceType()) && c.referenceId() == referenceId)
+                    .map(c -> c.quantity().multiply(c.unitCost()))
+                    .reduce(BigDecimal.ZERO, BigDecimal::add);
+        }
+
+        @Override
+        public <T> List<T> query(String sql, RowMapper<T> rowMapper, Object... args) {
+            int warehouseId = (Integer) args[1];
+            String lot = sql.contains("LotNumber = ?") ? (String) args[2] : null;
+            int limit = (Integer) args[args.length - 1];
+            List<T> rows = new ArrayList<>();
+            for (Layer layer : layers.stream()
+                    .filter(l -> l.open && l.warehouseId == warehouseId && (lot == null || lot.equals(l.lotNumber)))
+                    .sorted(Comparator.comparingLong(l -> l.id))
+                    .limit(limit)
+                    .toList()) {
+                try {
+                    rows.add(rowMapper.mapRow(resultSet(layer), rows.size()));
+                } catch (SQLException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+            return rows;
+        }
+
+        @Override
+        public int update(String sql, Object... args) {
+            if (sql.startsWith("UPDATE stockcostlayers")) {
+                Layer layer = layers.stream().filter(l -> Objects.equals(l.id, args[2])).findFirst().orElseThrow();
+                layer.remaining = (BigDecimal) args[0];
+                layer.open = (Boolean) args[1];
+            } else if (sql.startsWith("INSERT INTO stockcostlayers")) {
+                layers.add(new Layer(layers.size() + 1, (Integer) args[1], (String) args[2], (BigDecimal) args[6],
+                        (BigDecimal) args[8]));
+            } else if (sql.startsWith("INSERT INTO stockcostconsumptions")) {
+                consumptions.add(new Consumption((Long) args[0], (BigDecimal) args[4], (BigDecimal) args[5],
+                        (String) args[6], (Integer) args[7]));
+            } else {
+                throw new UnsupportedOperationException(sql);
+            }
+            return 1;
+        }
+
+        private static ResultSet resultSet(Layer layer) throws SQLException {
+            ResultSet rs = mock(ResultSet.class);
+            when(rs.getLong("LayerID")).thenReturn(layer.id);
+            when(rs.getString("LotNumber")).thenReturn(layer.lotNumber);
+            when(rs.getBigDecimal("RemainingQty")).thenReturn(layer.remaining);
+            when(rs.getBigDecimal("UnitCost")).thenReturn(layer.unitCost);
+            return rs;
+        }
+    }
+}
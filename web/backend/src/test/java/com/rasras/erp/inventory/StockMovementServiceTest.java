@@ -0,0 +1,65 @@
+package com.rasras.erp.inventory;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class StockMovementServiceTest {
+
+    private static final int ITEM_ID = 7;
+
+    private final StockMovementRepository repository = mock(StockMovementRepository.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private final StockMovementService service = new StockMovementService(repository, mock(EntityManager.class),
+            transactionManager);
+
+    /** اتصال محجوز من المجمع طالما المعاملة مفتوحة */
+    private final AtomicBoolean connectionHeld = new AtomicBoolean();
+    private final AtomicInteger transactions = new AtomicInteger();
+
+    private static List<StockMovement> rows(long firstId, int count) {
+        return LongStream.range(firstId, firstId + count)
+                .mapToObj(id -> StockMovement.builder().id(id).movementDate(LocalDateTime.of(2026, 1, 1, 0, 0))
+                        .build())
+                .toList();
+    }
+
+    @Test
+    @DisplayName("the export reads each page in its own short transaction and writes rows with no connection held")
+    void forEachMovementOfItem_writesOutsideTransaction() {
+        when(transactionManager.getTransaction(any())).thenAnswer(inv -> {
+            connectionHeld.set(true);
+            transactions.incrementAndGet();
+            return new SimpleTransactionStatus();
+        });
+        doAnswer(inv -> {
+            connectionHeld.set(false);
+            return null;
+        }).when(transactionManager).commit(any());
+        when(repository.seekByItem(eq(ITEM_ID), any(), any(), any(), any(), any()))
+                .thenReturn(rows(1, StockMovementService.EXPORT_PAGE_SIZE))
+                .thenReturn(rows(StockMovementService.EXPORT_PAGE_SIZE + 1, 3));
+
+        List<Boolean> heldWhileWriting = new ArrayList<>();
+        service.forEachMovementOfItem(ITEM_ID, null, null, null, row -> heldWhileWriting.add(connectionHeld.get()));
+
+        assertThat(heldWhileWriting).hasSize(StockMovementService.EXPORT_PAGE_SIZE + 3).containsOnly(false);
+        assertThat(transactions).hasValue(2);
+    }
+}
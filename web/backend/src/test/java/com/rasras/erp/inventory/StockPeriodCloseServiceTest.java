@@ -0,0 +1,37 @@
+package com.rasras.erp.inventory;
+
+import com.rasras.erp.shared.exception.BadRequestException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.YearMonth;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class StockPeriodCloseServiceTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final StockPeriodCloseService service = new StockPeriodCloseService(jdbcTemplate);
+
+    @Test
+    @DisplayName("rebuild refuses to start at or before the last closed period and leaves snapshots untouched")
+    void rebuildRejectsClosedPeriods() {
+        when(jdbcTemplate.queryForObject(startsWith("SELECT MAX(Period)"), eq(Integer.class))).thenReturn(202503);
+
+        assertThatThrownBy(() -> service.rebuildFrom(YearMonth.of(2025, 3)))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessageContaining("2025/3");
+        verify(jdbcTemplate, never()).update(startsWith("DELETE"), any(Object[].class));
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+    }
+}
@@ -0,0 +1,303 @@
+package com.rasras.erp.inventory;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class StockPostingEngineConcurrencyTest {
+
+    private static final int ITEM_ID = 7;
+    private static final int WAREHOUSE_ID = 3;
+
+    /** صف stockbalances واحد مشترك بين "عقدتين" لكل منهما محرك وأقفال مستقلة، بدلالات معاملات InnoDB */
+    private final FakeBalanceRow row = new FakeBalanceRow();
+    private final List<StockMovement> movements = Collections.synchronizedList(new ArrayList<>());
+
+    private StockPostingEngine nodeA;
+    private StockPostingEngine nodeB;
+
+    @BeforeEach
+    void setUp() {
+        nodeA = newEngine();
+        nodeB = newEngine();
+    }
+
+    @Test
+    @DisplayName("concurrent postings on the same key from two nodes never lose a movement")
+    void concurrentPostings_noLostUpdates() throws Exception {
+        int threadsPerNode = 8;
+        int postingsPerThread = 250;
+        ExecutorService pool = Executors.newFixedThreadPool(threadsPerNode * 2);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int t = 0; t < threadsPerNode * 2; t++) {
+            StockPostingEngine engine = t % 2 == 0 ? nodeA : nodeB;
+            futures.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < postingsPerThread; i++) {
+                    postInTransaction(engine, posting("IN", BigDecimal.ONE));
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> f : futures) {
+            f.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        int expected = threadsPerNode * 2 * postingsPerThread;
+        assertThat(row.committedQuantity).isEqualByComparingTo(BigDecimal.valueOf(expected));
+        assertThat(movements).hasSize(expected);
+
+        // سلسلة BalanceBefore → BalanceAfter متصلة: كل قيمة قبلية تظهر مرة واحدة بالضبط
+        List<Integer> befores = movements.stream()
+                .map(m -> m.getBalanceBefore().intValueExact())
+                .sorted()
+                .toList();
+        for (int i = 0; i < expected; i++) {
+            assertThat(befores.get(i)).isEqualTo(i);
+        }
+        assertThat(movements).allSatisfy(m -> assertThat(m.getBalanceAfter())
+                .isEqualByComparingTo(m.getBalanceBefore().add(BigDecimal.ONE)));
+    }
+
+    @Test
+    @DisplayName("mixed IN/OUT postings keep the final balance equal to the net quantity")
+    void mixedDirections_netBalance() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            StockPostingEngine engine = t % 2 == 0 ? nodeA : nodeB;
+            String direction = t < 4 ? "IN" : "OUT";
+            futures.add(pool.submit(() -> {
+                for (int i = 0; i < 200; i++) {
+                    postInTransaction(engine, posting(direction, BigDecimal.valueOf(2)));
+                }
+                return null;
+            }));
+        }
+        for (Future<?> f : futures) {
+            f.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        assertThat(row.committedQuantity).isEqualByComparingTo(BigDecimal.ZERO);
+        assertThat(movements).hasSize(1600);
+    }
+
+    @Test
+    @DisplayName("postAll locks balances in one query, orders by key and chains lines within a key")
+    void postAll_batchesInKeyOrder() {
+        StockPostingJdbcRepository jdbcRepo = mock(StockPostingJdbcRepository.class);
+        EntityManager entityManager = mock(EntityManager.class);
+        when(entityManager.getReference(eq(Item.class), any())).thenAnswer(inv -> {
+            Item item = new Item();
+            item.setId(inv.getArgument(1));
+            return item;
+        });
+        when(entityManager.getReference(eq(Warehouse.class), any())).thenAnswer(inv -> {
+            Warehouse warehouse = new Warehouse();
+            warehouse.setId(inv.getArgument(1));
+            return warehouse;
+        });
+        when(jdbcRepo.lockBalances(any())).thenReturn(List.of(
+                new StockBalanceSnapshot(10, 1, 3, BigDecimal.valueOf(100), BigDecimal.TEN, 4L),
+                new StockBalanceSnapshot(11, 2, 3, BigDecimal.valueOf(5), BigDecimal.ONE, 0L)));
+
+        StockPostingEngine engine = new StockPostingEngine(mock(StockBalanceRepository.class),
+                mock(StockMovementRepository.class), mock(ItemRepository.class), mock(WarehouseRepository.class),
+                jdbcRepo, mock(StockPeriodLedger.class), entityManager);
+        ReflectionTestUtils.setField(engine, "lockStripes", 16);
+        engine.initStripes();
+
+        engine.postAll(List.of(
+                posting(2, "OUT", BigDecimal.valueOf(2)),
+                posting(1, "OUT", BigDecimal.valueOf(30)),
+                posting(2, "IN", BigDecimal.valueOf(7)),
+                posting(1, "IN", BigDecimal.valueOf(10))));
+
+        verify(jdbcRepo, times(1)).lockBalances(any());
+        verify(jdbcRepo, never()).insertEmptyBalances(any(), any());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<StockMovement>> movementsCaptor = ArgumentCaptor.forClass(List.class);
+        verify(jdbcRepo).insertMovements(movementsCaptor.capture());
+        List<StockMovement> written = movementsCaptor.getValue();
+        assertThat(written).extracting(m -> m.getItem().getId()).containsExactly(1, 1, 2, 2);
+        assertThat(written).extracting(StockMovement::getBalanceBefore)
+                .usingElementComparator(BigDecimal::compareTo)
+                .containsExactly(BigDecimal.valueOf(100), BigDecimal.valueOf(70), BigDecimal.valueOf(5),
+                        BigDecimal.valueOf(3));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<StockBalanceSnapshot>> balancesCaptor = ArgumentCaptor.forClass(List.class);
+        verify(jdbcRepo).updateBalances(balancesCaptor.capture(), any());
+        assertThat(balancesCaptor.getValue()).extracting(StockBalanceSnapshot::getQuantityOnHand)
+                .usingElementComparator(BigDecimal::compareTo)
+                .containsExactly(BigDecimal.valueOf(80), BigDecimal.valueOf(10));
+    }
+
+    private StockPostingEngine newEngine() {
+        StockBalanceRepository balanceRepo = mock(StockBalanceRepository.class);
+        StockMovementRepository movementRepo = mock(StockMovementRepository.class);
+        ItemRepository itemRepo = mock(ItemRepository.class);
+        WarehouseRepository warehouseRepo = mock(WarehouseRepository.class);
+        StockPostingJdbcRepository jdbcRepo = mock(StockPostingJdbcRepository.class);
+        EntityManager entityManager = mock(EntityManager.class);
+
+        Item item = new Item();
+        item.setId(ITEM_ID);
+        Warehouse warehouse = new Warehouse();
+        warehouse.setId(WAREHOUSE_ID);
+        when(itemRepo.findById(ITEM_ID)).thenReturn(Optional.of(item));
+        when(warehouseRepo.findById(WAREHOUSE_ID)).thenReturn(Optional.of(warehouse));
+        when(jdbcRepo.lockBalance(ITEM_ID, WAREHOUSE_ID)).thenAnswer(inv -> Optional.of(row.lockForUpdate()));
+        when(balanceRepo.compareAndSetOnHand(anyInt(), any(), any(), any(), any())).thenAnswer(inv -> {
+            // مهلة قصيرة بين القراءة والكتابة تزيد فرص تداخل العقدتين
+            Thread.yield();
+            return row.compareAndSet(inv.getArgument(1), inv.getArgument(2));
+        });
+        when(movementRepo.save(any(StockMovement.class))).thenAnswer(inv -> {
+            movements.add(inv.getArgument(0));
+            return inv.getArgument(0);
+        });
+
+        StockPostingEngine engine = new StockPostingEngine(balanceRepo, movementRepo, itemRepo, warehouseRepo,
+                jdbcRepo, mock(StockPeriodLedger.class), entityManager);
+        ReflectionTestUtils.setField(engine, "lockStripes", 16);
+        engine.initStripes();
+        return engine;
+    }
+
+    /**
+     * يرحّل داخل "معاملة": أقفال المحرك وقفل الصف تبقى محجوزة حتى الالتزام، والكتابة
+     * لا تظهر للعقدة الأخرى قبله — كما في InnoDB.
+     */
+    private StockMovement postInTransaction(StockPostingEngine engine, StockPosting posting) {
+        TransactionSynchronizationManager.initSynchronization();
+        boolean committed = false;
+        try {
+            StockMovement movement = engine.post(posting);
+            committed = true;
+            return movement;
+        } finally {
+            row.endTransaction(committed);
+            List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+            TransactionSynchronizationManager.clearSynchronization();
+            int status = committed ? TransactionSynchronization.STATUS_COMMITTED
+                    : TransactionSynchronization.STATUS_ROLLED_BACK;
+            synchronizations.forEach(sync -> sync.afterCompletion(status));
+        }
+    }
+
+    private static StockPosting posting(String direction, BigDecimal qty) {
+        return posting(ITEM_ID, direction, qty);
+    }
+
+    private static StockPosting posting(int itemId, String direction, BigDecimal qty) {
+        return StockPosting.builder()
+                .itemId(itemId)
+                .warehouseId(WAREHOUSE_ID)
+                .quantity(qty)
+                .direction(direction)
+                .movementType("TEST")
+                .referenceType("Test")
+                .referenceId(1)
+                .referenceNumber("T-1")
+                .unitCost(BigDecimal.TEN)
+                .userId(1)
+                .build();
+    }
+
+    /**
+     * صف رصيد بدلالات InnoDB: القراءة القافلة والتحديث يحجزان قفل الصف حتى نهاية المعاملة،
+     * والتحديث يقارن بآخر نسخة ملتزمة، وما يُكتب لا يظهر للمعاملات الأخرى قبل الالتزام.
+     */
+    private static final class FakeBalanceRow {
+        private final ReentrantLock rowLock = new ReentrantLock();
+        private volatile BigDecimal committedQuantity = BigDecimal.ZERO;
+        private volatile long committedVersion = 0;
+        private BigDecimal pendingQuantity;
+        private long pendingVersion;
+
+        StockBalanceSnapshot lockForUpdate() {
+            lockRow();
+            return new StockBalanceSnapshot(1, ITEM_ID, WAREHOUSE_ID, currentQuantity(), BigDecimal.TEN,
+                    currentVersion());
+        }
+
+        int compareAndSet(Long expectedVersion, BigDecimal newQuantity) {
+            lockRow();
+            if (expectedVersion == null || expectedVersion != currentVersion()) {
+                return 0;
+            }
+            pendingVersion = currentVersion() + 1;
+            pendingQuantity = newQuantity;
+            return 1;
+        }
+
+        void endTransaction(boolean commit) {
+            if (!rowLock.isHeldByCurrentThread()) {
+                return;
+            }
+            if (commit && pendingQuantity != null) {
+                committedQuantity = pendingQuantity;
+                committedVersion = pendingVersion;
+            }
+            pendingQuantity = null;
+            rowLock.unlock();
+        }
+
+        private BigDecimal currentQuantity() {
+            return pendingQuantity != null ? pendingQuantity : committedQuantity;
+        }
+
+        private long currentVersion() {
+            return pendingQuantity != null ? pendingVersion : committedVersion;
+        }
+
+        private void lockRow() {
+            if (rowLock.isHeldByCurrentThread()) {
+                return;
+            }
+            try {
+                if (!rowLock.tryLock(10, TimeUnit.SECONDS)) {
+                    throw new CannotAcquireLockException("Lock wait timeout exceeded");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CannotAcquireLockException("interrupted", e);
+            }
+        }
+    }
+}
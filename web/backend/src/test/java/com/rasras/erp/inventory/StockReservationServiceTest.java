@@ -0,0 +1,101 @@
+package com.rasras.erp.inventory;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class StockReservationServiceTest {
+
+    private static final int ORDER_ID = 42;
+    private static final List<StockReservationLine> LINES = List.of(StockReservationLine.of(7, BigDecimal.TEN));
+
+    private final StockReservationRepository reservationRepo = mock(StockReservationRepository.class);
+    private final StockBalanceRepository balanceRepo = mock(StockBalanceRepository.class);
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final StockReservationService service = new StockReservationService(reservationRepo, balanceRepo,
+            mock(ItemRepository.class), jdbcTemplate, mock(TransactionTemplate.class));
+
+    /** صف المستند في stockreservationclaims كقفل InnoDB: يُمسك حتى commit */
+    private final ReentrantLock claimRow = new ReentrantLock();
+    private final AtomicInteger committedActive = new AtomicInteger();
+    private final ThreadLocal<Integer> pendingActive = ThreadLocal.withInitial(() -> 0);
+    private final AtomicInteger reservedBalances = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        when(jdbcTemplate.update(startsWith("INSERT INTO stockreservationclaims"), any(Object[].class)))
+                .thenAnswer(inv -> {
+                    claimRow.lock();
+                    return 1;
+                });
+        when(jdbcTemplate.queryForObject(startsWith("SELECT COUNT(*) FROM stockreservations"), eq(Integer.class),
+                any(Object[].class))).thenAnswer(inv -> committedActive.get() + pendingActive.get());
+        when(balanceRepo.reserveIfAvailable(any(), any(), any(), any())).thenAnswer(inv -> {
+            reservedBalances.incrementAndGet();
+            Thread.sleep(5);
+            return 1;
+        });
+        when(reservationRepo.saveAll(anyList())).thenAnswer(inv -> {
+            List<StockReservation> rows = inv.getArgument(0);
+            pendingActive.set(pendingActive.get() + rows.size());
+            return rows;
+        });
+    }
+
+    private void reserveInTransaction() {
+        try {
+            service.reserve("SalesOrder", ORDER_ID, 1, LINES, 1);
+        } finally {
+            committedActive.addAndGet(pendingActive.get());
+            pendingActive.remove();
+            while (claimRow.isHeldByCurrentThread()) {
+                claimRow.unlock();
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("concurrent reserves of the same document reserve its stock only once")
+    void concurrentReserve_reservesOnce() throws Exception {
+        int threads = 4;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                reserveInTransaction();
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> f : futures) {
+            f.get(30, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        assertThat(reservedBalances).hasValue(1);
+        assertThat(committedActive).hasValue(1);
+    }
+}
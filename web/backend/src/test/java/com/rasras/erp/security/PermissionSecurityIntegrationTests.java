@@ -4,6 +4,7 @@ import com.rasras.erp.procurement.PurchaseRequisitionController;
 import com.rasras.erp.procurement.PurchaseRequisitionService;
 import com.rasras.erp.shared.config.SecurityConfig;
 import com.rasras.erp.shared.security.JwtTokenProvider;
+import com.rasras.erp.shared.security.PrincipalCache;
 import com.rasras.erp.system.SystemSettingController;
 import com.rasras.erp.system.SystemSettingService;
 import com.rasras.erp.user.RoleController;
@@ -55,6 +56,9 @@ class PermissionSecurityIntegrationTests {
     @MockBean
     private UserDetailsService userDetailsService;
 
+    @MockBean
+    private PrincipalCache principalCache;
+
     @MockBean
     private JwtTokenProvider jwtTokenProvider;
 
@@ -0,0 +1,83 @@
+package com.rasras.erp.shared.accesslog;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AccessLogWriterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @TempDir
+    Path dir;
+
+    private AccessLogWriter writer(double sampleRate, long maxFileSizeMb) {
+        AccessLogWriter writer = new AccessLogWriter(objectMapper);
+        ReflectionTestUtils.setField(writer, "file", dir.resolve("access.log").toString());
+        ReflectionTestUtils.setField(writer, "successSampleRate", sampleRate);
+        ReflectionTestUtils.setField(writer, "slowMs", 1000L);
+        ReflectionTestUtils.setField(writer, "maxFileSizeMb", maxFileSizeMb);
+        writer.start();
+        return writer;
+    }
+
+    private static AccessLogRecord record(int status, long latencyMs) {
+        return new AccessLogRecord(0L, "GET", "/approvals/{id}", status, latencyMs, 7, 128);
+    }
+
+    @Test
+    @DisplayName("writes one JSON line per request to the access log")
+    void writesStructuredLines() throws Exception {
+        AccessLogWriter writer = writer(1.0, 20);
+        writer.record(record(200, 12));
+        writer.record(record(404, 3));
+        writer.shutdown();
+
+        List<String> lines = Files.readAllLines(dir.resolve("access.log"));
+        assertThat(lines).hasSize(2);
+        JsonNode first = objectMapper.readTree(lines.get(0));
+        assertThat(first.get("method").asText()).isEqualTo("GET");
+        assertThat(first.get("route").asText()).isEqualTo("/approvals/{id}");
+        assertThat(first.get("status").asInt()).isEqualTo(200);
+        assertThat(first.get("latencyMs").asLong()).isEqualTo(12);
+        assertThat(first.get("userId").asInt()).isEqualTo(7);
+        assertThat(first.get("bytes").asLong()).isEqualTo(128);
+    }
+
+    @Test
+    @DisplayName("sampling drops successful requests but keeps errors and slow requests")
+    void samplingKeepsErrorsAndSlowRequests() throws Exception {
+        AccessLogWriter writer = writer(0.0, 20);
+        writer.record(record(200, 10));
+        writer.record(record(204, 10));
+        writer.record(record(500, 10));
+        writer.record(record(403, 10));
+        writer.record(record(200, 2500));
+        writer.shutdown();
+
+        List<String> lines = Files.readAllLines(dir.resolve("access.log"));
+        assertThat(lines).hasSize(3);
+        assertThat(lines).noneMatch(l -> l.contains("\"latencyMs\":10") && l.contains("\"status\":20"));
+    }
+
+    @Test
+    @DisplayName("rolls the file over once it exceeds the size limit")
+    void rollsOver() throws Exception {
+        Files.write(dir.resolve("access.log"), new byte[1024 * 1024 + 1]);
+        AccessLogWriter writer = writer(1.0, 1);
+        writer.record(record(200, 5));
+        writer.shutdown();
+
+        assertThat(Files.size(dir.resolve("access.log.1"))).isEqualTo(1024 * 1024 + 1);
+        assertThat(Files.readAllLines(dir.resolve("access.log"))).hasSize(1);
+    }
+}
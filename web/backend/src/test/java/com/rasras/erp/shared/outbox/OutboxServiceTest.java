@@ -0,0 +1,69 @@
+package com.rasras.erp.shared.outbox;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OutboxServiceTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private final OutboxHandler handler = mock(OutboxHandler.class);
+    private final SimpleTransactionStatus status = new SimpleTransactionStatus();
+    private OutboxService service;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        ObjectProvider<OutboxHandler> handlers = mock(ObjectProvider.class);
+        when(handlers.orderedStream()).thenAnswer(inv -> Stream.of(handler));
+        when(handler.eventType()).thenReturn("TEST");
+        when(transactionManager.getTransaction(any())).thenReturn(status);
+        service = new OutboxService(jdbcTemplate, new ObjectMapper(), handlers, transactionManager, 1);
+    }
+
+    private static OutboxService.ClaimedEvent event() {
+        return new OutboxService.ClaimedEvent(7L, "TEST", "TEST:7", "{\"id\":7}", 0, "lock-1");
+    }
+
+    @Test
+    @DisplayName("the handler's work commits together with the DONE mark while the claim is still held")
+    void commitsWhenClaimHeld() {
+        when(jdbcTemplate.update(startsWith("UPDATE outboxevents SET Status = 'DONE'"), any(), any(), any()))
+                .thenReturn(1);
+
+        service.process(event());
+
+        verify(handler).handle(any(JsonNode.class));
+        verify(transactionManager).commit(status);
+        assertThat(status.isRollbackOnly()).isFalse();
+    }
+
+    @Test
+    @DisplayName("losing the claim mid-run rolls the handler's work back and leaves the event to its new owner")
+    void rollsBackWhenClaimLost() {
+        when(jdbcTemplate.update(startsWith("UPDATE outboxevents SET Status = 'DONE'"), any(), any(), any()))
+                .thenReturn(0);
+
+        service.process(event());
+
+        assertThat(status.isRollbackOnly()).isTrue();
+        verify(jdbcTemplate, never()).update(startsWith("UPDATE outboxevents SET Status = ?"), any(Object[].class));
+    }
+}
@@ -0,0 +1,269 @@
+package com.rasras.erp.shared.pdf;
+
+import com.rasras.erp.shared.dto.PdfExportJobDto;
+import com.rasras.erp.shared.exception.BadRequestException;
+import com.rasras.erp.shared.exception.ResourceNotFoundException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PdfBulkExportServiceTest {
+
+    private static final PdfExportFilter PERIOD =
+            new PdfExportFilter(LocalDate.of(2025, 1, 1), LocalDate.of(2025, 12, 31), null, null);
+    private static final List<GrantedAuthority> BUYER = List.of(new SimpleGrantedAuthority("SECTION_PROCUREMENT"));
+    private static final List<GrantedAuthority> ACCOUNTANT = List.of(new SimpleGrantedAuthority("SECTION_FINANCE"));
+
+    @TempDir
+    Path dir;
+
+    private final FakeSource source = new FakeSource(40);
+    private PdfBulkExportService service;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        service = new PdfBulkExportService(List.of(source));
+        ReflectionTestUtils.setField(service, "threads", 3);
+        ReflectionTestUtils.setField(service, "maxSyncDocuments", 50);
+        ReflectionTestUtils.setField(service, "directory", dir.toString());
+        service.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    private static Map<String, byte[]> unzip(byte[] zip) throws Exception {
+        Map<String, byte[]> entries = new LinkedHashMap<>();
+        try (ZipInputStream in = new ZipInputStream(new ByteArrayInputStream(zip))) {
+            ZipEntry entry;
+            while ((entry = in.getNextEntry()) != null) {
+                entries.put(entry.getName(), in.readAllBytes());
+            }
+        }
+        return entries;
+    }
+
+    @Test
+    @DisplayName("streams every document into the ZIP while keeping renders bounded by the pool")
+    void streamsAllDocuments() throws Exception {
+        List<Integer> ids = service.findForDirectExport("purchase_order", PERIOD, BUYER);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        service.writeZip("PURCHASE_ORDER", ids, () -> out);
+
+        Map<String, byte[]> entries = unzip(out.toByteArray());
+        assertThat(entries).hasSize(40).containsKey("PO_7.pdf");
+        assertThat(new String(entries.get("PO_7.pdf"), StandardCharsets.UTF_8)).isEqualTo("pdf-7");
+        assertThat(source.maxConcurrent.get()).isLessThanOrEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("a failed document is listed in errors.txt and does not stop the export")
+    void failedDocumentGoesToErrors() throws Exception {
+        source.failingId = 5;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        service.writeZip("PURCHASE_ORDER", source.ids, () -> out);
+
+        Map<String, byte[]> entries = unzip(out.toByteArray());
+        assertThat(entries).hasSize(40).doesNotContainKey("PO_5.pdf");
+        assertThat(new String(entries.get("errors.txt"), StandardCharsets.UTF_8)).contains("PURCHASE_ORDER 5: boom");
+    }
+
+    @Test
+    @DisplayName("direct export rejects unknown types, missing periods and periods above the limit")
+    void directExportValidation() {
+        assertThatThrownBy(() -> service.findForDirectExport("SALES_ORDER", PERIOD, BUYER))
+                .isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> service.findForDirectExport("PURCHASE_ORDER",
+                new PdfExportFilter(LocalDate.of(2025, 2, 1), LocalDate.of(2025, 1, 1), null, null), BUYER))
+                .isInstanceOf(BadRequestException.class);
+
+        ReflectionTestUtils.setField(service, "maxSyncDocuments", 10);
+        assertThatThrownBy(() -> service.findForDirectExport("PURCHASE_ORDER", PERIOD, BUYER))
+                .isInstanceOf(BadRequestException.class);
+    }
+
+    @Test
+    @DisplayName("each document type needs its own view permission, for listing, direct export and jobs")
+    void perDocumentPermissions() {
+        assertThat(service.documentTypes(BUYER)).containsExactly("PURCHASE_ORDER");
+        assertThat(service.documentTypes(ACCOUNTANT)).isEmpty();
+
+        assertThatThrownBy(() -> service.findForDirectExport("PURCHASE_ORDER", PERIOD, ACCOUNTANT))
+                .isInstanceOf(AccessDeniedException.class);
+        assertThatThrownBy(() -> service.startJob("PURCHASE_ORDER", PERIOD, "accountant", ACCOUNTANT))
+                .isInstanceOf(AccessDeniedException.class);
+        assertThat(source.rendered.get()).isZero();
+    }
+
+    @Test
+    @DisplayName("a direct export holds its slot only while writing; a rejected one never opens the response")
+    void directExportsAreCapped() throws Exception {
+        service.shutdown();
+        ReflectionTestUtils.setField(service, "maxDirectExports", 1);
+        service.start();
+        List<Integer> ids = service.findForDirectExport("PURCHASE_ORDER", PERIOD, BUYER);
+        // اختيار المعرفات لا يحجز مكاناً
+        assertThat(service.findForDirectExport("PURCHASE_ORDER", PERIOD, BUYER)).hasSize(40);
+
+        source.gate = new CountDownLatch(1);
+        CountDownLatch writing = new CountDownLatch(1);
+        CompletableFuture<Void> running = CompletableFuture.runAsync(() -> {
+            try {
+                service.writeZip("PURCHASE_ORDER", ids, () -> {
+                    writing.countDown();
+                    return new ByteArrayOutputStream();
+                });
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        assertThat(writing.await(10, TimeUnit.SECONDS)).isTrue();
+
+        AtomicInteger opened = new AtomicInteger();
+        assertThatThrownBy(() -> service.writeZip("PURCHASE_ORDER", ids, () -> {
+            opened.incrementAndGet();
+            return new ByteArrayOutputStream();
+        })).isInstanceOf(BadRequestException.class);
+        assertThat(opened).hasValue(0);
+
+        source.gate.countDown();
+        running.get(10, TimeUnit.SECONDS);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        service.writeZip("PURCHASE_ORDER", ids, () -> out);
+        assertThat(unzip(out.toByteArray())).hasSize(40);
+    }
+
+    @Test
+    @DisplayName("a failed write still frees the slot")
+    void failedWriteReleasesSlot() throws Exception {
+        service.shutdown();
+        ReflectionTestUtils.setField(service, "maxDirectExports", 1);
+        service.start();
+        List<Integer> ids = service.findForDirectExport("PURCHASE_ORDER", PERIOD, BUYER);
+
+        assertThatThrownBy(() -> service.writeZip("PURCHASE_ORDER", ids, () -> {
+            throw new IOException("client gone");
+        })).isInstanceOf(IOException.class);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        service.writeZip("PURCHASE_ORDER", ids, () -> out);
+        assertThat(unzip(out.toByteArray())).hasSize(40);
+    }
+
+    @Test
+    @DisplayName("new jobs are rejected above max-running-jobs and above the per-user limit")
+    void jobsAreCapped() throws Exception {
+        source.gate = new CountDownLatch(1);
+
+        service.startJob("PURCHASE_ORDER", PERIOD, "auditor", BUYER);
+        assertThatThrownBy(() -> service.startJob("PURCHASE_ORDER", PERIOD, "auditor", BUYER))
+                .isInstanceOf(BadRequestException.class);
+        service.startJob("PURCHASE_ORDER", PERIOD, "buyer", BUYER);
+        assertThatThrownBy(() -> service.startJob("PURCHASE_ORDER", PERIOD, "third", BUYER))
+                .isInstanceOf(BadRequestException.class);
+
+        source.gate.countDown();
+    }
+
+    @Test
+    @DisplayName("async job reports progress and its ZIP is downloadable only by its owner")
+    void asyncJob() throws Exception {
+        PdfExportJobDto started = service.startJob("PURCHASE_ORDER", PERIOD, "auditor", BUYER);
+        assertThat(started.getTotal()).isEqualTo(40);
+
+        PdfExportJobDto job = started;
+        for (int i = 0; i < 200 && !PdfBulkExportService.STATUS_COMPLETED.equals(job.getStatus()); i++) {
+            Thread.sleep(25);
+            job = service.getJob(started.getJobId(), "auditor");
+        }
+
+        assertThat(job.getStatus()).isEqualTo(PdfBulkExportService.STATUS_COMPLETED);
+        assertThat(job.getCompleted()).isEqualTo(40);
+        Path file = service.getJobFile(started.getJobId(), "auditor");
+        assertThat(unzip(Files.readAllBytes(file))).hasSize(40);
+        assertThatThrownBy(() -> service.getJob(started.getJobId(), "someone-else"))
+                .isInstanceOf(ResourceNotFoundException.class);
+    }
+
+    private static final class FakeSource implements PdfExportSource {
+        private final List<Integer> ids;
+        private final AtomicInteger running = new AtomicInteger();
+        private final AtomicInteger maxConcurrent = new AtomicInteger();
+        private final AtomicInteger rendered = new AtomicInteger();
+        private volatile Integer failingId;
+        private volatile CountDownLatch gate;
+
+        private FakeSource(int count) {
+            this.ids = IntStream.rangeClosed(1, count).boxed().toList();
+        }
+
+        @Override
+        public String documentType() {
+            return "PURCHASE_ORDER";
+        }
+
+        @Override
+        public Set<String> requiredAuthorities() {
+            return Set.of("SECTION_PROCUREMENT");
+        }
+
+        @Override
+        public List<Integer> findIds(PdfExportFilter filter) {
+            return ids;
+        }
+
+        @Override
+        public PdfExportDocument render(Integer id) {
+            maxConcurrent.accumulateAndGet(running.incrementAndGet(), Math::max);
+            rendered.incrementAndGet();
+            try {
+                if (gate != null) {
+                    gate.await(10, TimeUnit.SECONDS);
+                }
+                Thread.sleep(2);
+                if (id.equals(failingId)) {
+                    throw new IllegalStateException("boom");
+                }
+                return new PdfExportDocument("PO_" + id + ".pdf", ("pdf-" + id).getBytes(StandardCharsets.UTF_8));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            } finally {
+                running.decrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.rasras.erp.shared.pdf;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rasras.erp.company.CompanyInfo;
+import com.rasras.erp.company.CompanyInfoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PdfRenderCacheTest {
+
+    @TempDir
+    Path dir;
+
+    private final CompanyInfoRepository companyInfoRepository = mock(CompanyInfoRepository.class);
+    private PdfRenderCache cache;
+    private final AtomicInteger renders = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        companyIs("RasRas Plastics");
+        cache = new PdfRenderCache(new ObjectMapper().findAndRegisterModules(), companyInfoRepository);
+        ReflectionTestUtils.setField(cache, "directory", dir.toString());
+        ReflectionTestUtils.setField(cache, "maxSizeMb", 1L);
+        cache.init();
+    }
+
+    private void companyIs(String name) {
+        when(companyInfoRepository.findTopByOrderByIdAsc())
+                .thenReturn(Optional.of(CompanyInfo.builder().id(1).companyNameAr(name).build()));
+    }
+
+    private ResponseEntity<StreamingResponseBody> download(int id, Object document, String ifNoneMatch, int size) {
+        return cache.serve("PURCHASE_ORDER", id, document, "po.pdf", ifNoneMatch, () -> {
+            renders.incrementAndGet();
+            byte[] pdf = new byte[size];
+            Arrays.fill(pdf, (byte) id);
+            return pdf;
+        });
+    }
+
+    private static byte[] body(ResponseEntity<StreamingResponseBody> response) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+        return out.toByteArray();
+    }
+
+    private long cachedFiles() throws Exception {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(f -> f.toString().endsWith(".pdf")).count();
+        }
+    }
+
+    @Test
+    @DisplayName("second download of the same document version is served from disk without rendering")
+    void servesCachedFile() throws Exception {
+        Map<String, Object> po = Map.of("poNumber", "PO-1", "status", "Approved");
+
+        ResponseEntity<StreamingResponseBody> first = download(1, po, null, 1000);
+        byte[] rendered = body(first);
+        ResponseEntity<StreamingResponseBody> second = download(1, po, null, 1000);
+
+        assertThat(renders).hasValue(1);
+        assertThat(body(second)).isEqualTo(rendered).hasSize(1000);
+        assertThat(second.getHeaders().getContentLength()).isEqualTo(1000);
+        assertThat(second.getHeaders().getETag()).isEqualTo(first.getHeaders().getETag());
+        assertThat(second.getHeaders().getFirst(HttpHeaders.CONTENT_DISPOSITION)).contains("po.pdf");
+    }
+
+    @Test
+    @DisplayName("If-None-Match with the current ETag returns 304 without rendering")
+    void notModified() {
+        Map<String, Object> po = Map.of("poNumber", "PO-1");
+        String etag = download(1, po, null, 100).getHeaders().getETag();
+
+        ResponseEntity<StreamingResponseBody> response = download(1, po, "W/\"other\", " + etag, 100);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(response.getBody()).isNull();
+        assertThat(renders).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("a changed document gets a new ETag and replaces the old cached version")
+    void documentChangeInvalidates() throws Exception {
+        String oldEtag = download(1, Map.of("status", "Draft"), null, 100).getHeaders().getETag();
+
+        ResponseEntity<StreamingResponseBody> response = download(1, Map.of("status", "Approved"), oldEtag, 100);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().getETag()).isNotEqualTo(oldEtag);
+        assertThat(renders).hasValue(2);
+        assertThat(cachedFiles()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("changed company info (header and footer) gives every document a new ETag, whoever made the change")
+    void companyInfoChangeInvalidates() throws Exception {
+        Map<String, Object> po = Map.of("poNumber", "PO-1");
+        String etag = download(1, po, null, 100).getHeaders().getETag();
+
+        companyIs("RasRas Plastics Trading");
+        ResponseEntity<StreamingResponseBody> response = download(1, po, etag, 100);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().getETag()).isNotEqualTo(etag);
+        assertThat(renders).hasValue(2);
+        assertThat(cachedFiles()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("a new day gives every document a new ETag so the printed extraction date is never stale")
+    void newDayInvalidates() throws Exception {
+        Map<String, Object> po = Map.of("poNumber", "PO-1");
+        ReflectionTestUtils.setField(cache, "clock", Clock.fixed(Instant.parse("2025-03-01T10:00:00Z"), ZoneOffset.UTC));
+        String etag = download(1, po, null, 100).getHeaders().getETag();
+
+        ReflectionTestUtils.setField(cache, "clock", Clock.fixed(Instant.parse("2025-03-02T08:00:00Z"), ZoneOffset.UTC));
+        ResponseEntity<StreamingResponseBody> response = download(1, po, etag, 100);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().getETag()).isNotEqualTo(etag);
+        assertThat(renders).hasValue(2);
+        assertThat(cachedFiles()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("a cached file deleted outside the application is rendered again instead of failing")
+    void missingFileRerenders() throws Exception {
+        Map<String, Object> po = Map.of("poNumber", "PO-1");
+        download(1, po, null, 100);
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+
+        assertThat(body(download(1, po, null, 100))).hasSize(100);
+        assertThat(renders).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("invalidateAll frees the stored files; the next download re-renders under the same ETag")
+    void invalidateAllDropsFiles() throws Exception {
+        Map<String, Object> po = Map.of("poNumber", "PO-1");
+        String etag = download(1, po, null, 100).getHeaders().getETag();
+
+        cache.invalidateAll();
+        assertThat(cachedFiles()).isZero();
+        ResponseEntity<StreamingResponseBody> response = download(1, po, null, 100);
+
+        assertThat(response.getHeaders().getETag()).isEqualTo(etag);
+        assertThat(renders).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("total size stays under the limit by evicting the least recently used file")
+    void evictsLeastRecentlyUsed() throws Exception {
+        int size = 400 * 1024;
+        download(1, Map.of("n", 1), null, size);
+        download(2, Map.of("n", 2), null, size);
+        download(1, Map.of("n", 1), null, size); // 1 أحدث استخداماً من 2
+        download(3, Map.of("n", 3), null, size);
+
+        assertThat(cachedFiles()).isEqualTo(2);
+        assertThat(renders).hasValue(3);
+        download(1, Map.of("n", 1), null, size);
+        assertThat(renders).hasValue(3);
+        download(2, Map.of("n", 2), null, size);
+        assertThat(renders).hasValue(4);
+    }
+}
@@ -0,0 +1,96 @@
+package com.rasras.erp.shared.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JwtTokenProviderTest {
+
+    private static final String SECRET = "test-secret-key-that-is-long-enough-for-hmac-sha-256";
+
+    private JwtTokenProvider provider;
+
+    @BeforeEach
+    void setUp() {
+        provider = provider(60_000);
+    }
+
+    private static JwtTokenProvider provider(long expirationMs) {
+        JwtTokenProvider provider = new JwtTokenProvider();
+        ReflectionTestUtils.setField(provider, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(provider, "jwtExpirationMs", expirationMs);
+        ReflectionTestUtils.setField(provider, "refreshExpirationMs", expirationMs);
+        ReflectionTestUtils.setField(provider, "verifiedCacheSize", 2);
+        provider.init();
+        return provider;
+    }
+
+    private static UserPrincipal user(String username) {
+        return new UserPrincipal(1, username, "hash", null, true, false, List.of());
+    }
+
+    @Test
+    @DisplayName("verifies a token once and reuses the claims for later requests")
+    void reusesVerifiedClaims() {
+        String token = provider.generateToken(Map.of(), user("ahmed"));
+
+        Claims first = provider.parseVerified(token);
+        Claims second = provider.parseVerified(token);
+
+        assertThat(second).isSameAs(first);
+        assertThat(first.getSubject()).isEqualTo("ahmed");
+        assertThat(provider.isTokenValid(first, user("ahmed"))).isTrue();
+        assertThat(provider.isTokenValid(first, user("other"))).isFalse();
+    }
+
+    @Test
+    @DisplayName("rejects tampered and expired tokens")
+    void rejectsInvalidTokens() {
+        String token = provider.generateToken(Map.of(), user("ahmed"));
+        provider.parseVerified(token);
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+        String expired = provider(-1_000).generateToken(Map.of(), user("ahmed"));
+
+        assertThatThrownBy(() -> provider.parseVerified(tampered)).isInstanceOf(JwtException.class);
+        assertThatThrownBy(() -> provider.parseVerified(expired)).isInstanceOf(JwtException.class);
+    }
+
+    @Test
+    @DisplayName("still verifies tokens evicted from the bounded cache")
+    void boundedCache() {
+        String a = provider.generateToken(Map.of("n", 1), user("a"));
+        String b = provider.generateToken(Map.of("n", 2), user("b"));
+        String c = provider.generateToken(Map.of("n", 3), user("c"));
+
+        Claims first = provider.parseVerified(a);
+        provider.parseVerified(b);
+        provider.parseVerified(c);
+
+        Claims again = provider.parseVerified(a);
+        assertThat(again).isNotSameAs(first);
+        assertThat(again.getSubject()).isEqualTo("a");
+    }
+
+    @Test
+    @DisplayName("a full cache drops expired tokens first and keeps the live ones")
+    void fullCacheDropsExpiredFirst() throws InterruptedException {
+        String live = provider.generateToken(Map.of(), user("a"));
+        String shortLived = provider(1_000).generateToken(Map.of(), user("b"));
+        Claims liveClaims = provider.parseVerified(live);
+        provider.parseVerified(shortLived);
+
+        Thread.sleep(2_100);
+        provider.parseVerified(provider.generateToken(Map.of(), user("c")));
+
+        assertThat(provider.parseVerified(live)).isSameAs(liveClaims);
+    }
+}
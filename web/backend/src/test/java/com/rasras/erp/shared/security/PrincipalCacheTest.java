@@ -0,0 +1,105 @@
+package com.rasras.erp.shared.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PrincipalCacheTest {
+
+    @Mock
+    private UserDetailsService userDetailsService;
+
+    private PrincipalCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new PrincipalCache(userDetailsService);
+    }
+
+    private static UserPrincipal principal(String username) {
+        return new UserPrincipal(1, username, "hash", null, true, false, List.of());
+    }
+
+    @Test
+    @DisplayName("loads once and serves repeated requests from memory")
+    void cachesPrincipal() {
+        when(userDetailsService.loadUserByUsername("ahmed")).thenReturn(principal("ahmed"));
+
+        UserDetails first = cache.get("ahmed");
+        UserDetails second = cache.get("ahmed");
+
+        assertThat(second).isSameAs(first);
+        verify(userDetailsService, times(1)).loadUserByUsername("ahmed");
+        assertThat(cache.getStats().getHits()).isEqualTo(1);
+        assertThat(cache.getStats().getMisses()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("evicting a user or all users forces a reload")
+    void evictionReloads() {
+        when(userDetailsService.loadUserByUsername("ahmed")).thenReturn(principal("ahmed"));
+
+        cache.get("ahmed");
+        cache.evict("ahmed");
+        cache.get("ahmed");
+        cache.evictAll();
+        cache.get("ahmed");
+
+        verify(userDetailsService, times(3)).loadUserByUsername("ahmed");
+    }
+
+    @Test
+    @DisplayName("evicting one user keeps every other cached user and the global security version")
+    void evictIsPerUser() {
+        when(userDetailsService.loadUserByUsername("ahmed")).thenReturn(principal("ahmed"));
+        when(userDetailsService.loadUserByUsername("sara")).thenReturn(principal("sara"));
+
+        cache.get("ahmed");
+        cache.get("sara");
+        cache.evict("ahmed");
+        cache.get("sara");
+        cache.get("ahmed");
+
+        verify(userDetailsService, times(1)).loadUserByUsername("sara");
+        verify(userDetailsService, times(2)).loadUserByUsername("ahmed");
+        assertThat(cache.getStats().getSecurityVersion()).isZero();
+    }
+
+    @Test
+    @DisplayName("does not keep a principal loaded before a concurrent eviction")
+    void staleLoadIsNotCached() {
+        when(userDetailsService.loadUserByUsername("ahmed")).thenAnswer(inv -> {
+            cache.evict("ahmed");
+            return principal("ahmed");
+        }).thenReturn(principal("ahmed"));
+
+        cache.get("ahmed");
+        cache.get("ahmed");
+
+        verify(userDetailsService, times(2)).loadUserByUsername("ahmed");
+    }
+
+    @Test
+    @DisplayName("locked or inactive users are rejected and never cached")
+    void rejectedUserNotCached() {
+        when(userDetailsService.loadUserByUsername("locked"))
+                .thenThrow(new UsernameNotFoundException("User is locked: locked"));
+
+        assertThatThrownBy(() -> cache.get("locked")).isInstanceOf(UsernameNotFoundException.class);
+        assertThatThrownBy(() -> cache.get("locked")).isInstanceOf(UsernameNotFoundException.class);
+        assertThat(cache.getStats().getSize()).isZero();
+    }
+}
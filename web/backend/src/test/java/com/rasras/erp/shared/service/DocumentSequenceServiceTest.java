@@ -0,0 +1,130 @@
+package com.rasras.erp.shared.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DocumentSequenceServiceTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private DocumentSequenceService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new DocumentSequenceService(jdbcTemplate, mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(service, "blockSize", 20);
+        ReflectionTestUtils.setField(service, "fiscalYearStartMonth", 1);
+        when(jdbcTemplate.update(startsWith("UPDATE documentsequences"), any(Object[].class))).thenReturn(1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+    }
+
+    private void counterRowExists(boolean exists) {
+        when(jdbcTemplate.queryForObject(startsWith("SELECT COUNT(*)"), eq(Integer.class), any(Object[].class)))
+                .thenReturn(exists ? 1 : 0);
+    }
+
+    @Test
+    @DisplayName("format fills fiscal year, month and zero-padded sequence and leaves unknown tokens as they are")
+    void formatPatterns() {
+        LocalDate date = LocalDate.of(2025, 11, 3);
+
+        assertThat(DocumentSequenceService.format("TRF-{YYYY}{MM}-{SEQ:3}", 7, 2026, date)).isEqualTo("TRF-202611-007");
+        assertThat(DocumentSequenceService.format("ITEM-{SEQ:5}", 42, 2025, date)).isEqualTo("ITEM-00042");
+        assertThat(DocumentSequenceService.format("INV-{YY}/{SEQ}", 1234, 2026, date)).isEqualTo("INV-26/1234");
+        assertThat(DocumentSequenceService.format("ADJ-{SEQ:3}", 12345, 2025, date)).isEqualTo("ADJ-12345");
+        assertThat(DocumentSequenceService.format("#GRN-{SEQ}", 9, 2025, date)).isEqualTo("#GRN-9");
+        assertThat(DocumentSequenceService.format("X-{FOO}-{SEQ}", 1, 2025, date)).isEqualTo("X-{FOO}-1");
+        assertThat(DocumentSequenceService.format("X-{SEQ", 1, 2025, date)).isEqualTo("X-{SEQ");
+    }
+
+    @Test
+    @DisplayName("the fiscal year rolls over at the configured start month")
+    void fiscalYear() {
+        assertThat(service.fiscalYearOf(LocalDate.of(2025, 12, 31))).isEqualTo(2025);
+
+        ReflectionTestUtils.setField(service, "fiscalYearStartMonth", 7);
+        assertThat(service.fiscalYearOf(LocalDate.of(2025, 6, 30))).isEqualTo(2025);
+        assertThat(service.fiscalYearOf(LocalDate.of(2025, 7, 1))).isEqualTo(2026);
+    }
+
+    @Test
+    @DisplayName("strict numbering is one locking UPDATE with LAST_INSERT_ID and no insert for an existing counter")
+    void strictUsesSingleUpdate() {
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        counterRowExists(true);
+        when(jdbcTemplate.queryForObject("SELECT LAST_INSERT_ID()", Long.class)).thenReturn(43L, 44L);
+
+        assertThat(service.next(DocumentType.SALES_INVOICE)).isEqualTo("INV-42");
+        assertThat(service.next(DocumentType.SALES_INVOICE)).isEqualTo("INV-43");
+
+        verify(jdbcTemplate, never()).update(startsWith("INSERT"), any(Object[].class));
+        verify(jdbcTemplate, times(2)).update(eq("UPDATE documentsequences SET NextValue = "
+                + "LAST_INSERT_ID(NextValue + ?), UpdatedAt = ? WHERE SequenceKey = ? AND FiscalYear = ?"),
+                eq(1), any(), eq("SALES_INVOICE"), eq(0));
+        // وجود الصف يُفحص مرة واحدة فقط
+        verify(jdbcTemplate, times(1)).queryForObject(startsWith("SELECT COUNT(*)"), eq(Integer.class),
+                any(Object[].class));
+    }
+
+    @Test
+    @DisplayName("a missing counter row is created before the locking UPDATE, never after it")
+    void missingRowCreatedFirst() {
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        counterRowExists(false);
+        when(jdbcTemplate.queryForObject("SELECT LAST_INSERT_ID()", Long.class)).thenReturn(2L);
+
+        assertThat(service.next(DocumentType.SALES_INVOICE)).isEqualTo("INV-1");
+
+        InOrder order = inOrder(jdbcTemplate);
+        order.verify(jdbcTemplate).update(startsWith("INSERT IGNORE INTO documentsequences"), any(Object[].class));
+        order.verify(jdbcTemplate).update(startsWith("UPDATE documentsequences"), any(Object[].class));
+    }
+
+    @Test
+    @DisplayName("strict numbering outside a transaction is refused")
+    void strictRequiresTransaction() {
+        assertThatThrownBy(() -> service.next(DocumentType.SALES_INVOICE)).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    @DisplayName("regular types hand out a reserved block from memory")
+    void blockNumbering() {
+        counterRowExists(true);
+        when(jdbcTemplate.queryForObject("SELECT LAST_INSERT_ID()", Long.class)).thenReturn(121L, 141L);
+
+        List<String> firstBlock = IntStream.range(0, 20).mapToObj(i -> service.next(DocumentType.PURCHASE_ORDER))
+                .toList();
+        assertThat(firstBlock).startsWith("PO-101").endsWith("PO-120").doesNotHaveDuplicates();
+        assertThat(service.next(DocumentType.PURCHASE_ORDER)).isEqualTo("PO-121");
+
+        verify(jdbcTemplate, times(2)).update(startsWith("UPDATE documentsequences"), eq(20), any(), anyString(),
+                eq(0));
+    }
+}
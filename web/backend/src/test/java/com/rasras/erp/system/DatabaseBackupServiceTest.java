@@ -0,0 +1,128 @@
+package com.rasras.erp.system;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DatabaseBackupServiceTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    @DisplayName("pump gzips the dump, counts bytes and checksums exactly what was written")
+    void pumpCompressesAndChecksums() throws Exception {
+        byte[] dump = "INSERT INTO items VALUES (1,'a');\n".repeat(20_000).getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        AtomicLong dumped = new AtomicLong();
+        AtomicLong written = new AtomicLong();
+
+        DatabaseBackupService.BackupResult result =
+                DatabaseBackupService.pump(new ByteArrayInputStream(dump), out, true, dumped, written, () -> { });
+
+        byte[] gz = out.toByteArray();
+        assertThat(result.dumpedBytes()).isEqualTo(dump.length).isEqualTo(dumped.get());
+        assertThat(result.writtenBytes()).isEqualTo(gz.length).isEqualTo(written.get()).isLessThan(dump.length);
+        assertThat(result.sha256()).isEqualTo(HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(gz)));
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(gz))) {
+            assertThat(in.readAllBytes()).isEqualTo(dump);
+        }
+    }
+
+    @Test
+    @DisplayName("plain mode streams the dump unchanged")
+    void pumpPlain() throws Exception {
+        byte[] dump = "CREATE TABLE t (id INT);\n".getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        DatabaseBackupService.pump(new ByteArrayInputStream(dump), out, false, new AtomicLong(), new AtomicLong(),
+                () -> { });
+
+        assertThat(out.toByteArray()).isEqualTo(dump);
+    }
+
+    @Test
+    @DisplayName("a dump that exits non-zero leaves an unfinished gzip that fails to decompress")
+    void failedDumpLeavesUnfinishedGzip() throws Exception {
+        byte[] dump = "INSERT INTO items VALUES (1,'a');\n".repeat(20_000).getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        assertThatThrownBy(() -> DatabaseBackupService.pump(new ByteArrayInputStream(dump), out, true,
+                new AtomicLong(), new AtomicLong(), () -> {
+                    throw new RuntimeException("Backup failed (Exit Code: 2)");
+                })).hasMessageContaining("Exit Code: 2");
+
+        assertThatThrownBy(() -> {
+            try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+                in.readAllBytes();
+            }
+        }).isInstanceOf(EOFException.class);
+    }
+
+    @Test
+    @DisplayName("a failed local backup records the error and releases the running flag")
+    void failedBackupReleasesRunning() {
+        DatabaseService databaseService = mock(DatabaseService.class);
+        when(databaseService.getDatabaseName()).thenReturn("erp");
+        DatabaseBackupService service = new DatabaseBackupService(databaseService);
+        ReflectionTestUtils.setField(service, "mysqldumpPath", dir.resolve("missing-mysqldump").toString());
+        ReflectionTestUtils.setField(service, "backupDir", dir.toString());
+
+        assertThatThrownBy(service::backupToDirectory).isInstanceOf(IOException.class);
+        assertThatThrownBy(service::backupToDirectory).isInstanceOf(IOException.class);
+
+        DatabaseBackupStatusDto status = service.getStatus();
+        assertThat(status.isRunning()).isFalse();
+        assertThat(status.isLastSuccess()).isFalse();
+    }
+
+    @Test
+    @DisplayName("mysqldump runs with a consistent snapshot and row-by-row reads")
+    void dumpCommandUsesSingleTransaction() {
+        DatabaseBackupService service = new DatabaseBackupService(mock(DatabaseService.class));
+
+        assertThat(service.dumpCommand("backup_user", "erp"))
+                .contains("--single-transaction", "--quick", "-ubackup_user")
+                .endsWith("erp")
+                .noneMatch(arg -> arg.startsWith("-p"));
+    }
+
+    @Test
+    @DisplayName("only the newest N generations and their checksum files are kept")
+    void keepsNewestGenerations() throws Exception {
+        for (String stamp : new String[] {"20250101_020000", "20250102_020000", "20250103_020000", "20250104_020000"}) {
+            Files.writeString(dir.resolve("backup_" + stamp + ".sql.gz"), stamp);
+            Files.writeString(dir.resolve("backup_" + stamp + ".sql.gz.sha256"), "x");
+        }
+        Files.writeString(dir.resolve("notes.txt"), "keep me");
+
+        DatabaseBackupService.deleteOldGenerations(dir, 2);
+
+        try (Stream<Path> files = Files.list(dir)) {
+            assertThat(files.map(p -> p.getFileName().toString()).sorted()).containsExactly(
+                    "backup_20250103_020000.sql.gz", "backup_20250103_020000.sql.gz.sha256",
+                    "backup_20250104_020000.sql.gz", "backup_20250104_020000.sql.gz.sha256",
+                    "notes.txt");
+        }
+    }
+}
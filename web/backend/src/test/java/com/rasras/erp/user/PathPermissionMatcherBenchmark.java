@@ -0,0 +1,108 @@
+package com.rasras.erp.user;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * قرار صلاحية المسار لكل طلب: الشجرة مع كاش القرارات، الشجرة بلا كاش، والمسح الخطي القديم بـ AntPathMatcher.
+ * seeded = قواعد DataSeeder، production = قواعد قاعدة الإنتاج (PathPermissionMatcherTest).
+ * <p>
+ * mvn -Pbenchmark test-compile exec:exec -Dbenchmark=PathPermissionMatcherBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PathPermissionMatcherBenchmark {
+
+    /** مسارات طلبات نموذجية بمعرفات مختلفة حتى لا يطابق كل طلب نفس مفتاح الكاش حرفياً */
+    private static final String[][] REQUESTS = {
+            { "GET", "/api/inventory/items/%d" },
+            { "POST", "/api/inventory/grn/%d/items" },
+            { "GET", "/api/procurement/purchase-orders/%d" },
+            { "PUT", "/api/journal-entries/%d" },
+            { "POST", "/api/journal-entries/%d/post" },
+            { "GET", "/api/approvals/pending" },
+            { "GET", "/api/settings/database/backup" },
+            { "GET", "/api/employees/%d" },
+            { "GET", "/api/sales/invoices/%d" },
+            { "GET", "/api/unknown/%d" },
+    };
+
+    @Param({ "seeded", "production" })
+    public String ruleSet;
+
+    private PathPermissionMatcher cached;
+    private PathPermissionMatcher uncached;
+    private List<PathPermissionMatcher.Rule> rules;
+    private String[] methods;
+    private String[] paths;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<PathPermission> ordered = PathPermissionMatcherTest.byPriority(
+                "seeded".equals(ruleSet) ? seededRules() : PathPermissionMatcherTest.productionRules());
+        cached = new PathPermissionMatcher(ordered, 10_000);
+        uncached = new PathPermissionMatcher(ordered, 0);
+        rules = cached.rules();
+
+        int count = 1024;
+        methods = new String[count];
+        paths = new String[count];
+        for (int i = 0; i < count; i++) {
+            String[] request = REQUESTS[i % REQUESTS.length];
+            methods[i] = request[0];
+            paths[i] = String.format(request[1], 1000 + i);
+        }
+    }
+
+    private static List<PathPermission> seededRules() {
+        List<PathPermission> seeded = new ArrayList<>();
+        for (String[] rule : DataSeeder.PATH_RULES) {
+            seeded.add(PathPermissionMatcherTest.rule(rule[1], rule[0], Integer.parseInt(rule[3]), rule[2],
+                    PathType.API));
+        }
+        return seeded;
+    }
+
+    private int nextIndex() {
+        next = (next + 1) & (paths.length - 1);
+        return next;
+    }
+
+    @Benchmark
+    public void trieWithDecisionCache(Blackhole bh) {
+        int i = nextIndex();
+        bh.consume(cached.allowedPermissionCodes(paths[i], methods[i], PathType.API));
+    }
+
+    @Benchmark
+    public void trieWithoutCache(Blackhole bh) {
+        int i = nextIndex();
+        bh.consume(uncached.allowedPermissionCodes(paths[i], methods[i], PathType.API));
+    }
+
+    @Benchmark
+    public void legacyLinearScan(Blackhole bh) {
+        int i = nextIndex();
+        bh.consume(PathPermissionMatcher.linearScan(rules, paths[i], methods[i], PathType.API));
+    }
+}
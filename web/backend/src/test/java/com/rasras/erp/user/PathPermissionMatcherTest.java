@@ -0,0 +1,187 @@
+package com.rasras.erp.user;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PathPermissionMatcherTest {
+
+    /** قواعد path_permission كما في قاعدة الإنتاج (doc/rasrasplastics.sql) */
+    static final Object[][] PRODUCTION_RULES = {
+            {"GET", "/api/permissions/path-rules", 25, 110},
+            {"*", "/api/settings/database/**", 10, 33},
+            {"*", "/api/roles/**", 10, 34},
+            {"*", "/api/approval-limits/**", 10, 34},
+            {"*", "/api/settings/database/**", 20, 34},
+            {"*", "/api/settings/**", 10, 34},
+            {"GET", "/api/company", 10, 110},
+            {"PUT", "/api/company", 10, 34},
+            {"*", "/api/users/**", 10, 26},
+            {"*", "/api/procurement/**", 10, 33},
+            {"*", "/api/suppliers/**", 10, 33},
+            {"*", "/api/inventory/grn/**", 20, 33},
+            {"*", "/api/inventory/quality-parameters/**", 20, 30},
+            {"*", "/api/inventory/price-lists/**", 20, 30},
+            {"*", "/api/inventory/**", 10, 29},
+            {"*", "/api/units/**", 10, 29},
+            {"*", "/api/stock-movements/**", 10, 29},
+            {"*", "/api/sales/**", 10, 31},
+            {"*", "/api/finance/**", 10, 28},
+            {"GET", "/api/journal-entries/**", 10, 35},
+            {"POST", "/api/journal-entries", 20, 36},
+            {"POST", "/api/journal-entries/*/post", 20, 39},
+            {"PUT", "/api/journal-entries/**", 10, 37},
+            {"DELETE", "/api/journal-entries/**", 10, 38},
+            {"GET", "/api/employees/me", 25, 110},
+            {"PUT", "/api/employees/me", 25, 110},
+            {"GET", "/api/employees/list", 25, 110},
+            {"GET", "/api/employees/departments", 25, 110},
+            {"GET", "/api/employees/by-department", 25, 110},
+            {"GET", "/api/employees/by-role", 25, 110},
+            {"*", "/api/employees/**", 10, 27},
+            {"*", "/api/hr/**", 10, 27},
+            {"*", "/api/crm/**", 10, 32},
+            {"*", "/api/dashboard/**", 10, 110},
+            {"POST", "/api/upload", 10, 111},
+            {"GET", "/api/approvals/pending", 25, 110},
+            {"*", "/api/approvals/**", 10, 112},
+            {"*", "/api/procurement/**", 10, 31},
+            {"*", "/api/procurement/**", 10, 41},
+            {"*", "/api/suppliers/**", 10, 41},
+            {"*", "/api/suppliers/**", 10, 28},
+            {"*", "/api/crm/**", 10, 31},
+            {"*", "/api/units/**", 10, 41},
+            {"*", "/api/inventory/**", 10, 30},
+            {"*", "/api/inventory/**", 10, 41},
+            {"*", "/api/inventory/**", 10, 13},
+            {"*", "/api/inventory/grn/**", 20, 29},
+            {"*", "/api/inventory/grn/**", 20, 30},
+            {"*", "/api/inventory/grn/**", 20, 13},
+    };
+
+    private static final String[] METHODS = {"GET", "POST", "PUT", "DELETE", "PATCH", "get", null};
+
+    private static final String[] PATHS = {
+            "/api/permissions/path-rules", "/api/settings", "/api/settings/database/backup", "/api/settings/outbox/stats",
+            "/api/company", "/api/users/12", "/api/inventory/grn/5/items", "/api/inventory/items/77",
+            "/api/inventory/quality-parameters", "/api/inventory/price-lists/3", "/api/inventory",
+            "/api/journal-entries", "/api/journal-entries/5/post", "/api/journal-entries/5/post/extra",
+            "/api/journal-entries/5", "/api/employees/me", "/api/employees/17", "/api/approvals/pending",
+            "/api/approvals/42/action", "/api/approvals/stream", "/api/upload", "/api/unknown/1",
+            "/api/inventory/grn/", "/api//inventory", "api/inventory", "/", "/dashboard", "/sales/orders/9",
+            "/api/items/2024/report", "/api/items/abc/report", "/api/items/7.pdf",
+    };
+
+    static PathPermission rule(String method, String pattern, int priority, String code, PathType type) {
+        return PathPermission.builder()
+                .httpMethod(method)
+                .pathPattern(pattern)
+                .priority(priority)
+                .pathType(type)
+                .permission(Permission.builder().permissionCode(code).build())
+                .build();
+    }
+
+    static List<PathPermission> productionRules() {
+        List<PathPermission> rules = new ArrayList<>();
+        for (Object[] row : PRODUCTION_RULES) {
+            rules.add(rule((String) row[0], (String) row[1], (Integer) row[2], "PERM_" + row[3], PathType.API));
+        }
+        return rules;
+    }
+
+    static List<PathPermission> byPriority(List<PathPermission> rules) {
+        List<PathPermission> ordered = new ArrayList<>(rules);
+        ordered.sort(Comparator.comparing(PathPermission::getPriority).reversed());
+        return ordered;
+    }
+
+    private static void assertEquivalent(PathPermissionMatcher matcher) {
+        for (PathType type : PathType.values()) {
+            for (String method : METHODS) {
+                for (String path : PATHS) {
+                    Set<String> expected = PathPermissionMatcher.linearScan(matcher.rules(), path,
+                            method == null ? "*" : method.toUpperCase(), type);
+                    // مرتين: من الشجرة ثم من الكاش
+                    assertThat(matcher.allowedPermissionCodes(path, method, type))
+                            .as("%s %s %s", type, method, path)
+                            .containsExactlyElementsOf(expected);
+                    assertThat(matcher.allowedPermissionCodes(path, method, type))
+                            .containsExactlyElementsOf(expected);
+                }
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("production rule set")
+    class ProductionRules {
+
+        @Test
+        @DisplayName("matches the linear AntPathMatcher scan for every path and method")
+        void equivalentToLinearScan() {
+            assertEquivalent(new PathPermissionMatcher(byPriority(productionRules()), 10_000));
+        }
+
+        @Test
+        @DisplayName("unions all matching rules in priority order")
+        void unionInPriorityOrder() {
+            PathPermissionMatcher matcher = new PathPermissionMatcher(byPriority(productionRules()), 10_000);
+
+            assertThat(matcher.allowedPermissionCodes("/api/approvals/pending", "GET", PathType.API))
+                    .containsExactly("PERM_110", "PERM_112");
+            assertThat(matcher.allowedPermissionCodes("/api/journal-entries/5/post", "POST", PathType.API))
+                    .containsExactly("PERM_39");
+            assertThat(matcher.allowedPermissionCodes("/api/inventory/grn/9", "GET", PathType.API))
+                    .containsExactly("PERM_33", "PERM_29", "PERM_30", "PERM_13", "PERM_41");
+            assertThat(matcher.allowedPermissionCodes("/api/unknown", "GET", PathType.API)).isEmpty();
+        }
+
+        @Test
+        @DisplayName("returns immutable sets")
+        void immutableResult() {
+            PathPermissionMatcher matcher = new PathPermissionMatcher(byPriority(productionRules()), 10_000);
+            Set<String> codes = matcher.allowedPermissionCodes("/api/settings/x", "GET", PathType.API);
+
+            assertThatThrownBy(() -> codes.add("HACK")).isInstanceOf(UnsupportedOperationException.class);
+            assertThat(matcher.allowedPermissionCodes("/api/settings/x", "GET", PathType.API))
+                    .containsExactly("PERM_34");
+        }
+    }
+
+    @Nested
+    @DisplayName("mixed rule set")
+    class MixedRules {
+
+        @Test
+        @DisplayName("keeps AntPathMatcher semantics for variables, wildcards inside segments and numeric literals")
+        void equivalentWithPatternRules() {
+            List<PathPermission> rules = productionRules();
+            rules.add(rule("GET", "/api/items/{id}/report", 30, "ITEM_REPORT", PathType.API));
+            rules.add(rule("GET", "/api/items/*.pdf", 15, "ITEM_PDF", PathType.API));
+            rules.add(rule("*", "/api/items/2024/**", 15, "ITEM_2024", PathType.API));
+            rules.add(rule("*", "/dashboard", 10, "DASH", PathType.FRONTEND));
+            rules.add(rule("*", "/sales/**", 10, "SALES", PathType.FRONTEND));
+            rules.add(rule(null, "/api/inventory/grn/", 10, "TRAILING", PathType.API));
+
+            assertEquivalent(new PathPermissionMatcher(byPriority(rules), 10_000));
+        }
+
+        @Test
+        @DisplayName("stays correct when the decision cache overflows")
+        void tinyCache() {
+            List<PathPermission> rules = productionRules();
+            rules.add(rule("*", "/sales/**", 10, "SALES", PathType.FRONTEND));
+
+            assertEquivalent(new PathPermissionMatcher(byPriority(rules), 2));
+        }
+    }
+}
@@ -33,6 +33,8 @@ class RoleServicePermissionDependenciesTest {
     private com.rasras.erp.approval.ApprovalWorkflowStepRepository approvalWorkflowStepRepository;
     @Mock
     private com.rasras.erp.approval.ApprovalLimitRepository approvalLimitRepository;
+    @Mock
+    private com.rasras.erp.shared.security.PrincipalCache principalCache;
 
     @InjectMocks
     private RoleService roleService;
@@ -65,5 +67,6 @@ class RoleServicePermissionDependenciesTest {
         assertThat(list).hasSize(2);
         assertThat(list.stream().map(rp -> rp.getPermission().getPermissionCode()))
                 .containsExactlyInAnyOrder("MENU_OPERATIONS_ITEMS", "SECTION_WAREHOUSE");
+        verify(principalCache).evictAll();
     }
 }
@@ -117,7 +117,7 @@ const DatabaseSettingsPage: React.FC = () => {
         e.preventDefault();
         setIsDragging(false);
         const droppedFile = e.dataTransfer.files[0];
-        if (droppedFile && droppedFile.name.endsWith('.sql')) {
+        if (droppedFile && (droppedFile.name.endsWith('.sql') || droppedFile.name.endsWith('.sql.gz'))) {
             setFile(droppedFile);
         }
     }, []);
@@ -184,7 +184,7 @@ const DatabaseSettingsPage: React.FC = () => {
                 const url = window.URL.createObjectURL(blob);
                 const a = document.createElement('a');
                 a.href = url;
-                a.download = `backup_${new Date().toISOString().split('T')[0]}.sql`;
+                a.download = `backup_${new Date().toISOString().split('T')[0]}.sql.gz`;
                 document.body.appendChild(a);
                 a.click();
                 window.URL.revokeObjectURL(url);
@@ -903,7 +903,7 @@ const DatabaseSettingsPage: React.FC = () => {
                                 <input
                                     ref={fileInputRef}
                                     type="file"
-                                    accept=".sql"
+                                    accept=".sql,.gz"
                                     onChange={handleFileChange}
                                     className="hidden"
                                 />